@@ -1,12 +1,28 @@
 package com.project.graalrestservice.app.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.graalrestservice.domain.script.enumeration.ScriptExecutorMode;
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.model.ArchivedScript;
+import com.project.graalrestservice.domain.script.model.RetentionPolicy;
+import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.domain.script.service.service_implementation.JournaledScriptRepository;
+import com.project.graalrestservice.domain.script.service.service_implementation.ScriptRepositoryImpl;
+import com.project.graalrestservice.domain.script.service.service_implementation.TieredScriptRepository;
+import com.project.graalrestservice.domain.script.util.AdmissionControl;
+import com.project.graalrestservice.domain.script.util.ContextPool;
+import com.project.graalrestservice.domain.script.util.HostIntrinsics;
+import com.project.graalrestservice.domain.script.util.PriorityThreadPoolTaskExecutor;
+import com.project.graalrestservice.domain.script.util.ScriptTaskExecutor;
+import com.project.graalrestservice.domain.script.util.ScriptWatchdog;
+import com.project.graalrestservice.domain.script.util.SourceCache;
+import com.project.graalrestservice.domain.script.util.VirtualThreadTaskExecutor;
+import org.graalvm.polyglot.Engine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.zalando.problem.ProblemModule;
 import org.zalando.problem.violations.ConstraintViolationProblemModule;
 import springfox.documentation.builders.PathSelectors;
@@ -14,11 +30,13 @@ import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 
+import java.nio.file.Path;
+import java.util.function.Function;
+
 /**
  * Configuration class
  */
 @Configuration
-@EnableAsync
 public class CommonConfig {
 
   /**
@@ -33,22 +51,38 @@ public class CommonConfig {
   }
 
   /**
-   * Custom spring thread pool task executor
+   * Custom spring task executor for scripts. In {@link ScriptExecutorMode#PLATFORM PLATFORM} mode
+   * it is a thread pool with a priority queue, in {@link ScriptExecutorMode#VIRTUAL VIRTUAL} mode
+   * each script gets its own virtual thread
    *
+   * @param mode the way the scripts are executed
    * @param threadNamePrefix prefix for the name of new threads
-   * @param corePoolSize initial thread pool size
-   * @param maxPoolSize maximum thread pool size
+   * @param corePoolSize initial thread pool size (PLATFORM mode)
+   * @param maxPoolSize maximum thread pool size (PLATFORM mode)
    * @param queueCapacity the size of the queue, above which the size of the pool will increase to
-   *        the maximum
-   * @return TaskExecutor
+   *        the maximum (PLATFORM mode), or the number of scripts that can wait for an evaluation
+   *        permit (VIRTUAL mode)
+   * @param priorityAgingMillis waiting time in the queue that is worth one level of priority
+   *        (PLATFORM mode)
+   * @param maxConcurrentEvaluations maximum number of scripts evaluated at the same time (VIRTUAL
+   *        mode)
+   * @return ScriptTaskExecutor
    */
   @Bean
-  public TaskExecutor threadPoolTaskExecutor(
+  public ScriptTaskExecutor threadPoolTaskExecutor(
+      @Value("${scripts.executor.mode}") ScriptExecutorMode mode,
       @Value("${scripts.executor.threadNamePrefix}") String threadNamePrefix,
       @Value("${scripts.executor.corePoolSize}") int corePoolSize,
       @Value("${scripts.executor.maxPoolSize}") int maxPoolSize,
-      @Value("${scripts.executor.queueCapacity}") int queueCapacity) {
-    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+      @Value("${scripts.executor.queueCapacity}") int queueCapacity,
+      @Value("${scripts.executor.priorityAgingMillis}") long priorityAgingMillis,
+      @Value("${scripts.executor.virtual.maxConcurrentEvaluations}") int maxConcurrentEvaluations) {
+    if (mode == ScriptExecutorMode.VIRTUAL)
+      return new VirtualThreadTaskExecutor(
+          VirtualThreadTaskExecutor.virtualThreadPerTaskExecutor(threadNamePrefix),
+          maxConcurrentEvaluations, queueCapacity);
+    PriorityThreadPoolTaskExecutor executor =
+        new PriorityThreadPoolTaskExecutor(priorityAgingMillis);
     executor.setThreadNamePrefix(threadNamePrefix);
     executor.setCorePoolSize(corePoolSize);
     executor.setMaxPoolSize(maxPoolSize);
@@ -57,6 +91,195 @@ public class CommonConfig {
     return executor;
   }
 
+  /**
+   * Admission control that rejects new scripts before they are stored if the script executor is
+   * saturated
+   *
+   * @param scriptTaskExecutor executor of the scripts
+   * @param maxRetryAfterSeconds upper bound of the retry time returned to rejected clients
+   * @return AdmissionControl
+   */
+  @Bean
+  public AdmissionControl admissionControl(ScriptTaskExecutor scriptTaskExecutor,
+      @Value("${scripts.executor.admission.maxRetryAfterSeconds}") long maxRetryAfterSeconds) {
+    return new AdmissionControl(scriptTaskExecutor, maxRetryAfterSeconds);
+  }
+
+  /**
+   * Default execution limits of the scripts, which are used if the limits are not set in the run
+   * request. 0 means unlimited
+   *
+   * @param maxWallTimeMillis maximum time from the start of the execution
+   * @param maxCpuTimeMillis maximum CPU time of the script
+   * @param maxStatements maximum number of executed JS statements
+   * @return ScriptLimits
+   */
+  @Bean
+  public ScriptLimits defaultScriptLimits(
+      @Value("${scripts.limits.maxWallTimeMillis}") long maxWallTimeMillis,
+      @Value("${scripts.limits.maxCpuTimeMillis}") long maxCpuTimeMillis,
+      @Value("${scripts.limits.maxStatements}") long maxStatements) {
+    return new ScriptLimits(maxWallTimeMillis, maxCpuTimeMillis, maxStatements);
+  }
+
+  /**
+   * How long the finished scripts are kept in the repository. There is a rule for each final
+   * status, 0 means unlimited
+   *
+   * @param successfulMaxAgeMillis maximum age of the successfully finished scripts
+   * @param successfulMaxCount maximum number of the successfully finished scripts
+   * @param failedMaxAgeMillis maximum age of the failed scripts
+   * @param failedMaxCount maximum number of the failed scripts
+   * @param canceledMaxAgeMillis maximum age of the canceled scripts
+   * @param canceledMaxCount maximum number of the canceled scripts
+   * @param limitExceededMaxAgeMillis maximum age of the scripts terminated on a limit
+   * @param limitExceededMaxCount maximum number of the scripts terminated on a limit
+   * @param interruptedMaxAgeMillis maximum age of the scripts interrupted by a restart
+   * @param interruptedMaxCount maximum number of the scripts interrupted by a restart
+   * @return RetentionPolicy
+   */
+  @Bean
+  public RetentionPolicy retentionPolicy( // NOSONAR
+      @Value("${scripts.retention.successful.maxAgeMillis}") long successfulMaxAgeMillis,
+      @Value("${scripts.retention.successful.maxCount}") int successfulMaxCount,
+      @Value("${scripts.retention.failed.maxAgeMillis}") long failedMaxAgeMillis,
+      @Value("${scripts.retention.failed.maxCount}") int failedMaxCount,
+      @Value("${scripts.retention.canceled.maxAgeMillis}") long canceledMaxAgeMillis,
+      @Value("${scripts.retention.canceled.maxCount}") int canceledMaxCount,
+      @Value("${scripts.retention.limitExceeded.maxAgeMillis}") long limitExceededMaxAgeMillis,
+      @Value("${scripts.retention.limitExceeded.maxCount}") int limitExceededMaxCount,
+      @Value("${scripts.retention.interrupted.maxAgeMillis}") long interruptedMaxAgeMillis,
+      @Value("${scripts.retention.interrupted.maxCount}") int interruptedMaxCount) {
+    return new RetentionPolicy()
+        .withRule(ScriptStatus.EXECUTION_SUCCESSFUL, successfulMaxAgeMillis, successfulMaxCount)
+        .withRule(ScriptStatus.EXECUTION_FAILED, failedMaxAgeMillis, failedMaxCount)
+        .withRule(ScriptStatus.EXECUTION_CANCELED, canceledMaxAgeMillis, canceledMaxCount)
+        .withRule(ScriptStatus.EXECUTION_LIMIT_EXCEEDED, limitExceededMaxAgeMillis,
+            limitExceededMaxCount)
+        .withRule(ScriptStatus.EXECUTION_INTERRUPTED, interruptedMaxAgeMillis, interruptedMaxCount);
+  }
+
+  /**
+   * Repository of the scripts. If the journal path is set, the repository writes all its changes to
+   * a journal in this directory and restores the scripts from it at startup. If the metadata store
+   * path is set, the finished scripts are moved from the heap to an off-heap store in this
+   * directory. Otherwise the scripts are kept only on the heap
+   *
+   * @param journalPath directory of the journal, or an empty string
+   * @param compactionThresholdBytes size of the journal after which it is compacted into a snapshot
+   * @param metadataStorePath directory of the metadata store, or an empty string
+   * @param compactAfterMillis time after the end of the latest execution after which a script is
+   *        moved to the metadata store
+   * @param compactIntervalMillis interval between the moves to the metadata store
+   * @param sourceCache cache of the sources of the restored scripts
+   * @param contextPool pool of contexts in which the restored scripts are run
+   * @param scriptWatchdog watchdog that enforces the time limits of the restored scripts
+   * @param streamBufferCapacity the size of the OutputStream of each execution
+   * @param maxRetainedExecutions maximum number of executions kept by a script
+   * @return ScriptRepositoryImpl
+   * @throws IllegalStateException if both the journal and the metadata store are enabled
+   */
+  @Bean
+  public ScriptRepositoryImpl scriptRepository( // NOSONAR
+      @Value("${scripts.journal.path}") String journalPath,
+      @Value("${scripts.journal.compactionThresholdBytes}") long compactionThresholdBytes,
+      @Value("${scripts.metadataStore.path}") String metadataStorePath,
+      @Value("${scripts.metadataStore.compactAfterMillis}") long compactAfterMillis,
+      @Value("${scripts.metadataStore.compactIntervalMillis}") long compactIntervalMillis,
+      SourceCache sourceCache, ContextPool contextPool, ScriptWatchdog scriptWatchdog,
+      @Value("${scripts.outputStream.capacity}") int streamBufferCapacity,
+      @Value("${scripts.executions.maxRetained}") int maxRetainedExecutions) {
+    Function<ArchivedScript, Script> restorer = state -> Script.restore(state, sourceCache,
+        contextPool, scriptWatchdog, streamBufferCapacity, maxRetainedExecutions);
+    if (!journalPath.isEmpty() && !metadataStorePath.isEmpty())
+      throw new IllegalStateException(
+          "scripts.journal.path and scripts.metadataStore.path cannot be set together");
+    if (!journalPath.isEmpty())
+      return new JournaledScriptRepository(Path.of(journalPath), compactionThresholdBytes,
+          restorer);
+    if (!metadataStorePath.isEmpty())
+      return new TieredScriptRepository(Path.of(metadataStorePath), compactAfterMillis,
+          compactIntervalMillis, restorer);
+    return new ScriptRepositoryImpl();
+  }
+
+  /**
+   * Watchdog that terminates the scripts which exceeded their time limits
+   *
+   * @param checkIntervalMillis interval between the checks of the limits
+   * @return ScriptWatchdog
+   */
+  @Bean(destroyMethod = "close")
+  public ScriptWatchdog scriptWatchdog(
+      @Value("${scripts.limits.watchdogIntervalMillis}") long checkIntervalMillis) {
+    return new ScriptWatchdog(checkIntervalMillis);
+  }
+
+  /**
+   * The polyglot engine shared by all script contexts. Contexts created from the same engine share
+   * parsed sources and compiled code, so repeated scripts are not parsed and compiled from scratch
+   *
+   * @return Engine
+   */
+  @Bean(destroyMethod = "close")
+  public Engine engine() {
+    return Engine.create();
+  }
+
+  /**
+   * Pool of pre-built JS contexts in which scripts are parsed and run
+   *
+   * @param engine the shared polyglot engine
+   * @param maxSize maximum number of idle contexts in the pool
+   * @param minIdle number of idle contexts that the pool tries to keep ready
+   * @param maxAgeMillis maximum lifetime of a context
+   * @param reuseContexts if true, contexts are reused by subsequent scripts instead of being
+   *        discarded after the run
+   * @param intrinsicsEnabled if true, scripts get the {@link HostIntrinsics} object
+   * @param allowCreateThread if true, the language may create threads in the contexts, which are
+   *        not limited by the script executor
+   * @return ContextPool
+   */
+  @Bean(destroyMethod = "close")
+  public ContextPool contextPool(Engine engine,
+      @Value("${scripts.executor.contextPool.maxSize}") int maxSize,
+      @Value("${scripts.executor.contextPool.minIdle}") int minIdle,
+      @Value("${scripts.executor.contextPool.maxAgeMillis}") long maxAgeMillis,
+      @Value("${scripts.executor.contextPool.reuseContexts}") boolean reuseContexts,
+      @Value("${scripts.engine.intrinsics}") boolean intrinsicsEnabled,
+      @Value("${scripts.engine.allowCreateThread}") boolean allowCreateThread) {
+    return new ContextPool(engine, maxSize, minIdle, maxAgeMillis, reuseContexts,
+        intrinsicsEnabled ? new HostIntrinsics() : null, allowCreateThread);
+  }
+
+  /**
+   * Cache of the parsed script sources
+   *
+   * @param contextPool pool of contexts in which new sources are parsed
+   * @param capacity maximum number of sources stored in the cache
+   * @return SourceCache
+   */
+  @Bean
+  public SourceCache sourceCache(ContextPool contextPool,
+      @Value("${scripts.engine.sourceCacheCapacity}") int capacity) {
+    return new SourceCache(contextPool, capacity);
+  }
+
+  /**
+   * Scheduler of the recurring script runs. A single thread is enough for all schedules, because it
+   * only passes new executions to the {@link ScriptTaskExecutor}
+   *
+   * @return ThreadPoolTaskScheduler with one thread
+   */
+  @Bean
+  public ThreadPoolTaskScheduler scriptTaskScheduler() {
+    ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setPoolSize(1);
+    scheduler.setThreadNamePrefix("script-scheduler-");
+    scheduler.setDaemon(true);
+    return scheduler;
+  }
+
   /**
    * Zalando problem configuration bean
    *
@@ -1,5 +1,6 @@
 package com.project.graalrestservice.app.configuration;
 
+import com.project.graalrestservice.web.util.StringToScriptBindingsConverter;
 import com.project.graalrestservice.web.util.StringToScriptStatusConverter;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
@@ -12,11 +13,13 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebMvcConfig implements WebMvcConfigurer {
 
   /**
-   * Registration {@link StringToScriptStatusConverter custom converter}
+   * Registration of the {@link StringToScriptStatusConverter} and
+   * {@link StringToScriptBindingsConverter} custom converters
    */
   @Override
   public void addFormatters(FormatterRegistry registry) {
     registry.addConverter(new StringToScriptStatusConverter());
+    registry.addConverter(new StringToScriptBindingsConverter());
   }
 
 }
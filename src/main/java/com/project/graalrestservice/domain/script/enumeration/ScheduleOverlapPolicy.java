@@ -0,0 +1,14 @@
+package com.project.graalrestservice.domain.script.enumeration;
+
+/**
+ * Enum of the ways a schedule handles a run that is due while the previous execution of the script
+ * is still in the queue or running.
+ * <ul>
+ * <li>SKIP - the run is skipped, the script runs again at the next scheduled time</li>
+ * <li>CATCH_UP - the script runs once more as soon as the previous execution has finished. Several
+ * runs missed during one execution are merged into this single run</li>
+ * </ul>
+ */
+public enum ScheduleOverlapPolicy {
+  SKIP, CATCH_UP;
+}
@@ -0,0 +1,13 @@
+package com.project.graalrestservice.domain.script.enumeration;
+
+/**
+ * Enum of the ways the scripts are executed.
+ * <ul>
+ * <li>PLATFORM - scripts are run by a bounded pool of platform (OS) threads</li>
+ * <li>VIRTUAL - each script is run on its own virtual thread (requires JDK 21 or higher). The
+ * number of scripts evaluated at the same time is limited by a semaphore</li>
+ * </ul>
+ */
+public enum ScriptExecutorMode {
+  PLATFORM, VIRTUAL;
+}
@@ -1,8 +1,11 @@
 package com.project.graalrestservice.domain.script.enumeration;
 
 /**
- * Enum script status flag class.
+ * Enum script status flag class. EXECUTION_CANCELED means that the script was stopped by the user
+ * (or deleted from the queue), EXECUTION_LIMIT_EXCEEDED - that it was terminated because it
+ * exceeded one of its limits, EXECUTION_INTERRUPTED - that the service stopped while the script was
+ * in the queue or running, and the script was recovered from the journal without its result.
  */
 public enum ScriptStatus {
-  IN_QUEUE, RUNNING, EXECUTION_SUCCESSFUL, EXECUTION_FAILED, EXECUTION_CANCELED;
+  IN_QUEUE, RUNNING, EXECUTION_SUCCESSFUL, EXECUTION_FAILED, EXECUTION_CANCELED, EXECUTION_LIMIT_EXCEEDED, EXECUTION_INTERRUPTED;
 }
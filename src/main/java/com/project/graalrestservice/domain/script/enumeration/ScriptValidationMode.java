@@ -0,0 +1,15 @@
+package com.project.graalrestservice.domain.script.enumeration;
+
+/**
+ * Enum of the moments when the script code is parsed and checked.
+ * <ul>
+ * <li>EAGER - the code is parsed when the script is added, on the request thread. A script with a
+ * syntax error is rejected and never gets into the repository</li>
+ * <li>DEFERRED - the code is parsed only once, when the script is run on the executor thread. A
+ * script with a syntax error is added and then fails immediately with the EXECUTION_FAILED
+ * status</li>
+ * </ul>
+ */
+public enum ScriptValidationMode {
+  EAGER, DEFERRED;
+}
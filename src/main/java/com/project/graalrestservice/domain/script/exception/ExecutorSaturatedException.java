@@ -0,0 +1,16 @@
+package com.project.graalrestservice.domain.script.exception;
+
+public class ExecutorSaturatedException extends RuntimeException {
+
+  private final long retryAfterSeconds;
+
+  public ExecutorSaturatedException(String message, long retryAfterSeconds) {
+    super("Script executor is saturated. " + message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return this.retryAfterSeconds;
+  }
+
+}
@@ -0,0 +1,9 @@
+package com.project.graalrestservice.domain.script.exception;
+
+public class LibraryNotFoundException extends RuntimeException {
+
+  public LibraryNotFoundException(String libraryName) {
+    super("Library '" + libraryName + "' not found");
+  }
+
+}
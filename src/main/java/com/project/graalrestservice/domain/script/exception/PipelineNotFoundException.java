@@ -0,0 +1,13 @@
+package com.project.graalrestservice.domain.script.exception;
+
+public class PipelineNotFoundException extends RuntimeException {
+
+  public PipelineNotFoundException(String pipelineName) {
+    super("Pipeline '" + pipelineName + "' not found");
+  }
+
+  public PipelineNotFoundException(String pipelineName, String nodeId) {
+    super("Node '" + nodeId + "' of pipeline '" + pipelineName + "' not found");
+  }
+
+}
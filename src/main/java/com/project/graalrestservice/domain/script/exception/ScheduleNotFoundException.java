@@ -0,0 +1,9 @@
+package com.project.graalrestservice.domain.script.exception;
+
+public class ScheduleNotFoundException extends RuntimeException {
+
+  public ScheduleNotFoundException(String scriptName) {
+    super("Script '" + scriptName + "' has no schedule");
+  }
+
+}
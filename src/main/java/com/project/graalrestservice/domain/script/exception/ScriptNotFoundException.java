@@ -6,4 +6,8 @@ public class ScriptNotFoundException extends RuntimeException {
     super("Script '" + scriptName + "' not found");
   }
 
+  public ScriptNotFoundException(String scriptName, int executionId) {
+    super("Execution " + executionId + " of script '" + scriptName + "' not found");
+  }
+
 }
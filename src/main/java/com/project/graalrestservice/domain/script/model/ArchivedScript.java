@@ -0,0 +1,261 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * What is left of a finished script after it has been evicted from the repository: its code, the
+ * logs of its latest execution and the state of that execution. It is stored in the
+ * {@link com.project.graalrestservice.domain.script.util.ScriptArchive archive} as a compressed
+ * binary record, so it takes much less space than the live script with its output buffer.
+ * <p>
+ * The same record is the durable state of a script in the
+ * {@link com.project.graalrestservice.domain.script.util.ScriptJournal journal}, from which the
+ * script is {@link Script#restore restored} after a restart. The journal writes it uncompressed,
+ * because it is read back for every script at startup.
+ */
+public class ArchivedScript {
+
+  private final String name;
+  private final String scriptCode;
+  private final ScriptStatus status;
+  private final Instant createTime;
+  private final Instant startTime;
+  private final Instant endTime;
+  private final int priority;
+  private final int executionCount;
+  private final ScriptLimits limits;
+  private final List<String> libraryNames;
+  private final String outputLogs;
+  private final int logsSize;
+
+  /**
+   * Basic constructor
+   */
+  public ArchivedScript(String name, String scriptCode, ScriptStatus status, Instant createTime,
+      Instant startTime, Instant endTime, int priority, int executionCount, ScriptLimits limits,
+      List<String> libraryNames, String outputLogs) {
+    this(name, scriptCode, status, createTime, startTime, endTime, priority, executionCount, limits,
+        libraryNames, outputLogs, outputLogs.length());
+  }
+
+  /**
+   * Constructor of a state whose logs have been dropped, but which still reports their size
+   */
+  public ArchivedScript(String name, String scriptCode, ScriptStatus status, Instant createTime,
+      Instant startTime, Instant endTime, int priority, int executionCount, ScriptLimits limits,
+      List<String> libraryNames, String outputLogs, int logsSize) {
+    this.name = name;
+    this.scriptCode = scriptCode;
+    this.status = status;
+    this.createTime = createTime;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.priority = priority;
+    this.executionCount = executionCount;
+    this.limits = limits;
+    this.libraryNames = libraryNames;
+    this.outputLogs = outputLogs;
+    this.logsSize = logsSize;
+  }
+
+  /**
+   * @param script finished script
+   * @return archived state of the script and its latest execution
+   */
+  public static ArchivedScript of(Script script) {
+    ExecutionSnapshot snapshot = script.getSnapshot();
+    return new ArchivedScript(script.getName(), script.getScriptCode(), snapshot.getStatus(),
+        script.getCreateTime(), snapshot.getStartTime(), snapshot.getEndTime(),
+        snapshot.getPriority(), snapshot.getId(), snapshot.getLimits(), snapshot.getLibraryNames(),
+        script.getOutputLogs());
+  }
+
+  /**
+   * @param time time at which the script was recovered
+   * @return the same state with the EXECUTION_INTERRUPTED status, if the execution had not finished
+   */
+  public ArchivedScript interrupted(Instant time) {
+    if (this.status != ScriptStatus.IN_QUEUE && this.status != ScriptStatus.RUNNING)
+      return this;
+    return new ArchivedScript(this.name, this.scriptCode, ScriptStatus.EXECUTION_INTERRUPTED,
+        this.createTime, this.startTime, time, this.priority, this.executionCount, this.limits,
+        this.libraryNames, this.outputLogs, this.logsSize);
+  }
+
+  /**
+   * @return compressed binary form, from which the script is {@link #fromBytes(byte[]) restored}
+   */
+  public byte[] toBytes() {
+    return toBytes(true);
+  }
+
+  /**
+   * @param compressed if true, the binary form is compressed
+   * @return binary form, from which the script is {@link #fromBytes(byte[], boolean) restored}
+   */
+  public byte[] toBytes(boolean compressed) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out =
+        new DataOutputStream(compressed ? new DeflaterOutputStream(bytes) : bytes)) {
+      writeString(out, this.name);
+      writeString(out, this.scriptCode);
+      out.writeUTF(this.status.name());
+      writeInstant(out, this.createTime);
+      writeInstant(out, this.startTime);
+      writeInstant(out, this.endTime);
+      out.writeInt(this.priority);
+      out.writeInt(this.executionCount);
+      ScriptLimits scriptLimits =
+          this.limits != null ? this.limits : new ScriptLimits(null, null, null);
+      writeLong(out, scriptLimits.getMaxWallTimeMillis());
+      writeLong(out, scriptLimits.getMaxCpuTimeMillis());
+      writeLong(out, scriptLimits.getMaxStatements());
+      List<String> libraries = this.libraryNames != null ? this.libraryNames : List.of();
+      out.writeInt(libraries.size());
+      for (String library : libraries)
+        writeString(out, library);
+      writeString(out, this.outputLogs);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param bytes binary form {@link #toBytes() written} by an archived script
+   * @return the archived script
+   */
+  public static ArchivedScript fromBytes(byte[] bytes) {
+    return fromBytes(bytes, true);
+  }
+
+  /**
+   * @param bytes binary form {@link #toBytes(boolean) written} by an archived script
+   * @param compressed if true, the binary form is compressed
+   * @return the archived script
+   */
+  public static ArchivedScript fromBytes(byte[] bytes, boolean compressed) {
+    ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+    try (DataInputStream in =
+        new DataInputStream(compressed ? new InflaterInputStream(input) : input)) {
+      String name = readString(in);
+      String scriptCode = readString(in);
+      ScriptStatus status = ScriptStatus.valueOf(in.readUTF());
+      Instant createTime = readInstant(in);
+      Instant startTime = readInstant(in);
+      Instant endTime = readInstant(in);
+      int priority = in.readInt();
+      int executionCount = in.readInt();
+      ScriptLimits limits = new ScriptLimits(readLong(in), readLong(in), readLong(in));
+      int libraryCount = in.readInt();
+      List<String> libraryNames = new ArrayList<>(libraryCount);
+      for (int i = 0; i < libraryCount; i++)
+        libraryNames.add(readString(in));
+      String outputLogs = readString(in);
+      return new ArchivedScript(name, scriptCode, status, createTime, startTime, endTime, priority,
+          executionCount, limits, libraryNames, outputLogs);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public String getScriptCode() {
+    return this.scriptCode;
+  }
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+  public Instant getStartTime() {
+    return this.startTime;
+  }
+
+  public Instant getEndTime() {
+    return this.endTime;
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public int getExecutionCount() {
+    return this.executionCount;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public List<String> getLibraryNames() {
+    return this.libraryNames;
+  }
+
+  public String getOutputLogs() {
+    return this.outputLogs;
+  }
+
+  public int getLogsSize() {
+    return this.logsSize;
+  }
+
+  /**
+   * Strings are written as length and UTF-8 bytes, because the code and the logs may be longer than
+   * {@link DataOutputStream#writeUTF(String)} allows
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+    out.writeBoolean(instant != null);
+    if (instant != null) {
+      out.writeLong(instant.getEpochSecond());
+      out.writeInt(instant.getNano());
+    }
+  }
+
+  private static void writeLong(DataOutputStream out, Long value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null)
+      out.writeLong(value);
+  }
+
+  private static Long readLong(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readLong() : null;
+  }
+
+  private static Instant readInstant(DataInputStream in) throws IOException {
+    return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+  }
+
+}
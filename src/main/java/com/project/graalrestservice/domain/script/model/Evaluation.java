@@ -0,0 +1,56 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+
+/**
+ * The result of a synchronous evaluation of a script, which is not stored in the repository.
+ * Contains the value of the last expression of the script (converted to a plain Java object), its
+ * output and, if the evaluation failed, the error
+ */
+public class Evaluation {
+
+  private final ScriptStatus status;
+  private final Object result;
+  private final String output;
+  private final String error;
+  private final long durationMillis;
+
+  private Evaluation(ScriptStatus status, Object result, String output, String error,
+      long durationMillis) {
+    this.status = status;
+    this.result = result;
+    this.output = output;
+    this.error = error;
+    this.durationMillis = durationMillis;
+  }
+
+  public static Evaluation successful(Object result, String output, long durationMillis) {
+    return new Evaluation(ScriptStatus.EXECUTION_SUCCESSFUL, result, output, null, durationMillis);
+  }
+
+  public static Evaluation failed(ScriptStatus status, String error, String output,
+      long durationMillis) {
+    return new Evaluation(status, null, output, error, durationMillis);
+  }
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public Object getResult() {
+    return this.result;
+  }
+
+  public String getOutput() {
+    return this.output;
+  }
+
+  public String getError() {
+    return this.error;
+  }
+
+  public long getDurationMillis() {
+    return this.durationMillis;
+  }
+
+}
@@ -0,0 +1,147 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable state of a {@link ScriptExecution} at one point of its lifecycle. The execution
+ * publishes a new snapshot on each transition of its status, and its {@link Script} keeps the
+ * snapshot of the latest execution. So the read paths get the status, the times and the settings of
+ * a script with one volatile read, and all of them belong to the same moment.
+ * <p>
+ * The output of a running execution grows without any transition, so until the execution has
+ * finished, its logs size is read from its log storage. When the run is over, the execution is
+ * sealed with a snapshot that keeps the size of the final logs.
+ */
+public final class ExecutionSnapshot {
+
+  private final ScriptExecution execution;
+  /**
+   * Number of the snapshot within the execution. Each transition increments it, so of two snapshots
+   * of the same execution the one with the greater version is the more recent one
+   */
+  private final int version;
+  private final ScriptStatus status;
+  private final Instant startTime;
+  private final Instant endTime;
+  /**
+   * Size of the final logs, or -1 if the execution may still write to them
+   */
+  private final int logsSize;
+
+  private ExecutionSnapshot(ScriptExecution execution, int version, ScriptStatus status,
+      Instant startTime, Instant endTime, int logsSize) {
+    this.execution = execution;
+    this.version = version;
+    this.status = status;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.logsSize = logsSize;
+  }
+
+  /**
+   * @return snapshot of a new execution, which is in the queue
+   */
+  static ExecutionSnapshot initial(ScriptExecution execution) {
+    return new ExecutionSnapshot(execution, 0, ScriptStatus.IN_QUEUE, null, null, -1);
+  }
+
+  /**
+   * @return sealed snapshot of a finished execution restored from the journal
+   */
+  static ExecutionSnapshot restored(ScriptExecution execution, ScriptStatus status,
+      Instant startTime, Instant endTime, int logsSize) {
+    return new ExecutionSnapshot(execution, 0, status, startTime, endTime, logsSize);
+  }
+
+  /**
+   * @param target new status
+   * @param now time of the transition. It becomes the start time if the execution starts running,
+   *        and the end time if it finishes
+   * @return snapshot after the transition to the target status
+   */
+  ExecutionSnapshot transition(ScriptStatus target, Instant now) {
+    Instant start = target == ScriptStatus.RUNNING ? now : this.startTime;
+    Instant end = target == ScriptStatus.RUNNING ? null : now;
+    return new ExecutionSnapshot(this.execution, this.version + 1, target, start, end,
+        this.logsSize);
+  }
+
+  /**
+   * @param finalLogsSize size of the logs, which will not change any more
+   * @param now time of sealing, used as the end time if it has not been set
+   * @return final snapshot of the execution
+   */
+  ExecutionSnapshot seal(int finalLogsSize, Instant now) {
+    return new ExecutionSnapshot(this.execution, this.version + 1, this.status, this.startTime,
+        this.endTime != null ? this.endTime : now, finalLogsSize);
+  }
+
+  /**
+   * @return true if this snapshot was published after the other one (or is the same)
+   */
+  boolean isNotOlderThan(ExecutionSnapshot other) {
+    if (this.execution.getId() != other.execution.getId())
+      return this.execution.getId() > other.execution.getId();
+    return this.version >= other.version;
+  }
+
+  boolean isSealed() {
+    return this.logsSize >= 0;
+  }
+
+  ScriptExecution getExecution() {
+    return this.execution;
+  }
+
+  public String getScriptName() {
+    return this.execution.getScript().getName();
+  }
+
+  public Instant getScriptCreateTime() {
+    return this.execution.getScript().getCreateTime();
+  }
+
+  public int getId() {
+    return this.execution.getId();
+  }
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public Instant getCreateTime() {
+    return this.execution.getCreateTime();
+  }
+
+  public Instant getStartTime() {
+    return this.startTime;
+  }
+
+  public Instant getEndTime() {
+    return this.endTime;
+  }
+
+  public int getLogsSize() {
+    return isSealed() ? this.logsSize : this.execution.getOutputLogs().length();
+  }
+
+  public int getPriority() {
+    return this.execution.getPriority();
+  }
+
+  public ScriptLimits getLimits() {
+    return this.execution.getLimits();
+  }
+
+  public ScriptBindings getBindings() {
+    return this.execution.getBindings();
+  }
+
+  public List<String> getLibraryNames() {
+    return this.execution.getLibraryNames();
+  }
+
+}
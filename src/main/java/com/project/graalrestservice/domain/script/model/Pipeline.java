@@ -0,0 +1,215 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.project.graalrestservice.domain.script.enumeration.ScriptStatus.*;
+
+/**
+ * A directed acyclic graph of {@link PipelineNode scripts}. A node starts as soon as all the nodes
+ * it depends on have finished successfully, so independent branches run in parallel. The class
+ * keeps the state of the graph: which nodes are ready to start after a node has finished, which are
+ * skipped after a failure, and the status of the whole pipeline. Starting the nodes is done by the
+ * service.
+ * <p>
+ * The pipeline is RUNNING until every node has finished or has been skipped. Then it is
+ * EXECUTION_SUCCESSFUL if all the nodes were successful, EXECUTION_CANCELED if it was
+ * {@link #cancel() cancelled}, and EXECUTION_FAILED otherwise.
+ */
+public class Pipeline {
+
+  private final String name;
+  private final Map<String, PipelineNode> nodes;
+  private final Instant createTime;
+  private Instant endTime;
+  private ScriptStatus status = RUNNING;
+  private boolean cancelled = false;
+  /**
+   * Number of the nodes that have neither finished nor been skipped
+   */
+  private int unfinishedNodes;
+
+  /**
+   * Basic constructor. Links the nodes with each other and checks that the graph is acyclic
+   *
+   * @param name pipeline name (identifier)
+   * @param nodes nodes of the pipeline with unique ids
+   * @throws WrongArgumentException if a node depends on a node that does not exist, or the
+   *         dependencies form a cycle
+   */
+  public Pipeline(String name, List<PipelineNode> nodes) {
+    this.name = name;
+    this.nodes = new LinkedHashMap<>();
+    for (PipelineNode node : nodes)
+      this.nodes.put(node.getId(), node);
+    for (PipelineNode node : nodes) {
+      for (String dependency : node.getDependsOn()) {
+        PipelineNode dependencyNode = this.nodes.get(dependency);
+        if (dependencyNode == null)
+          throw new WrongArgumentException(String.format(
+              "Node '%s' depends on node '%s', which does not exist", node.getId(), dependency));
+        dependencyNode.addDependent(node);
+      }
+    }
+    checkAcyclic();
+    this.unfinishedNodes = nodes.size();
+    this.createTime = Instant.now();
+  }
+
+  /**
+   * Checks that all the nodes can be ordered so that each one goes after its dependencies (Kahn's
+   * algorithm)
+   */
+  private void checkAcyclic() {
+    Map<PipelineNode, Integer> inDegree = new LinkedHashMap<>();
+    Deque<PipelineNode> ready = new ArrayDeque<>();
+    for (PipelineNode node : this.nodes.values()) {
+      inDegree.put(node, node.getDependsOn().size());
+      if (node.getDependsOn().isEmpty())
+        ready.add(node);
+    }
+    int ordered = 0;
+    while (!ready.isEmpty()) {
+      PipelineNode node = ready.poll();
+      ordered++;
+      for (PipelineNode dependent : node.getDependents())
+        if (inDegree.merge(dependent, -1, Integer::sum) == 0)
+          ready.add(dependent);
+    }
+    if (ordered != this.nodes.size())
+      throw new WrongArgumentException("The dependencies of the nodes form a cycle");
+  }
+
+  /**
+   * @return nodes without dependencies, which are started first
+   */
+  public List<PipelineNode> getRootNodes() {
+    List<PipelineNode> roots = new ArrayList<>();
+    for (PipelineNode node : this.nodes.values())
+      if (node.getDependsOn().isEmpty())
+        roots.add(node);
+    return roots;
+  }
+
+  /**
+   * Gives the node the execution with which it is started. It is done under the lock of the
+   * pipeline, so a node cannot be started after the pipeline has been {@link #cancel() cancelled}
+   *
+   * @param node node that is ready to start
+   * @param execution execution of the script of the node, which has not been passed to the executor
+   *        yet
+   * @return false if the pipeline has been cancelled and the node must not be started
+   */
+  public synchronized boolean startNode(PipelineNode node, ScriptExecution execution) {
+    if (this.cancelled || node.isSkipped())
+      return false;
+    node.setExecution(execution);
+    return true;
+  }
+
+  /**
+   * Processes the end of the execution of a node. If it was successful, the nodes that no longer
+   * wait for anything become ready. Otherwise, all the nodes that depend on it (directly or not)
+   * are skipped. When no node is left, the status of the pipeline is set
+   *
+   * @param node node whose execution has finished
+   * @param nodeStatus final status of the execution
+   * @return nodes that are ready to start now
+   */
+  public synchronized List<PipelineNode> nodeFinished(PipelineNode node, ScriptStatus nodeStatus) {
+    List<PipelineNode> ready = new ArrayList<>();
+    this.unfinishedNodes--;
+    if (nodeStatus == EXECUTION_SUCCESSFUL && !this.cancelled) {
+      for (PipelineNode dependent : node.getDependents())
+        if (dependent.dependencyFinished())
+          ready.add(dependent);
+    } else {
+      skipDependents(node);
+    }
+    finishIfDone();
+    return ready;
+  }
+
+  /**
+   * Cancels the pipeline: the nodes that have not started are skipped. The executions of the
+   * started nodes must be cancelled by the caller
+   *
+   * @return executions of the nodes that have been started and have not finished
+   */
+  public synchronized List<ScriptExecution> cancel() {
+    List<ScriptExecution> active = new ArrayList<>();
+    if (this.status != RUNNING)
+      return active;
+    this.cancelled = true;
+    for (PipelineNode node : this.nodes.values()) {
+      if (node.getExecution() == null && !node.isSkipped()) {
+        node.skip();
+        this.unfinishedNodes--;
+      } else if (node.getExecution() != null && !node.isFinished())
+        active.add(node.getExecution());
+    }
+    finishIfDone();
+    return active;
+  }
+
+  private void skipDependents(PipelineNode node) {
+    for (PipelineNode dependent : node.getDependents()) {
+      if (!dependent.isSkipped() && dependent.getExecution() == null) {
+        dependent.skip();
+        this.unfinishedNodes--;
+        skipDependents(dependent);
+      }
+    }
+  }
+
+  private void finishIfDone() {
+    if (this.unfinishedNodes > 0 || this.status != RUNNING)
+      return;
+    this.endTime = Instant.now();
+    if (this.cancelled)
+      this.status = EXECUTION_CANCELED;
+    else if (this.nodes.values().stream().allMatch(n -> n.getStatus() == EXECUTION_SUCCESSFUL))
+      this.status = EXECUTION_SUCCESSFUL;
+    else
+      this.status = EXECUTION_FAILED;
+  }
+
+  /**
+   * @param id node id
+   * @return node with this id, or null
+   */
+  public PipelineNode getNode(String id) {
+    return this.nodes.get(id);
+  }
+
+  public Collection<PipelineNode> getNodes() {
+    return Collections.unmodifiableCollection(this.nodes.values());
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public synchronized ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+  public synchronized Instant getEndTime() {
+    return this.endTime;
+  }
+
+}
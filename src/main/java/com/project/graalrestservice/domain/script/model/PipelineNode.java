@@ -0,0 +1,175 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node of a {@link Pipeline}. The node is a script that is started as soon as all the nodes it
+ * depends on have finished successfully. Until then it has no {@link ScriptExecution execution}. If
+ * one of them fails, the node is skipped. The state of the node is changed only by its pipeline,
+ * under the lock of the pipeline
+ */
+public class PipelineNode {
+
+  private final String id;
+  private final String scriptCode;
+  private final int priority;
+  /**
+   * Execution limits (all set)
+   */
+  private final ScriptLimits limits;
+  private final ScriptBindings bindings;
+  private final List<ScriptLibrary> libraries;
+  private final List<String> dependsOn;
+  /**
+   * Nodes that depend on this one
+   */
+  private final List<PipelineNode> dependents = new ArrayList<>();
+  /**
+   * Number of the nodes this one depends on that have not finished yet
+   */
+  private int remainingDependencies;
+  private volatile ScriptExecution execution;
+  private volatile boolean skipped = false;
+
+  /**
+   * Basic constructor
+   *
+   * @param id node id, unique within the pipeline
+   * @param scriptCode JS body
+   * @param priority priority of the script in the execution queue
+   * @param limits execution limits (all set)
+   * @param bindings input parameters of the script
+   * @param libraries libraries loaded before the code of the script
+   * @param dependsOn ids of the nodes that must finish successfully before this one starts
+   */
+  public PipelineNode(String id, String scriptCode, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<ScriptLibrary> libraries, List<String> dependsOn) {
+    this.id = id;
+    this.scriptCode = scriptCode;
+    this.priority = priority;
+    this.limits = limits;
+    this.bindings = bindings == null ? ScriptBindings.empty() : bindings;
+    this.libraries = libraries;
+    this.dependsOn = dependsOn;
+    this.remainingDependencies = dependsOn.size();
+  }
+
+  void addDependent(PipelineNode node) {
+    this.dependents.add(node);
+  }
+
+  List<PipelineNode> getDependents() {
+    return this.dependents;
+  }
+
+  /**
+   * Marks that one of the nodes this one depends on has finished successfully
+   *
+   * @return true if all of them have finished and the node is ready to start
+   */
+  boolean dependencyFinished() {
+    return --this.remainingDependencies == 0;
+  }
+
+  void skip() {
+    this.skipped = true;
+  }
+
+  /**
+   * @return true if the node has not started and will not start
+   */
+  public boolean isSkipped() {
+    return this.skipped;
+  }
+
+  /**
+   * @return true if the node has been started and its execution has finished
+   */
+  public boolean isFinished() {
+    ScriptExecution currentExecution = this.execution;
+    if (currentExecution == null)
+      return false;
+    ScriptStatus status = currentExecution.getStatus();
+    return status != ScriptStatus.IN_QUEUE && status != ScriptStatus.RUNNING;
+  }
+
+  void setExecution(ScriptExecution execution) {
+    this.execution = execution;
+  }
+
+  public ScriptExecution getExecution() {
+    return this.execution;
+  }
+
+  /**
+   * @return the status of the execution of the node, or null if it has not been started
+   */
+  public ScriptStatus getStatus() {
+    ScriptExecution currentExecution = this.execution;
+    return currentExecution == null ? null : currentExecution.getStatus();
+  }
+
+  public Instant getStartTime() {
+    ScriptExecution currentExecution = this.execution;
+    return currentExecution == null ? null : currentExecution.getStartTime();
+  }
+
+  public Instant getEndTime() {
+    ScriptExecution currentExecution = this.execution;
+    return currentExecution == null ? null : currentExecution.getEndTime();
+  }
+
+  public int getLogsSize() {
+    ScriptExecution currentExecution = this.execution;
+    return currentExecution == null ? 0 : currentExecution.getLogsSize();
+  }
+
+  /**
+   * @return output logs of the node, empty if it has not been started
+   */
+  public String getOutputLogs() {
+    ScriptExecution currentExecution = this.execution;
+    return currentExecution == null ? "" : currentExecution.getOutputLogs();
+  }
+
+  /**
+   * @return value of the last expression of the script, or null if the node has not finished
+   */
+  public Object getResult() {
+    ScriptExecution currentExecution = this.execution;
+    return currentExecution == null ? null : currentExecution.getResult();
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public String getScriptCode() {
+    return this.scriptCode;
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public List<ScriptLibrary> getLibraries() {
+    return this.libraries;
+  }
+
+  public List<String> getDependsOn() {
+    return this.dependsOn;
+  }
+
+}
@@ -0,0 +1,35 @@
+package com.project.graalrestservice.domain.script.model;
+
+import java.util.List;
+
+/**
+ * A node of a {@link Pipeline} to be created: a script with its run parameters and the ids of the
+ * nodes it depends on. The {@link #getName() name} of the submission is the id of the node
+ */
+public class PipelineNodeSubmission extends ScriptSubmission {
+
+  private final List<String> dependsOn;
+
+  /**
+   * Basic constructor
+   *
+   * @param id node id, unique within the pipeline
+   * @param scriptCode JS body
+   * @param priority priority of the script in the execution queue
+   * @param limits execution limits of the script, the limits that are not set are taken from the
+   *        defaults
+   * @param bindings input parameters of the script
+   * @param libraries names of the libraries loaded before the code of the script
+   * @param dependsOn ids of the nodes that must finish successfully before this one starts
+   */
+  public PipelineNodeSubmission(String id, String scriptCode, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries, List<String> dependsOn) {
+    super(id, scriptCode, priority, limits, bindings, libraries);
+    this.dependsOn = dependsOn == null ? List.of() : List.copyOf(dependsOn);
+  }
+
+  public List<String> getDependsOn() {
+    return this.dependsOn;
+  }
+
+}
@@ -0,0 +1,90 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * How long the finished scripts are kept in the repository. There is a separate rule for each final
+ * status: scripts that finished more than the maximum age ago are evicted, and of the remaining
+ * ones only the maximum number of the most recently finished ones is kept. The value 0 means that
+ * there is no limit, and a status without a rule is never evicted.
+ */
+public class RetentionPolicy {
+
+  private final Map<ScriptStatus, Rule> rules;
+
+  /**
+   * Creates a policy without rules, which keeps all scripts
+   */
+  public RetentionPolicy() {
+    this.rules = Collections.emptyMap();
+  }
+
+  private RetentionPolicy(Map<ScriptStatus, Rule> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * Returns a new policy with the rule for the status
+   *
+   * @param status final status of the scripts
+   * @param maxAgeMillis maximum time since the end of the latest execution, 0 if unlimited
+   * @param maxCount maximum number of scripts with this status, 0 if unlimited
+   * @return RetentionPolicy
+   */
+  public RetentionPolicy withRule(ScriptStatus status, long maxAgeMillis, int maxCount) {
+    Map<ScriptStatus, Rule> newRules = new EnumMap<>(ScriptStatus.class);
+    newRules.putAll(this.rules);
+    newRules.put(status, new Rule(maxAgeMillis, maxCount));
+    return new RetentionPolicy(Collections.unmodifiableMap(newRules));
+  }
+
+  /**
+   * @return maximum time since the end of the latest execution, 0 if unlimited
+   */
+  public long getMaxAgeMillis(ScriptStatus status) {
+    Rule rule = this.rules.get(status);
+    return rule != null ? rule.maxAgeMillis : 0;
+  }
+
+  /**
+   * @return maximum number of scripts with this status, 0 if unlimited
+   */
+  public int getMaxCount(ScriptStatus status) {
+    Rule rule = this.rules.get(status);
+    return rule != null ? rule.maxCount : 0;
+  }
+
+  /**
+   * @return true if the scripts with this status may be evicted
+   */
+  public boolean isLimited(ScriptStatus status) {
+    return getMaxAgeMillis(status) > 0 || getMaxCount(status) > 0;
+  }
+
+  @Override
+  public String toString() {
+    return "RetentionPolicy" + this.rules;
+  }
+
+  private static class Rule {
+
+    private final long maxAgeMillis;
+    private final int maxCount;
+
+    private Rule(long maxAgeMillis, int maxCount) {
+      this.maxAgeMillis = maxAgeMillis;
+      this.maxCount = maxCount;
+    }
+
+    @Override
+    public String toString() {
+      return "{maxAgeMillis=" + this.maxAgeMillis + ", maxCount=" + this.maxCount + '}';
+    }
+
+  }
+
+}
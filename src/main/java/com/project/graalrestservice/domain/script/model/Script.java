@@ -1,233 +1,371 @@
 package com.project.graalrestservice.domain.script.model;
 
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
-import com.project.graalrestservice.domain.script.exception.ScriptNotFoundException;
-import com.project.graalrestservice.domain.script.util.CircularOutputStream;
-import com.project.graalrestservice.domain.script.util.OutputStreamSplitter;
+import com.project.graalrestservice.domain.script.enumeration.ScriptValidationMode;
 import com.project.graalrestservice.domain.script.exception.WrongScriptException;
 import com.project.graalrestservice.domain.script.exception.WrongScriptStatusException;
-import com.project.graalrestservice.web.controller.ScriptsController;
-import org.graalvm.polyglot.Context;
-import org.graalvm.polyglot.PolyglotException;
+import com.project.graalrestservice.domain.script.util.ContextPool;
+import com.project.graalrestservice.domain.script.util.ScriptWatchdog;
+import com.project.graalrestservice.domain.script.util.SourceCache;
+import org.graalvm.polyglot.Source;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
-import javax.servlet.http.HttpServletResponse;
-import java.io.*;
+import java.io.OutputStream;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
 
 import static com.project.graalrestservice.domain.script.enumeration.ScriptStatus.*;
 
 /**
- * A class that contains all the information about the script, as well as the code to run it
+ * A class that contains the definition of the script (its name and code) and its
+ * {@link ScriptExecution executions}. The code is stored and parsed once, and each execution is a
+ * separate run of it with its own status, times and logs. The script always has at least one
+ * execution, which is created together with it. The status, times and logs of the script are those
+ * of its latest execution
  */
-public class Script implements Runnable {
+public class Script {
 
   private static final Logger logger = LoggerFactory.getLogger(Script.class);
   private static final String MDC_NAME_IDENTIFIER = "scriptName";
+  public static final int MIN_PRIORITY = 0;
+  public static final int MAX_PRIORITY = 10;
+  public static final int DEFAULT_PRIORITY = 5;
   private final String name;
   private final String scriptCode;
-  private ScriptStatus status;
   /**
-   * The {@link CircularOutputStream} is used to store logs. If its size is exceeded, the data will
-   * be overwritten according to the Circular buffer principle
+   * Parsed script code. It is taken from the {@link SourceCache}, so scripts with the same code
+   * share one {@link Source} and its parsed and compiled representation in the shared engine. All
+   * executions of the script run this source
    */
-  private final OutputStream logStorageStream;
+  private final Source source;
+  private final ContextPool contextPool;
+  private final ScriptWatchdog watchdog;
+  private final int streamBufferCapacity;
   /**
-   * {@link OutputStreamSplitter} is needed to divide one OS into several independent of each other.
-   * In this case, this functionality is needed to be able to save logs and simultaneously
-   * {@link ScriptsController#runScriptWithLogsStreaming(String, String) stream them}.
+   * Maximum number of executions kept by the script. When a new execution is created, the oldest
+   * one is forgotten
    */
-  private final OutputStreamSplitter mainStream;
+  private final int maxRetainedExecutions;
+  /**
+   * Retained executions, the latest is the last one
+   */
+  private final Deque<ScriptExecution> executions = new ArrayDeque<>();
+  /**
+   * The oldest execution, forgotten when the latest one was created. It is kept until the next
+   * execution is created, so it can be retained again if the latest one is
+   * {@link #discardExecution(ScriptExecution) discarded}
+   */
+  private ScriptExecution forgotten;
+  private static final AtomicReferenceFieldUpdater<Script, ExecutionSnapshot> SNAPSHOT =
+      AtomicReferenceFieldUpdater.newUpdater(Script.class, ExecutionSnapshot.class, "snapshot");
+  /**
+   * {@link ExecutionSnapshot Snapshot} of the last of the {@link #executions}, published by it on
+   * each transition. The status, times and settings of the script are read from it with one
+   * volatile read, without taking the lock of the script
+   */
+  private volatile ExecutionSnapshot snapshot;
+  private int executionCount = 0;
   private final Instant createTime;
-  private Instant startTime;
-  private Instant endTime;
-  private Context context;
+  /**
+   * Recurring schedule of the script, or null
+   */
+  private ScriptSchedule schedule;
+  /**
+   * If true, the value of the last expression of the script is {@link ScriptExecution#getResult()
+   * kept} by its executions
+   */
+  private volatile boolean resultCaptured = false;
+  /**
+   * Called after the status of the script has changed, or null
+   */
+  private volatile Consumer<Script> statusListener;
 
   /**
-   * The Script constructor is {@link #Script(String, String, int) private} and this method is used
-   * to create objects. It first {@link #validate(String) checks the validity} of the script, and if
-   * all is well, it creates an {@link Script} object and returns it.
+   * The Script constructor is
+   * {@link #Script(String, Source, ContextPool, int, int, ScriptLimits, ScriptBindings, List, ScriptWatchdog, int)
+   * private} and this method is used to create objects. In {@link ScriptValidationMode#EAGER EAGER}
+   * mode it first gets the {@link SourceCache#getValidatedSource(String) parsed source} of the
+   * script (which checks its validity), and if all is well, it creates an {@link Script} object and
+   * returns it. In {@link ScriptValidationMode#DEFERRED DEFERRED} mode the
+   * {@link SourceCache#getSource(String) source is not parsed}, it will be parsed only once when
+   * the script is {@link ScriptExecution#run() run}.
    * 
    * @param name script name (identifier)
    * @param scriptCode JS body
-   * @param streamBufferCapacity the size of the OutputStream in which the logs will be stored
+   * @param streamBufferCapacity the size of the OutputStream in which the logs of each execution
+   *        will be stored
+   * @param sourceCache cache of the parsed sources
+   * @param contextPool pool of contexts in which the script will be run
+   * @param validationMode when the script code is checked
+   * @param priority priority of the first execution in the execution queue
+   * @param limits limits of the first execution (all set)
+   * @param bindings input parameters of the first execution
+   * @param libraries libraries loaded before the code of the first execution
+   * @param watchdog watchdog that enforces the time limits
+   * @param maxRetainedExecutions maximum number of executions kept by the script
    * @return Script object
+   * @throws WrongScriptException if the script failed to parse (only in EAGER mode)
    */
-  public static Script create(String name, String scriptCode, int streamBufferCapacity) {
-    validate(scriptCode);
-    return new Script(name, scriptCode, streamBufferCapacity);
+  public static Script create(String name, String scriptCode, int streamBufferCapacity,
+      SourceCache sourceCache, ContextPool contextPool, ScriptValidationMode validationMode,
+      int priority, ScriptLimits limits, ScriptBindings bindings, List<ScriptLibrary> libraries,
+      ScriptWatchdog watchdog, int maxRetainedExecutions) {
+    Source source;
+    if (validationMode == ScriptValidationMode.DEFERRED) {
+      source = sourceCache.getSource(scriptCode);
+    } else {
+      source = sourceCache.getValidatedSource(scriptCode);
+      logger.trace("[{}] - Validation of the script was successful", MDC.get(MDC_NAME_IDENTIFIER));
+    }
+    return new Script(name, source, contextPool, streamBufferCapacity, priority, limits, bindings,
+        libraries, watchdog, maxRetainedExecutions);
   }
 
   /**
-   * The method is used to check the validity of a script before creating a Script object. To do
-   * this, a {@link Context context} is created and an attempt is made to parse the script. On error
-   * an {@link WrongScriptException exception} is thrown
-   * 
-   * @param scriptCode JS body
-   * @throws WrongScriptException if the script failed to parse
-   */
-  private static void validate(String scriptCode) {
-    try (Context jsContext = Context.create("js")) {
-      jsContext.parse("js", scriptCode);
-      logger.trace("[{} - Validation of the script was successful", MDC.get(MDC_NAME_IDENTIFIER));
-    } catch (PolyglotException e) {
-      logger.debug("[{} - Failed to validate the script", MDC.get(MDC_NAME_IDENTIFIER));
-      throw new WrongScriptException(e.getMessage());
-    }
+   * Restores a script from its durable state in the journal. Only the latest execution is restored,
+   * as a finished one: an execution that was in the queue or running when the service stopped gets
+   * the EXECUTION_INTERRUPTED status. In the same way as in {@link ScriptValidationMode#DEFERRED
+   * DEFERRED} mode, the code is not parsed until the script is run again
+   *
+   * @param state state of the script written to the journal
+   * @param sourceCache cache of the sources
+   * @param contextPool pool of contexts in which the script will be run
+   * @param watchdog watchdog that enforces the time limits
+   * @param streamBufferCapacity the size of the OutputStream in which the logs of each execution
+   *        will be stored
+   * @param maxRetainedExecutions maximum number of executions kept by the script
+   * @return Script object
+   */
+  public static Script restore(ArchivedScript state, SourceCache sourceCache,
+      ContextPool contextPool, ScriptWatchdog watchdog, int streamBufferCapacity,
+      int maxRetainedExecutions) {
+    ArchivedScript finished = state.interrupted(Instant.now());
+    Script script =
+        new Script(finished.getName(), sourceCache.getSource(finished.getScriptCode()), contextPool,
+            watchdog, streamBufferCapacity, maxRetainedExecutions, finished.getCreateTime());
+    ScriptExecution execution = new ScriptExecution(script, finished, streamBufferCapacity);
+    script.executionCount = execution.getId();
+    script.executions.addLast(execution);
+    script.snapshot = execution.getSnapshot();
+    return script;
   }
 
   /**
-   * Private constructor. To create an object you must use {@link #create(String, String, int) this
-   * method}
+   * Private constructor. To create an object you must use
+   * {@link #create(String, String, int, SourceCache, ContextPool, ScriptValidationMode, int, ScriptLimits, ScriptBindings, List, ScriptWatchdog, int)
+   * this method}. Creates the first execution of the script
    */
-  private Script(String name, String scriptCode, int streamBufferCapacity) {
-    this.name = name;
-    this.scriptCode = scriptCode;
-    this.status = IN_QUEUE;
-    this.createTime = Instant.now();
-    this.logStorageStream = new CircularOutputStream(streamBufferCapacity);
-    this.mainStream = new OutputStreamSplitter();
-    this.mainStream.addStream(logStorageStream);
+  private Script(String name, Source source, ContextPool contextPool, int streamBufferCapacity,
+      int priority, ScriptLimits limits, ScriptBindings bindings, List<ScriptLibrary> libraries,
+      ScriptWatchdog watchdog, int maxRetainedExecutions) {
+    this(name, source, contextPool, watchdog, streamBufferCapacity, maxRetainedExecutions,
+        Instant.now());
+    newExecution(priority, limits, bindings, libraries);
     logger.trace("[{}] - Script object created]", name);
   }
 
   /**
-   * The method is used to start processing the script. {@link #prepareScriptExecution() Preparing}
-   * to run, its {@link #processingSuccessfulExecution() successful} or
-   * {@link #processingFailedOrCanceledExecution(PolyglotException) unsuccessful} execution is
-   * performed by the corresponding methods. {@link OutputStreamSplitter} used as a base streamer
-   * for log processing. It is needed to be able to save logs and simultaneously
-   * {@link ScriptsController#runScriptWithLogsStreaming(String, String) stream them}.
-   */
-  @Override
-  public void run() {
-    try (Context jsContext =
-        Context.newBuilder().out(mainStream).err(mainStream).allowCreateThread(true).build()) {
-      this.context = jsContext;
-      prepareScriptExecution();
-      jsContext.eval("js", this.scriptCode);
-      processingSuccessfulExecution();
-      logger.info("[{}] - Execution completed successfully", this.name);
-    } catch (PolyglotException e) {
-      processingFailedOrCanceledExecution(e);
-      logger.info("[{}] - Execution failed.", this.name, e);
-    } catch (ScriptNotFoundException e) {
-      logger.info(
-          "[{}] - The script has been removed from the repository. The run has been cancelled",
-          this.name, e);
-    } finally {
-      this.mainStream.closeAllStreams();
+   * Private constructor of a script without executions
+   */
+  private Script(String name, Source source, ContextPool contextPool, ScriptWatchdog watchdog,
+      int streamBufferCapacity, int maxRetainedExecutions, Instant createTime) {
+    this.name = name;
+    this.scriptCode = source.getCharacters().toString();
+    this.source = source;
+    this.contextPool = contextPool;
+    this.watchdog = watchdog;
+    this.streamBufferCapacity = streamBufferCapacity;
+    this.maxRetainedExecutions = Math.max(1, maxRetainedExecutions);
+    this.createTime = createTime;
+  }
+
+  /**
+   * Creates a new execution of the script. It is possible only if the latest execution has
+   * finished, so the script has at most one execution in the queue or running
+   *
+   * @param priority priority of the execution in the execution queue
+   * @param limits execution limits (all set)
+   * @param bindings input parameters of the execution
+   * @param libraries libraries loaded before the code of the execution
+   * @return new execution with the IN_QUEUE status, which is now the latest one
+   * @throws WrongScriptStatusException if the latest execution is in the queue or running
+   */
+  public synchronized ScriptExecution newExecution(int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<ScriptLibrary> libraries) {
+    ScriptExecution latest = this.executions.peekLast();
+    if (latest != null) {
+      ScriptStatus status = latest.getStatus();
+      if (status == IN_QUEUE || status == RUNNING)
+        throw new WrongScriptStatusException(
+            "You cannot start a new execution while the previous one is not finished", status,
+            EXECUTION_SUCCESSFUL, EXECUTION_FAILED, EXECUTION_CANCELED, EXECUTION_LIMIT_EXCEEDED,
+            EXECUTION_INTERRUPTED);
     }
+    ScriptExecution execution = new ScriptExecution(this, ++this.executionCount,
+        this.streamBufferCapacity, priority, limits, bindings, libraries);
+    this.executions.addLast(execution);
+    this.forgotten =
+        this.executions.size() > this.maxRetainedExecutions ? this.executions.removeFirst() : null;
+    this.snapshot = execution.getSnapshot();
+    statusChanged();
+    return execution;
   }
 
   /**
-   * The method performs preparatory actions before {@link #run() running} the script
+   * Removes the latest execution, which has not been run (the executor rejected it), as if it had
+   * never been created: the previous execution becomes the latest one again, and the execution
+   * forgotten for it is retained again
+   *
+   * @param execution the latest execution, in the queue status
+   * @return true if the execution has been removed, false if it is not the latest one or there is
+   *         no previous execution
    */
-  private synchronized void prepareScriptExecution() {
-    logger.info("[{}] - Attempting to run a script", this.name);
-    MDC.put(MDC_NAME_IDENTIFIER, this.name);
-    if (this.status == EXECUTION_CANCELED)
-      throw new ScriptNotFoundException("Script was deleted from repository");
-    this.status = RUNNING;
-    this.startTime = Instant.now();
+  public synchronized boolean discardExecution(ScriptExecution execution) {
+    if (this.executions.peekLast() != execution
+        || (this.executions.size() < 2 && this.forgotten == null))
+      return false;
+    this.executions.removeLast();
+    if (this.forgotten != null)
+      this.executions.addFirst(this.forgotten);
+    this.forgotten = null;
+    this.executionCount--;
+    this.snapshot = this.executions.peekLast().getSnapshot();
+    statusChanged();
+    return true;
   }
 
   /**
-   * The method handles the successful completion of the script {@link #run() execution}
+   * @return the latest execution of the script
    */
-  private synchronized void processingSuccessfulExecution() {
-    this.endTime = Instant.now();
-    this.status = EXECUTION_SUCCESSFUL;
-    logger.trace("[{}] - Processing of successful completion of the script is finished", this.name);
+  public ScriptExecution getLatestExecution() {
+    return this.snapshot.getExecution();
   }
 
   /**
-   * The method handles unsuccessful script {@link #run() execution} (including
-   * {@link #stopScriptExecution() stopping it forcibly}).
-   * 
-   * @param e PolyglotException, which stores the cause of the failed execution
-   */
-  private synchronized void processingFailedOrCanceledExecution(PolyglotException e) {
-    this.endTime = Instant.now();
-    if (e.isCancelled())
-      status = EXECUTION_CANCELED;
-    else
-      status = EXECUTION_FAILED;
-    StringWriter sw = new StringWriter();
-    PrintWriter pw = new PrintWriter(sw);
-    e.printStackTrace(pw);
-    try {
-      this.mainStream.write(sw.toString().getBytes());
-    } catch (IOException ex) {
-      logger.error("[{}] - error writing exception stack trace to log stream", this.name, e);
-    }
-    logger.trace("[{}] - Processing of failed completion of the script is finished", this.name);
+   * @return immutable state of the latest execution after its last transition
+   */
+  public ExecutionSnapshot getSnapshot() {
+    return this.snapshot;
   }
 
   /**
-   * The method needed to stop the script. You can only stop a script with the status RUNNING.
-   * Otherwise, an {@link WrongScriptStatusException exception} will be thrown
-   * 
-   * @throws WrongScriptException if the script status is not RUNNING
+   * Replaces the snapshot of the script, unless it already has a more recent one (of the same or a
+   * newer execution)
+   *
+   * @param published snapshot published by an execution of the script
+   */
+  void publish(ExecutionSnapshot published) {
+    ExecutionSnapshot current;
+    do {
+      current = this.snapshot;
+      if (current != null && current.isNotOlderThan(published))
+        return;
+    } while (!SNAPSHOT.compareAndSet(this, current, published));
+    if (current == null || current.getStatus() != published.getStatus()
+        || published.isSealed() && !current.isSealed())
+      statusChanged();
+  }
+
+  private void statusChanged() {
+    Consumer<Script> listener = this.statusListener;
+    if (listener != null)
+      listener.accept(this);
+  }
+
+  /**
+   * Sets the listener that is called after the status of the script has changed, and after its
+   * latest execution has been sealed (its logs will not change any more). Transitions of different
+   * executions may be reported in any order and from any thread, so the listener should read the
+   * {@link #getStatus() current status} rather than rely on the order of the calls
+   *
+   * @param statusListener listener, or null
+   */
+  public void setStatusListener(Consumer<Script> statusListener) {
+    this.statusListener = statusListener;
+  }
+
+  /**
+   * @param id number of the execution
+   * @return the execution with this number, or null if there is no such execution or it is no
+   *         longer retained
    */
-  public synchronized void stopScriptExecution() {
-    if (this.status != RUNNING)
-      throw new WrongScriptStatusException("You cannot stop a script that is not running",
-          this.status, RUNNING);
-    else
-      this.context.close(true);
-    logger.trace("[{}] - Script execution stopped", this.name);
+  public synchronized ScriptExecution getExecution(int id) {
+    for (ScriptExecution execution : this.executions)
+      if (execution.getId() == id)
+        return execution;
+    return null;
   }
 
   /**
-   * A method to get the current status of the script
+   * @return retained executions, the latest is the last one
+   */
+  public synchronized List<ScriptExecution> getExecutions() {
+    return new ArrayList<>(this.executions);
+  }
+
+  /**
+   * The method needed to stop the latest execution of the script
+   *
+   * @throws WrongScriptException if the latest execution is not RUNNING
+   * @see ScriptExecution#stopExecution()
+   */
+  public void stopScriptExecution() {
+    getLatestExecution().stopExecution();
+  }
+
+  /**
+   * This method works if the script was deleted while its latest execution was in the execution
+   * queue or running
+   */
+  public void cancelExecution() {
+    getLatestExecution().cancel();
+  }
+
+  /**
+   * A method to get the current status of the script, which is the status of its latest execution
    * 
    * @return current status of the script
    */
-  public synchronized ScriptStatus getStatus() {
-    return this.status;
+  public ScriptStatus getStatus() {
+    return this.snapshot.getStatus();
   }
 
   /**
-   * A method to get the output logs
+   * A method to get the output logs of the latest execution
    * 
    * @return output logs
    */
   public String getOutputLogs() {
-    return this.logStorageStream.toString();
+    return getLatestExecution().getOutputLogs();
   }
 
   /**
-   * Adds another stream to {@link #mainStream}
+   * Adds another stream for recording the output of the latest execution
    * 
    * @param outputStream OutputStream
    */
   public void addStreamForRecording(OutputStream outputStream) {
-    this.mainStream.addStream(outputStream);
+    getLatestExecution().addStreamForRecording(outputStream);
   }
 
   /**
-   * Deletes stream from {@link #mainStream}
+   * Deletes stream for recording the output of the latest execution
    * 
    * @param outputStream OutputStream for removal
    */
   public void deleteStreamForRecording(OutputStream outputStream) {
-    this.mainStream.deleteStream(outputStream);
-  }
-
-  /**
-   * This method works if the script was deleted while it was in the execution queue
-   */
-  public synchronized void cancelExecution() {
-    this.status = EXECUTION_CANCELED;
-    if (this.context != null)
-      context.close(true);
+    getLatestExecution().deleteStreamForRecording(outputStream);
   }
 
   public int getLogsSize() {
-    return this.logStorageStream.toString().length();
+    return this.snapshot.getLogsSize();
   }
 
   public String getName() {
@@ -238,16 +376,71 @@ public class Script implements Runnable {
     return this.scriptCode;
   }
 
+  public Source getSource() {
+    return this.source;
+  }
+
+  public ContextPool getContextPool() {
+    return this.contextPool;
+  }
+
+  public ScriptWatchdog getWatchdog() {
+    return this.watchdog;
+  }
+
+  public int getExecutionCount() {
+    return this.snapshot.getId();
+  }
+
+  public int getPriority() {
+    return this.snapshot.getPriority();
+  }
+
+  public ScriptLimits getLimits() {
+    return this.snapshot.getLimits();
+  }
+
+  public ScriptBindings getBindings() {
+    return this.snapshot.getBindings();
+  }
+
+  public List<String> getLibraryNames() {
+    return this.snapshot.getLibraryNames();
+  }
+
   public Instant getCreateTime() {
     return this.createTime;
   }
 
+  public boolean isResultCaptured() {
+    return this.resultCaptured;
+  }
+
+  public void setResultCaptured(boolean resultCaptured) {
+    this.resultCaptured = resultCaptured;
+  }
+
+  public synchronized ScriptSchedule getSchedule() {
+    return this.schedule;
+  }
+
+  /**
+   * Replaces the schedule of the script. The previous schedule is cancelled
+   *
+   * @param schedule new schedule, or null to remove it
+   */
+  public synchronized void setSchedule(ScriptSchedule schedule) {
+    if (this.schedule != null && this.schedule != schedule)
+      this.schedule.cancel();
+    this.schedule = schedule;
+  }
+
   public Instant getStartTime() {
-    return this.startTime;
+    return this.snapshot.getStartTime();
   }
 
   public Instant getEndTime() {
-    return this.endTime;
+    return this.snapshot.getEndTime();
   }
 
 }
@@ -0,0 +1,88 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Input parameters of a script run: a JSON object, each member of which becomes a global variable
+ * of the script. Since the inputs are not part of the code, the same code run with different inputs
+ * is parsed and compiled only once. The values are plain JSON values (null, boolean, number,
+ * string, array and object), and the script gets them as native JS values.
+ */
+public class ScriptBindings {
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+  private static final ScriptBindings EMPTY = new ScriptBindings(Collections.emptyMap());
+  private final Map<String, Object> values;
+  /**
+   * The values as a JSON object, which is parsed in the context of the script
+   */
+  private final String json;
+
+  /**
+   * Basic constructor. It is also used to read the bindings from a JSON object
+   *
+   * @param values names and values of the global variables. If null, there are no bindings
+   * @throws WrongArgumentException if a value cannot be represented as JSON
+   */
+  @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+  public ScriptBindings(Map<String, Object> values) {
+    this.values = values == null ? Collections.emptyMap()
+        : Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    try {
+      this.json = objectMapper.writeValueAsString(this.values);
+    } catch (JsonProcessingException e) {
+      throw new WrongArgumentException("The bindings cannot be represented as JSON", e);
+    }
+  }
+
+  /**
+   * @return bindings without variables
+   */
+  public static ScriptBindings empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Reads the bindings from the text of a JSON object
+   *
+   * @param json JSON object, for example {"name": "value", "items": [1, 2]}
+   * @return ScriptBindings
+   * @throws WrongArgumentException if the text is not a JSON object
+   */
+  public static ScriptBindings parse(String json) {
+    try {
+      return new ScriptBindings(
+          objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {}));
+    } catch (JsonProcessingException e) {
+      throw new WrongArgumentException("The bindings must be a JSON object", e);
+    }
+  }
+
+  public boolean isEmpty() {
+    return this.values.isEmpty();
+  }
+
+  @JsonValue
+  public Map<String, Object> getValues() {
+    return this.values;
+  }
+
+  public String toJson() {
+    return this.json;
+  }
+
+  @Override
+  public String toString() {
+    return this.json;
+  }
+
+}
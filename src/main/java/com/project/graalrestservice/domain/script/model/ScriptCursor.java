@@ -0,0 +1,106 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Position of a script in a sorted list of scripts: its creation time and its name, which are the
+ * keys by which the list is sorted. A page of the list can be requested as the scripts that follow
+ * the cursor of the last script of the previous page, so the page does not move when scripts are
+ * added or removed before it. The cursor is given to the client as an opaque string.
+ */
+public final class ScriptCursor {
+
+  /**
+   * Order of the list sorted by name
+   */
+  public static final Comparator<ScriptCursor> BY_NAME =
+      Comparator.comparing(ScriptCursor::getName);
+  /**
+   * Order of the list sorted by creation time (the oldest first). Scripts created at the same time
+   * are sorted by name
+   */
+  public static final Comparator<ScriptCursor> BY_CREATE_TIME =
+      Comparator.comparing(ScriptCursor::getCreateTime).thenComparing(ScriptCursor::getName);
+  private static final String SEPARATOR = ":";
+  private final Instant createTime;
+  private final String name;
+
+  /**
+   * Basic constructor
+   *
+   * @param createTime creation time of the script
+   * @param name script name (identifier)
+   */
+  public ScriptCursor(Instant createTime, String name) {
+    this.createTime = createTime;
+    this.name = name;
+  }
+
+  /**
+   * @param script script
+   * @return position of the script
+   */
+  public static ScriptCursor of(Script script) {
+    return new ScriptCursor(script.getCreateTime(), script.getName());
+  }
+
+  /**
+   * @return opaque string, from which the cursor is {@link #decode(String) decoded}
+   */
+  public String encode() {
+    String plain = this.createTime.getEpochSecond() + SEPARATOR + this.createTime.getNano()
+        + SEPARATOR + this.name;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param cursor string {@link #encode() encoded} from a cursor
+   * @return the cursor
+   * @throws WrongArgumentException if the string is not a cursor
+   */
+  public static ScriptCursor decode(String cursor) {
+    try {
+      String plain = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = plain.split(SEPARATOR, 3);
+      if (parts.length != 3)
+        throw new WrongArgumentException("Invalid cursor: " + cursor);
+      Instant createTime =
+          Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+      return new ScriptCursor(createTime, parts[2]);
+    } catch (IllegalArgumentException | DateTimeException e) {
+      throw new WrongArgumentException("Invalid cursor: " + cursor);
+    }
+  }
+
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    ScriptCursor that = (ScriptCursor) o;
+    return this.createTime.equals(that.createTime) && this.name.equals(that.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.createTime, this.name);
+  }
+
+}
@@ -0,0 +1,533 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.enumeration.ScriptValidationMode;
+import com.project.graalrestservice.domain.script.exception.ScriptNotFoundException;
+import com.project.graalrestservice.domain.script.exception.WrongScriptException;
+import com.project.graalrestservice.domain.script.exception.WrongScriptStatusException;
+import com.project.graalrestservice.domain.script.util.CircularOutputStream;
+import com.project.graalrestservice.domain.script.util.ContextPool;
+import com.project.graalrestservice.domain.script.util.OutputStreamSplitter;
+import com.project.graalrestservice.domain.script.util.PooledContext;
+import com.project.graalrestservice.domain.script.util.Prioritized;
+import com.project.graalrestservice.domain.script.util.ScriptWatchdog;
+import com.project.graalrestservice.domain.script.util.ValueConverter;
+import com.project.graalrestservice.web.controller.ScriptsController;
+import com.project.graalrestservice.web.dto.ScriptRunParameters;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.*;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.stream.Collectors;
+
+import static com.project.graalrestservice.domain.script.enumeration.ScriptStatus.*;
+
+/**
+ * One run of a {@link Script}. Each execution has its own status, times, logs, priority and limits,
+ * while the code (and its parsed {@link Source}) belongs to the script and is shared by all its
+ * executions.
+ * <p>
+ * The status is a lock-free state machine. It changes only by the compare-and-set transitions
+ * IN_QUEUE to RUNNING (the run starts), IN_QUEUE to EXECUTION_CANCELED (cancelled in the queue) and
+ * RUNNING to one of the final statuses, so the first of two competing transitions wins and the
+ * other one fails without effect. The status and the times are kept in an immutable
+ * {@link ExecutionSnapshot}, which is replaced on each transition and published to the script, so
+ * reading them never blocks and always gives a consistent view. Only cancelling the context of a
+ * running execution is done under the lock of the execution, so a context is never cancelled after
+ * it has been returned to the {@link ContextPool}.
+ */
+public class ScriptExecution implements Runnable, Prioritized {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScriptExecution.class);
+  private static final String MDC_NAME_IDENTIFIER = "scriptName";
+  private final Script script;
+  /**
+   * Number of the execution of the script, starting from 1
+   */
+  private final int id;
+  /**
+   * Priority of the execution in the execution queue, from {@link Script#MIN_PRIORITY} to
+   * {@link Script#MAX_PRIORITY}
+   */
+  private final int priority;
+  /**
+   * Execution limits. The wall time and CPU time limits are enforced by the {@link ScriptWatchdog},
+   * the statement limit by the context in which the script is run
+   */
+  private final ScriptLimits limits;
+  /**
+   * Input parameters, which become global variables of the script
+   */
+  private final ScriptBindings bindings;
+  /**
+   * Libraries that are evaluated in the context before the code of the script, in this order
+   */
+  private final List<ScriptLibrary> libraries;
+  private final List<String> libraryNames;
+  private static final AtomicReferenceFieldUpdater<ScriptExecution, ExecutionSnapshot> SNAPSHOT =
+      AtomicReferenceFieldUpdater.newUpdater(ScriptExecution.class, ExecutionSnapshot.class,
+          "snapshot");
+  /**
+   * Current status and times of the execution. It is only replaced by compare-and-set
+   */
+  private volatile ExecutionSnapshot snapshot;
+  /**
+   * Description of the limit that was exceeded by the execution, or null
+   */
+  private volatile String exceededLimit;
+  /**
+   * Set when the execution has been {@link #stopExecution() stopped} by the user
+   */
+  private volatile boolean stopRequested;
+  /**
+   * The {@link CircularOutputStream} is used to store logs. If its size is exceeded, the data will
+   * be overwritten according to the Circular buffer principle
+   */
+  private final OutputStream logStorageStream;
+  /**
+   * {@link OutputStreamSplitter} is needed to divide one OS into several independent of each other.
+   * In this case, this functionality is needed to be able to save logs and simultaneously
+   * {@link ScriptsController#runScriptWithLogsStreaming(String, String, ScriptRunParameters) stream
+   * them}.
+   */
+  private final OutputStreamSplitter mainStream;
+  private final Instant createTime;
+  /**
+   * Context in which the execution is running, or null if it is not running. Guarded by the lock of
+   * the execution
+   */
+  private PooledContext context;
+  /**
+   * Value of the last expression of the script {@link ValueConverter converted} to a plain Java
+   * object. It is kept only if the script {@link Script#isResultCaptured() captures results}
+   */
+  private volatile Object result;
+  /**
+   * Completed with the final status when the execution has finished
+   */
+  private final CompletableFuture<ScriptStatus> completion = new CompletableFuture<>();
+
+  /**
+   * Package-private constructor, executions are created by
+   * {@link Script#newExecution(int, ScriptLimits, ScriptBindings, List)}
+   */
+  ScriptExecution(Script script, int id, int streamBufferCapacity, int priority,
+      ScriptLimits limits, ScriptBindings bindings, List<ScriptLibrary> libraries) {
+    this.script = script;
+    this.id = id;
+    this.priority = priority;
+    this.limits = limits;
+    this.bindings = bindings == null ? ScriptBindings.empty() : bindings;
+    this.libraries = libraries == null ? List.of() : List.copyOf(libraries);
+    this.libraryNames =
+        this.libraries.stream().map(ScriptLibrary::getName).collect(Collectors.toList());
+    this.createTime = Instant.now();
+    this.snapshot = ExecutionSnapshot.initial(this);
+    this.logStorageStream = new CircularOutputStream(streamBufferCapacity);
+    this.mainStream = new OutputStreamSplitter();
+    this.mainStream.addStream(logStorageStream);
+    logger.trace("[{}] - Script execution {} created", script.getName(), id);
+  }
+
+  /**
+   * Package-private constructor of a finished execution restored from the journal by
+   * {@link Script#restore}. Its logs are written to a buffer of their own size, and it is sealed at
+   * once. The libraries are known only by their names, so the execution cannot be run
+   */
+  ScriptExecution(Script script, ArchivedScript state, int streamBufferCapacity) {
+    this.script = script;
+    this.id = state.getExecutionCount();
+    this.priority = state.getPriority();
+    this.limits = state.getLimits();
+    this.bindings = ScriptBindings.empty();
+    this.libraries = List.of();
+    this.libraryNames = List.copyOf(state.getLibraryNames());
+    this.createTime = state.getStartTime() != null ? state.getStartTime() : state.getCreateTime();
+    byte[] logs = state.getOutputLogs().getBytes();
+    CircularOutputStream logStorage = new CircularOutputStream(streamBufferCapacity, logs.length);
+    logStorage.write(logs, 0, logs.length);
+    this.logStorageStream = logStorage;
+    this.mainStream = new OutputStreamSplitter();
+    this.mainStream.addStream(logStorageStream);
+    this.snapshot = ExecutionSnapshot.restored(this, state.getStatus(), state.getStartTime(),
+        state.getEndTime(), state.getLogsSize());
+    this.completion.complete(state.getStatus());
+  }
+
+  /**
+   * The method is used to start processing the execution. {@link #prepareScriptExecution()
+   * Preparing} to run, its {@link #processingSuccessfulExecution() successful} or
+   * {@link #processingFailedOrCanceledExecution(PolyglotException) unsuccessful} execution is
+   * performed by the corresponding methods. {@link OutputStreamSplitter} used as a base streamer
+   * for log processing. It is needed to be able to save logs and simultaneously
+   * {@link ScriptsController#runScriptWithLogsStreaming(String, String, ScriptRunParameters) stream
+   * them}. The context is {@link ContextPool#borrow(OutputStream) borrowed} from the
+   * {@link ContextPool} with its output redirected to {@link #mainStream}, and it is released back
+   * to the pool at the end. If the script was created in {@link ScriptValidationMode#DEFERRED
+   * DEFERRED} mode, this is where it is parsed, and a syntax error ends the run with the
+   * EXECUTION_FAILED status. While the script is running, its time limits are
+   * {@link ScriptWatchdog#watch(long, long, java.util.function.Consumer) watched}, and if the
+   * statement limit is set, the script gets a {@link ContextPool#borrow(OutputStream, long)
+   * dedicated context} with this limit. The {@link ScriptBindings bindings} of the execution are
+   * {@link PooledContext#putBindings(ScriptBindings) put} into the context before the script is
+   * evaluated. Then the {@link ScriptLibrary libraries} of the execution are evaluated, within its
+   * limits. Their code has been parsed when they were uploaded, and the shared engine reuses it.
+   * Whatever happens, the execution ends with a final status and its {@link #getCompletion()
+   * completion} is completed, because pipelines and schedules wait for it.
+   */
+  @Override
+  public void run() {
+    String name = this.script.getName();
+    PooledContext jsContext = null;
+    ScriptWatchdog.Watch watch = null;
+    try {
+      jsContext =
+          this.script.getContextPool().borrow(this.mainStream, this.limits.getMaxStatements());
+      attachContext(jsContext);
+      prepareScriptExecution();
+      jsContext.putBindings(this.bindings);
+      watch = this.script.getWatchdog().watch(this.limits.getMaxWallTimeMillis(),
+          this.limits.getMaxCpuTimeMillis(), this::terminateOnLimit);
+      for (ScriptLibrary library : this.libraries)
+        jsContext.eval(library.getSource());
+      Value value = jsContext.eval(this.script.getSource());
+      if (this.script.isResultCaptured())
+        this.result = ValueConverter.toJava(value);
+      processingSuccessfulExecution();
+      logger.info("[{}] - Execution {} completed successfully", name, this.id);
+    } catch (PolyglotException e) {
+      processingFailedOrCanceledExecution(e);
+      if (getStatus() == EXECUTION_LIMIT_EXCEEDED)
+        logger.info("[{}] - Execution {} terminated: {}", name, this.id, this.exceededLimit);
+      else if (e.isSyntaxError())
+        logger.info("[{}] - The script failed to parse: {}", name, e.getMessage());
+      else
+        logger.info("[{}] - Execution {} failed.", name, this.id, e);
+    } catch (ScriptNotFoundException e) {
+      logger.info(
+          "[{}] - The script has been removed from the repository. The run has been cancelled",
+          name, e);
+    } catch (RuntimeException e) {
+      processingUnexpectedFailure(e);
+      logger.warn("[{}] - Execution {} ended with the {} status", name, this.id, getStatus(), e);
+    } finally {
+      if (watch != null)
+        watch.close();
+      detachContext();
+      if (jsContext != null)
+        this.script.getContextPool().release(jsContext);
+      abort(EXECUTION_FAILED); // an Error, the status is still IN_QUEUE or RUNNING
+      this.mainStream.closeAllStreams();
+      seal();
+      this.completion.complete(getStatus());
+    }
+  }
+
+  /**
+   * The method performs preparatory actions before {@link #run() running} the script
+   */
+  private void prepareScriptExecution() {
+    logger.info("[{}] - Attempting to run a script (execution {})", this.script.getName(), this.id);
+    MDC.put(MDC_NAME_IDENTIFIER, this.script.getName());
+    if (!transition(IN_QUEUE, RUNNING))
+      throw new ScriptNotFoundException("Script was deleted from repository");
+  }
+
+  /**
+   * The method handles the successful completion of the script {@link #run() execution}
+   */
+  private void processingSuccessfulExecution() {
+    finish(EXECUTION_SUCCESSFUL);
+    logger.trace("[{}] - Processing of successful completion of the script is finished",
+        this.script.getName());
+  }
+
+  /**
+   * The method handles unsuccessful script {@link #run() execution} (including
+   * {@link #stopExecution() stopping it forcibly} and {@link #terminateOnLimit(String) terminating
+   * it on a limit}). For a syntax error and an exceeded limit only the message is written to the
+   * logs, the stack trace is of no use to the user.
+   * 
+   * @param e PolyglotException, which stores the cause of the failed execution
+   */
+  private void processingFailedOrCanceledExecution(PolyglotException e) {
+    if (e.isResourceExhausted()) {
+      this.exceededLimit = e.getMessage();
+      finish(EXECUTION_LIMIT_EXCEEDED);
+    } else if (e.isCancelled())
+      finish(this.exceededLimit != null ? EXECUTION_LIMIT_EXCEEDED : EXECUTION_CANCELED);
+    else
+      finish(EXECUTION_FAILED);
+    ScriptStatus status = getStatus();
+    StringWriter sw = new StringWriter();
+    PrintWriter pw = new PrintWriter(sw);
+    if (status == EXECUTION_LIMIT_EXCEEDED)
+      pw.println("Execution terminated: " + this.exceededLimit);
+    else if (e.isSyntaxError())
+      pw.println(e.getMessage());
+    else
+      e.printStackTrace(pw);
+    pw.flush();
+    try {
+      this.mainStream.write(sw.toString().getBytes());
+    } catch (IOException ex) {
+      logger.error("[{}] - error writing exception stack trace to log stream",
+          this.script.getName(), e);
+    }
+    logger.trace("[{}] - Processing of failed completion of the script is finished",
+        this.script.getName());
+  }
+
+  /**
+   * The method handles a failure that is not an error of the script: the context could not be
+   * created, or it was closed by {@link #stopExecution() stopping} the execution or by
+   * {@link #terminateOnLimit(String) terminating} it just after the evaluation, while its result
+   * was being converted. In the last two cases the execution ends with the status that was
+   * requested, otherwise with EXECUTION_FAILED
+   *
+   * @param e exception that ended the run
+   */
+  private void processingUnexpectedFailure(RuntimeException e) {
+    if (this.exceededLimit != null)
+      abort(EXECUTION_LIMIT_EXCEEDED);
+    else if (this.stopRequested)
+      abort(EXECUTION_CANCELED);
+    else
+      abort(EXECUTION_FAILED);
+    String message =
+        getStatus() == EXECUTION_LIMIT_EXCEEDED ? "Execution terminated: " + this.exceededLimit
+            : "Execution ended: " + e;
+    try {
+      this.mainStream.write((message + System.lineSeparator()).getBytes());
+    } catch (IOException ex) {
+      logger.error("[{}] - error writing exception to log stream", this.script.getName(), ex);
+    }
+  }
+
+  /**
+   * The method needed to stop the execution. You can only stop an execution with the status
+   * RUNNING. Otherwise, an {@link WrongScriptStatusException exception} will be thrown
+   * 
+   * @throws WrongScriptException if the execution status is not RUNNING
+   */
+  public synchronized void stopExecution() {
+    ScriptStatus current = getStatus();
+    if (current != RUNNING || this.context == null)
+      throw new WrongScriptStatusException("You cannot stop a script that is not running", current,
+          RUNNING);
+    this.stopRequested = true;
+    this.context.cancel();
+    logger.trace("[{}] - Script execution {} stopped", this.script.getName(), this.id);
+  }
+
+  /**
+   * Terminates the running execution because it has exceeded one of its limits. It is called by the
+   * {@link ScriptWatchdog}. The execution ends with the EXECUTION_LIMIT_EXCEEDED status
+   *
+   * @param exceededLimit description of the exceeded limit
+   */
+  private synchronized void terminateOnLimit(String exceededLimit) {
+    if (getStatus() != RUNNING || this.context == null)
+      return;
+    this.exceededLimit = exceededLimit;
+    this.context.cancel();
+    logger.trace("[{}] - Script execution {} terminated on limit", this.script.getName(), this.id);
+  }
+
+  /**
+   * This method works if the script was deleted while the execution was in the queue or running. An
+   * execution in the queue is finished at once and will not be run. A running execution gets the
+   * EXECUTION_CANCELED status and its context is cancelled, which ends the run
+   */
+  public void cancel() {
+    if (transition(IN_QUEUE, EXECUTION_CANCELED)) {
+      seal();
+      this.completion.complete(EXECUTION_CANCELED);
+    } else if (transition(RUNNING, EXECUTION_CANCELED)) {
+      cancelContext();
+    }
+  }
+
+  /**
+   * A method to get the current status of the execution. It never blocks
+   * 
+   * @return current status of the execution
+   */
+  public ScriptStatus getStatus() {
+    return this.snapshot.getStatus();
+  }
+
+  /**
+   * @return immutable state of the execution after its last transition
+   */
+  public ExecutionSnapshot getSnapshot() {
+    return this.snapshot;
+  }
+
+  /**
+   * Atomically changes the status if it is the expected one. The start or end time is set by the
+   * same change, and the new snapshot is published to the script
+   *
+   * @return true if the status has been changed
+   */
+  private boolean transition(ScriptStatus expected, ScriptStatus target) {
+    Instant now = Instant.now();
+    ExecutionSnapshot current;
+    ExecutionSnapshot next;
+    do {
+      current = this.snapshot;
+      if (current.getStatus() != expected)
+        return false;
+      next = current.transition(target, now);
+    } while (!SNAPSHOT.compareAndSet(this, current, next));
+    this.script.publish(next);
+    return true;
+  }
+
+  /**
+   * Ends the run with the final status. If the execution has already been cancelled, it keeps the
+   * EXECUTION_CANCELED status
+   */
+  private void finish(ScriptStatus target) {
+    transition(RUNNING, target);
+  }
+
+  /**
+   * Ends the run with the final status, even if it failed before it started. Such an execution is
+   * first marked as started, so it goes through the same transitions and has both times
+   */
+  private void abort(ScriptStatus target) {
+    transition(IN_QUEUE, RUNNING);
+    finish(target);
+  }
+
+  /**
+   * Publishes the final snapshot with the size of the logs, after nothing can be written to them
+   */
+  private void seal() {
+    int logsSize = this.logStorageStream.toString().length();
+    Instant now = Instant.now();
+    ExecutionSnapshot current;
+    ExecutionSnapshot next;
+    do {
+      current = this.snapshot;
+      if (current.isSealed())
+        return;
+      next = current.seal(logsSize, now);
+    } while (!SNAPSHOT.compareAndSet(this, current, next));
+    this.script.publish(next);
+  }
+
+  private synchronized void attachContext(PooledContext jsContext) {
+    this.context = jsContext;
+  }
+
+  /**
+   * Forgets the context before it is returned to the pool, so it cannot be cancelled any more
+   */
+  private synchronized void detachContext() {
+    this.context = null;
+  }
+
+  private synchronized void cancelContext() {
+    if (this.context != null)
+      this.context.cancel();
+  }
+
+  /**
+   * A method to get the output logs
+   * 
+   * @return output logs
+   */
+  public String getOutputLogs() {
+    return this.logStorageStream.toString();
+  }
+
+  /**
+   * Adds another stream to {@link #mainStream}
+   * 
+   * @param outputStream OutputStream
+   */
+  public void addStreamForRecording(OutputStream outputStream) {
+    this.mainStream.addStream(outputStream);
+  }
+
+  /**
+   * Deletes stream from {@link #mainStream}
+   * 
+   * @param outputStream OutputStream for removal
+   */
+  public void deleteStreamForRecording(OutputStream outputStream) {
+    this.mainStream.deleteStream(outputStream);
+  }
+
+  public int getLogsSize() {
+    return this.snapshot.getLogsSize();
+  }
+
+  /**
+   * @return stage that is completed with the final status of the execution when it has finished (or
+   *         has been cancelled while in the queue)
+   */
+  public CompletionStage<ScriptStatus> getCompletion() {
+    return this.completion.copy();
+  }
+
+  public Object getResult() {
+    return this.result;
+  }
+
+  public Script getScript() {
+    return this.script;
+  }
+
+  public int getId() {
+    return this.id;
+  }
+
+  @Override
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public List<ScriptLibrary> getLibraries() {
+    return this.libraries;
+  }
+
+  /**
+   * @return names of the libraries of the execution, in the order in which they are loaded
+   */
+  public List<String> getLibraryNames() {
+    return this.libraryNames;
+  }
+
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+  public Instant getStartTime() {
+    return this.snapshot.getStartTime();
+  }
+
+  public Instant getEndTime() {
+    return this.snapshot.getEndTime();
+  }
+
+}
@@ -0,0 +1,55 @@
+package com.project.graalrestservice.domain.script.model;
+
+import org.graalvm.polyglot.Source;
+
+import java.time.Instant;
+
+/**
+ * Shared JS code that scripts can load before their own code. The code of a library is parsed once,
+ * when it is uploaded, and its {@link Source} is kept by the library, so the shared engine reuses
+ * the parsed code in every context in which the library is evaluated. A library is immutable: when
+ * it is uploaded again, a new object replaces it, and the executions that already use the previous
+ * one keep it.
+ */
+public class ScriptLibrary {
+
+  private final String name;
+  private final Source source;
+  private final Instant createTime;
+
+  /**
+   * Basic constructor
+   *
+   * @param name library name (identifier)
+   * @param source parsed source of the library
+   */
+  public ScriptLibrary(String name, Source source) {
+    this.name = name;
+    this.source = source;
+    this.createTime = Instant.now();
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public Source getSource() {
+    return this.source;
+  }
+
+  public String getCode() {
+    return this.source.getCharacters().toString();
+  }
+
+  /**
+   * @return length of the code of the library in characters
+   */
+  public int getSize() {
+    return this.source.getLength();
+  }
+
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+}
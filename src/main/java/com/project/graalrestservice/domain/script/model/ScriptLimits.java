@@ -0,0 +1,68 @@
+package com.project.graalrestservice.domain.script.model;
+
+/**
+ * Execution limits of a script. A script that exceeds any of them is terminated with the
+ * {@link com.project.graalrestservice.domain.script.enumeration.ScriptStatus#EXECUTION_LIMIT_EXCEEDED
+ * EXECUTION_LIMIT_EXCEEDED} status. The value 0 means that there is no limit, and null means that
+ * the limit is not set and is {@link #withDefaults(ScriptLimits) taken from the defaults}.
+ */
+public class ScriptLimits {
+
+  /**
+   * Maximum time from the start of the execution
+   */
+  private final Long maxWallTimeMillis;
+  /**
+   * Maximum CPU time consumed by the thread that runs the script
+   */
+  private final Long maxCpuTimeMillis;
+  /**
+   * Maximum number of JS statements executed by the script
+   */
+  private final Long maxStatements;
+
+  /**
+   * Basic constructor
+   *
+   * @param maxWallTimeMillis maximum time from the start of the execution
+   * @param maxCpuTimeMillis maximum CPU time of the script
+   * @param maxStatements maximum number of executed statements
+   */
+  public ScriptLimits(Long maxWallTimeMillis, Long maxCpuTimeMillis, Long maxStatements) {
+    this.maxWallTimeMillis = maxWallTimeMillis;
+    this.maxCpuTimeMillis = maxCpuTimeMillis;
+    this.maxStatements = maxStatements;
+  }
+
+  /**
+   * Returns new limits, in which the limits that are not set are taken from the defaults
+   *
+   * @param defaults default limits
+   * @return ScriptLimits
+   */
+  public ScriptLimits withDefaults(ScriptLimits defaults) {
+    return new ScriptLimits(
+        this.maxWallTimeMillis != null ? this.maxWallTimeMillis : defaults.maxWallTimeMillis,
+        this.maxCpuTimeMillis != null ? this.maxCpuTimeMillis : defaults.maxCpuTimeMillis,
+        this.maxStatements != null ? this.maxStatements : defaults.maxStatements);
+  }
+
+  public Long getMaxWallTimeMillis() {
+    return this.maxWallTimeMillis;
+  }
+
+  public Long getMaxCpuTimeMillis() {
+    return this.maxCpuTimeMillis;
+  }
+
+  public Long getMaxStatements() {
+    return this.maxStatements;
+  }
+
+  @Override
+  public String toString() {
+    return "ScriptLimits{" + "maxWallTimeMillis=" + maxWallTimeMillis + ", maxCpuTimeMillis="
+        + maxCpuTimeMillis + ", maxStatements=" + maxStatements + '}';
+  }
+
+}
@@ -0,0 +1,108 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.util.SourceCache;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What the {@link com.project.graalrestservice.domain.script.util.ScriptMetadataStore metadata
+ * store} keeps of a finished script: its name, the state of its latest execution, the size of its
+ * logs (the logs themselves are dropped) and the hash of its code. The code is stored separately,
+ * once for each distinct code, and is read only when the script is needed as a {@link Script}.
+ */
+public class ScriptMetadata {
+
+  private final String name;
+  private final ScriptStatus status;
+  private final Instant createTime;
+  private final Instant startTime;
+  private final Instant endTime;
+  private final int priority;
+  private final int executionCount;
+  private final int logsSize;
+  private final String codeHash;
+
+  /**
+   * Basic constructor
+   */
+  public ScriptMetadata(String name, ScriptStatus status, Instant createTime, Instant startTime,
+      Instant endTime, int priority, int executionCount, int logsSize, String codeHash) {
+    this.name = name;
+    this.status = status;
+    this.createTime = createTime;
+    this.startTime = startTime;
+    this.endTime = endTime;
+    this.priority = priority;
+    this.executionCount = executionCount;
+    this.logsSize = logsSize;
+    this.codeHash = codeHash;
+  }
+
+  /**
+   * @param script finished script
+   * @return metadata of the script and its latest execution
+   */
+  public static ScriptMetadata of(Script script) {
+    ExecutionSnapshot snapshot = script.getSnapshot();
+    return new ScriptMetadata(script.getName(), snapshot.getStatus(), script.getCreateTime(),
+        snapshot.getStartTime(), snapshot.getEndTime(), snapshot.getPriority(), snapshot.getId(),
+        snapshot.getLogsSize(), SourceCache.hash(script.getScriptCode()));
+  }
+
+  /**
+   * @param scriptCode code of the script
+   * @return state from which the script is {@link Script#restore restored}, without logs, limits
+   *         and libraries
+   */
+  public ArchivedScript toArchivedScript(String scriptCode) {
+    return new ArchivedScript(this.name, scriptCode, this.status, this.createTime, this.startTime,
+        this.endTime, this.priority, this.executionCount, new ScriptLimits(null, null, null),
+        List.of(), "", this.logsSize);
+  }
+
+  /**
+   * @return position of the script in the sorted lists
+   */
+  public ScriptCursor getCursor() {
+    return new ScriptCursor(this.createTime, this.name);
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+  public Instant getStartTime() {
+    return this.startTime;
+  }
+
+  public Instant getEndTime() {
+    return this.endTime;
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public int getExecutionCount() {
+    return this.executionCount;
+  }
+
+  public int getLogsSize() {
+    return this.logsSize;
+  }
+
+  public String getCodeHash() {
+    return this.codeHash;
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.project.graalrestservice.domain.script.model;
+
+import java.util.List;
+
+/**
+ * One page of a sorted and filtered list of scripts, together with the number of scripts in the
+ * whole list
+ */
+public class ScriptPage {
+
+  private final List<Script> scripts;
+  private final int totalCount;
+  private final boolean hasNext;
+
+  /**
+   * Basic constructor
+   *
+   * @param scripts scripts of the page, in the order of the list
+   * @param totalCount number of scripts in the whole list
+   * @param hasNext true if there are scripts after the page
+   */
+  public ScriptPage(List<Script> scripts, int totalCount, boolean hasNext) {
+    this.scripts = scripts;
+    this.totalCount = totalCount;
+    this.hasNext = hasNext;
+  }
+
+  /**
+   * @return cursor of the last script of the page, after which the next page starts, or null if
+   *         there is no next page
+   */
+  public ScriptCursor getNextCursor() {
+    return this.hasNext && !this.scripts.isEmpty()
+        ? ScriptCursor.of(this.scripts.get(this.scripts.size() - 1))
+        : null;
+  }
+
+  public List<Script> getScripts() {
+    return this.scripts;
+  }
+
+  public int getTotalCount() {
+    return this.totalCount;
+  }
+
+  public boolean hasNext() {
+    return this.hasNext;
+  }
+
+}
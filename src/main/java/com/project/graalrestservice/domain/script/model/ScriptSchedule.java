@@ -0,0 +1,210 @@
+package com.project.graalrestservice.domain.script.model;
+
+import com.project.graalrestservice.domain.script.enumeration.ScheduleOverlapPolicy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recurring schedule of a script. The script is run either by a cron expression or at a fixed
+ * interval, each time as a new {@link ScriptExecution execution} of the stored code, so the code is
+ * never sent or parsed again. The class contains the definition of the schedule (when and with
+ * which run parameters the script is run) and the statistics of its runs.
+ */
+public class ScriptSchedule {
+
+  private final String scriptName;
+  /**
+   * Cron expression (six fields, with seconds), or null if the schedule has a fixed interval
+   */
+  private final String cron;
+  /**
+   * Interval between runs, or null if the schedule has a cron expression
+   */
+  private final Long intervalMillis;
+  private final ScheduleOverlapPolicy overlapPolicy;
+  private final int priority;
+  private final ScriptLimits limits;
+  private final ScriptBindings bindings;
+  /**
+   * Names of the libraries of the executions. They are looked up at each run, so the runs use the
+   * latest uploaded versions
+   */
+  private final List<String> libraries;
+  private final Instant createTime;
+  private ScheduledFuture<?> future;
+  private boolean cancelled = false;
+  /**
+   * True if a {@link ScheduleOverlapPolicy#CATCH_UP catch-up} run waits for the current execution
+   * to finish
+   */
+  private boolean catchUpPending = false;
+  private long runCount = 0;
+  private long skipCount = 0;
+  private Instant lastRunTime;
+  private Integer lastExecutionId;
+  private String lastError;
+
+  /**
+   * Basic constructor
+   *
+   * @param scriptName script name (identifier)
+   * @param cron cron expression, or null if the schedule has a fixed interval
+   * @param intervalMillis interval between runs, or null if the schedule has a cron expression
+   * @param overlapPolicy what to do with a run that is due while the script is still running
+   * @param priority priority of the executions in the execution queue
+   * @param limits execution limits, the limits that are not set are taken from the defaults
+   * @param bindings input parameters of the executions
+   * @param libraries names of the libraries of the executions
+   */
+  public ScriptSchedule(String scriptName, String cron, Long intervalMillis,
+      ScheduleOverlapPolicy overlapPolicy, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries) {
+    this.scriptName = scriptName;
+    this.cron = cron;
+    this.intervalMillis = intervalMillis;
+    this.overlapPolicy = overlapPolicy;
+    this.priority = priority;
+    this.limits = limits;
+    this.bindings = bindings;
+    this.libraries = libraries == null ? List.of() : List.copyOf(libraries);
+    this.createTime = Instant.now();
+  }
+
+  /**
+   * Stops the schedule. The execution that has already been started is not affected
+   */
+  public synchronized void cancel() {
+    this.cancelled = true;
+    if (this.future != null)
+      this.future.cancel(false);
+  }
+
+  /**
+   * Records a run of the script started by the schedule
+   *
+   * @param executionId number of the started execution
+   */
+  public synchronized void recordRun(int executionId) {
+    this.runCount++;
+    this.lastRunTime = Instant.now();
+    this.lastExecutionId = executionId;
+    this.lastError = null;
+  }
+
+  /**
+   * Records a run that did not start a new execution (it was skipped or merged into a pending
+   * catch-up run)
+   */
+  public synchronized void recordSkip() {
+    this.skipCount++;
+  }
+
+  /**
+   * Records a run that failed to start
+   *
+   * @param error the reason
+   */
+  public synchronized void recordError(String error) {
+    this.skipCount++;
+    this.lastError = error;
+  }
+
+  /**
+   * Marks that a catch-up run is waiting for the current execution to finish
+   *
+   * @return true if there was no pending catch-up run before
+   */
+  public synchronized boolean markCatchUpPending() {
+    if (this.catchUpPending)
+      return false;
+    this.catchUpPending = true;
+    return true;
+  }
+
+  public synchronized void clearCatchUpPending() {
+    this.catchUpPending = false;
+  }
+
+  public synchronized void setFuture(ScheduledFuture<?> future) {
+    this.future = future;
+    if (this.cancelled)
+      future.cancel(false);
+  }
+
+  /**
+   * @return time of the next run, or null if the schedule is cancelled
+   */
+  public synchronized Instant getNextRunTime() {
+    if (this.cancelled || this.future == null || this.future.isDone())
+      return null;
+    return Instant.now().plusMillis(Math.max(0, this.future.getDelay(TimeUnit.MILLISECONDS)));
+  }
+
+  public synchronized boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  public synchronized boolean isCatchUpPending() {
+    return this.catchUpPending;
+  }
+
+  public String getScriptName() {
+    return this.scriptName;
+  }
+
+  public String getCron() {
+    return this.cron;
+  }
+
+  public Long getIntervalMillis() {
+    return this.intervalMillis;
+  }
+
+  public ScheduleOverlapPolicy getOverlapPolicy() {
+    return this.overlapPolicy;
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public List<String> getLibraries() {
+    return this.libraries;
+  }
+
+  public Instant getCreateTime() {
+    return this.createTime;
+  }
+
+  public synchronized long getRunCount() {
+    return this.runCount;
+  }
+
+  public synchronized long getSkipCount() {
+    return this.skipCount;
+  }
+
+  public synchronized Instant getLastRunTime() {
+    return this.lastRunTime;
+  }
+
+  public synchronized Integer getLastExecutionId() {
+    return this.lastExecutionId;
+  }
+
+  public synchronized String getLastError() {
+    return this.lastError;
+  }
+
+}
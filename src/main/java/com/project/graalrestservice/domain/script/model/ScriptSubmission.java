@@ -0,0 +1,62 @@
+package com.project.graalrestservice.domain.script.model;
+
+import java.util.List;
+
+/**
+ * A request to add a new script, used when several scripts are submitted at once
+ */
+public class ScriptSubmission {
+
+  private final String name;
+  private final String scriptCode;
+  private final int priority;
+  private final ScriptLimits limits;
+  private final ScriptBindings bindings;
+  private final List<String> libraries;
+
+  /**
+   * Basic constructor
+   *
+   * @param name script name (identifier)
+   * @param scriptCode JS body
+   * @param priority priority of the script in the execution queue
+   * @param limits execution limits of the script, the limits that are not set are taken from the
+   *        defaults
+   * @param bindings input parameters of the script
+   * @param libraries names of the libraries loaded before the code of the script
+   */
+  public ScriptSubmission(String name, String scriptCode, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries) {
+    this.name = name;
+    this.scriptCode = scriptCode;
+    this.priority = priority;
+    this.limits = limits;
+    this.bindings = bindings;
+    this.libraries = libraries;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public String getScriptCode() {
+    return this.scriptCode;
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public List<String> getLibraries() {
+    return this.libraries;
+  }
+
+}
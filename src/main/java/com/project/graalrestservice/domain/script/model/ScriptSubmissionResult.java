@@ -0,0 +1,43 @@
+package com.project.graalrestservice.domain.script.model;
+
+/**
+ * The result of one {@link ScriptSubmission}: either the added script or the reason why it was not
+ * added
+ */
+public class ScriptSubmissionResult {
+
+  private final String name;
+  private final Script script;
+  private final RuntimeException error;
+
+  private ScriptSubmissionResult(String name, Script script, RuntimeException error) {
+    this.name = name;
+    this.script = script;
+    this.error = error;
+  }
+
+  public static ScriptSubmissionResult accepted(Script script) {
+    return new ScriptSubmissionResult(script.getName(), script, null);
+  }
+
+  public static ScriptSubmissionResult rejected(String name, RuntimeException error) {
+    return new ScriptSubmissionResult(name, null, error);
+  }
+
+  public boolean isAccepted() {
+    return this.script != null;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public Script getScript() {
+    return this.script;
+  }
+
+  public RuntimeException getError() {
+    return this.error;
+  }
+
+}
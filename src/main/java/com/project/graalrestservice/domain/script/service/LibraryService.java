@@ -0,0 +1,20 @@
+package com.project.graalrestservice.domain.script.service;
+
+import com.project.graalrestservice.domain.script.model.ScriptLibrary;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LibraryService {
+
+  ScriptLibrary putLibrary(String libraryName, String code);
+
+  ScriptLibrary getLibrary(String libraryName);
+
+  Collection<ScriptLibrary> getLibraries();
+
+  void deleteLibrary(String libraryName);
+
+  List<ScriptLibrary> resolveLibraries(List<String> libraryNames);
+
+}
@@ -0,0 +1,22 @@
+package com.project.graalrestservice.domain.script.service;
+
+import com.project.graalrestservice.domain.script.model.Pipeline;
+import com.project.graalrestservice.domain.script.model.PipelineNode;
+import com.project.graalrestservice.domain.script.model.PipelineNodeSubmission;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PipelineService {
+
+  Pipeline startPipeline(String pipelineName, List<PipelineNodeSubmission> submissions);
+
+  Pipeline getPipeline(String pipelineName);
+
+  PipelineNode getPipelineNode(String pipelineName, String nodeId);
+
+  Collection<Pipeline> getPipelines();
+
+  void deletePipeline(String pipelineName);
+
+}
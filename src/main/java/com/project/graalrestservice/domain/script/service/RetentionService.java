@@ -0,0 +1,11 @@
+package com.project.graalrestservice.domain.script.service;
+
+import com.project.graalrestservice.domain.script.model.ArchivedScript;
+
+public interface RetentionService {
+
+  int sweep();
+
+  ArchivedScript getArchivedScript(String scriptName);
+
+}
@@ -2,17 +2,29 @@ package com.project.graalrestservice.domain.script.service;
 
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
 import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptPage;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ScriptRepository {
 
   void putScript(String scriptName, Script script);
 
+  List<Script> putScripts(List<Script> scripts);
+
   Script getScript(String scriptName);
 
   void deleteScript(String scriptName);
 
+  boolean deleteScript(Script script);
+
   List<Script> getScriptList(ScriptStatus status, String nameContains);
 
+  ScriptPage getScriptPage(ScriptStatus status, String nameContains, boolean orderByName,
+      boolean reverseOrder, ScriptCursor after, int offset, int limit);
+
+  Map<ScriptStatus, Integer> getScriptCounts();
+
 }
@@ -1,14 +1,29 @@
 package com.project.graalrestservice.domain.script.service;
 
+import com.project.graalrestservice.domain.script.enumeration.ScheduleOverlapPolicy;
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.model.Evaluation;
 import com.project.graalrestservice.domain.script.model.Script;
-import org.springframework.scheduling.annotation.Async;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptExecution;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.domain.script.model.ScriptPage;
+import com.project.graalrestservice.domain.script.model.ScriptSchedule;
+import com.project.graalrestservice.domain.script.model.ScriptSubmission;
+import com.project.graalrestservice.domain.script.model.ScriptSubmissionResult;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ScriptService {
 
-  Script addScript(String name, String script);
+  Script addScript(String name, String script, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries);
+
+  List<ScriptSubmissionResult> addScriptBatch(List<ScriptSubmission> submissions);
+
+  Evaluation evaluate(String scriptCode, Long timeoutMillis, ScriptBindings bindings);
 
   Script getScript(String scriptName);
 
@@ -16,10 +31,28 @@ public interface ScriptService {
 
   void deleteScript(String scriptName);
 
-  List<Script> getScriptList(ScriptStatus scriptStatus, String nameContains, boolean orderByName,
-      boolean reverseOrder);
+  ScriptPage getScriptPage(ScriptStatus scriptStatus, String nameContains, boolean orderByName,
+      boolean reverseOrder, ScriptCursor after, int offset, int limit);
+
+  Map<ScriptStatus, Integer> getScriptCounts();
 
-  @Async
   void startScriptAsynchronously(Script script);
 
+  ScriptExecution startScriptExecution(String scriptName, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries);
+
+  ScriptSchedule scheduleScript(String scriptName, String cron, Long intervalMillis,
+      ScheduleOverlapPolicy overlapPolicy, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries);
+
+  ScriptSchedule getSchedule(String scriptName);
+
+  void unscheduleScript(String scriptName);
+
+  ScriptExecution getScriptExecution(String scriptName, int executionId);
+
+  Integer getQueuePosition(Script script);
+
+  Integer getQueuePosition(ScriptExecution execution);
+
 }
@@ -0,0 +1,148 @@
+package com.project.graalrestservice.domain.script.service.service_implementation;
+
+import com.project.graalrestservice.domain.script.model.ArchivedScript;
+import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.util.ScriptJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Script repository that survives a restart. Every change of the repository is written to a
+ * {@link ScriptJournal}: adding and deleting a script wait until the change is on the disk, and the
+ * status changes are written in the background, in the order they were reported. The state of a
+ * script is its {@link ArchivedScript archived form}, with the code, the latest execution and its
+ * logs.
+ * <p>
+ * When the repository is created, the scripts are restored from the journal. The scripts that were
+ * in the queue or running when the service stopped get the EXECUTION_INTERRUPTED status, so they
+ * are not mistaken for scripts that are still running.
+ */
+public class JournaledScriptRepository extends ScriptRepositoryImpl implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(JournaledScriptRepository.class);
+  private final ScriptJournal journal;
+
+  /**
+   * Opens the journal and restores the scripts from it
+   *
+   * @param directory directory of the journal
+   * @param compactionThresholdBytes size of the journal after which it is compacted into a snapshot
+   * @param restorer creates a script from its state in the journal
+   */
+  public JournaledScriptRepository(Path directory, long compactionThresholdBytes,
+      Function<ArchivedScript, Script> restorer) {
+    this.journal = new ScriptJournal(directory, compactionThresholdBytes, this::writeStates);
+    long start = System.nanoTime();
+    Map<String, byte[]> states = new HashMap<>();
+    this.journal.recover((name, data) -> {
+      if (data != null)
+        states.put(name, data);
+      else
+        states.remove(name);
+    });
+    List<Script> scripts = new ArrayList<>(states.size());
+    states.forEach((name, data) -> {
+      try {
+        scripts.add(restorer.apply(ArchivedScript.fromBytes(data, false)));
+      } catch (RuntimeException e) {
+        logger.warn("[{}] - Failed to restore the script from the journal", name, e);
+      }
+    });
+    super.putScripts(scripts);
+    logger.info("{} scripts restored from the journal {} in {} ms", scripts.size(), directory,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  @Override
+  public void putScript(String scriptName, Script script) {
+    super.putScript(scriptName, script);
+    await(this.journal.append(scriptName, () -> stateOf(script)));
+  }
+
+  @Override
+  public List<Script> putScripts(List<Script> scripts) {
+    List<Script> added = super.putScripts(scripts);
+    List<CompletableFuture<Void>> written = new ArrayList<>(added.size());
+    for (Script script : added)
+      written.add(this.journal.append(script.getName(), () -> stateOf(script)));
+    await(CompletableFuture.allOf(written.toArray(new CompletableFuture[0])));
+    return added;
+  }
+
+  @Override
+  public void deleteScript(String scriptName) {
+    super.deleteScript(scriptName);
+    await(this.journal.appendDelete(scriptName));
+  }
+
+  @Override
+  public boolean deleteScript(Script script) {
+    if (!super.deleteScript(script))
+      return false;
+    await(this.journal.appendDelete(script.getName()));
+    return true;
+  }
+
+  /**
+   * Writes the new state of the script to the journal, without waiting for it
+   */
+  @Override
+  protected void onStatusChanged(Script script) {
+    super.onStatusChanged(script);
+    this.journal.append(script.getName(), () -> stateOf(script));
+  }
+
+  /**
+   * Writes the remaining changes to the journal and closes it
+   */
+  @Override
+  public void close() {
+    this.journal.close();
+  }
+
+  /**
+   * Called by the journal when it writes a record, so the latest state of the script is written.
+   * Nothing is written for a script that is no longer in the repository, so a late status change
+   * does not bring a deleted script back
+   */
+  private byte[] stateOf(Script script) {
+    if (!isStored(script))
+      return null; // NOSONAR
+    return ArchivedScript.of(script).toBytes(false);
+  }
+
+  /**
+   * Writes the states of all scripts to the snapshot of the journal
+   */
+  private void writeStates(BiConsumer<String, byte[]> sink) {
+    for (Script script : getScriptList(null, null)) {
+      byte[] state = stateOf(script);
+      if (state != null)
+        sink.accept(script.getName(), state);
+    }
+  }
+
+  /**
+   * Waits until the change is written. If the journal failed to write it, the change stays in
+   * memory and the failure is logged by the journal
+   */
+  private static void await(CompletableFuture<?> written) {
+    try {
+      written.join();
+    } catch (CompletionException e) {
+      logger.debug("The change of the script repository is not in the journal", e);
+    }
+  }
+
+}
@@ -0,0 +1,143 @@
+package com.project.graalrestservice.domain.script.service.service_implementation;
+
+import com.project.graalrestservice.domain.script.exception.LibraryNotFoundException;
+import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
+import com.project.graalrestservice.domain.script.exception.WrongNameException;
+import com.project.graalrestservice.domain.script.exception.WrongScriptException;
+import com.project.graalrestservice.domain.script.model.ScriptLibrary;
+import com.project.graalrestservice.domain.script.service.LibraryService;
+import com.project.graalrestservice.domain.script.util.SourceCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A class for managing the {@link ScriptLibrary libraries} shared by scripts. A library is parsed
+ * with the shared engine when it is uploaded, so the scripts that load it do not parse it again.
+ */
+@Service
+public class LibraryServiceImpl implements LibraryService {
+
+  private static final Logger logger = LoggerFactory.getLogger(LibraryService.class); // NOSONAR
+  private final Map<String, ScriptLibrary> libraries = new ConcurrentHashMap<>();
+  private final SourceCache sourceCache;
+  private final int maxCount;
+  private final Pattern correctlyName = Pattern.compile("^[A-Za-z0-9-_]{1,100}$");
+
+  /**
+   * Basic constructor
+   */
+  @Autowired
+  public LibraryServiceImpl(SourceCache sourceCache,
+      @Value("${scripts.libraries.maxCount}") int maxCount) {
+    this.sourceCache = sourceCache;
+    this.maxCount = maxCount;
+  }
+
+  /**
+   * A method for uploading a library. The code is always
+   * {@link SourceCache#getValidatedSource(String) parsed}, whatever the validation mode of scripts
+   * is, so a broken library is rejected at once. If a library with the same name exists, it is
+   * replaced; the executions that have already been created keep the previous version.
+   *
+   * @param libraryName library name (identifier)
+   * @param code JS code of the library
+   * @return uploaded library
+   * @throws WrongNameException if the name is wrong
+   * @throws WrongScriptException if the code failed to parse
+   * @throws WrongArgumentException if there are too many libraries
+   */
+  @Override
+  public ScriptLibrary putLibrary(String libraryName, String code) {
+    checkName(libraryName);
+    ScriptLibrary library =
+        new ScriptLibrary(libraryName, this.sourceCache.getValidatedSource(code));
+    synchronized (this.libraries) {
+      if (!this.libraries.containsKey(libraryName) && this.libraries.size() >= this.maxCount)
+        throw new WrongArgumentException(
+            String.format("There must be no more than %d libraries", this.maxCount));
+      this.libraries.put(libraryName, library);
+    }
+    logger.info("[{}] - Library uploaded ({} characters)", libraryName, library.getSize());
+    return library;
+  }
+
+  /**
+   * A method to get the library
+   *
+   * @param libraryName library name (identifier)
+   * @return ScriptLibrary
+   * @throws LibraryNotFoundException if there is no such library
+   */
+  @Override
+  public ScriptLibrary getLibrary(String libraryName) {
+    ScriptLibrary library = this.libraries.get(libraryName);
+    if (library == null)
+      throw new LibraryNotFoundException(libraryName);
+    return library;
+  }
+
+  /**
+   * @return all the libraries
+   */
+  @Override
+  public Collection<ScriptLibrary> getLibraries() {
+    return Collections.unmodifiableCollection(this.libraries.values());
+  }
+
+  /**
+   * A method for removing the library. The executions that have already been created keep it
+   *
+   * @param libraryName library name (identifier)
+   * @throws LibraryNotFoundException if there is no such library
+   */
+  @Override
+  public void deleteLibrary(String libraryName) {
+    if (this.libraries.remove(libraryName) == null)
+      throw new LibraryNotFoundException(libraryName);
+    logger.info("[{}] - Library deleted", libraryName);
+  }
+
+  /**
+   * Finds the libraries by their names, in the same order. A library that is listed more than once
+   * is loaded only once
+   *
+   * @param libraryNames names of the libraries, or null
+   * @return libraries to load before a script
+   * @throws LibraryNotFoundException if one of the libraries does not exist
+   */
+  @Override
+  public List<ScriptLibrary> resolveLibraries(List<String> libraryNames) {
+    if (libraryNames == null || libraryNames.isEmpty())
+      return List.of();
+    List<ScriptLibrary> resolved = new ArrayList<>(libraryNames.size());
+    for (String libraryName : new LinkedHashSet<>(libraryNames))
+      resolved.add(getLibrary(libraryName));
+    return resolved;
+  }
+
+  /**
+   * A method for checking a library name for forbidden characters
+   *
+   * @param libraryName library name (identifier)
+   * @throws WrongNameException if the name contains forbidden symbols
+   */
+  private void checkName(String libraryName) {
+    if (!this.correctlyName.matcher(libraryName).matches())
+      throw new WrongNameException(
+          "The name uses illegal characters or exceeds the allowed length. "
+              + "Allowed symbols: letters a-z and A-Z, numbers, underscore and hyphen. Allowed length: 1-100");
+  }
+
+}
@@ -0,0 +1,278 @@
+package com.project.graalrestservice.domain.script.service.service_implementation;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.enumeration.ScriptValidationMode;
+import com.project.graalrestservice.domain.script.exception.LibraryNotFoundException;
+import com.project.graalrestservice.domain.script.exception.PipelineNotFoundException;
+import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
+import com.project.graalrestservice.domain.script.exception.WrongNameException;
+import com.project.graalrestservice.domain.script.exception.WrongScriptException;
+import com.project.graalrestservice.domain.script.model.Pipeline;
+import com.project.graalrestservice.domain.script.model.PipelineNode;
+import com.project.graalrestservice.domain.script.model.PipelineNodeSubmission;
+import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptExecution;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.domain.script.service.LibraryService;
+import com.project.graalrestservice.domain.script.service.PipelineService;
+import com.project.graalrestservice.domain.script.util.ContextPool;
+import com.project.graalrestservice.domain.script.util.ScriptTaskExecutor;
+import com.project.graalrestservice.domain.script.util.ScriptWatchdog;
+import com.project.graalrestservice.domain.script.util.SourceCache;
+import com.project.graalrestservice.domain.script.util.ValueConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A class for running {@link Pipeline pipelines}: graphs of scripts in which a script starts as
+ * soon as the scripts it depends on have finished. The scripts of the nodes are passed to the same
+ * {@link ScriptTaskExecutor} as the other scripts, so independent branches of a pipeline run in
+ * parallel. Each node gets the results and the output of the nodes it depends on as the
+ * {@value #INPUTS_BINDING} binding. The scripts of the nodes are not added to the script
+ * repository.
+ */
+@Service
+public class PipelineServiceImpl implements PipelineService {
+
+  private static final Logger logger = LoggerFactory.getLogger(PipelineService.class); // NOSONAR
+  /**
+   * Name of the binding with the results and the output of the nodes on which a node depends
+   */
+  static final String INPUTS_BINDING = "inputs";
+  private final Map<String, Pipeline> pipelines = new ConcurrentHashMap<>();
+  private final LibraryService libraryService;
+  private final SourceCache sourceCache;
+  private final ContextPool contextPool;
+  private final ScriptTaskExecutor scriptTaskExecutor;
+  private final ScriptWatchdog scriptWatchdog;
+  private final ScriptLimits defaultLimits;
+  private final int streamCapacity;
+  private final ScriptValidationMode validationMode;
+  private final int maxNodes;
+  private final Pattern correctlyName = Pattern.compile("^[A-Za-z0-9-_]{1,100}$");
+
+  /**
+   * Basic constructor
+   */
+  @Autowired
+  public PipelineServiceImpl(LibraryService libraryService, SourceCache sourceCache,
+      ContextPool contextPool, ScriptTaskExecutor scriptTaskExecutor, ScriptWatchdog scriptWatchdog,
+      ScriptLimits defaultLimits, @Value("${scripts.outputStream.capacity}") int streamCapacity,
+      @Value("${scripts.engine.validationMode}") ScriptValidationMode validationMode,
+      @Value("${scripts.pipelines.maxNodes}") int maxNodes) {
+    this.libraryService = libraryService;
+    this.sourceCache = sourceCache;
+    this.contextPool = contextPool;
+    this.scriptTaskExecutor = scriptTaskExecutor;
+    this.scriptWatchdog = scriptWatchdog;
+    this.defaultLimits = defaultLimits;
+    this.streamCapacity = streamCapacity;
+    this.validationMode = validationMode;
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * A method for creating and starting a new pipeline. The names of the pipeline and its nodes, the
+   * priorities and the limits are checked, and the dependencies must form an acyclic graph. In
+   * {@link ScriptValidationMode#EAGER EAGER} mode the code of every node is parsed before anything
+   * is started, so a pipeline with a broken node is rejected as a whole. Then the nodes without
+   * dependencies are passed to the executor, and each of the others is passed to it as soon as the
+   * last of its dependencies has finished successfully.
+   *
+   * @param pipelineName pipeline name (identifier)
+   * @param submissions nodes of the pipeline
+   * @return started pipeline
+   * @throws WrongNameException if a name is wrong or already in use
+   * @throws WrongArgumentException if the graph or a run parameter is wrong
+   * @throws WrongScriptException if the code of a node failed to parse
+   * @throws LibraryNotFoundException if a node uses a library that does not exist
+   */
+  @Override
+  public Pipeline startPipeline(String pipelineName, List<PipelineNodeSubmission> submissions) {
+    checkName(pipelineName);
+    if (submissions == null || submissions.isEmpty() || submissions.size() > this.maxNodes)
+      throw new WrongArgumentException(
+          String.format("The pipeline must contain from 1 to %d nodes", this.maxNodes));
+    List<PipelineNode> nodes = new ArrayList<>(submissions.size());
+    Set<String> ids = new HashSet<>();
+    for (PipelineNodeSubmission submission : submissions) {
+      if (submission.getName() == null || submission.getScriptCode() == null)
+        throw new WrongArgumentException("The id and the code of each node are required");
+      checkName(submission.getName());
+      if (!ids.add(submission.getName()))
+        throw new WrongNameException(
+            "The node id is used more than once in the pipeline: " + submission.getName());
+      ScriptServiceImpl.checkPriority(submission.getPriority());
+      ScriptServiceImpl.checkLimits(submission.getLimits());
+      if (this.validationMode == ScriptValidationMode.EAGER)
+        validate(submission);
+      nodes.add(new PipelineNode(submission.getName(), submission.getScriptCode(),
+          submission.getPriority(), submission.getLimits().withDefaults(this.defaultLimits),
+          submission.getBindings(), this.libraryService.resolveLibraries(submission.getLibraries()),
+          submission.getDependsOn()));
+    }
+    Pipeline pipeline = new Pipeline(pipelineName, nodes);
+    if (this.pipelines.putIfAbsent(pipelineName, pipeline) != null)
+      throw new WrongNameException("Such a name is already in use");
+    logger.info("[{}] - New pipeline of {} nodes was created", pipelineName, nodes.size());
+    for (PipelineNode node : pipeline.getRootNodes())
+      startNode(pipeline, node);
+    return pipeline;
+  }
+
+  /**
+   * A method to get the pipeline
+   *
+   * @param pipelineName pipeline name (identifier)
+   * @return Pipeline
+   * @throws PipelineNotFoundException if there is no such pipeline
+   */
+  @Override
+  public Pipeline getPipeline(String pipelineName) {
+    Pipeline pipeline = this.pipelines.get(pipelineName);
+    if (pipeline == null)
+      throw new PipelineNotFoundException(pipelineName);
+    return pipeline;
+  }
+
+  /**
+   * A method to get a node of the pipeline
+   *
+   * @param pipelineName pipeline name (identifier)
+   * @param nodeId id of the node
+   * @return PipelineNode
+   * @throws PipelineNotFoundException if there is no such pipeline or node
+   */
+  @Override
+  public PipelineNode getPipelineNode(String pipelineName, String nodeId) {
+    PipelineNode node = getPipeline(pipelineName).getNode(nodeId);
+    if (node == null)
+      throw new PipelineNotFoundException(pipelineName, nodeId);
+    return node;
+  }
+
+  /**
+   * @return all the pipelines of the service
+   */
+  @Override
+  public Collection<Pipeline> getPipelines() {
+    return Collections.unmodifiableCollection(this.pipelines.values());
+  }
+
+  /**
+   * A method for removing the pipeline. If it is still running, it is cancelled first: the nodes
+   * that are in the queue or running are cancelled, and the others are never started
+   *
+   * @param pipelineName pipeline name (identifier)
+   * @throws PipelineNotFoundException if there is no such pipeline
+   */
+  @Override
+  public void deletePipeline(String pipelineName) {
+    Pipeline pipeline = getPipeline(pipelineName);
+    for (ScriptExecution execution : pipeline.cancel())
+      execution.cancel();
+    this.pipelines.remove(pipelineName, pipeline);
+    logger.info("[{}] - Pipeline deleted from the service", pipelineName);
+  }
+
+  /**
+   * Starts the node: creates a script with its code, bindings and {@value #INPUTS_BINDING}, and
+   * passes its execution to the executor. When the execution has finished, the nodes that have
+   * become ready are started in turn, on the thread that finished it. If the executor rejects the
+   * node, the execution is cancelled, so the pipeline fails instead of waiting forever
+   */
+  private void startNode(Pipeline pipeline, PipelineNode node) {
+    Script script = Script.create(pipeline.getName() + "/" + node.getId(), node.getScriptCode(),
+        this.streamCapacity, this.sourceCache, this.contextPool, ScriptValidationMode.DEFERRED,
+        node.getPriority(), node.getLimits(), inputBindings(pipeline, node), node.getLibraries(),
+        this.scriptWatchdog, 1);
+    script.setResultCaptured(true);
+    ScriptExecution execution = script.getLatestExecution();
+    if (!pipeline.startNode(node, execution))
+      return;
+    execution.getCompletion().thenAccept(status -> nodeFinished(pipeline, node, status));
+    try {
+      this.scriptTaskExecutor.execute(execution);
+      logger.debug("[{}] - Node '{}' started", pipeline.getName(), node.getId());
+    } catch (TaskRejectedException e) {
+      logger.warn("[{}] - Node '{}' was rejected by the executor", pipeline.getName(),
+          node.getId());
+      execution.cancel();
+    }
+  }
+
+  private void nodeFinished(Pipeline pipeline, PipelineNode node, ScriptStatus status) {
+    logger.debug("[{}] - Node '{}' finished with status {}", pipeline.getName(), node.getId(),
+        status);
+    for (PipelineNode ready : pipeline.nodeFinished(node, status))
+      startNode(pipeline, ready);
+    if (pipeline.getStatus() != ScriptStatus.RUNNING)
+      logger.info("[{}] - Pipeline finished with status {}", pipeline.getName(),
+          pipeline.getStatus());
+  }
+
+  /**
+   * Adds the {@value #INPUTS_BINDING} binding to the bindings of the node. It is a JSON object with
+   * a member for each node on which this one depends, holding the {@link ValueConverter converted}
+   * value of the last expression of its script ("result") and its output logs ("output")
+   */
+  private static ScriptBindings inputBindings(Pipeline pipeline, PipelineNode node) {
+    if (node.getDependsOn().isEmpty())
+      return node.getBindings();
+    Map<String, Object> inputs = new LinkedHashMap<>();
+    for (String dependency : node.getDependsOn()) {
+      PipelineNode dependencyNode = pipeline.getNode(dependency);
+      Map<String, Object> input = new LinkedHashMap<>();
+      input.put("result", dependencyNode.getResult());
+      input.put("output", dependencyNode.getOutputLogs());
+      inputs.put(dependency, input);
+    }
+    Map<String, Object> values = new LinkedHashMap<>(node.getBindings().getValues());
+    values.put(INPUTS_BINDING, inputs);
+    return new ScriptBindings(values);
+  }
+
+  /**
+   * Parses the code of the node, so a broken node is reported before the pipeline is started
+   *
+   * @throws WrongScriptException if the code failed to parse
+   */
+  private void validate(PipelineNodeSubmission submission) {
+    try {
+      this.sourceCache.getValidatedSource(submission.getScriptCode());
+    } catch (WrongScriptException e) {
+      throw new WrongScriptException(
+          String.format("Node '%s': %s", submission.getName(), e.getMessage()));
+    }
+  }
+
+  /**
+   * A method for checking a pipeline name or a node id for forbidden characters
+   *
+   * @param name pipeline name or node id
+   * @throws WrongNameException if the name contains forbidden symbols
+   */
+  private void checkName(String name) {
+    if (!this.correctlyName.matcher(name).matches())
+      throw new WrongNameException(
+          "The name uses illegal characters or exceeds the allowed length. "
+              + "Allowed symbols: letters a-z and A-Z, numbers, underscore and hyphen. Allowed length: 1-100");
+  }
+
+}
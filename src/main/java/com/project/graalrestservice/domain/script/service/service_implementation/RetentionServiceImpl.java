@@ -0,0 +1,192 @@
+package com.project.graalrestservice.domain.script.service.service_implementation;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.exception.ScriptNotFoundException;
+import com.project.graalrestservice.domain.script.model.ArchivedScript;
+import com.project.graalrestservice.domain.script.model.RetentionPolicy;
+import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.service.RetentionService;
+import com.project.graalrestservice.domain.script.service.ScriptRepository;
+import com.project.graalrestservice.domain.script.util.ScriptArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.project.graalrestservice.domain.script.enumeration.ScriptStatus.*;
+
+/**
+ * A class that evicts the finished scripts from the {@link ScriptRepository} according to the
+ * {@link RetentionPolicy}. A single background thread sweeps the repository at a fixed interval. It
+ * takes the scripts of each final status from the status index of the repository, which does not
+ * lock the map of scripts, and only locks the script that it evicts, so that the script cannot be
+ * run again or deleted at the same time.
+ * <p>
+ * If the archive path is set, the evicted scripts are written to the {@link ScriptArchive} before
+ * they are removed, and remain {@link #getArchivedScript(String) readable} from it.
+ */
+@Service
+public class RetentionServiceImpl implements RetentionService, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(RetentionService.class); // NOSONAR
+  private static final Set<ScriptStatus> FINAL_STATUSES = EnumSet.of(EXECUTION_SUCCESSFUL,
+      EXECUTION_FAILED, EXECUTION_CANCELED, EXECUTION_LIMIT_EXCEEDED, EXECUTION_INTERRUPTED);
+  private final ScriptRepository scriptRepository;
+  private final RetentionPolicy retentionPolicy;
+  /**
+   * Archive of the evicted scripts, or null if they are not archived
+   */
+  private final ScriptArchive archive;
+  /**
+   * Background thread of the sweeps, or null if the scripts are swept only on demand
+   */
+  private final ScheduledExecutorService sweeper;
+
+  /**
+   * Basic constructor. Opens the archive and starts the background thread, unless the policy keeps
+   * all scripts
+   *
+   * @param scriptRepository repository of the scripts
+   * @param retentionPolicy how long the finished scripts are kept
+   * @param archivePath path to the archive file. If empty, the evicted scripts are not archived
+   * @param sweepIntervalMillis interval between the sweeps, 0 if there are no background sweeps
+   */
+  @Autowired
+  public RetentionServiceImpl(ScriptRepository scriptRepository, RetentionPolicy retentionPolicy,
+      @Value("${scripts.retention.archivePath}") String archivePath,
+      @Value("${scripts.retention.sweepIntervalMillis}") long sweepIntervalMillis) {
+    this.scriptRepository = scriptRepository;
+    this.retentionPolicy = retentionPolicy;
+    this.archive = archivePath.isEmpty() ? null : new ScriptArchive(Path.of(archivePath));
+    boolean limited = FINAL_STATUSES.stream().anyMatch(retentionPolicy::isLimited);
+    if (limited && sweepIntervalMillis > 0) {
+      this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "script-retention-sweeper");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.sweeper.scheduleWithFixedDelay(this::sweepInBackground, sweepIntervalMillis,
+          sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      this.sweeper = null;
+    }
+    logger.info("Script retention: {}, archive: {}", retentionPolicy,
+        this.archive != null ? archivePath : "disabled");
+  }
+
+  /**
+   * Evicts the finished scripts that are older than the maximum age of their status, or are not
+   * among the maximum number of the most recently finished scripts of their status. Scripts with a
+   * schedule are never evicted
+   *
+   * @return number of evicted scripts
+   */
+  @Override
+  public int sweep() {
+    Instant now = Instant.now();
+    int evicted = 0;
+    for (ScriptStatus status : FINAL_STATUSES) {
+      if (!this.retentionPolicy.isLimited(status))
+        continue;
+      long maxAgeMillis = this.retentionPolicy.getMaxAgeMillis(status);
+      int maxCount = this.retentionPolicy.getMaxCount(status);
+      Instant oldestKept = maxAgeMillis > 0 ? now.minusMillis(maxAgeMillis) : Instant.MIN;
+      // the finish times are read once, because a script can be run again during the sort
+      List<Map.Entry<Script, Instant>> scripts = this.scriptRepository.getScriptList(status, null)
+          .stream().map(s -> Map.entry(s, getFinishTime(s)))
+          .sorted(Map.Entry.<Script, Instant>comparingByValue().reversed())
+          .collect(Collectors.toList());
+      for (int i = 0; i < scripts.size(); i++) {
+        Map.Entry<Script, Instant> entry = scripts.get(i);
+        boolean expired = (maxCount > 0 && i >= maxCount) || entry.getValue().isBefore(oldestKept);
+        if (expired && evict(entry.getKey(), status))
+          evicted++;
+      }
+    }
+    if (evicted > 0)
+      logger.info("{} finished scripts evicted from the repository", evicted);
+    return evicted;
+  }
+
+  /**
+   * The method returns the script that has been evicted and archived
+   *
+   * @param scriptName script name (identifier)
+   * @return ArchivedScript
+   * @throws ScriptNotFoundException if the archive is disabled or there is no such script in it
+   */
+  @Override
+  public ArchivedScript getArchivedScript(String scriptName) {
+    byte[] data = this.archive != null ? this.archive.read(scriptName) : null;
+    if (data == null)
+      throw new ScriptNotFoundException(scriptName);
+    logger.debug("[{}] - Returning the archived script", scriptName);
+    return ArchivedScript.fromBytes(data);
+  }
+
+  /**
+   * Stops the background thread and closes the archive
+   */
+  @Override
+  public void close() {
+    if (this.sweeper != null)
+      this.sweeper.shutdownNow();
+    if (this.archive != null)
+      this.archive.close();
+  }
+
+  /**
+   * Archives the script and removes it from the repository, if it still has the status for which it
+   * was chosen and has no schedule. The lock of the script is held, so that it cannot be run again
+   * or deleted meanwhile
+   *
+   * @return true if the script was evicted
+   */
+  private boolean evict(Script script, ScriptStatus status) {
+    synchronized (script) {
+      if (script.getStatus() != status || script.getSchedule() != null)
+        return false;
+      try {
+        if (this.archive != null)
+          this.archive.write(script.getName(), ArchivedScript.of(script).toBytes());
+      } catch (RuntimeException e) {
+        logger.warn("[{}] - Failed to archive the script, it is kept", script.getName(), e);
+        return false;
+      }
+      boolean removed = this.scriptRepository.deleteScript(script);
+      if (removed)
+        logger.debug("[{}] - Script evicted from the repository", script.getName());
+      return removed;
+    }
+  }
+
+  /**
+   * Periodic task of the background thread. An exception would cancel the next sweeps, so it is
+   * only logged
+   */
+  private void sweepInBackground() {
+    try {
+      sweep();
+    } catch (RuntimeException e) {
+      logger.warn("Failed to sweep the script repository", e);
+    }
+  }
+
+  private static Instant getFinishTime(Script script) {
+    Instant endTime = script.getEndTime();
+    return endTime != null ? endTime : script.getCreateTime();
+  }
+
+}
@@ -2,25 +2,84 @@ package com.project.graalrestservice.domain.script.service.service_implementatio
 
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
 import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptPage;
 import com.project.graalrestservice.domain.script.service.ScriptRepository;
 import com.project.graalrestservice.domain.script.exception.ScriptNotFoundException;
 import com.project.graalrestservice.domain.script.exception.WrongNameException;
+import com.project.graalrestservice.domain.script.util.TrigramIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
- * A class for working with a list of scripts
+ * A class for working with a list of scripts. Besides the map of scripts by name, it keeps a
+ * secondary index of the scripts by {@link ScriptStatus status}, so a list of scripts with one
+ * status is built in time proportional to its size, and the number of scripts with each status is
+ * known at once. The scripts report their status changes to the repository, which moves them
+ * between the sets of the index.
+ * <p>
+ * The scripts are also kept in two sorted indexes (concurrent skip lists), by name and by creation
+ * time, with the {@link ScriptCursor position} of each script as the key. A
+ * {@link #getScriptPage(ScriptStatus, String, boolean, boolean, ScriptCursor, int, int) page} of
+ * the list is read from the index in the requested order, starting right after the cursor of the
+ * previous page, so the whole list is not sorted for every page.
+ * <p>
+ * The name filter is served by a {@link TrigramIndex} of the script names, so only the scripts that
+ * share the rarest trigram of the pattern are checked. A pattern that starts with {@value #PREFIX}
+ * matches the names that start with the rest of it (script names cannot contain this character),
+ * and is read as a range of the index by name.
+ * <p>
+ * The repository is created as a bean by the configuration, which chooses between this in-memory
+ * repository and the {@link JournaledScriptRepository durable one}.
  */
-@Service
 public class ScriptRepositoryImpl implements ScriptRepository {
 
   private static final Logger logger = LoggerFactory.getLogger(ScriptRepository.class); // NOSONAR
+  /**
+   * Leading character of a name pattern that matches only the beginning of the name
+   */
+  public static final String PREFIX = "^";
   private final ConcurrentHashMap<String, Script> map = new ConcurrentHashMap<>();
+  /**
+   * Scripts of the {@link #map} by their status
+   */
+  private final Map<ScriptStatus, Set<Script>> statusIndex = new EnumMap<>(ScriptStatus.class);
+  /**
+   * Status under which each script of the {@link #map} is stored in the {@link #statusIndex}. The
+   * index of a script is only changed within {@link ConcurrentHashMap#compute} of its entry, so the
+   * changes of one script are applied one after another. The entries are per script object, not per
+   * name, so a deleted script and a new script with the same name do not share them
+   */
+  private final ConcurrentHashMap<Script, ScriptStatus> indexedStatuses = new ConcurrentHashMap<>();
+  /**
+   * Scripts of the {@link #map} sorted by name
+   */
+  private final ConcurrentNavigableMap<ScriptCursor, Script> nameIndex =
+      new ConcurrentSkipListMap<>(ScriptCursor.BY_NAME);
+  /**
+   * Scripts of the {@link #map} sorted by creation time (the oldest first)
+   */
+  private final ConcurrentNavigableMap<ScriptCursor, Script> createTimeIndex =
+      new ConcurrentSkipListMap<>(ScriptCursor.BY_CREATE_TIME);
+  /**
+   * Scripts of the {@link #map} by the trigrams of their names
+   */
+  private final TrigramIndex<Script> trigramIndex = new TrigramIndex<>();
+
+  /**
+   * Basic constructor
+   */
+  public ScriptRepositoryImpl() {
+    for (ScriptStatus status : ScriptStatus.values())
+      this.statusIndex.put(status, ConcurrentHashMap.newKeySet());
+  }
 
   /**
    * Adds a new script to the map
@@ -31,11 +90,36 @@ public class ScriptRepositoryImpl implements ScriptRepository {
    */
   @Override
   public void putScript(String scriptName, Script script) {
+    script.setStatusListener(this::onStatusChanged);
     if (this.map.putIfAbsent(scriptName, script) != null)
       throw new WrongNameException("Such a name is already in use");
+    addToSortedIndexes(script);
+    reindex(script);
     logger.trace("[{}] - Script added to the script repository", scriptName);
   }
 
+  /**
+   * Adds several scripts to the map in one pass. Unlike {@link #putScript(String, Script)}, a name
+   * that is already in use does not fail the whole operation, such a script is just not added
+   *
+   * @param scripts scripts to add
+   * @return the scripts that were added
+   */
+  @Override
+  public List<Script> putScripts(List<Script> scripts) {
+    List<Script> added = new ArrayList<>(scripts.size());
+    for (Script script : scripts) {
+      script.setStatusListener(this::onStatusChanged);
+      if (this.map.putIfAbsent(script.getName(), script) == null) {
+        addToSortedIndexes(script);
+        reindex(script);
+        added.add(script);
+      }
+    }
+    logger.trace("{} of {} scripts added to the script repository", added.size(), scripts.size());
+    return added;
+  }
+
   /**
    * The method returns information about the script you are looking for
    *
@@ -54,23 +138,30 @@ public class ScriptRepositoryImpl implements ScriptRepository {
 
   /**
    * The method returns a filtered list with the specified parameters. If there are no filters
-   * (null), it returns all the scripts present in the repository ({@link #map in map})
+   * (null), it returns all the scripts present in the repository ({@link #map in map}). If the name
+   * pattern is specified, only the scripts found by the {@link #trigramIndex} (or by the range of
+   * the {@link #nameIndex} for a {@link #PREFIX prefix}) are checked, otherwise if the status is
+   * specified, only the scripts with this status are taken from the {@link #statusIndex}
    *
    * @param scriptStatus allows you to specify the scripts with which statuses you are interested in
    *        the output. If null - scripts with all statuses will be displayed.
    * @param nameContains it allows you to specify an expression that must contain the name of the
-   *        script. If null - scripts with all names will be displayed
+   *        script, or with which it must start if the expression starts with {@link #PREFIX}. If
+   *        null - scripts with all names will be displayed
    * @return filtered {@link List} of {@link Script}
    */
   @Override
   public List<Script> getScriptList(ScriptStatus scriptStatus, String nameContains) {
-    boolean nullableName = nameContains == null;
-    boolean nullableStatus = scriptStatus == null;
-    List<Script> scriptList =
-        this.map.values().parallelStream()
-            .filter(s -> (nullableStatus || s.getStatus() == scriptStatus)
-                && (nullableName || s.getName().contains(nameContains)))
-            .collect(Collectors.toList());
+    List<Script> scriptList;
+    if (nameContains != null)
+      scriptList = findByName(nameContains).stream()
+          .filter(s -> scriptStatus == null || s.getStatus() == scriptStatus)
+          .collect(Collectors.toList());
+    else if (scriptStatus == null)
+      scriptList = new ArrayList<>(this.map.values());
+    else
+      scriptList = this.statusIndex.get(scriptStatus).stream()
+          .filter(s -> s.getStatus() == scriptStatus).collect(Collectors.toList());
     logger.trace(
         "Script repository return filtered script list. Parameters [scriptStatus={}, nameContains={}]",
         scriptStatus, nameContains);
@@ -88,8 +179,192 @@ public class ScriptRepositoryImpl implements ScriptRepository {
     Script script = this.map.remove(scriptName);
     if (script == null)
       throw new ScriptNotFoundException(scriptName);
+    removeFromIndexes(script);
     script.cancelExecution();
     logger.trace("[{}] - Script deleted from script repository", scriptName);
   }
 
+  /**
+   * Removes the script from the list, unless its name is already used by another script (the script
+   * has been deleted and a new one has been added with the same name). Unlike
+   * {@link #deleteScript(String)}, the execution of the script is not cancelled
+   *
+   * @param script script to remove
+   * @return true if the script was removed
+   */
+  @Override
+  public boolean deleteScript(Script script) {
+    if (!this.map.remove(script.getName(), script))
+      return false;
+    removeFromIndexes(script);
+    logger.trace("[{}] - Script removed from script repository", script.getName());
+    return true;
+  }
+
+  /**
+   * Returns one page of the sorted and filtered list of scripts. The page starts after the cursor
+   * (if it is set) and the offset. Without filters, the page is read from the sorted index in the
+   * requested order: the index seeks to the cursor, so the cost is O(log n + offset + limit). With
+   * a filter, only the {@link #getScriptList(ScriptStatus, String) matching scripts} are sorted
+   *
+   * @param scriptStatus status filter, or null
+   * @param nameContains name filter, or null
+   * @param orderByName if true, the list is sorted by name, otherwise by creation time (the newest
+   *        first)
+   * @param reverseOrder reverses the order
+   * @param after position of the last script of the previous page, or null to start from the
+   *        beginning of the list
+   * @param offset number of scripts of the list to skip (after the cursor, if it is set)
+   * @param limit maximum number of scripts on the page
+   * @return page of the list and the size of the whole list
+   */
+  @Override
+  public ScriptPage getScriptPage(ScriptStatus scriptStatus, String nameContains,
+      boolean orderByName, boolean reverseOrder, ScriptCursor after, int offset, int limit) {
+    boolean descending = orderByName == reverseOrder;
+    Comparator<ScriptCursor> order =
+        orderByName ? ScriptCursor.BY_NAME : ScriptCursor.BY_CREATE_TIME;
+    if (descending)
+      order = order.reversed();
+    ScriptPage page;
+    if (scriptStatus != null || nameContains != null) {
+      List<Script> scriptList = getScriptList(scriptStatus, nameContains);
+      int total = scriptList.size();
+      if (after != null) {
+        Comparator<ScriptCursor> listOrder = order;
+        scriptList.removeIf(s -> listOrder.compare(ScriptCursor.of(s), after) <= 0);
+      }
+      scriptList.sort(Comparator.comparing(ScriptCursor::of, order));
+      int from = Math.min(offset, scriptList.size());
+      int to = (int) Math.min((long) from + limit, scriptList.size());
+      page = new ScriptPage(new ArrayList<>(scriptList.subList(from, to)), total,
+          to < scriptList.size());
+    } else {
+      NavigableMap<ScriptCursor, Script> index =
+          orderByName ? this.nameIndex : this.createTimeIndex;
+      if (descending)
+        index = index.descendingMap();
+      List<Script> scriptList = new ArrayList<>(Math.min(limit, 1024));
+      int position = 0;
+      // the size of a skip list is not known without counting its elements, the size of the map is
+      int total = this.map.size();
+      Iterator<Script> iterator =
+          (after == null ? index : index.tailMap(after, false)).values().iterator();
+      while (iterator.hasNext() && scriptList.size() < limit) {
+        Script script = iterator.next();
+        if (position++ >= offset)
+          scriptList.add(script);
+      }
+      page = new ScriptPage(scriptList, total, iterator.hasNext());
+    }
+    logger.trace(
+        "Script repository return a page of the script list. Parameters [scriptStatus={}, nameContains={}, orderByName={}, reverseOrder={}, after={}, offset={}, limit={}]",
+        scriptStatus, nameContains, orderByName, reverseOrder, after != null, offset, limit);
+    return page;
+  }
+
+  /**
+   * @return number of scripts with each status
+   */
+  @Override
+  public Map<ScriptStatus, Integer> getScriptCounts() {
+    Map<ScriptStatus, Integer> counts = new EnumMap<>(ScriptStatus.class);
+    this.statusIndex.forEach((status, scripts) -> counts.put(status, scripts.size()));
+    return counts;
+  }
+
+  /**
+   * Called by the scripts of the repository when their status changes
+   *
+   * @param script script whose status may have changed
+   */
+  protected void onStatusChanged(Script script) {
+    reindex(script);
+  }
+
+  /**
+   * @param script script
+   * @return true if the script is in the repository (not just another script with the same name)
+   */
+  protected boolean isStored(Script script) {
+    return this.map.get(script.getName()) == script;
+  }
+
+  /**
+   * @param scriptName script name (identifier)
+   * @return true if a script with this name is in the repository
+   */
+  protected boolean containsName(String scriptName) {
+    return this.map.containsKey(scriptName);
+  }
+
+  private void addToSortedIndexes(Script script) {
+    ScriptCursor cursor = ScriptCursor.of(script);
+    this.nameIndex.put(cursor, script);
+    this.createTimeIndex.put(cursor, script);
+    this.trigramIndex.add(script.getName(), script);
+  }
+
+  private void removeFromIndexes(Script script) {
+    script.setStatusListener(null);
+    ScriptCursor cursor = ScriptCursor.of(script);
+    this.nameIndex.remove(cursor, script);
+    this.createTimeIndex.remove(cursor, script);
+    this.trigramIndex.remove(script.getName(), script);
+    reindex(script);
+  }
+
+  /**
+   * @param nameContains substring of the name, or its beginning after {@link #PREFIX}
+   * @return predicate that checks a name against the pattern
+   */
+  protected static Predicate<String> nameMatcher(String nameContains) {
+    if (nameContains.startsWith(PREFIX)) {
+      String prefix = nameContains.substring(PREFIX.length());
+      return name -> name.startsWith(prefix);
+    }
+    return name -> name.contains(nameContains);
+  }
+
+  /**
+   * @param nameContains substring of the name, or its beginning after {@link #PREFIX}
+   * @return scripts whose names match the pattern. A prefix is read as a range of the
+   *         {@link #nameIndex}, a substring is checked only against the candidates of the
+   *         {@link #trigramIndex}, and only a substring shorter than a trigram is checked against
+   *         all scripts
+   */
+  private Collection<Script> findByName(String nameContains) {
+    if (nameContains.startsWith(PREFIX)) {
+      String prefix = nameContains.substring(PREFIX.length());
+      return this.nameIndex.subMap(new ScriptCursor(null, prefix), true,
+          new ScriptCursor(null, prefix + Character.MAX_VALUE), false).values();
+    }
+    Collection<Script> candidates = this.trigramIndex.candidates(nameContains);
+    if (candidates == null)
+      candidates = this.map.values();
+    return candidates.stream().filter(s -> s.getName().contains(nameContains))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Moves the script to the set of its current status in the {@link #statusIndex}, or removes it
+   * from the index if it is no longer in the {@link #map}. The status is read inside the update of
+   * the entry of the script, so after the last status change has been reported the script is
+   * indexed by its final status, whatever the order of the reports
+   *
+   * @param script script whose status may have changed
+   */
+  private void reindex(Script script) {
+    this.indexedStatuses.compute(script, (s, indexedStatus) -> {
+      ScriptStatus status = isStored(s) ? s.getStatus() : null;
+      if (indexedStatus == status)
+        return status;
+      if (indexedStatus != null)
+        this.statusIndex.get(indexedStatus).remove(script);
+      if (status != null)
+        this.statusIndex.get(status).add(script);
+      return status;
+    });
+  }
+
 }
@@ -1,22 +1,65 @@
 package com.project.graalrestservice.domain.script.service.service_implementation;
 
+import com.project.graalrestservice.domain.script.enumeration.ScheduleOverlapPolicy;
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.enumeration.ScriptValidationMode;
+import com.project.graalrestservice.domain.script.exception.ExecutorSaturatedException;
+import com.project.graalrestservice.domain.script.exception.LibraryNotFoundException;
+import com.project.graalrestservice.domain.script.exception.ScheduleNotFoundException;
+import com.project.graalrestservice.domain.script.exception.ScriptNotFoundException;
+import com.project.graalrestservice.domain.script.model.Evaluation;
 import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptExecution;
+import com.project.graalrestservice.domain.script.model.ScriptLibrary;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.domain.script.model.ScriptPage;
+import com.project.graalrestservice.domain.script.model.ScriptSchedule;
+import com.project.graalrestservice.domain.script.model.ScriptSubmission;
+import com.project.graalrestservice.domain.script.model.ScriptSubmissionResult;
+import com.project.graalrestservice.domain.script.service.LibraryService;
 import com.project.graalrestservice.domain.script.service.ScriptRepository;
 import com.project.graalrestservice.domain.script.service.ScriptService;
+import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
 import com.project.graalrestservice.domain.script.exception.WrongNameException;
 import com.project.graalrestservice.domain.script.exception.WrongScriptException;
 import com.project.graalrestservice.domain.script.exception.WrongScriptStatusException;
+import com.project.graalrestservice.domain.script.util.AdmissionControl;
+import com.project.graalrestservice.domain.script.util.CircularOutputStream;
+import com.project.graalrestservice.domain.script.util.ContextPool;
+import com.project.graalrestservice.domain.script.util.PooledContext;
+import com.project.graalrestservice.domain.script.util.ScriptTaskExecutor;
+import com.project.graalrestservice.domain.script.util.ScriptWatchdog;
+import com.project.graalrestservice.domain.script.util.SourceCache;
+import com.project.graalrestservice.domain.script.util.ValueConverter;
+import org.graalvm.polyglot.PolyglotException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.scheduling.support.PeriodicTrigger;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.project.graalrestservice.domain.script.enumeration.ScriptStatus.*;
 
@@ -27,25 +70,75 @@ import static com.project.graalrestservice.domain.script.enumeration.ScriptStatu
 public class ScriptServiceImpl implements ScriptService {
 
   private static final Logger logger = LoggerFactory.getLogger(ScriptService.class); // NOSONAR
+  /**
+   * Names that match the pattern, but are used by the endpoints of the API and cannot be the names
+   * of scripts
+   */
+  private static final Set<String> RESERVED_NAMES = Set.of("batch", "eval");
   private final ScriptRepository scriptRepository;
+  private final LibraryService libraryService;
+  private final SourceCache sourceCache;
+  private final ContextPool contextPool;
+  private final ScriptTaskExecutor scriptTaskExecutor;
+  private final AdmissionControl admissionControl;
+  private final ScriptWatchdog scriptWatchdog;
+  private final ScriptLimits defaultLimits;
   private final int streamCapacity;
+  private final ScriptValidationMode validationMode;
+  private final int maxBatchSize;
+  private final long maxEvalTimeoutMillis;
+  /**
+   * Permits for the {@link #evaluate(String, Long, ScriptBindings) evaluations}, which run on the
+   * request threads and so bypass the executor and its admission control
+   */
+  private final Semaphore evalPermits;
+  private final int maxRetainedExecutions;
+  /**
+   * Single-threaded scheduler that starts the scheduled executions of all scripts
+   */
+  private final TaskScheduler scriptTaskScheduler;
+  private final long minScheduleIntervalMillis;
   private final Pattern correctlyScriptName = Pattern.compile("^[A-Za-z0-9-_]{0,100}$");
 
   /**
    * Basic constructor
    */
   @Autowired
-  public ScriptServiceImpl(ScriptRepository scriptRepository,
-      @Value("${scripts.outputStream.capacity}") int streamCapacity) {
+  public ScriptServiceImpl(ScriptRepository scriptRepository, LibraryService libraryService,
+      SourceCache sourceCache, ContextPool contextPool, ScriptTaskExecutor scriptTaskExecutor,
+      AdmissionControl admissionControl, ScriptWatchdog scriptWatchdog, ScriptLimits defaultLimits,
+      @Value("${scripts.outputStream.capacity}") int streamCapacity,
+      @Value("${scripts.engine.validationMode}") ScriptValidationMode validationMode,
+      @Value("${scripts.batch.maxSize}") int maxBatchSize,
+      @Value("${scripts.eval.maxTimeoutMillis}") long maxEvalTimeoutMillis,
+      @Value("${scripts.eval.maxConcurrent}") int maxConcurrentEvaluations,
+      @Value("${scripts.executions.maxRetained}") int maxRetainedExecutions,
+      TaskScheduler scriptTaskScheduler,
+      @Value("${scripts.schedules.minIntervalMillis}") long minScheduleIntervalMillis) {
     this.scriptRepository = scriptRepository;
+    this.libraryService = libraryService;
+    this.sourceCache = sourceCache;
+    this.contextPool = contextPool;
+    this.scriptTaskExecutor = scriptTaskExecutor;
+    this.admissionControl = admissionControl;
+    this.scriptWatchdog = scriptWatchdog;
+    this.defaultLimits = defaultLimits;
     this.streamCapacity = streamCapacity;
+    this.validationMode = validationMode;
+    this.maxBatchSize = maxBatchSize;
+    this.maxEvalTimeoutMillis = maxEvalTimeoutMillis;
+    this.evalPermits = new Semaphore(maxConcurrentEvaluations);
+    this.maxRetainedExecutions = maxRetainedExecutions;
+    this.scriptTaskScheduler = scriptTaskScheduler;
+    this.minScheduleIntervalMillis = minScheduleIntervalMillis;
   }
 
   /**
-   * The method returns a sorted and filtered list of scripts by specified parameters. The list is
-   * generated and filtered at the {@link ScriptRepository#getScriptList(ScriptStatus, String)
-   * repository level} and sorted at the service (this) level. By default, no filters are applied
-   * and sorting is done by date of script creation.
+   * The method returns a page of the sorted and filtered list of scripts by specified parameters.
+   * The page is
+   * {@link ScriptRepository#getScriptPage(ScriptStatus, String, boolean, boolean, ScriptCursor, int, int)
+   * read from the sorted indexes} of the repository. By default, no filters are applied and sorting
+   * is done by date of script creation.
    *
    * @param scriptStatus this parameter is a filter. Allows you to specify the scripts with which
    *        statuses you are interested in the output. If null - scripts with all statuses will be
@@ -54,55 +147,469 @@ public class ScriptServiceImpl implements ScriptService {
    *        must contain the name of the script. If null - scripts with all names will be displayed
    * @param orderByName sorting parameter. If true, it will be sorted by script name.
    * @param reverseOrder parameter to reverse the sorting.
-   * @return sorted and filtered {@link List} of {@link Script}.
-   */
-  public List<Script> getScriptList(ScriptStatus scriptStatus, String nameContains,
-      boolean orderByName, boolean reverseOrder) {
-    Comparator<Script> comparator;
-    if (orderByName)
-      comparator = Comparator.comparing(Script::getName);
-    else
-      comparator = Comparator.comparing(Script::getCreateTime).reversed();
-    if (reverseOrder)
-      comparator = comparator.reversed();
-    List<Script> scriptList = scriptRepository.getScriptList(scriptStatus, nameContains)
-        .parallelStream().sorted(comparator).collect(Collectors.toList());
+   * @param after cursor of the last script of the previous page, or null
+   * @param offset number of scripts of the list before the requested page (after the cursor)
+   * @param limit maximum number of scripts on the page
+   * @return page of the sorted and filtered list of {@link Script}, with the size of the list
+   */
+  @Override
+  public ScriptPage getScriptPage(ScriptStatus scriptStatus, String nameContains,
+      boolean orderByName, boolean reverseOrder, ScriptCursor after, int offset, int limit) {
+    ScriptPage page = scriptRepository.getScriptPage(scriptStatus, nameContains, orderByName,
+        reverseOrder, after, offset, limit);
     logger.debug(
-        "Script service return filtered and sorted script list. Parameters [scriptStatus={}, nameContains={}, orderByName={}, reverseOrder={}]",
+        "Script service return a page of the filtered and sorted script list. Parameters [scriptStatus={}, nameContains={}, orderByName={}, reverseOrder={}]",
         scriptStatus, nameContains, orderByName, reverseOrder);
-    return scriptList;
+    return page;
   }
 
   /**
    * A method for adding a new script to the system. Firstly, {@link #checkName(String) the name is
-   * checked} to see if it matches the {@link #correctlyScriptName specified pattern}. After that,
-   * its validity is checked when {@link Script#create(String, String, int) creating a Script
-   * object}. And if everything is good, then it will be
-   * {@link ScriptRepository#putScript(String, Script) added to the system} (if there is no script
-   * with the same name).
+   * checked} to see if it matches the {@link #correctlyScriptName specified pattern}. Then a slot
+   * in the executor is {@link AdmissionControl#reserve() reserved} for the script, so a script that
+   * cannot be executed is rejected before it is parsed and stored. The reservation is kept until
+   * the script is {@link #startScriptAsynchronously(Script) passed to the executor}. After that,
+   * its validity is checked when
+   * {@link Script#create(String, String, int, SourceCache, ContextPool, ScriptValidationMode, int, ScriptLimits, ScriptBindings, List, ScriptWatchdog, int)
+   * creating a Script object} (the code is parsed only if it is not in the {@link SourceCache} yet,
+   * and only in {@link ScriptValidationMode#EAGER EAGER} mode). And if everything is good, then it
+   * will be {@link ScriptRepository#putScript(String, Script) added to the system} (if there is no
+   * script with the same name).
    *
    * @param scriptName script name (identifier)
    * @param scriptCode JS body
+   * @param priority priority of the script in the execution queue
+   * @param limits execution limits of the script. The limits that are not set are taken from the
+   *        defaults
+   * @param bindings input parameters of the script. They are not part of the code, so the same code
+   *        with different bindings shares the parsed {@link org.graalvm.polyglot.Source Source}
+   * @param libraries names of the {@link LibraryService libraries} loaded before the code, or null
    * @return created Script object
+   * @throws WrongArgumentException if the priority or a limit is out of the allowed range
+   * @throws LibraryNotFoundException if one of the libraries does not exist
+   * @throws ExecutorSaturatedException if the executor cannot accept more scripts
    */
   @Override
-  public Script addScript(String scriptName, String scriptCode) {
+  public Script addScript(String scriptName, String scriptCode, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries) {
     checkName(scriptName);
-    Script script = Script.create(scriptName, scriptCode, this.streamCapacity);
-    scriptRepository.putScript(scriptName, script);
+    checkPriority(priority);
+    checkLimits(limits);
+    this.admissionControl.reserve();
+    Script script;
+    try {
+      script = createScript(scriptName, scriptCode, priority, limits, bindings, libraries);
+      scriptRepository.putScript(scriptName, script);
+    } catch (RuntimeException e) {
+      this.admissionControl.release();
+      throw e;
+    }
     logger.info("[{}] - New script was created and added to the repository", scriptName);
     return script;
   }
 
   /**
-   * Method for running the script in asynchronous mode
+   * A method for adding several scripts at once. It does the same as
+   * {@link #addScript(String, String, int, ScriptLimits, ScriptBindings, List)} followed by
+   * {@link #startScriptAsynchronously(Script)} for each submission, but in stages, each of which
+   * processes the whole batch: the names, priorities and limits are checked and slots in the
+   * executor are reserved; the scripts are created (and validated) in parallel; all of them are
+   * {@link ScriptRepository#putScripts(List) added to the repository} in one pass; and then they
+   * are passed to the executor. A submission that fails at any stage is rejected with the same
+   * exception as a single script would be, and does not affect the others.
+   *
+   * @param submissions scripts to add
+   * @return results in the order of submissions
+   * @throws WrongArgumentException if the batch is larger than allowed
+   */
+  @Override
+  public List<ScriptSubmissionResult> addScriptBatch(List<ScriptSubmission> submissions) {
+    if (submissions.size() > this.maxBatchSize)
+      throw new WrongArgumentException(
+          String.format("The batch must not contain more than %d scripts", this.maxBatchSize));
+    int size = submissions.size();
+    ScriptSubmissionResult[] results = new ScriptSubmissionResult[size];
+    Script[] scripts = new Script[size];
+    Set<String> names = new HashSet<>();
+    for (int i = 0; i < size; i++) {
+      ScriptSubmission submission = submissions.get(i);
+      try {
+        if (submission.getName() == null || submission.getScriptCode() == null)
+          throw new WrongArgumentException("The name and the code of the script are required");
+        checkName(submission.getName());
+        if (!names.add(submission.getName()))
+          throw new WrongNameException("The name is used more than once in the batch");
+        checkPriority(submission.getPriority());
+        checkLimits(submission.getLimits());
+        this.admissionControl.reserve();
+      } catch (RuntimeException e) {
+        results[i] = ScriptSubmissionResult.rejected(submission.getName(), e);
+      }
+    }
+    IntStream.range(0, size).parallel().filter(i -> results[i] == null).forEach(i -> {
+      ScriptSubmission submission = submissions.get(i);
+      try {
+        scripts[i] =
+            createScript(submission.getName(), submission.getScriptCode(), submission.getPriority(),
+                submission.getLimits(), submission.getBindings(), submission.getLibraries());
+      } catch (RuntimeException e) {
+        this.admissionControl.release();
+        results[i] = ScriptSubmissionResult.rejected(submission.getName(), e);
+      }
+    });
+    List<Script> created = new ArrayList<>(size);
+    for (Script script : scripts) {
+      if (script != null)
+        created.add(script);
+    }
+    Set<Script> added = Collections.newSetFromMap(new IdentityHashMap<>(created.size() * 2));
+    added.addAll(scriptRepository.putScripts(created));
+    for (int i = 0; i < size; i++) {
+      if (scripts[i] == null)
+        continue;
+      if (!added.contains(scripts[i])) {
+        this.admissionControl.release();
+        results[i] = ScriptSubmissionResult.rejected(scripts[i].getName(),
+            new WrongNameException("Such a name is already in use"));
+        continue;
+      }
+      try {
+        startScriptAsynchronously(scripts[i]);
+        results[i] = ScriptSubmissionResult.accepted(scripts[i]);
+      } catch (ExecutorSaturatedException e) {
+        results[i] = ScriptSubmissionResult.rejected(scripts[i].getName(), e);
+      }
+    }
+    logger.info("Batch of {} scripts processed, {} added", size, added.size());
+    return Arrays.asList(results);
+  }
+
+  /**
+   * A method for running a short script synchronously, on the calling thread. The script is not
+   * added to the repository and does not go through the executor: it is evaluated in a
+   * {@link ContextPool pooled context} right away, and the evaluation is cancelled by the
+   * {@link ScriptWatchdog} if it does not finish within the timeout. The value of the last
+   * expression is {@link ValueConverter converted} to a plain Java object before the context is
+   * released. The number of evaluations at the same time is limited by {@link #evalPermits}: if all
+   * permits are taken, the evaluation is rejected right away, and the client is told to retry after
+   * the maximum evaluation time, within which one of the running evaluations will end.
+   *
+   * @param scriptCode JS body
+   * @param timeoutMillis maximum time of the evaluation. If null, the maximum allowed time is used
+   * @param bindings input parameters of the script
+   * @return Evaluation with the result (or the error) and the output of the script
+   * @throws WrongArgumentException if the timeout is out of the allowed range
+   * @throws WrongScriptException if the script failed to parse
+   * @throws ExecutorSaturatedException if too many scripts are being evaluated
+   */
+  @Override
+  public Evaluation evaluate(String scriptCode, Long timeoutMillis, ScriptBindings bindings) {
+    long timeout = timeoutMillis == null ? this.maxEvalTimeoutMillis : timeoutMillis;
+    if (timeout < 1 || timeout > this.maxEvalTimeoutMillis)
+      throw new WrongArgumentException(
+          String.format("The timeout must be from 1 to %d ms", this.maxEvalTimeoutMillis));
+    if (!this.evalPermits.tryAcquire()) {
+      long retryAfterSeconds = Math.max(1, (this.maxEvalTimeoutMillis + 999) / 1000);
+      throw new ExecutorSaturatedException(
+          String.format("Try again in %d seconds", retryAfterSeconds), retryAfterSeconds);
+    }
+    try {
+      return runEvaluation(scriptCode, timeout, bindings);
+    } finally {
+      this.evalPermits.release();
+    }
+  }
+
+  private Evaluation runEvaluation(String scriptCode, long timeout, ScriptBindings bindings) {
+    CircularOutputStream output = new CircularOutputStream(this.streamCapacity);
+    PooledContext pooledContext = this.contextPool.borrow(output);
+    AtomicReference<String> exceededLimit = new AtomicReference<>();
+    long startTime = System.nanoTime();
+    try (ScriptWatchdog.Watch watch = this.scriptWatchdog.watch(timeout, 0, limit -> {
+      exceededLimit.set(limit);
+      pooledContext.cancel();
+    })) {
+      if (bindings != null)
+        pooledContext.putBindings(bindings);
+      Object result =
+          ValueConverter.toJava(pooledContext.eval(this.sourceCache.getSource(scriptCode)));
+      logger.debug("Script evaluated successfully");
+      return Evaluation.successful(result, output.toString(), elapsedMillis(startTime));
+    } catch (PolyglotException e) {
+      if (e.isSyntaxError())
+        throw new WrongScriptException(e.getMessage());
+      if (exceededLimit.get() != null || e.isResourceExhausted())
+        return Evaluation.failed(EXECUTION_LIMIT_EXCEEDED,
+            "Execution terminated: " + exceededLimit.get(), output.toString(),
+            elapsedMillis(startTime));
+      logger.debug("Script evaluation failed ({})", e.getMessage());
+      return Evaluation.failed(EXECUTION_FAILED, e.getMessage(), output.toString(),
+          elapsedMillis(startTime));
+    } catch (IllegalStateException e) {
+      if (exceededLimit.get() == null)
+        throw e;
+      return Evaluation.failed(EXECUTION_LIMIT_EXCEEDED,
+          "Execution terminated: " + exceededLimit.get(), output.toString(),
+          elapsedMillis(startTime));
+    } finally {
+      this.contextPool.release(pooledContext);
+    }
+  }
+
+  /**
+   * Method for running the script in asynchronous mode. The first (latest) {@link ScriptExecution
+   * execution} of the script is passed to the {@link ScriptTaskExecutor} as it is, so the executor
+   * queue can order executions by {@link ScriptExecution#getPriority() priority}. The slot reserved
+   * for the script when it was
+   * {@link #addScript(String, String, int, ScriptLimits, ScriptBindings, List) added} is released.
+   * If the executor still rejects the script, it is removed from the repository (unless it has
+   * already been deleted or replaced), so it does not stay there in the queue status, and its
+   * execution is cancelled
    *
    * @param script launch script
+   * @throws ExecutorSaturatedException if the executor rejected the script
    */
   @Override
   public void startScriptAsynchronously(Script script) {
     logger.debug("[{}] - Starting script in asynchronously mode", script.getName());
-    script.run();
+    try {
+      this.scriptTaskExecutor.execute(script.getLatestExecution());
+    } catch (TaskRejectedException e) {
+      scriptRepository.deleteScript(script);
+      script.cancelExecution();
+      throw saturated();
+    } finally {
+      this.admissionControl.release();
+    }
+  }
+
+  /**
+   * A method for running a script that is already in the repository once more. A new
+   * {@link Script#newExecution(int, ScriptLimits, ScriptBindings, List) execution} of the stored
+   * code is created (the code is not parsed again, the {@link org.graalvm.polyglot.Source Source}
+   * of the script is reused) and passed to the executor. Like a new script, the execution first
+   * {@link AdmissionControl#reserve() reserves} a slot in the executor. If the executor rejects it,
+   * the execution is {@link Script#discardExecution(ScriptExecution) discarded}, so the script
+   * keeps its status and previous executions, as if nothing had been started.
+   *
+   * @param scriptName script name (identifier)
+   * @param priority priority of the execution in the execution queue
+   * @param limits execution limits. The limits that are not set are taken from the defaults
+   * @param bindings input parameters of the execution
+   * @param libraries names of the libraries loaded before the code, or null
+   * @return new execution
+   * @throws WrongArgumentException if the priority or a limit is out of the allowed range
+   * @throws LibraryNotFoundException if one of the libraries does not exist
+   * @throws WrongScriptStatusException if the previous execution is not finished
+   * @throws ExecutorSaturatedException if the executor cannot accept more scripts
+   */
+  @Override
+  public ScriptExecution startScriptExecution(String scriptName, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries) {
+    checkPriority(priority);
+    checkLimits(limits);
+    Script script = scriptRepository.getScript(scriptName);
+    List<ScriptLibrary> resolvedLibraries = this.libraryService.resolveLibraries(libraries);
+    this.admissionControl.reserve();
+    ScriptExecution execution = null;
+    try {
+      execution = script.newExecution(priority, limits.withDefaults(this.defaultLimits), bindings,
+          resolvedLibraries);
+      this.scriptTaskExecutor.execute(execution);
+    } catch (TaskRejectedException e) {
+      if (!script.discardExecution(execution))
+        script.cancelExecution();
+      throw saturated();
+    } finally {
+      this.admissionControl.release();
+    }
+    logger.info("[{}] - Execution {} of the script started", scriptName, execution.getId());
+    return execution;
+  }
+
+  /**
+   * A method for running a script from the repository on a recurring schedule: by a cron expression
+   * or at a fixed interval. The schedule is served by the single {@link TaskScheduler} of the
+   * service, which only
+   * {@link #startScriptExecution(String, int, ScriptLimits, ScriptBindings, List) starts a new
+   * execution} of the stored code at each run and passes it to the executor, so the code is never
+   * sent or parsed again. If the previous execution of the script has not finished when a run is
+   * due, the run is handled according to the {@link ScheduleOverlapPolicy}. The previous schedule
+   * of the script, if any, is replaced. The schedule is set and started under the lock of the
+   * script, after checking that the script is still in the repository, so a script that is deleted
+   * or evicted meanwhile cannot be left with a live schedule (which would start the executions of a
+   * later script with the same name).
+   *
+   * @param scriptName script name (identifier)
+   * @param cron cron expression (six fields, with seconds), or null
+   * @param intervalMillis interval between runs, or null. Exactly one of cron and intervalMillis
+   *        must be set
+   * @param overlapPolicy what to do with a run that is due while the script is still running
+   * @param priority priority of the executions in the execution queue
+   * @param limits execution limits. The limits that are not set are taken from the defaults
+   * @param bindings input parameters of the executions
+   * @param libraries names of the libraries of the executions, looked up at each run
+   * @return new schedule
+   * @throws WrongArgumentException if the schedule or a run parameter is wrong
+   * @throws ScriptNotFoundException if the script does not exist or has been deleted meanwhile
+   */
+  @Override
+  public ScriptSchedule scheduleScript(String scriptName, String cron, Long intervalMillis,
+      ScheduleOverlapPolicy overlapPolicy, int priority, ScriptLimits limits,
+      ScriptBindings bindings, List<String> libraries) {
+    checkPriority(priority);
+    checkLimits(limits);
+    Trigger trigger;
+    if ((cron == null) == (intervalMillis == null))
+      throw new WrongArgumentException("Either a cron expression or an interval must be set");
+    if (cron != null) {
+      if (!CronExpression.isValidExpression(cron))
+        throw new WrongArgumentException("Wrong cron expression: " + cron);
+      trigger = new CronTrigger(cron);
+    } else {
+      if (intervalMillis < this.minScheduleIntervalMillis)
+        throw new WrongArgumentException(
+            String.format("The interval must be at least %d ms", this.minScheduleIntervalMillis));
+      PeriodicTrigger periodicTrigger = new PeriodicTrigger(intervalMillis);
+      periodicTrigger.setFixedRate(true);
+      periodicTrigger.setInitialDelay(intervalMillis);
+      trigger = periodicTrigger;
+    }
+    Script script = scriptRepository.getScript(scriptName);
+    this.libraryService.resolveLibraries(libraries);
+    ScriptSchedule schedule = new ScriptSchedule(scriptName, cron, intervalMillis,
+        overlapPolicy == null ? ScheduleOverlapPolicy.SKIP : overlapPolicy, priority, limits,
+        bindings, libraries);
+    synchronized (script) {
+      if (scriptRepository.getScript(scriptName) != script)
+        throw new ScriptNotFoundException(scriptName);
+      script.setSchedule(schedule);
+      schedule.setFuture(this.scriptTaskScheduler.schedule(() -> runScheduled(schedule), trigger));
+    }
+    logger.info("[{}] - Script scheduled (cron={}, intervalMillis={})", scriptName, cron,
+        intervalMillis);
+    return schedule;
+  }
+
+  /**
+   * A method to get the schedule of the script
+   *
+   * @param scriptName script name (identifier)
+   * @return ScriptSchedule
+   * @throws ScheduleNotFoundException if the script has no schedule
+   */
+  @Override
+  public ScriptSchedule getSchedule(String scriptName) {
+    ScriptSchedule schedule = scriptRepository.getScript(scriptName).getSchedule();
+    if (schedule == null)
+      throw new ScheduleNotFoundException(scriptName);
+    return schedule;
+  }
+
+  /**
+   * A method for removing the schedule of the script. The execution that has already been started
+   * is not affected
+   *
+   * @param scriptName script name (identifier)
+   * @throws ScheduleNotFoundException if the script has no schedule
+   */
+  @Override
+  public void unscheduleScript(String scriptName) {
+    Script script = scriptRepository.getScript(scriptName);
+    if (script.getSchedule() == null)
+      throw new ScheduleNotFoundException(scriptName);
+    script.setSchedule(null);
+    logger.info("[{}] - Schedule of the script removed", scriptName);
+  }
+
+  /**
+   * A scheduled run of the script. It runs on the scheduler thread and only passes a new execution
+   * to the executor. If the previous execution has not finished, the run is skipped, or, with the
+   * {@link ScheduleOverlapPolicy#CATCH_UP CATCH_UP} policy, it is repeated once when the previous
+   * execution has finished
+   *
+   * @param schedule schedule of the script
+   */
+  private void runScheduled(ScriptSchedule schedule) {
+    if (schedule.isCancelled())
+      return;
+    String scriptName = schedule.getScriptName();
+    try {
+      ScriptExecution execution = startScriptExecution(scriptName, schedule.getPriority(),
+          schedule.getLimits(), schedule.getBindings(), schedule.getLibraries());
+      schedule.recordRun(execution.getId());
+    } catch (WrongScriptStatusException e) {
+      if (schedule.getOverlapPolicy() == ScheduleOverlapPolicy.CATCH_UP
+          && schedule.markCatchUpPending()) {
+        logger.debug("[{}] - The script is still running, the scheduled run will catch up",
+            scriptName);
+        scriptRepository.getScript(scriptName).getLatestExecution().getCompletion()
+            .thenRun(() -> this.scriptTaskScheduler.schedule(() -> {
+              schedule.clearCatchUpPending();
+              runScheduled(schedule);
+            }, Instant.now()));
+      } else {
+        logger.debug("[{}] - The script is still running, the scheduled run is skipped",
+            scriptName);
+        schedule.recordSkip();
+      }
+    } catch (ScriptNotFoundException e) {
+      schedule.cancel();
+    } catch (RuntimeException e) {
+      logger.warn("[{}] - The scheduled run failed to start: {}", scriptName, e.getMessage());
+      schedule.recordError(e.getMessage());
+    }
+  }
+
+  /**
+   * A method to get one of the retained executions of the script
+   *
+   * @param scriptName script name (identifier)
+   * @param executionId number of the execution
+   * @return ScriptExecution
+   * @throws ScriptNotFoundException if there is no such script or execution
+   */
+  @Override
+  public ScriptExecution getScriptExecution(String scriptName, int executionId) {
+    ScriptExecution execution = scriptRepository.getScript(scriptName).getExecution(executionId);
+    if (execution == null)
+      throw new ScriptNotFoundException(scriptName, executionId);
+    return execution;
+  }
+
+  /**
+   * @return number of scripts with each status, taken from the index of the repository
+   */
+  @Override
+  public Map<ScriptStatus, Integer> getScriptCounts() {
+    return scriptRepository.getScriptCounts();
+  }
+
+  /**
+   * A method to get the position of the latest execution of the script in the execution queue
+   *
+   * @param script script from the repository
+   * @return position in the queue starting from 1, or null if the script is not waiting in the
+   *         queue
+   */
+  @Override
+  public Integer getQueuePosition(Script script) {
+    return getQueuePosition(script.getLatestExecution());
+  }
+
+  /**
+   * A method to get the position of the execution in the execution queue
+   *
+   * @param execution execution of a script from the repository
+   * @return position in the queue starting from 1, or null if the execution is not waiting in the
+   *         queue
+   */
+  @Override
+  public Integer getQueuePosition(ScriptExecution execution) {
+    if (execution.getStatus() != IN_QUEUE)
+      return null;
+    int position = this.scriptTaskExecutor.getQueuePosition(execution);
+    return position == 0 ? null : position;
   }
 
   /**
@@ -143,12 +650,66 @@ public class ScriptServiceImpl implements ScriptService {
       if (script.getStatus() == RUNNING)
         throw new WrongScriptStatusException("To delete a running script, you must first stop it",
             script.getStatus(), IN_QUEUE, EXECUTION_CANCELED, EXECUTION_SUCCESSFUL,
-            EXECUTION_FAILED);
+            EXECUTION_FAILED, EXECUTION_LIMIT_EXCEEDED, EXECUTION_INTERRUPTED);
+      script.setSchedule(null);
       scriptRepository.deleteScript(scriptName);
     }
     logger.info("[{}] - Script deleted from the service", script.getName());
   }
 
+  /**
+   * Creates a Script object with the settings of the service. The limits that are not set are taken
+   * from the defaults, and the libraries are looked up by their names
+   */
+  private Script createScript(String scriptName, String scriptCode, int priority,
+      ScriptLimits limits, ScriptBindings bindings, List<String> libraries) {
+    List<ScriptLibrary> resolvedLibraries = this.libraryService.resolveLibraries(libraries);
+    return Script.create(scriptName, scriptCode, this.streamCapacity, this.sourceCache,
+        this.contextPool, this.validationMode, priority, limits.withDefaults(this.defaultLimits),
+        bindings, resolvedLibraries, this.scriptWatchdog, this.maxRetainedExecutions);
+  }
+
+  /**
+   * Creates the exception for a submission rejected by the executor
+   */
+  private ExecutorSaturatedException saturated() {
+    long retryAfterSeconds = this.admissionControl.getRetryAfterSeconds(1);
+    return new ExecutorSaturatedException(
+        String.format("Try again in %d seconds", retryAfterSeconds), retryAfterSeconds);
+  }
+
+  private static long elapsedMillis(long startTime) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+  }
+
+  /**
+   * A method for checking that the priority is in the allowed range
+   *
+   * @param priority priority of the script
+   * @throws WrongArgumentException if the priority is out of the range
+   */
+  static void checkPriority(int priority) {
+    if (priority < Script.MIN_PRIORITY || priority > Script.MAX_PRIORITY)
+      throw new WrongArgumentException(String.format("The priority must be from %d to %d",
+          Script.MIN_PRIORITY, Script.MAX_PRIORITY));
+  }
+
+  /**
+   * A method for checking that the limits that are set are not negative (0 means unlimited)
+   *
+   * @param limits execution limits of the script
+   * @throws WrongArgumentException if a limit is negative
+   */
+  static void checkLimits(ScriptLimits limits) {
+    if (isNegative(limits.getMaxWallTimeMillis()) || isNegative(limits.getMaxCpuTimeMillis())
+        || isNegative(limits.getMaxStatements()))
+      throw new WrongArgumentException("The limits must not be negative (0 means unlimited)");
+  }
+
+  private static boolean isNegative(Long limit) {
+    return limit != null && limit < 0;
+  }
+
   /**
    * A method for checking a script name for forbidden words and characters
    *
@@ -160,6 +721,8 @@ public class ScriptServiceImpl implements ScriptService {
       throw new WrongNameException(
           "The name uses illegal characters or exceeds the allowed length. "
               + "Allowed symbols: letters a-z and A-Z, numbers, underscore and hyphen. Allowed length: 1-100");
+    if (RESERVED_NAMES.contains(scriptName))
+      throw new WrongNameException("The name is reserved: " + RESERVED_NAMES);
     logger.trace("[{}] - Name verification completed successfully", scriptName);
   }
 
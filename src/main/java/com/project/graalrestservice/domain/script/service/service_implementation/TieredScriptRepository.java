@@ -0,0 +1,319 @@
+package com.project.graalrestservice.domain.script.service.service_implementation;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.exception.ScriptNotFoundException;
+import com.project.graalrestservice.domain.script.exception.WrongNameException;
+import com.project.graalrestservice.domain.script.model.ArchivedScript;
+import com.project.graalrestservice.domain.script.model.ExecutionSnapshot;
+import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptMetadata;
+import com.project.graalrestservice.domain.script.model.ScriptPage;
+import com.project.graalrestservice.domain.script.util.ScriptMetadataStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static com.project.graalrestservice.domain.script.enumeration.ScriptStatus.*;
+
+/**
+ * Script repository for millions of scripts. Only the active scripts and the recently finished ones
+ * are kept as objects on the heap. A background thread moves the scripts that finished more than a
+ * given time ago to the off-heap {@link ScriptMetadataStore}, which keeps only their
+ * {@link ScriptMetadata metadata} and code, and drops their logs.
+ * <p>
+ * The stored scripts are still in the pages of the list and in the counts by status: a page is
+ * merged from the page of the heap indexes and the page of the sorted arrays of the store, and only
+ * the stored scripts of the page are created as (temporary) objects. When a stored script is
+ * requested by its name, it is restored from the store and moved back to the heap, so it can be run
+ * again, scheduled or deleted in the same way as any other script. {@link #getScriptList} returns
+ * only the scripts on the heap.
+ * <p>
+ * Moving a script back to the heap and deleting it from the store are done under the same lock of
+ * its name, so a script that is being deleted is never moved back.
+ */
+public class TieredScriptRepository extends ScriptRepositoryImpl implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(TieredScriptRepository.class);
+  private static final Set<ScriptStatus> FINAL_STATUSES = EnumSet.of(EXECUTION_SUCCESSFUL,
+      EXECUTION_FAILED, EXECUTION_CANCELED, EXECUTION_LIMIT_EXCEEDED, EXECUTION_INTERRUPTED);
+  /**
+   * Maximum number of scripts moved to the store at once. The sorted arrays of the store are
+   * rebuilt for each batch
+   */
+  private static final int BATCH_SIZE = 10_000;
+  private static final int NAME_LOCK_COUNT = 64;
+  private final ScriptMetadataStore store;
+  private final Function<ArchivedScript, Script> restorer;
+  private final long compactAfterMillis;
+  private final ScheduledExecutorService compactor;
+  /**
+   * Locks of the names of the stored scripts, shared by the names with the same hash
+   */
+  private final Object[] nameLocks = new Object[NAME_LOCK_COUNT];
+
+  /**
+   * Creates the store and starts the background thread
+   *
+   * @param directory directory of the files of the store
+   * @param compactAfterMillis time after the end of the latest execution after which a script is
+   *        moved to the store
+   * @param compactIntervalMillis interval between the moves, 0 if there are no background moves
+   * @param restorer creates a script from its state in the store
+   */
+  public TieredScriptRepository(Path directory, long compactAfterMillis, long compactIntervalMillis,
+      Function<ArchivedScript, Script> restorer) {
+    this.store = new ScriptMetadataStore(directory);
+    this.restorer = restorer;
+    this.compactAfterMillis = compactAfterMillis;
+    for (int i = 0; i < NAME_LOCK_COUNT; i++)
+      this.nameLocks[i] = new Object();
+    if (compactIntervalMillis > 0) {
+      this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "script-metadata-compactor");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.compactor.scheduleWithFixedDelay(this::compactInBackground, compactIntervalMillis,
+          compactIntervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      this.compactor = null;
+    }
+  }
+
+  /**
+   * Moves the scripts that finished more than the configured time ago, and have no schedule, from
+   * the heap to the store. A script is first added to the store and then removed from the heap
+   * under its lock, if it has not changed since its metadata was read. Otherwise it stays on the
+   * heap and is removed from the store again
+   *
+   * @return number of moved scripts
+   */
+  public int compact() {
+    Instant oldestKept = Instant.now().minusMillis(this.compactAfterMillis);
+    List<Script> candidates = new ArrayList<>();
+    for (ScriptStatus status : FINAL_STATUSES)
+      for (Script script : super.getScriptList(status, null)) {
+        Instant endTime = script.getEndTime();
+        if (endTime != null && endTime.isBefore(oldestKept) && script.getSchedule() == null)
+          candidates.add(script);
+      }
+    int compacted = 0;
+    for (int from = 0; from < candidates.size(); from += BATCH_SIZE)
+      compacted +=
+          compact(candidates.subList(from, Math.min(from + BATCH_SIZE, candidates.size())));
+    if (compacted > 0)
+      logger.info("{} finished scripts moved to the metadata store, {} scripts in it", compacted,
+          this.store.size());
+    return compacted;
+  }
+
+  private int compact(List<Script> scripts) {
+    List<ExecutionSnapshot> snapshots = new ArrayList<>(scripts.size());
+    List<Map.Entry<ScriptMetadata, String>> entries = new ArrayList<>(scripts.size());
+    for (Script script : scripts) {
+      ExecutionSnapshot snapshot = script.getSnapshot();
+      snapshots.add(snapshot);
+      entries.add(Map.entry(ScriptMetadata.of(script), script.getScriptCode()));
+    }
+    this.store.putAll(entries);
+    int compacted = 0;
+    for (int i = 0; i < scripts.size(); i++) {
+      Script script = scripts.get(i);
+      synchronized (script) {
+        if (script.getSnapshot() == snapshots.get(i) && script.getSchedule() == null
+            && super.deleteScript(script)) {
+          compacted++;
+          continue;
+        }
+      }
+      this.store.remove(script.getName(), script.getCreateTime());
+    }
+    return compacted;
+  }
+
+  @Override
+  public void putScript(String scriptName, Script script) {
+    if (this.store.contains(scriptName))
+      throw new WrongNameException("Such a name is already in use");
+    super.putScript(scriptName, script);
+  }
+
+  @Override
+  public List<Script> putScripts(List<Script> scripts) {
+    return super.putScripts(scripts.stream().filter(s -> !this.store.contains(s.getName()))
+        .collect(Collectors.toList()));
+  }
+
+  /**
+   * Returns the script from the heap, or restores it from the store and moves it back to the heap
+   *
+   * @param scriptName script name (identifier)
+   * @return Script with information about the script
+   * @throws ScriptNotFoundException if script not found
+   */
+  @Override
+  public Script getScript(String scriptName) {
+    try {
+      return super.getScript(scriptName);
+    } catch (ScriptNotFoundException e) {
+      synchronized (nameLock(scriptName)) {
+        Script script = restore(scriptName);
+        if (script == null) // it may have been moved back by another thread
+          return super.getScript(scriptName);
+        try {
+          super.putScript(scriptName, script);
+        } catch (WrongNameException moved) {
+          return super.getScript(scriptName);
+        }
+        this.store.remove(scriptName, script.getCreateTime());
+        logger.debug("[{}] - Script moved back from the metadata store", scriptName);
+        return script;
+      }
+    }
+  }
+
+  @Override
+  public void deleteScript(String scriptName) {
+    synchronized (nameLock(scriptName)) {
+      boolean removed = this.store.remove(scriptName, null);
+      try {
+        super.deleteScript(scriptName);
+      } catch (ScriptNotFoundException e) {
+        if (!removed)
+          throw e;
+      }
+    }
+  }
+
+  @Override
+  public boolean deleteScript(Script script) {
+    if (super.deleteScript(script))
+      return true;
+    synchronized (nameLock(script.getName())) {
+      return super.deleteScript(script)
+          || this.store.remove(script.getName(), script.getCreateTime());
+    }
+  }
+
+  /**
+   * Merges the page of the scripts on the heap with the page of the stored scripts. Both of them
+   * start at the cursor and contain the first offset + limit scripts, so the page is among them.
+   * The total count is the sum of the counts of both parts. The stored scripts are counted without
+   * reading all of them: exactly without a name filter or with a {@link #PREFIX prefix}, and
+   * {@link ScriptMetadataStore#count estimated} if the name must contain a substring
+   */
+  @Override
+  public ScriptPage getScriptPage(ScriptStatus scriptStatus, String nameContains,
+      boolean orderByName, boolean reverseOrder, ScriptCursor after, int offset, int limit) {
+    if (this.store.size() == 0)
+      return super.getScriptPage(scriptStatus, nameContains, orderByName, reverseOrder, after,
+          offset, limit);
+    boolean descending = orderByName == reverseOrder;
+    Comparator<ScriptCursor> order =
+        orderByName ? ScriptCursor.BY_NAME : ScriptCursor.BY_CREATE_TIME;
+    if (descending)
+      order = order.reversed();
+    int wanted = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+    Predicate<String> nameFilter = nameContains != null ? nameMatcher(nameContains) : null;
+    ScriptPage live = super.getScriptPage(scriptStatus, nameContains, orderByName, reverseOrder,
+        after, 0, wanted);
+    List<ScriptMetadata> stored =
+        this.store.getPage(scriptStatus, nameFilter, orderByName, descending, after, wanted);
+    List<Map.Entry<ScriptCursor, Object>> merged =
+        new ArrayList<>(live.getScripts().size() + stored.size());
+    for (Script script : live.getScripts())
+      merged.add(Map.entry(ScriptCursor.of(script), script));
+    for (ScriptMetadata metadata : stored)
+      if (!containsName(metadata.getName())) // the script is being moved to the store
+        merged.add(Map.entry(metadata.getCursor(), metadata));
+    merged.sort(Map.Entry.comparingByKey(order));
+    List<Script> scriptList = new ArrayList<>(limit);
+    for (int i = offset; i < merged.size() && scriptList.size() < limit; i++) {
+      Object value = merged.get(i).getValue();
+      Script script = value instanceof Script ? (Script) value : restore((ScriptMetadata) value);
+      if (script != null)
+        scriptList.add(script);
+    }
+    int total = live.getTotalCount() + countStored(scriptStatus, nameContains, stored.size());
+    boolean hasNext = live.hasNext() || stored.size() == wanted || merged.size() > wanted;
+    return new ScriptPage(scriptList, total, hasNext);
+  }
+
+  /**
+   * @param storedOnPage number of the stored scripts found for the page, which the estimated count
+   *        must not be lower than
+   */
+  private int countStored(ScriptStatus scriptStatus, String nameContains, int storedOnPage) {
+    if (nameContains == null)
+      return this.store.count(scriptStatus, null);
+    if (nameContains.startsWith(PREFIX))
+      return this.store.countByPrefix(scriptStatus, nameContains.substring(PREFIX.length()));
+    return Math.max(this.store.count(scriptStatus, nameMatcher(nameContains)), storedOnPage);
+  }
+
+  /**
+   * @return number of scripts with each status, on the heap and in the store
+   */
+  @Override
+  public Map<ScriptStatus, Integer> getScriptCounts() {
+    Map<ScriptStatus, Integer> counts = super.getScriptCounts();
+    this.store.getCounts().forEach((status, count) -> counts.merge(status, count, Integer::sum));
+    return counts;
+  }
+
+  /**
+   * Stops the background thread and deletes the store
+   */
+  @Override
+  public void close() {
+    if (this.compactor != null)
+      this.compactor.shutdownNow();
+    this.store.close();
+  }
+
+  private Object nameLock(String scriptName) {
+    return this.nameLocks[Math.floorMod(scriptName.hashCode(), NAME_LOCK_COUNT)];
+  }
+
+  /**
+   * @return the stored script as a new object, which is not in the repository, or null if it is no
+   *         longer stored
+   */
+  private Script restore(String scriptName) {
+    ScriptMetadata metadata = this.store.get(scriptName);
+    return metadata != null ? restore(metadata) : null;
+  }
+
+  private Script restore(ScriptMetadata metadata) {
+    String code = this.store.getCode(metadata.getName());
+    return code != null ? this.restorer.apply(metadata.toArchivedScript(code)) : null;
+  }
+
+  /**
+   * Periodic task of the background thread. An exception would cancel the next moves, so it is only
+   * logged
+   */
+  private void compactInBackground() {
+    try {
+      compact();
+    } catch (RuntimeException e) {
+      logger.warn("Failed to move the finished scripts to the metadata store", e);
+    }
+  }
+
+}
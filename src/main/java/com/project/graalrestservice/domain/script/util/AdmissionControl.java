@@ -0,0 +1,121 @@
+package com.project.graalrestservice.domain.script.util;
+
+import com.project.graalrestservice.domain.script.exception.ExecutorSaturatedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of the {@link ScriptTaskExecutor}. Before a script is validated and
+ * added to the repository, a slot in the executor is {@link #reserve() reserved} for it. The
+ * reservation is {@link #release() released} when the script has been passed to the executor (or
+ * could not be added), so the executor load together with the reservations never exceeds the
+ * executor capacity, and a script that would be rejected by the executor is rejected before it is
+ * stored.
+ * <p>
+ * A rejected client is told when to retry. The time is estimated from the drain rate of the
+ * executor (completed tasks per second), which is sampled while the executor is busy and smoothed
+ * with an exponential moving average.
+ */
+public class AdmissionControl {
+
+  private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+  private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final double SMOOTHING_FACTOR = 0.3;
+  private final ScriptTaskExecutor executor;
+  private final long maxRetryAfterSeconds;
+  private final AtomicInteger reservations = new AtomicInteger();
+  private final AtomicLong rejected = new AtomicLong();
+  private long lastSampleTime;
+  private long lastCompletedTaskCount;
+  private int lastSampleLoad = 0;
+  /**
+   * Smoothed number of tasks completed by the executor per second. 0 if not yet measured
+   */
+  private double drainRate = 0;
+
+  /**
+   * Basic constructor
+   *
+   * @param executor executor of the scripts
+   * @param maxRetryAfterSeconds upper bound of the retry time returned to rejected clients
+   */
+  public AdmissionControl(ScriptTaskExecutor executor, long maxRetryAfterSeconds) {
+    this.executor = executor;
+    this.maxRetryAfterSeconds = maxRetryAfterSeconds;
+    this.lastSampleTime = System.nanoTime();
+    this.lastCompletedTaskCount = executor.getCompletedTaskCount();
+  }
+
+  /**
+   * Reserves a slot in the executor for a new script
+   *
+   * @throws ExecutorSaturatedException if all slots of the executor are taken or reserved
+   */
+  public void reserve() {
+    int load = this.executor.getLoad();
+    sampleDrainRate(load);
+    int excess = load + this.reservations.incrementAndGet() - this.executor.getCapacity();
+    if (excess > 0) {
+      this.reservations.decrementAndGet();
+      this.rejected.incrementAndGet();
+      long retryAfterSeconds = getRetryAfterSeconds(excess);
+      logger.debug("Script rejected by admission control (load={}, retryAfter={}s)", load,
+          retryAfterSeconds);
+      throw new ExecutorSaturatedException(
+          String.format("Try again in %d seconds", retryAfterSeconds), retryAfterSeconds);
+    }
+  }
+
+  /**
+   * Releases a slot {@link #reserve() reserved} before
+   */
+  public void release() {
+    this.reservations.decrementAndGet();
+  }
+
+  /**
+   * Estimates the time after which the specified number of executor slots will be freed
+   *
+   * @param slots number of slots to wait for
+   * @return time in seconds, from 1 to {@link #maxRetryAfterSeconds}
+   */
+  public synchronized long getRetryAfterSeconds(int slots) {
+    if (this.drainRate <= 0)
+      return this.maxRetryAfterSeconds;
+    long seconds = (long) Math.ceil(slots / this.drainRate);
+    return Math.max(1, Math.min(seconds, this.maxRetryAfterSeconds));
+  }
+
+  public long getRejected() {
+    return this.rejected.get();
+  }
+
+  /**
+   * Updates the drain rate if the sample interval has passed. An idle executor has nothing to
+   * drain, so the intervals that begin or end with an idle executor are skipped and do not lower
+   * the rate
+   *
+   * @param load current load of the executor
+   */
+  private synchronized void sampleDrainRate(int load) {
+    long now = System.nanoTime();
+    long elapsed = now - this.lastSampleTime;
+    if (elapsed < SAMPLE_INTERVAL_NANOS)
+      return;
+    long completedTaskCount = this.executor.getCompletedTaskCount();
+    if (load > 0 && this.lastSampleLoad > 0) {
+      double rate = (completedTaskCount - this.lastCompletedTaskCount)
+          / ((double) elapsed / TimeUnit.SECONDS.toNanos(1));
+      this.drainRate = this.drainRate <= 0 ? rate
+          : SMOOTHING_FACTOR * rate + (1 - SMOOTHING_FACTOR) * this.drainRate;
+    }
+    this.lastSampleTime = now;
+    this.lastCompletedTaskCount = completedTaskCount;
+    this.lastSampleLoad = load;
+  }
+
+}
@@ -4,11 +4,14 @@ import java.io.OutputStream;
 import java.util.Arrays;
 
 /**
- * Class extends the output stream and works on the principle of Circular buffer
+ * Class extends the output stream and works on the principle of Circular buffer. The buffer is
+ * allocated lazily: it starts small and grows up to the capacity as data is written, so a stream
+ * that receives little output does not hold the whole capacity
  */
 public class CircularOutputStream extends OutputStream {
 
-  private final byte[] buf;
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+  private byte[] buf;
   private final byte[] temp = new byte[1];
   private final int capacity;
   private int position = 0;
@@ -20,7 +23,18 @@ public class CircularOutputStream extends OutputStream {
    * @param capacity stream capacity
    */
   public CircularOutputStream(int capacity) {
-    this.buf = new byte[capacity];
+    this(capacity, INITIAL_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructor for a stream whose size is known in advance, for example the restored logs of a
+   * finished execution
+   *
+   * @param capacity stream capacity
+   * @param initialSize initial size of the buffer
+   */
+  public CircularOutputStream(int capacity, int initialSize) {
+    this.buf = new byte[Math.min(capacity, initialSize)];
     this.capacity = capacity;
   }
 
@@ -45,8 +59,10 @@ public class CircularOutputStream extends OutputStream {
    */
   @Override
   public synchronized void write(byte[] b, int off, int len) {
+    ensureBufferSize(
+        this.completed ? this.capacity : (int) Math.min(this.capacity, (long) this.position + len));
     if (len >= this.capacity) {
-      System.arraycopy(b, len - this.capacity, this.buf, 0, this.capacity);
+      System.arraycopy(b, off + len - this.capacity, this.buf, 0, this.capacity);
       this.completed = true;
       this.position = 0;
     } else if (this.capacity >= this.position + len) {
@@ -67,6 +83,21 @@ public class CircularOutputStream extends OutputStream {
 
   }
 
+  /**
+   * Grows the buffer (doubling its size, but not beyond the capacity) so that it can hold the
+   * specified number of bytes
+   *
+   * @param size required buffer size, not greater than the capacity
+   */
+  private void ensureBufferSize(int size) {
+    if (this.buf.length >= size)
+      return;
+    int newSize = this.buf.length;
+    while (newSize < size)
+      newSize = (int) Math.min(this.capacity, Math.max(newSize * 2L, INITIAL_BUFFER_SIZE));
+    this.buf = Arrays.copyOf(this.buf, newSize);
+  }
+
   /**
    * The method returns the content of the stream as a string
    *
@@ -0,0 +1,269 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.ResourceLimits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of pre-built and pre-initialized JS {@link Context contexts}. All contexts are built
+ * from the shared {@link Engine}. Building and initializing a context is done by a background
+ * thread, so a script that borrows a context from the pool does not pay for it.
+ * <p>
+ * A JS context cannot be reset, so after a script has been evaluated in it, the global state of the
+ * context belongs to that script. By default, such contexts are discarded after use ("discard"
+ * policy), and the pool refills itself in the background. If {@link #reuseContexts} is set, a used
+ * context is returned to the pool ("reuse" policy), which is faster but lets the global variables
+ * of one script be seen by the next one. Contexts in which nothing was evaluated (for example, they
+ * were used only to parse a script) are always returned. Cancelled contexts and contexts older than
+ * {@link #maxAgeMillis} are always discarded.
+ * <p>
+ * Resource limits of a context are fixed when it is built, so a script with a statement limit gets
+ * a {@link #borrow(OutputStream, long) dedicated context}, which is built for it and discarded
+ * after use.
+ * <p>
+ * If {@link HostIntrinsics} are set, every context gets them as a global variable when it is built.
+ * All contexts use the {@link HostAccess#EXPLICIT EXPLICIT} host access policy, so scripts can only
+ * call the host methods that are explicitly exported. The language cannot create threads in a
+ * context unless {@link #allowCreateThread} is set, so the only threads that run scripts are those
+ * of the script executor.
+ */
+public class ContextPool implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ContextPool.class);
+  private static final String LANGUAGE = "js";
+  private static final long MAINTENANCE_INTERVAL_MILLIS = 1000;
+  private final Engine engine;
+  private final BlockingDeque<PooledContext> idleContexts;
+  private final int minIdle;
+  private final long maxAgeMillis;
+  private final boolean reuseContexts;
+  /**
+   * Host object put into every context, or null
+   */
+  private final HostIntrinsics intrinsics;
+  /**
+   * If false, scripts cannot start threads of their own, which would not be limited by the executor
+   */
+  private final boolean allowCreateThread;
+  /**
+   * Single background thread that builds new contexts and closes the expired ones
+   */
+  private final ScheduledExecutorService maintainer;
+  private final AtomicBoolean refillScheduled = new AtomicBoolean(false);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong discarded = new AtomicLong();
+
+  /**
+   * Basic constructor. Starts the background thread, which fills the pool up to minIdle contexts
+   *
+   * @param engine the shared engine from which all contexts are built
+   * @param maxSize maximum number of idle contexts in the pool
+   * @param minIdle number of idle contexts that the pool tries to keep ready
+   * @param maxAgeMillis maximum lifetime of a context, after which it is discarded
+   * @param reuseContexts if true, contexts in which a script was evaluated are returned to the pool
+   * @param intrinsics host object available to scripts in every context, or null
+   * @param allowCreateThread if true, the language may create threads in the contexts
+   */
+  public ContextPool(Engine engine, int maxSize, int minIdle, long maxAgeMillis,
+      boolean reuseContexts, HostIntrinsics intrinsics, boolean allowCreateThread) {
+    this.engine = engine;
+    this.idleContexts = new LinkedBlockingDeque<>(maxSize);
+    this.minIdle = Math.min(minIdle, maxSize);
+    this.maxAgeMillis = maxAgeMillis;
+    this.reuseContexts = reuseContexts;
+    this.intrinsics = intrinsics;
+    this.allowCreateThread = allowCreateThread;
+    this.maintainer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "context-pool-maintainer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.maintainer.scheduleWithFixedDelay(this::maintain, 0, MAINTENANCE_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Takes a ready context from the pool (hit) or builds a new one if the pool is empty (miss). The
+   * output of the context is redirected to the specified stream until the context is
+   * {@link #release(PooledContext) released}.
+   *
+   * @param outputStream stream for stdout and stderr of the context. If null, output is discarded
+   * @return PooledContext
+   */
+  public PooledContext borrow(OutputStream outputStream) {
+    PooledContext pooledContext = this.idleContexts.pollFirst();
+    if (pooledContext != null) {
+      this.hits.incrementAndGet();
+    } else {
+      this.misses.incrementAndGet();
+      pooledContext = buildContext();
+    }
+    pooledContext.redirect(outputStream);
+    scheduleRefill();
+    return pooledContext;
+  }
+
+  /**
+   * Same as {@link #borrow(OutputStream)}, but if the statement limit is set, a new dedicated
+   * context with this limit is built (counted as a miss). When the limit is exceeded, the execution
+   * in the context fails with a {@link org.graalvm.polyglot.PolyglotException PolyglotException}
+   * for which {@code isResourceExhausted()} is true. The limits of a context are fixed when it is
+   * built, so the dedicated context is not taken from the pool and is discarded when it is
+   * released: each statement-limited run pays for building a context
+   *
+   * @param outputStream stream for stdout and stderr of the context. If null, output is discarded
+   * @param statementLimit maximum number of statements executed in the context, 0 if unlimited
+   * @return PooledContext
+   */
+  public PooledContext borrow(OutputStream outputStream, long statementLimit) {
+    if (statementLimit <= 0)
+      return borrow(outputStream);
+    this.misses.incrementAndGet();
+    PooledContext pooledContext =
+        buildContext(ResourceLimits.newBuilder().statementLimit(statementLimit, null).build());
+    pooledContext.redirect(outputStream);
+    return pooledContext;
+  }
+
+  /**
+   * Returns the context to the pool or discards it, according to the policy described in the
+   * {@link ContextPool class description}.
+   *
+   * @param pooledContext context that was {@link #borrow(OutputStream) borrowed} from this pool
+   */
+  public void release(PooledContext pooledContext) {
+    pooledContext.redirect(null);
+    boolean reusable = !pooledContext.isDedicated() && !pooledContext.isCancelled()
+        && (!pooledContext.isDirty() || this.reuseContexts)
+        && pooledContext.getAge() < this.maxAgeMillis;
+    if (reusable && this.idleContexts.offerFirst(pooledContext))
+      return;
+    discard(pooledContext);
+    scheduleRefill();
+  }
+
+  public Engine getEngine() {
+    return this.engine;
+  }
+
+  public long getHits() {
+    return this.hits.get();
+  }
+
+  public long getMisses() {
+    return this.misses.get();
+  }
+
+  public long getDiscarded() {
+    return this.discarded.get();
+  }
+
+  public int getIdle() {
+    return this.idleContexts.size();
+  }
+
+  public boolean isAllowCreateThread() {
+    return this.allowCreateThread;
+  }
+
+  /**
+   * Stops the background thread and closes all idle contexts
+   */
+  @Override
+  public void close() {
+    this.maintainer.shutdownNow();
+    PooledContext pooledContext;
+    while ((pooledContext = this.idleContexts.pollFirst()) != null)
+      pooledContext.close();
+  }
+
+  /**
+   * Builds a new context and initializes JS in it
+   */
+  private PooledContext buildContext() {
+    return buildContext(null);
+  }
+
+  /**
+   * Builds a new context with the resource limits and initializes JS in it. The
+   * {@link HostIntrinsics} are put into the context here, so they are not a change made by a script
+   * and do not make the context dirty
+   *
+   * @param resourceLimits limits of the context. If null, a regular pooled context is built,
+   *        otherwise a dedicated one
+   */
+  private PooledContext buildContext(ResourceLimits resourceLimits) {
+    RedirectableOutputStream outputStream = new RedirectableOutputStream();
+    Context.Builder builder =
+        Context.newBuilder().engine(this.engine).out(outputStream).err(outputStream)
+            .allowCreateThread(this.allowCreateThread).allowHostAccess(HostAccess.EXPLICIT);
+    if (resourceLimits != null)
+      builder.resourceLimits(resourceLimits);
+    Context context = builder.build();
+    context.initialize(LANGUAGE);
+    if (this.intrinsics != null)
+      context.getBindings(LANGUAGE).putMember(HostIntrinsics.GLOBAL_NAME, this.intrinsics);
+    return new PooledContext(context, outputStream, resourceLimits != null);
+  }
+
+  private void discard(PooledContext pooledContext) {
+    this.discarded.incrementAndGet();
+    try {
+      pooledContext.close();
+    } catch (IllegalStateException e) {
+      logger.debug("Failed to close the discarded context ({})", e.getMessage());
+    }
+  }
+
+  private void scheduleRefill() {
+    if (this.idleContexts.size() < this.minIdle && this.refillScheduled.compareAndSet(false, true))
+      this.maintainer.execute(() -> {
+        this.refillScheduled.set(false);
+        refill();
+      });
+  }
+
+  /**
+   * Periodic task of the background thread. Discards expired idle contexts and refills the pool
+   */
+  private void maintain() {
+    Iterator<PooledContext> iterator = this.idleContexts.iterator();
+    while (iterator.hasNext()) {
+      PooledContext pooledContext = iterator.next();
+      if (pooledContext.getAge() >= this.maxAgeMillis && this.idleContexts.remove(pooledContext))
+        discard(pooledContext);
+    }
+    refill();
+    logger.trace("Context pool state: idle={}, hits={}, misses={}, discarded={}", getIdle(),
+        getHits(), getMisses(), getDiscarded());
+  }
+
+  private void refill() {
+    try {
+      while (this.idleContexts.size() < this.minIdle) {
+        PooledContext pooledContext = buildContext();
+        if (!this.idleContexts.offerLast(pooledContext)) {
+          pooledContext.close();
+          break;
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.warn("Failed to refill the context pool", e);
+    }
+  }
+
+}
@@ -0,0 +1,156 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.graalvm.polyglot.HostAccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Host object with JDK implementations of the operations that are slow in pure JS: hashing, base64
+ * and gzip. If it is enabled, it is put into every context of the {@link ContextPool} as the global
+ * variable {@value #GLOBAL_NAME}, for example {@code Intrinsics.sha256(text)}. The contexts are
+ * built with the {@link HostAccess#EXPLICIT EXPLICIT} host access policy, so scripts can call only
+ * the methods marked with {@link HostAccess.Export} and nothing else of the host. Binary data is
+ * passed as base64 strings, so no Java arrays or objects are exposed to scripts. The object is
+ * stateless and shared by all contexts.
+ */
+public class HostIntrinsics {
+
+  /**
+   * Name of the global variable under which the object is available to scripts
+   */
+  public static final String GLOBAL_NAME = "Intrinsics";
+  /**
+   * Maximum size of the data unpacked by {@link #gunzip(String)}, which protects the service from
+   * archives that unpack to huge sizes
+   */
+  static final int MAX_UNPACKED_SIZE = 16 * 1024 * 1024;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  /**
+   * Supported hash algorithms by their names in scripts. Each thread keeps its own instance of each
+   * algorithm, so hashing does not create a digest per call
+   */
+  private static final Map<String, ThreadLocal<MessageDigest>> DIGESTS =
+      Map.of("md5", digest("MD5"), "sha1", digest("SHA-1"), "sha256", digest("SHA-256"), "sha512",
+          digest("SHA-512"));
+
+  /**
+   * Calculates the hash of the UTF-8 bytes of the text
+   *
+   * @param algorithm one of md5, sha1, sha256, sha512
+   * @param text text to hash
+   * @return hex string of the hash
+   * @throws IllegalArgumentException if the algorithm is not supported
+   */
+  @HostAccess.Export
+  public String hash(String algorithm, String text) {
+    ThreadLocal<MessageDigest> digest = DIGESTS.get(algorithm);
+    if (digest == null)
+      throw new IllegalArgumentException(
+          "Unsupported hash algorithm: " + algorithm + ". Supported: " + DIGESTS.keySet());
+    return toHex(digest.get().digest(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @HostAccess.Export
+  public String md5(String text) {
+    return hash("md5", text);
+  }
+
+  @HostAccess.Export
+  public String sha256(String text) {
+    return hash("sha256", text);
+  }
+
+  /**
+   * @param text text to encode
+   * @return base64 of the UTF-8 bytes of the text
+   */
+  @HostAccess.Export
+  public String base64Encode(String text) {
+    return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param base64 base64 of UTF-8 text
+   * @return decoded text
+   * @throws IllegalArgumentException if the argument is not valid base64
+   */
+  @HostAccess.Export
+  public String base64Decode(String base64) {
+    return new String(Base64.getDecoder().decode(base64), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Compresses the UTF-8 bytes of the text
+   *
+   * @param text text to compress
+   * @return base64 of the gzip data
+   */
+  @HostAccess.Export
+  public String gzip(String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+      gzip.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return Base64.getEncoder().encodeToString(output.toByteArray());
+  }
+
+  /**
+   * Decompresses the data created by {@link #gzip(String)}
+   *
+   * @param base64 base64 of gzip data
+   * @return decompressed UTF-8 text
+   * @throws IllegalArgumentException if the data is not valid or unpacks to more than
+   *         {@link #MAX_UNPACKED_SIZE} bytes
+   */
+  @HostAccess.Export
+  public String gunzip(String base64) {
+    byte[] packed = Base64.getDecoder().decode(base64);
+    ByteArrayOutputStream output = new ByteArrayOutputStream(packed.length * 4);
+    byte[] buffer = new byte[8192];
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(packed))) {
+      int read;
+      while ((read = gzip.read(buffer)) > 0) {
+        if (output.size() + read > MAX_UNPACKED_SIZE)
+          throw new IllegalArgumentException(
+              "The data unpacks to more than " + MAX_UNPACKED_SIZE + " bytes");
+        output.write(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("The data is not valid gzip: " + e.getMessage(), e);
+    }
+    return output.toString(StandardCharsets.UTF_8);
+  }
+
+  private static ThreadLocal<MessageDigest> digest(String algorithm) {
+    return ThreadLocal.withInitial(() -> {
+      try {
+        return MessageDigest.getInstance(algorithm);
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(algorithm + " is not supported by the JVM", e);
+      }
+    });
+  }
+
+  private static String toHex(byte[] bytes) {
+    char[] hex = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+      hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+    }
+    return new String(hex);
+  }
+
+}
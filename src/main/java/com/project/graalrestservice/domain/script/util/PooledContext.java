@@ -0,0 +1,109 @@
+package com.project.graalrestservice.domain.script.util;
+
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+import java.io.OutputStream;
+
+/**
+ * A polyglot {@link Context} owned by the {@link ContextPool}. The output of the context goes to a
+ * {@link RedirectableOutputStream}, so it can be pointed to the streams of the script that borrowed
+ * it. The class also remembers whether any code was evaluated in the context and whether it was
+ * cancelled, which the pool uses to decide if the context can be given to the next script.
+ * Dedicated contexts (built with resource limits for one script) are never given to another script.
+ */
+public class PooledContext {
+
+  private static final String LANGUAGE = "js";
+  private final Context context;
+  private final RedirectableOutputStream outputStream;
+  private final long createTime;
+  private final boolean dedicated;
+  private volatile boolean dirty = false;
+  private volatile boolean cancelled = false;
+
+  PooledContext(Context context, RedirectableOutputStream outputStream, boolean dedicated) {
+    this.context = context;
+    this.outputStream = outputStream;
+    this.dedicated = dedicated;
+    this.createTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Parses the source without running it. Parsing does not change the state of the context, so the
+   * context stays clean
+   *
+   * @param source source to parse
+   * @return parsed source, which can be executed in this context
+   */
+  public Value parse(Source source) {
+    return this.context.parse(source);
+  }
+
+  /**
+   * Evaluates the source. After this, the global state of the context may be changed by the script
+   *
+   * @param source source to evaluate
+   * @return the result of the evaluation
+   */
+  public Value eval(Source source) {
+    this.dirty = true;
+    return this.context.eval(source);
+  }
+
+  /**
+   * Makes each of the bindings a global variable of the context. The bindings are parsed with the
+   * JS {@code JSON.parse}, so the script gets native JS objects and arrays. After this, the global
+   * state of the context is changed
+   *
+   * @param bindings input parameters of the script
+   */
+  public void putBindings(ScriptBindings bindings) {
+    if (bindings.isEmpty())
+      return;
+    this.dirty = true;
+    Value globals = this.context.getBindings(LANGUAGE);
+    Value values = globals.getMember("JSON").getMember("parse").execute(bindings.toJson());
+    for (String key : values.getMemberKeys())
+      globals.putMember(key, values.getMember(key));
+  }
+
+  /**
+   * Cancels the execution in the context and closes it. A cancelled context is never reused
+   */
+  public void cancel() {
+    this.cancelled = true;
+    this.context.close(true);
+  }
+
+  void redirect(OutputStream target) {
+    this.outputStream.setTarget(target);
+  }
+
+  void close() {
+    this.context.close(true);
+  }
+
+  long getAge() {
+    return System.currentTimeMillis() - this.createTime;
+  }
+
+  public Context getContext() {
+    return this.context;
+  }
+
+  public boolean isDirty() {
+    return this.dirty;
+  }
+
+  public boolean isDedicated() {
+    return this.dedicated;
+  }
+
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+
+}
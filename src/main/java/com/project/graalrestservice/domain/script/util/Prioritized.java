@@ -0,0 +1,11 @@
+package com.project.graalrestservice.domain.script.util;
+
+/**
+ * A task that has a priority in the {@link ScriptPriorityQueue}. The higher the value, the earlier
+ * the task is taken from the queue
+ */
+public interface Prioritized {
+
+  int getPriority();
+
+}
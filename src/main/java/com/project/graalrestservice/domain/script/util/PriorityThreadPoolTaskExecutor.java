@@ -0,0 +1,55 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Spring thread pool task executor, the queue of which is a {@link ScriptPriorityQueue}. Tasks must
+ * be passed to {@link #execute(Runnable)} as they are (not wrapped into futures), otherwise their
+ * priority is not visible to the queue
+ */
+public class PriorityThreadPoolTaskExecutor extends ThreadPoolTaskExecutor
+    implements ScriptTaskExecutor {
+
+  private final long agingMillis;
+
+  /**
+   * Basic constructor
+   *
+   * @param agingMillis waiting time that is worth one level of priority
+   */
+  public PriorityThreadPoolTaskExecutor(long agingMillis) {
+    this.agingMillis = agingMillis;
+  }
+
+  @Override
+  public int getQueuePosition(Runnable task) {
+    return ((ScriptPriorityQueue) getThreadPoolExecutor().getQueue()).getPosition(task);
+  }
+
+  /**
+   * The capacity of the pool is its maximum size plus the capacity of the queue
+   */
+  @Override
+  public int getCapacity() {
+    BlockingQueue<Runnable> queue = getThreadPoolExecutor().getQueue();
+    return getMaxPoolSize() + queue.size() + queue.remainingCapacity();
+  }
+
+  @Override
+  public int getLoad() {
+    return getActiveCount() + getThreadPoolExecutor().getQueue().size();
+  }
+
+  @Override
+  public long getCompletedTaskCount() {
+    return getThreadPoolExecutor().getCompletedTaskCount();
+  }
+
+  @Override
+  protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+    return new ScriptPriorityQueue(queueCapacity, this.agingMillis);
+  }
+
+}
@@ -0,0 +1,56 @@
+package com.project.graalrestservice.domain.script.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Class extends the output stream and forwards everything written to it to the current target
+ * stream. The target can be replaced at any time. If there is no target, the data is discarded. It
+ * is needed because the output of a polyglot context is fixed when the context is built, and pooled
+ * contexts have to write to the streams of the script that borrowed them.
+ */
+public class RedirectableOutputStream extends OutputStream {
+
+  private volatile OutputStream target;
+
+  /**
+   * Method to write byte to the current target stream.
+   *
+   * @param b byte to write
+   * @throws IOException if the target stream throws it
+   */
+  @Override
+  public void write(int b) throws IOException {
+    OutputStream outputStream = this.target;
+    if (outputStream != null)
+      outputStream.write(b);
+  }
+
+  /**
+   * Writes len bytes from the specified byte array starting at offset off to the current target
+   * stream.
+   *
+   * @param b the data.
+   * @param off the start offset in the data.
+   * @param len the number of bytes to write.
+   * @throws IOException if the target stream throws it
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    OutputStream outputStream = this.target;
+    if (outputStream != null)
+      outputStream.write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    OutputStream outputStream = this.target;
+    if (outputStream != null)
+      outputStream.flush();
+  }
+
+  public void setTarget(OutputStream target) {
+    this.target = target;
+  }
+
+}
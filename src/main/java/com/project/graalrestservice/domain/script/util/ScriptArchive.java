@@ -0,0 +1,165 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only file of records, each of which is stored under a name. Only the position of the
+ * latest record of each name is kept in memory, and the record itself is read from the file when it
+ * is requested. When the archive is opened, the file is scanned to restore these positions, and an
+ * incomplete record at its end (left by a crash during a write) is cut off.
+ * <p>
+ * A record is the length of its body (int), followed by the body: the name (length and UTF-8 bytes)
+ * and the data. The archive does not interpret the data. Records are never removed, so the file
+ * only grows.
+ */
+public class ScriptArchive implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScriptArchive.class);
+  private final Path path;
+  private final FileChannel channel;
+  /**
+   * Position of the latest record of each name in the file
+   */
+  private final ConcurrentHashMap<String, Long> positions = new ConcurrentHashMap<>();
+  /**
+   * Position at which the next record is written. Changed only by the writing thread, under the
+   * lock of the archive
+   */
+  private long end;
+
+  /**
+   * Opens the archive file, or creates it if it does not exist
+   *
+   * @param path path to the archive file
+   * @throws UncheckedIOException if the file cannot be opened or read
+   */
+  public ScriptArchive(Path path) {
+    this.path = path;
+    try {
+      Path parent = path.toAbsolutePath().getParent();
+      if (parent != null)
+        Files.createDirectories(parent);
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      this.end = restorePositions();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open the script archive " + path, e);
+    }
+    logger.info("Script archive {} opened with {} records", path, this.positions.size());
+  }
+
+  /**
+   * Appends a record, which replaces the previous record with the same name
+   *
+   * @param name name of the record
+   * @param data data of the record
+   * @throws UncheckedIOException if the record cannot be written
+   */
+  public synchronized void write(String name, byte[] data) {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 2 + nameBytes.length + data.length);
+    buffer.putInt(Integer.BYTES + nameBytes.length + data.length).putInt(nameBytes.length)
+        .put(nameBytes).put(data).flip();
+    long position = this.end;
+    try {
+      while (buffer.hasRemaining())
+        this.channel.write(buffer, position + buffer.position());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write to the script archive " + this.path, e);
+    }
+    this.end = position + buffer.limit();
+    this.positions.put(name, position);
+  }
+
+  /**
+   * @param name name of the record
+   * @return data of the latest record with this name, or null if there is no such record
+   * @throws UncheckedIOException if the record cannot be read
+   */
+  public byte[] read(String name) {
+    Long position = this.positions.get(name);
+    if (position == null)
+      return null; // NOSONAR
+    try {
+      ByteBuffer body = readBody(position);
+      body.position(Integer.BYTES + body.getInt());
+      byte[] data = new byte[body.remaining()];
+      body.get(data);
+      return data;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read from the script archive " + this.path, e);
+    }
+  }
+
+  /**
+   * @return number of names in the archive
+   */
+  public int size() {
+    return this.positions.size();
+  }
+
+  @Override
+  public void close() {
+    try {
+      this.channel.close();
+    } catch (IOException e) {
+      logger.warn("Failed to close the script archive {}", this.path, e);
+    }
+  }
+
+  /**
+   * Reads the names of all records of the file
+   *
+   * @return the end of the last complete record
+   */
+  private long restorePositions() throws IOException {
+    long size = this.channel.size();
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 2);
+    while (position + header.capacity() <= size) {
+      header.clear();
+      readFully(header, position);
+      int bodyLength = header.getInt(0);
+      int nameLength = header.getInt(Integer.BYTES);
+      if (bodyLength < Integer.BYTES + nameLength || nameLength < 0
+          || position + Integer.BYTES + bodyLength > size)
+        break;
+      ByteBuffer name = ByteBuffer.allocate(nameLength);
+      readFully(name, position + header.capacity());
+      this.positions.put(new String(name.array(), StandardCharsets.UTF_8), position);
+      position += Integer.BYTES + bodyLength;
+    }
+    if (position < size) {
+      logger.warn("Incomplete record at the end of the script archive {} is cut off", this.path);
+      this.channel.truncate(position);
+    }
+    return position;
+  }
+
+  private ByteBuffer readBody(long position) throws IOException {
+    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+    readFully(length, position);
+    ByteBuffer body = ByteBuffer.allocate(length.getInt(0));
+    readFully(body, position + Integer.BYTES);
+    body.flip();
+    return body;
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining())
+      if (this.channel.read(buffer, position + buffer.position()) < 0)
+        throw new IOException("Unexpected end of the script archive " + this.path);
+  }
+
+}
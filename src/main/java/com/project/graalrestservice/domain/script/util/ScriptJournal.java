@@ -0,0 +1,398 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Durable log of the changes of named records (the states of the scripts), from which they are
+ * {@link #recover(BiConsumer) recovered} after a restart. The journal does not interpret the data
+ * of the records, the last record of a name is its current state, and a delete record removes it.
+ * <p>
+ * All writes are done by a single background thread. It takes all the records that have been
+ * {@link #append(String, Supplier) appended} since its last write, writes them at once and forces
+ * them to the disk with one fsync (group commit), then completes their futures. The data of a
+ * record is produced by its supplier at the moment it is written, so a record appended for an older
+ * change of a state still writes its latest version.
+ * <p>
+ * When the journal file grows beyond the compaction threshold, the writing thread writes the
+ * current states of all records to a new snapshot file and starts the journal anew. Each snapshot
+ * and each journal starts with its epoch, which is incremented by every compaction, so a journal
+ * left over from before the last snapshot (if the service stopped during the compaction) is
+ * discarded. Each record has a checksum, and a torn record at the end of the journal is cut off.
+ */
+public class ScriptJournal implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScriptJournal.class);
+  private static final int MAGIC = 0x534A524E;
+  private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  private static final int MAX_BATCH_SIZE = 4096;
+  private static final int BUFFER_SIZE = 1 << 16;
+  private final Path journalPath;
+  private final Path snapshotPath;
+  private final long compactionThresholdBytes;
+  /**
+   * Writes the current states of all records to the sink of the snapshot
+   */
+  private final Consumer<BiConsumer<String, byte[]>> stateWriter;
+  private final FileChannel channel;
+  private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private final Object appendLock = new Object();
+  /**
+   * Set under the {@link #appendLock}, after that nothing is added to the {@link #queue}
+   */
+  private volatile boolean closed = false;
+  /**
+   * Epoch of the current journal and of the latest snapshot. Changed only by the writing thread
+   */
+  private long epoch;
+  /**
+   * End of the last record of the journal. Changed only by the writing thread (or by the recovery,
+   * before it starts)
+   */
+  private long end;
+
+  /**
+   * Opens the journal in the directory, or creates it. The journal is ready for appends after it
+   * has been {@link #recover(BiConsumer) recovered}
+   *
+   * @param directory directory of the journal and snapshot files
+   * @param compactionThresholdBytes size of the journal after which it is compacted into a snapshot
+   * @param stateWriter writes the current states of all records to the given sink, for a snapshot
+   * @throws UncheckedIOException if the journal cannot be opened
+   */
+  public ScriptJournal(Path directory, long compactionThresholdBytes,
+      Consumer<BiConsumer<String, byte[]>> stateWriter) {
+    this.journalPath = directory.resolve("scripts.journal");
+    this.snapshotPath = directory.resolve("scripts.snapshot");
+    this.compactionThresholdBytes = compactionThresholdBytes;
+    this.stateWriter = stateWriter;
+    try {
+      Files.createDirectories(directory);
+      this.channel = FileChannel.open(this.journalPath, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open the script journal in " + directory, e);
+    }
+    this.writer = new Thread(this::writeLoop, "script-journal-writer");
+    this.writer.setDaemon(true);
+  }
+
+  /**
+   * Reads the latest snapshot and then the journal, and passes all their records to the consumer in
+   * the order they were written. Then starts the writing thread
+   *
+   * @param consumer receives the name and the data of each record, the data is null for a delete
+   * @throws UncheckedIOException if the files cannot be read
+   */
+  public void recover(BiConsumer<String, byte[]> consumer) {
+    try {
+      long snapshotEpoch = -1;
+      if (Files.exists(this.snapshotPath))
+        try (DataInputStream in = open(this.snapshotPath)) {
+          snapshotEpoch = readHeader(in);
+          while (readRecord(in, consumer) > 0) {
+            // all records of the snapshot are passed to the consumer
+          }
+        }
+      long journalEpoch = -1;
+      long position = 0;
+      if (this.channel.size() >= HEADER_SIZE)
+        try (DataInputStream in = open(this.journalPath)) {
+          journalEpoch = readHeader(in);
+          if (journalEpoch >= snapshotEpoch) {
+            position = HEADER_SIZE;
+            int length;
+            while ((length = readRecord(in, consumer)) > 0)
+              position += length;
+          }
+        }
+      if (journalEpoch < 0 || journalEpoch < snapshotEpoch) {
+        this.epoch = Math.max(snapshotEpoch, 0);
+        resetJournal();
+      } else {
+        this.epoch = journalEpoch;
+        if (position < this.channel.size()) {
+          logger.warn("Incomplete record at the end of the script journal is cut off");
+          this.channel.truncate(position);
+        }
+        this.end = position;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to recover the script journal " + this.journalPath, e);
+    }
+    this.writer.start();
+  }
+
+  /**
+   * Appends the current state of a record
+   *
+   * @param name name of the record
+   * @param state supplier of the data, which is called when the record is written. If it returns
+   *        null, nothing is written
+   * @return future that is completed when the record has been forced to the disk
+   */
+  public CompletableFuture<Void> append(String name, Supplier<byte[]> state) {
+    return enqueue(new Entry(name, state));
+  }
+
+  /**
+   * Appends the removal of a record
+   *
+   * @param name name of the record
+   * @return future that is completed when the removal has been forced to the disk
+   */
+  public CompletableFuture<Void> appendDelete(String name) {
+    return enqueue(new Entry(name, null));
+  }
+
+  /**
+   * Writes the records that have already been appended and closes the journal. Records appended
+   * after that are ignored
+   */
+  @Override
+  public void close() {
+    synchronized (this.appendLock) {
+      this.closed = true;
+    }
+    try {
+      if (this.writer.isAlive())
+        this.writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      this.channel.close();
+    } catch (IOException e) {
+      logger.warn("Failed to close the script journal {}", this.journalPath, e);
+    }
+  }
+
+  private CompletableFuture<Void> enqueue(Entry entry) {
+    synchronized (this.appendLock) {
+      if (this.closed) {
+        logger.debug("[{}] - The script journal is closed, the change is not written", entry.name);
+        entry.written.complete(null);
+      } else {
+        this.queue.add(entry);
+      }
+    }
+    return entry.written;
+  }
+
+  /**
+   * Main loop of the writing thread. It ends when the journal is closed and all appended records
+   * have been written
+   */
+  private void writeLoop() {
+    List<Entry> batch = new ArrayList<>();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+    while (!this.closed || !this.queue.isEmpty()) {
+      try {
+        Entry first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null)
+          continue;
+        batch.add(first);
+        this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        writeBatch(batch, bytes);
+        if (this.end > this.compactionThresholdBytes)
+          compact();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (IOException | RuntimeException e) {
+        logger.error("Failed to write to the script journal {}", this.journalPath, e);
+        batch.forEach(entry -> entry.written.completeExceptionally(e));
+      } finally {
+        batch.clear();
+        bytes.reset();
+      }
+    }
+  }
+
+  private void writeBatch(List<Entry> batch, ByteArrayOutputStream bytes) throws IOException {
+    DataOutputStream out = new DataOutputStream(bytes);
+    for (Entry entry : batch) {
+      if (entry.state == null) {
+        writeRecord(out, DELETE, entry.name, new byte[0]);
+        continue;
+      }
+      byte[] data;
+      try {
+        data = entry.state.get();
+      } catch (RuntimeException e) {
+        logger.warn("[{}] - Failed to get the state for the script journal", entry.name, e);
+        continue;
+      }
+      if (data != null)
+        writeRecord(out, PUT, entry.name, data);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+    while (buffer.hasRemaining())
+      this.channel.write(buffer, this.end + buffer.position());
+    this.channel.force(false);
+    this.end += buffer.limit();
+    batch.forEach(entry -> entry.written.complete(null));
+  }
+
+  /**
+   * Writes the snapshot of the next epoch to a temporary file, replaces the previous snapshot with
+   * it and starts the journal of the new epoch
+   */
+  private void compact() throws IOException {
+    long start = System.nanoTime();
+    long nextEpoch = this.epoch + 1;
+    Path temporary = this.snapshotPath.resolveSibling(this.snapshotPath.getFileName() + ".tmp");
+    int[] count = {0};
+    try (
+        FileChannel snapshot = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(snapshot), BUFFER_SIZE))) {
+      out.writeInt(MAGIC);
+      out.writeLong(nextEpoch);
+      this.stateWriter.accept((name, data) -> {
+        try {
+          writeRecord(out, PUT, name, data);
+          count[0]++;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      out.flush();
+      snapshot.force(true);
+    }
+    Files.move(temporary, this.snapshotPath, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    this.epoch = nextEpoch;
+    resetJournal();
+    logger.info("Script journal compacted into a snapshot of {} records in {} ms", count[0],
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * Empties the journal file and writes the header of the current epoch to it
+   */
+  private void resetJournal() throws IOException {
+    this.channel.truncate(0);
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putLong(this.epoch);
+    header.flip();
+    while (header.hasRemaining())
+      this.channel.write(header, header.position());
+    this.channel.force(true);
+    this.end = HEADER_SIZE;
+  }
+
+  private DataInputStream open(Path path) throws IOException {
+    InputStream in = Files.newInputStream(path);
+    return new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+  }
+
+  private long readHeader(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC)
+      throw new IOException("Not a script journal file");
+    return in.readLong();
+  }
+
+  /**
+   * A record is the length of its body, the checksum of the body and the body: the type of the
+   * record, the name (length and UTF-8 bytes) and the data
+   */
+  private static void writeRecord(DataOutputStream out, byte type, String name, byte[] data)
+      throws IOException {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer body = ByteBuffer.allocate(1 + Integer.BYTES + nameBytes.length + data.length);
+    body.put(type).putInt(nameBytes.length).put(nameBytes).put(data);
+    CRC32 crc = new CRC32();
+    crc.update(body.array());
+    out.writeInt(body.capacity());
+    out.writeInt((int) crc.getValue());
+    out.write(body.array());
+  }
+
+  /**
+   * Reads the next record and passes it to the consumer
+   *
+   * @return size of the record, or 0 if there is no complete and valid record
+   */
+  private static int readRecord(DataInputStream in, BiConsumer<String, byte[]> consumer)
+      throws IOException {
+    byte[] body;
+    int checksum;
+    try {
+      int length = in.readInt();
+      checksum = in.readInt();
+      if (length < 1 + Integer.BYTES)
+        return 0;
+      body = new byte[length];
+      in.readFully(body);
+    } catch (EOFException e) {
+      return 0;
+    }
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    if ((int) crc.getValue() != checksum)
+      return 0;
+    ByteBuffer buffer = ByteBuffer.wrap(body);
+    byte type = buffer.get();
+    int nameLength = buffer.getInt();
+    if (nameLength < 0 || nameLength > buffer.remaining())
+      return 0;
+    String name = new String(body, buffer.position(), nameLength, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + nameLength);
+    byte[] data = null;
+    if (type == PUT) {
+      data = new byte[buffer.remaining()];
+      buffer.get(data);
+    }
+    consumer.accept(name, data);
+    return Integer.BYTES * 2 + body.length;
+  }
+
+  private static class Entry {
+
+    private final String name;
+    /**
+     * Supplier of the data, or null for a delete
+     */
+    private final Supplier<byte[]> state;
+    private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+    private Entry(String name, Supplier<byte[]> state) {
+      this.name = name;
+      this.state = state;
+    }
+
+  }
+
+}
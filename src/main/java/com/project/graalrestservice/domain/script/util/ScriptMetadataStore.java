@@ -0,0 +1,832 @@
+package com.project.graalrestservice.domain.script.util;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Store of the {@link ScriptMetadata metadata} of finished scripts, which keeps them outside the
+ * Java heap, so millions of them cost neither heap nor GC time. Each script is a fixed-size record
+ * in a memory-mapped file, which grows by chunks, and the operating system pages the cold records
+ * out when memory is short. The code of the scripts is written to a second file, once for each
+ * distinct code of the recently stored scripts.
+ * <p>
+ * The indexes are off-heap as well: a hash table of names, whose chains are linked through the
+ * records, and two arrays of record numbers sorted by name and by creation time, from which the
+ * pages of the list are read in the same order as from the indexes of the repository. The sorted
+ * arrays are rebuilt by {@link #putAll(List)}, which merges the new records into them. A removed
+ * record stays in the arrays and is skipped until the next rebuild, and only after that its place
+ * is reused. The array sorted by name also keeps the status of each record and the number of
+ * records with each status before every block of {@value #RANK_BLOCK} records, so the scripts whose
+ * names start with a prefix are counted from a range of the array, without reading it.
+ * <p>
+ * The files are working storage, not a durable copy: they are recreated when the store is opened
+ * and deleted when it is closed. Reads and writes are guarded by a read-write lock.
+ */
+public class ScriptMetadataStore implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScriptMetadataStore.class);
+  /**
+   * Size of a record. The fields are at fixed offsets, the longs first, so they are aligned
+   */
+  private static final int RECORD_SIZE = 200;
+  private static final int CREATE_SECONDS = 0;
+  private static final int START_SECONDS = 8;
+  private static final int END_SECONDS = 16;
+  private static final int CODE_POSITION = 24;
+  private static final int CREATE_NANOS = 32;
+  private static final int START_NANOS = 36;
+  private static final int END_NANOS = 40;
+  private static final int EXECUTION_COUNT = 44;
+  private static final int LOGS_SIZE = 48;
+  private static final int CODE_LENGTH = 52;
+  /**
+   * Next record of the same hash table chain, plus one (0 is the end of the chain)
+   */
+  private static final int NEXT = 56;
+  private static final int STATE = 60;
+  private static final int STATUS = 61;
+  private static final int PRIORITY = 62;
+  private static final int NAME_LENGTH = 63;
+  private static final int CODE_HASH = 64;
+  private static final int NAME = 96;
+  private static final int HASH_LENGTH = 32;
+  private static final int MAX_NAME_LENGTH = RECORD_SIZE - NAME;
+  private static final byte FREE = 0;
+  private static final byte USED = 1;
+  private static final long NO_TIME = Long.MIN_VALUE;
+  private static final int CHUNK_SHIFT = 16;
+  private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+  private static final int INITIAL_TABLE_SIZE = 1 << 16;
+  private static final int RECENT_CODES = 1024;
+  private static final ScriptStatus[] STATUSES = ScriptStatus.values();
+  private static final int RANK_BLOCK = 64;
+  /**
+   * Number of names checked to estimate how many names contain a substring
+   */
+  private static final int SAMPLE_SIZE = 4096;
+  private final Path recordsPath;
+  private final Path codePath;
+  private final FileChannel recordsChannel;
+  private final FileChannel codeChannel;
+  private final List<MappedByteBuffer> chunks = new ArrayList<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final int[] statusCounts = new int[STATUSES.length];
+  /**
+   * Position and length of the recently written codes by their hash, so the same code is not
+   * written again
+   */
+  private final Map<String, long[]> recentCodes =
+      new LinkedHashMap<>(RECENT_CODES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+          return size() > RECENT_CODES;
+        }
+      };
+  /**
+   * Hash table of the names: the first record of each chain, plus one
+   */
+  private IntBuffer table = allocateInts(INITIAL_TABLE_SIZE);
+  private IntBuffer byName = allocateInts(CHUNK_RECORDS);
+  private IntBuffer byCreateTime = allocateInts(CHUNK_RECORDS);
+  /**
+   * Buffers into which the sorted arrays are rebuilt, then they are swapped with the current ones
+   */
+  private IntBuffer spareByName = allocateInts(CHUNK_RECORDS);
+  private IntBuffer spareByCreateTime = allocateInts(CHUNK_RECORDS);
+  /**
+   * Status of each record of the array sorted by name, at the same index. It is merged together
+   * with the array, so the rebuild does not read the records
+   */
+  private ByteBuffer byNameStatus = ByteBuffer.allocateDirect(CHUNK_RECORDS);
+  private ByteBuffer spareByNameStatus = ByteBuffer.allocateDirect(CHUNK_RECORDS);
+  /**
+   * Number of records with each status before each block of the array sorted by name
+   */
+  private IntBuffer nameRanks = allocateInts(STATUSES.length);
+  private int sortedCount;
+  /**
+   * Records that can be reused
+   */
+  private int[] free = new int[16];
+  private int freeCount;
+  /**
+   * Removed records that are still in the sorted arrays, they become free after the next rebuild.
+   * It is checked instead of the state of the records, so the rebuild does not read the records
+   */
+  private final BitSet released = new BitSet();
+  /**
+   * Number of records taken from the file, including the free ones
+   */
+  private int recordCount;
+  private int size;
+  private long codeEnd;
+
+  /**
+   * Creates the store in the directory. Files left there by a previous store are overwritten
+   *
+   * @param directory directory of the files of the store
+   * @throws UncheckedIOException if the files cannot be created
+   */
+  public ScriptMetadataStore(Path directory) {
+    this.recordsPath = directory.resolve("scripts.metadata");
+    this.codePath = directory.resolve("scripts.code");
+    try {
+      Files.createDirectories(directory);
+      this.recordsChannel = FileChannel.open(this.recordsPath, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      this.codeChannel = FileChannel.open(this.codePath, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create the script metadata store in " + directory,
+          e);
+    }
+    logger.info("Script metadata store created in {}", directory);
+  }
+
+  /**
+   * Adds the scripts, each of them replaces a stored script with the same name. The sorted arrays
+   * are rebuilt once for all of them, so the scripts should be added in batches
+   *
+   * @param scripts metadata of the scripts with their code
+   * @throws UncheckedIOException if the code cannot be written
+   * @throws IllegalArgumentException if a name is too long for the record
+   */
+  public void putAll(List<Map.Entry<ScriptMetadata, String>> scripts) {
+    this.lock.writeLock().lock();
+    try {
+      int[] added = new int[scripts.size()];
+      int addedCount = 0;
+      for (Map.Entry<ScriptMetadata, String> entry : scripts) {
+        ScriptMetadata metadata = entry.getKey();
+        byte[] name = metadata.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_LENGTH)
+          throw new IllegalArgumentException("Script name is too long: " + metadata.getName());
+        int existing = find(name);
+        if (existing >= 0)
+          release(existing);
+        long[] code = writeCode(metadata.getCodeHash(), entry.getValue());
+        if (this.size >= this.table.capacity() / 4 * 3)
+          growTable();
+        int record = allocate();
+        writeRecord(record, metadata, name, code);
+        link(record, name);
+        this.size++;
+        this.statusCounts[metadata.getStatus().ordinal()]++;
+        added[addedCount++] = record;
+      }
+      int kept = 0;
+      for (int i = 0; i < addedCount; i++)
+        if (!this.released.get(added[i])) // replaced by a later script of the same batch
+          added[kept++] = added[i];
+      rebuildSortedArrays(added, kept);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @param name script name (identifier)
+   * @return metadata of the script, or null if it is not stored
+   */
+  public ScriptMetadata get(String name) {
+    this.lock.readLock().lock();
+    try {
+      int record = find(name.getBytes(StandardCharsets.UTF_8));
+      return record >= 0 ? read(record) : null;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @param name script name (identifier)
+   * @return true if the script is stored
+   */
+  public boolean contains(String name) {
+    this.lock.readLock().lock();
+    try {
+      return find(name.getBytes(StandardCharsets.UTF_8)) >= 0;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @param name script name (identifier)
+   * @return code of the script, or null if it is not stored
+   * @throws UncheckedIOException if the code cannot be read
+   */
+  public String getCode(String name) {
+    this.lock.readLock().lock();
+    try {
+      int record = find(name.getBytes(StandardCharsets.UTF_8));
+      if (record < 0)
+        return null; // NOSONAR
+      ByteBuffer chunk = chunk(record);
+      int offset = offset(record);
+      ByteBuffer code = ByteBuffer.allocate(chunk.getInt(offset + CODE_LENGTH));
+      long position = chunk.getLong(offset + CODE_POSITION);
+      while (code.hasRemaining())
+        if (this.codeChannel.read(code, position + code.position()) < 0)
+          throw new IOException("Unexpected end of the code file " + this.codePath);
+      return new String(code.array(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read the script code from " + this.codePath, e);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @param name script name (identifier)
+   * @param createTime creation time of the script, or null to remove any script with this name
+   * @return true if the script was removed
+   */
+  public boolean remove(String name, Instant createTime) {
+    this.lock.writeLock().lock();
+    try {
+      int record = find(name.getBytes(StandardCharsets.UTF_8));
+      if (record < 0 || (createTime != null
+          && !createTime.equals(readInstant(record, CREATE_SECONDS, CREATE_NANOS))))
+        return false;
+      release(record);
+      return true;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Reads a page of the scripts sorted by name or by creation time. The page starts at the cursor,
+   * which is found by a binary search of the sorted array, and the array is read from there until
+   * the page is full
+   *
+   * @param status status filter, or null
+   * @param nameFilter name filter, or null
+   * @param orderByName if true, the scripts are sorted by name, otherwise by creation time
+   * @param descending if true, the order is reversed
+   * @param after position of the last script of the previous page, or null to start from the
+   *        beginning
+   * @param limit maximum number of scripts on the page
+   * @return metadata of the scripts of the page
+   */
+  public List<ScriptMetadata> getPage(ScriptStatus status, Predicate<String> nameFilter,
+      boolean orderByName, boolean descending, ScriptCursor after, int limit) {
+    this.lock.readLock().lock();
+    try {
+      IntBuffer sorted = orderByName ? this.byName : this.byCreateTime;
+      int step = descending ? -1 : 1;
+      int index;
+      if (descending)
+        index = (after == null ? this.sortedCount : search(sorted, after, orderByName, false)) - 1;
+      else
+        index = after == null ? 0 : search(sorted, after, orderByName, true);
+      List<ScriptMetadata> page = new ArrayList<>(Math.min(limit, 1024));
+      for (; index >= 0 && index < this.sortedCount && page.size() < limit; index += step) {
+        int record = sorted.get(index);
+        if (matches(record, status, nameFilter))
+          page.add(read(record));
+      }
+      return page;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Counts the scripts without reading all of them. Without a name filter the count is exact. With
+   * a name filter, only {@value #SAMPLE_SIZE} names evenly spread over the array sorted by name are
+   * checked, and the count is estimated from them, unless there are no more scripts than that
+   *
+   * @param status status filter, or null
+   * @param nameFilter name filter, or null
+   * @return number of the scripts that match the filters, estimated if there is a name filter
+   */
+  public int count(ScriptStatus status, Predicate<String> nameFilter) {
+    this.lock.readLock().lock();
+    try {
+      if (nameFilter == null)
+        return status != null ? this.statusCounts[status.ordinal()] : this.size;
+      int sampleSize = Math.min(this.sortedCount, SAMPLE_SIZE);
+      int matched = 0;
+      for (int i = 0; i < sampleSize; i++)
+        if (matches(this.byName.get((int) ((long) i * this.sortedCount / sampleSize)), status,
+            nameFilter))
+          matched++;
+      return sampleSize < SAMPLE_SIZE ? matched
+          : (int) ((long) matched * this.sortedCount / sampleSize);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Counts the scripts whose names start with the prefix. They are a range of the array sorted by
+   * name, which is found by a binary search, and the counts of its blocks give the number of them
+   * with the status. Only the records removed since the last rebuild are checked one by one
+   *
+   * @param status status filter, or null
+   * @param prefix beginning of the names
+   * @return number of the scripts that match the filters
+   */
+  public int countByPrefix(ScriptStatus status, String prefix) {
+    this.lock.readLock().lock();
+    try {
+      int from = search(this.byName, new ScriptCursor(null, prefix), true, false);
+      int to =
+          search(this.byName, new ScriptCursor(null, prefix + Character.MAX_VALUE), true, false);
+      int count = status == null ? to - from : rank(status, to) - rank(status, from);
+      for (int record = this.released.nextSetBit(0); record >= 0; record =
+          this.released.nextSetBit(record + 1))
+        if ((status == null || chunk(record).get(offset(record) + STATUS) == status.ordinal())
+            && readName(record).startsWith(prefix))
+          count--;
+      return count;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return number of scripts with each status
+   */
+  public Map<ScriptStatus, Integer> getCounts() {
+    this.lock.readLock().lock();
+    try {
+      Map<ScriptStatus, Integer> counts = new EnumMap<>(ScriptStatus.class);
+      for (ScriptStatus status : STATUSES)
+        counts.put(status, this.statusCounts[status.ordinal()]);
+      return counts;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return number of stored scripts
+   */
+  public int size() {
+    this.lock.readLock().lock();
+    try {
+      return this.size;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Closes and deletes the files of the store
+   */
+  @Override
+  public void close() {
+    this.lock.writeLock().lock();
+    try {
+      this.chunks.clear();
+      this.recordsChannel.close();
+      this.codeChannel.close();
+      Files.deleteIfExists(this.recordsPath);
+      Files.deleteIfExists(this.codePath);
+    } catch (IOException e) {
+      logger.warn("Failed to close the script metadata store {}", this.recordsPath, e);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return number of the records with the status before the index of the array sorted by name
+   */
+  private int rank(ScriptStatus status, int index) {
+    int block = index / RANK_BLOCK;
+    int rank = this.nameRanks.get(block * STATUSES.length + status.ordinal());
+    for (int i = block * RANK_BLOCK; i < index; i++)
+      if (this.byNameStatus.get(i) == status.ordinal())
+        rank++;
+    return rank;
+  }
+
+  private boolean matches(int record, ScriptStatus status, Predicate<String> nameFilter) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    return chunk.get(offset + STATE) == USED
+        && (status == null || chunk.get(offset + STATUS) == status.ordinal())
+        && (nameFilter == null || nameFilter.test(readName(record)));
+  }
+
+  /**
+   * @return a free record, or a new one at the end of the file
+   */
+  private int allocate() {
+    if (this.freeCount > 0)
+      return this.free[--this.freeCount];
+    if (this.recordCount == this.chunks.size() * CHUNK_RECORDS) {
+      long chunkBytes = (long) CHUNK_RECORDS * RECORD_SIZE;
+      try {
+        this.chunks.add(this.recordsChannel.map(FileChannel.MapMode.READ_WRITE,
+            this.chunks.size() * chunkBytes, chunkBytes));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to extend the script metadata store", e);
+      }
+    }
+    return this.recordCount++;
+  }
+
+  /**
+   * Marks the record as free and removes it from the hash table. It stays in the sorted arrays
+   * until they are rebuilt, so it is not reused before that
+   */
+  private void release(int record) {
+    unlink(record);
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    chunk.put(offset + STATE, FREE);
+    this.size--;
+    this.statusCounts[chunk.get(offset + STATUS)]--;
+    this.released.set(record);
+  }
+
+  private long[] writeCode(String hash, String code) {
+    long[] location = this.recentCodes.get(hash);
+    if (location != null)
+      return location;
+    ByteBuffer bytes = ByteBuffer.wrap(code.getBytes(StandardCharsets.UTF_8));
+    long position = this.codeEnd;
+    try {
+      while (bytes.hasRemaining())
+        this.codeChannel.write(bytes, position + bytes.position());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write the script code to " + this.codePath, e);
+    }
+    this.codeEnd = position + bytes.limit();
+    location = new long[] {position, bytes.limit()};
+    this.recentCodes.put(hash, location);
+    return location;
+  }
+
+  private void writeRecord(int record, ScriptMetadata metadata, byte[] name, long[] code) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    writeInstant(chunk, offset, CREATE_SECONDS, CREATE_NANOS, metadata.getCreateTime());
+    writeInstant(chunk, offset, START_SECONDS, START_NANOS, metadata.getStartTime());
+    writeInstant(chunk, offset, END_SECONDS, END_NANOS, metadata.getEndTime());
+    chunk.putLong(offset + CODE_POSITION, code[0]);
+    chunk.putInt(offset + CODE_LENGTH, (int) code[1]);
+    chunk.putInt(offset + EXECUTION_COUNT, metadata.getExecutionCount());
+    chunk.putInt(offset + LOGS_SIZE, metadata.getLogsSize());
+    chunk.putInt(offset + NEXT, 0);
+    chunk.put(offset + STATE, USED);
+    chunk.put(offset + STATUS, (byte) metadata.getStatus().ordinal());
+    chunk.put(offset + PRIORITY, (byte) metadata.getPriority());
+    chunk.put(offset + NAME_LENGTH, (byte) name.length);
+    putBytes(chunk, offset + CODE_HASH, decodeHex(metadata.getCodeHash()));
+    putBytes(chunk, offset + NAME, name);
+  }
+
+  private ScriptMetadata read(int record) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    byte[] hash = new byte[HASH_LENGTH];
+    getBytes(chunk, offset + CODE_HASH, hash);
+    return new ScriptMetadata(readName(record), STATUSES[chunk.get(offset + STATUS)],
+        readInstant(record, CREATE_SECONDS, CREATE_NANOS),
+        readInstant(record, START_SECONDS, START_NANOS),
+        readInstant(record, END_SECONDS, END_NANOS), chunk.get(offset + PRIORITY),
+        chunk.getInt(offset + EXECUTION_COUNT), chunk.getInt(offset + LOGS_SIZE), encodeHex(hash));
+  }
+
+  private String readName(int record) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    byte[] name = new byte[chunk.get(offset + NAME_LENGTH)];
+    getBytes(chunk, offset + NAME, name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  private Instant readInstant(int record, int secondsField, int nanosField) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    long seconds = chunk.getLong(offset + secondsField);
+    return seconds != NO_TIME ? Instant.ofEpochSecond(seconds, chunk.getInt(offset + nanosField))
+        : null;
+  }
+
+  private static void writeInstant(ByteBuffer chunk, int offset, int secondsField, int nanosField,
+      Instant instant) {
+    chunk.putLong(offset + secondsField, instant != null ? instant.getEpochSecond() : NO_TIME);
+    chunk.putInt(offset + nanosField, instant != null ? instant.getNano() : 0);
+  }
+
+  /**
+   * @return the record of the script with this name, or -1
+   */
+  private int find(byte[] name) {
+    int next = this.table.get(bucket(hash(name), this.table.capacity()));
+    while (next != 0) {
+      int record = next - 1;
+      if (nameEquals(record, name))
+        return record;
+      next = chunk(record).getInt(offset(record) + NEXT);
+    }
+    return -1;
+  }
+
+  private boolean nameEquals(int record, byte[] name) {
+    ByteBuffer chunk = chunk(record);
+    int offset = offset(record);
+    if (chunk.get(offset + NAME_LENGTH) != name.length)
+      return false;
+    for (int i = 0; i < name.length; i++)
+      if (chunk.get(offset + NAME + i) != name[i])
+        return false;
+    return true;
+  }
+
+  private void link(int record, byte[] name) {
+    int bucket = bucket(hash(name), this.table.capacity());
+    chunk(record).putInt(offset(record) + NEXT, this.table.get(bucket));
+    this.table.put(bucket, record + 1);
+  }
+
+  private void unlink(int record) {
+    byte[] name = readName(record).getBytes(StandardCharsets.UTF_8);
+    int bucket = bucket(hash(name), this.table.capacity());
+    int following = chunk(record).getInt(offset(record) + NEXT);
+    int next = this.table.get(bucket);
+    if (next == record + 1) {
+      this.table.put(bucket, following);
+      return;
+    }
+    while (next != 0) {
+      int previous = next - 1;
+      next = chunk(previous).getInt(offset(previous) + NEXT);
+      if (next == record + 1) {
+        chunk(previous).putInt(offset(previous) + NEXT, following);
+        return;
+      }
+    }
+  }
+
+  private void growTable() {
+    IntBuffer grown = allocateInts(this.table.capacity() * 2);
+    for (int record = 0; record < this.recordCount; record++) {
+      ByteBuffer chunk = chunk(record);
+      int offset = offset(record);
+      if (chunk.get(offset + STATE) != USED)
+        continue;
+      int bucket =
+          bucket(hash(readName(record).getBytes(StandardCharsets.UTF_8)), grown.capacity());
+      chunk.putInt(offset + NEXT, grown.get(bucket));
+      grown.put(bucket, record + 1);
+    }
+    this.table = grown;
+  }
+
+  /**
+   * Merges the added records into the sorted arrays, leaving out the removed ones, recounts the
+   * statuses of the blocks and makes the removed records free
+   */
+  private void rebuildSortedArrays(int[] added, int addedCount) {
+    int capacity = this.sortedCount + addedCount;
+    if (this.spareByName.capacity() < capacity) {
+      this.spareByName = allocateInts(capacity + capacity / 2);
+      this.spareByCreateTime = allocateInts(capacity + capacity / 2);
+      this.spareByNameStatus = ByteBuffer.allocateDirect(capacity + capacity / 2);
+    }
+    int merged = merge(this.byName, this.byNameStatus, this.spareByName, this.spareByNameStatus,
+        added, addedCount, true);
+    merge(this.byCreateTime, null, this.spareByCreateTime, null, added, addedCount, false);
+    IntBuffer previous = this.byName;
+    this.byName = this.spareByName;
+    this.spareByName = previous;
+    previous = this.byCreateTime;
+    this.byCreateTime = this.spareByCreateTime;
+    this.spareByCreateTime = previous;
+    ByteBuffer previousStatuses = this.byNameStatus;
+    this.byNameStatus = this.spareByNameStatus;
+    this.spareByNameStatus = previousStatuses;
+    this.sortedCount = merged;
+    rebuildRanks();
+    for (int record = this.released.nextSetBit(0); record >= 0; record =
+        this.released.nextSetBit(record + 1)) {
+      if (this.freeCount == this.free.length)
+        this.free = Arrays.copyOf(this.free, this.freeCount * 2);
+      this.free[this.freeCount++] = record;
+    }
+    this.released.clear();
+  }
+
+  /**
+   * Counts the statuses of the array sorted by name, block by block. The statuses are read from
+   * their own array, not from the records
+   */
+  private void rebuildRanks() {
+    int blocks = this.sortedCount / RANK_BLOCK + 1;
+    if (this.nameRanks.capacity() < blocks * STATUSES.length)
+      this.nameRanks = allocateInts((blocks + blocks / 2) * STATUSES.length);
+    int[] counts = new int[STATUSES.length];
+    for (int block = 0; block < blocks; block++) {
+      for (int status = 0; status < STATUSES.length; status++)
+        this.nameRanks.put(block * STATUSES.length + status, counts[status]);
+      int end = Math.min((block + 1) * RANK_BLOCK, this.sortedCount);
+      for (int index = block * RANK_BLOCK; index < end; index++)
+        counts[this.byNameStatus.get(index)]++;
+    }
+  }
+
+  /**
+   * The added records are sorted, and the place of each of them in the current array is found by a
+   * binary search, so the records of the array are only copied, not compared. The ranges between
+   * these places are copied at once, unless some records have been removed
+   *
+   * @param currentStatuses statuses of the records of the current array, or null if it has none
+   * @param targetStatuses statuses of the records of the new array, or null
+   * @return number of records in the new array
+   */
+  private int merge(IntBuffer current, ByteBuffer currentStatuses, IntBuffer target,
+      ByteBuffer targetStatuses, int[] added, int addedCount, boolean byName) {
+    Comparator<ScriptCursor> order = byName ? ScriptCursor.BY_NAME : ScriptCursor.BY_CREATE_TIME;
+    ScriptCursor[] cursors = new ScriptCursor[addedCount];
+    Integer[] sorted = new Integer[addedCount];
+    for (int i = 0; i < addedCount; i++) {
+      cursors[i] = cursor(added[i]);
+      sorted[i] = i;
+    }
+    Arrays.sort(sorted, (a, b) -> order.compare(cursors[a], cursors[b]));
+    int[] places = new int[addedCount];
+    for (int i = 0; i < addedCount; i++)
+      places[i] = search(current, cursors[sorted[i]], byName, true);
+    int count = 0;
+    int from = 0;
+    for (int next = 0; next <= addedCount; next++) {
+      int to = next < addedCount ? places[next] : this.sortedCount;
+      count = copy(current, currentStatuses, from, to, target, targetStatuses, count);
+      from = to;
+      if (next < addedCount) {
+        int record = added[sorted[next]];
+        if (targetStatuses != null)
+          targetStatuses.put(count, chunk(record).get(offset(record) + STATUS));
+        target.put(count++, record);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Copies the records of the range of the current array that have not been removed, with their
+   * statuses if the array has them
+   *
+   * @return position in the target array after the copied records
+   */
+  private int copy(IntBuffer current, ByteBuffer currentStatuses, int from, int to,
+      IntBuffer target, ByteBuffer targetStatuses, int position) {
+    if (!this.released.isEmpty()) {
+      int count = position;
+      for (int index = from; index < to; index++) {
+        int record = current.get(index);
+        if (this.released.get(record))
+          continue;
+        if (targetStatuses != null)
+          targetStatuses.put(count, currentStatuses.get(index));
+        target.put(count++, record);
+      }
+      return count;
+    }
+    IntBuffer range = current.duplicate();
+    range.limit(to);
+    range.position(from);
+    IntBuffer destination = target.duplicate();
+    destination.position(position);
+    destination.put(range);
+    if (targetStatuses != null) {
+      ByteBuffer statusRange = currentStatuses.duplicate();
+      statusRange.limit(to);
+      statusRange.position(from);
+      ByteBuffer statusDestination = targetStatuses.duplicate();
+      statusDestination.position(position);
+      statusDestination.put(statusRange);
+    }
+    return position + to - from;
+  }
+
+  /**
+   * Binary search of the sorted array. The removed records that are still in the array keep their
+   * fields, so the array stays sorted
+   *
+   * @param after if true, the index of the first record after the cursor, otherwise the index of
+   *        the first record at or after the cursor
+   */
+  private int search(IntBuffer sorted, ScriptCursor cursor, boolean byName, boolean after) {
+    int low = 0;
+    int high = this.sortedCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compare(sorted.get(middle), cursor, byName);
+      if (comparison < 0 || (after && comparison == 0))
+        low = middle + 1;
+      else
+        high = middle;
+    }
+    return low;
+  }
+
+  /**
+   * Compares the record with the cursor in the same order as {@link ScriptCursor#BY_NAME} or
+   * {@link ScriptCursor#BY_CREATE_TIME}. The times are compared without reading the name
+   */
+  private int compare(int record, ScriptCursor cursor, boolean byName) {
+    if (!byName) {
+      ByteBuffer chunk = chunk(record);
+      int offset = offset(record);
+      Instant createTime = cursor.getCreateTime();
+      int comparison =
+          Long.compare(chunk.getLong(offset + CREATE_SECONDS), createTime.getEpochSecond());
+      if (comparison == 0)
+        comparison = Integer.compare(chunk.getInt(offset + CREATE_NANOS), createTime.getNano());
+      if (comparison != 0)
+        return comparison;
+    }
+    return readName(record).compareTo(cursor.getName());
+  }
+
+  private ScriptCursor cursor(int record) {
+    return new ScriptCursor(readInstant(record, CREATE_SECONDS, CREATE_NANOS), readName(record));
+  }
+
+  private ByteBuffer chunk(int record) {
+    return this.chunks.get(record >>> CHUNK_SHIFT);
+  }
+
+  private static int offset(int record) {
+    return (record & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+  }
+
+  private static int hash(byte[] name) {
+    int hash = 0;
+    for (byte b : name)
+      hash = 31 * hash + b;
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int bucket(int hash, int tableSize) {
+    return hash & (tableSize - 1);
+  }
+
+  /**
+   * Absolute bulk reads and writes of a buffer are not available in Java 11, and the positions of
+   * the shared chunks must not be changed, so the bytes are copied one by one
+   */
+  private static void getBytes(ByteBuffer chunk, int index, byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++)
+      bytes[i] = chunk.get(index + i);
+  }
+
+  private static void putBytes(ByteBuffer chunk, int index, byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++)
+      chunk.put(index + i, bytes[i]);
+  }
+
+  private static IntBuffer allocateInts(int size) {
+    return ByteBuffer.allocateDirect(size * Integer.BYTES).asIntBuffer();
+  }
+
+  private static byte[] decodeHex(String hex) {
+    byte[] bytes = new byte[HASH_LENGTH];
+    for (int i = 0; i < bytes.length && i * 2 + 1 < hex.length(); i++)
+      bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+    return bytes;
+  }
+
+  private static String encodeHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes)
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    return hex.toString();
+  }
+
+}
@@ -0,0 +1,246 @@
+package com.project.graalrestservice.domain.script.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded priority queue for the executor of scripts. Tasks that implement {@link Prioritized} are
+ * ordered by priority with aging: each task gets the key {@code enqueueTime - priority * aging},
+ * and the task with the smallest key is taken first. So a task with a higher priority overtakes the
+ * tasks with a lower priority only if they have been waiting less than {@code aging} per level of
+ * difference, and low-priority tasks are not starved. Tasks with equal keys are taken in FIFO
+ * order.
+ * <p>
+ * The queue wraps the tasks into its own {@link Entry entries}, which are {@link Runnable} and run
+ * the original task, so it can be used as the work queue of a
+ * {@link java.util.concurrent.ThreadPoolExecutor}.
+ */
+public class ScriptPriorityQueue extends AbstractQueue<Runnable>
+    implements BlockingQueue<Runnable> {
+
+  private static final int DEFAULT_PRIORITY = 0;
+  private static final Comparator<Entry> ORDER =
+      Comparator.comparingLong((Entry e) -> e.key).thenComparingLong(e -> e.sequence);
+  private final PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>(11, ORDER);
+  /**
+   * Lock for the operations that add elements, so the capacity cannot be exceeded
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = this.lock.newCondition();
+  private final AtomicLong sequence = new AtomicLong();
+  private final int capacity;
+  private final long agingNanos;
+
+  /**
+   * Basic constructor
+   *
+   * @param capacity maximum number of tasks in the queue
+   * @param agingMillis waiting time that is worth one level of priority
+   */
+  public ScriptPriorityQueue(int capacity, long agingMillis) {
+    this.capacity = capacity;
+    this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+  }
+
+  /**
+   * Returns the position of the task in the queue
+   *
+   * @param task the task added to the queue
+   * @return position of the task, starting from 1, or 0 if the task is not in the queue
+   */
+  public int getPosition(Runnable task) {
+    Entry target = null;
+    for (Entry entry : this.queue) {
+      if (entry.task == task) {
+        target = entry;
+        break;
+      }
+    }
+    if (target == null)
+      return 0;
+    int position = 1;
+    for (Entry entry : this.queue) {
+      if (ORDER.compare(entry, target) < 0)
+        position++;
+    }
+    return position;
+  }
+
+  @Override
+  public boolean offer(Runnable task) {
+    this.lock.lock();
+    try {
+      if (this.queue.size() >= this.capacity)
+        return false;
+      this.queue.offer(createEntry(task));
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    this.lock.lockInterruptibly();
+    try {
+      while (this.queue.size() >= this.capacity) {
+        if (nanos <= 0)
+          return false;
+        nanos = this.notFull.awaitNanos(nanos);
+      }
+      this.queue.offer(createEntry(task));
+      return true;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(Runnable task) throws InterruptedException {
+    this.lock.lockInterruptibly();
+    try {
+      while (this.queue.size() >= this.capacity)
+        this.notFull.await();
+      this.queue.offer(createEntry(task));
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public Runnable take() throws InterruptedException {
+    return signalNotFull(this.queue.take());
+  }
+
+  @Override
+  public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+    return signalNotFull(this.queue.poll(timeout, unit));
+  }
+
+  @Override
+  public Runnable poll() {
+    return signalNotFull(this.queue.poll());
+  }
+
+  @Override
+  public Runnable peek() {
+    return this.queue.peek();
+  }
+
+  /**
+   * Removes the entry of the task (or the entry itself) from the queue
+   */
+  @Override
+  public boolean remove(Object o) {
+    for (Entry entry : this.queue) {
+      if ((entry == o || entry.task == o) && this.queue.remove(entry)) {
+        signalNotFull(entry);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int size() {
+    return this.queue.size();
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return Math.max(0, this.capacity - this.queue.size());
+  }
+
+  @Override
+  public int drainTo(Collection<? super Runnable> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super Runnable> c, int maxElements) {
+    int drained = this.queue.drainTo(c, maxElements);
+    if (drained > 0) {
+      this.lock.lock();
+      try {
+        this.notFull.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+    return drained;
+  }
+
+  @Override
+  public Iterator<Runnable> iterator() {
+    Iterator<Entry> iterator = this.queue.iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Runnable next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void remove() {
+        iterator.remove();
+      }
+    };
+  }
+
+  private Entry createEntry(Runnable task) {
+    if (task == null)
+      throw new NullPointerException();
+    int priority =
+        task instanceof Prioritized ? ((Prioritized) task).getPriority() : DEFAULT_PRIORITY;
+    long key = System.nanoTime() - priority * this.agingNanos;
+    return new Entry(task, key, this.sequence.getAndIncrement());
+  }
+
+  private Runnable signalNotFull(Entry entry) {
+    if (entry != null) {
+      this.lock.lock();
+      try {
+        this.notFull.signal();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Element of the queue. Runs the original task
+   */
+  private static final class Entry implements Runnable {
+
+    private final Runnable task;
+    private final long key;
+    private final long sequence;
+
+    private Entry(Runnable task, long key, long sequence) {
+      this.task = task;
+      this.key = key;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public void run() {
+      this.task.run();
+    }
+
+  }
+
+}
@@ -0,0 +1,41 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * {@link TaskExecutor} which runs scripts and can tell the state of its queue and its load
+ */
+public interface ScriptTaskExecutor extends TaskExecutor {
+
+  /**
+   * Returns the position of the task in the execution queue
+   *
+   * @param task a task passed to {@link #execute(Runnable)}
+   * @return position in the queue, starting from 1, or 0 if the task is not in the queue (or the
+   *         executor does not keep an ordered queue)
+   */
+  int getQueuePosition(Runnable task);
+
+  /**
+   * Returns the maximum number of tasks that the executor accepts at the same time (running and
+   * waiting). Above it, {@link #execute(Runnable)} rejects new tasks
+   *
+   * @return capacity of the executor
+   */
+  int getCapacity();
+
+  /**
+   * Returns the number of tasks currently running or waiting in the executor
+   *
+   * @return load of the executor
+   */
+  int getLoad();
+
+  /**
+   * Returns the number of tasks that the executor has completed
+   *
+   * @return completed task count
+   */
+  long getCompletedTaskCount();
+
+}
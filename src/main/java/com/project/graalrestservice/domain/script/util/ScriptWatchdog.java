@@ -0,0 +1,148 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Enforces the wall time and CPU time limits of running scripts. All {@link Watch watches} are
+ * checked by a single background thread at a fixed interval, so there is no timer thread per
+ * script. When a limit is exceeded, the watch is removed and its callback is called (on the
+ * watchdog thread) with the description of the exceeded limit.
+ * <p>
+ * CPU time is measured with {@link ThreadMXBean#getThreadCpuTime(long)} for the thread that started
+ * the watch. If the JVM cannot measure the CPU time of the thread (for example, a virtual thread),
+ * only the wall time limit is enforced.
+ */
+public class ScriptWatchdog implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScriptWatchdog.class);
+  private final ScheduledExecutorService scheduler;
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Basic constructor. Starts the background thread
+   *
+   * @param checkIntervalMillis interval between the checks of the limits
+   */
+  public ScriptWatchdog(long checkIntervalMillis) {
+    if (this.threadMXBean.isThreadCpuTimeSupported() && !this.threadMXBean.isThreadCpuTimeEnabled())
+      this.threadMXBean.setThreadCpuTimeEnabled(true);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "script-watchdog");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Starts watching the current thread. The watch must be {@link Watch#close() closed} when the
+   * work is done
+   *
+   * @param maxWallTimeMillis maximum time from now, 0 if unlimited
+   * @param maxCpuTimeMillis maximum CPU time of the current thread from now, 0 if unlimited
+   * @param onLimitExceeded callback, which receives the description of the exceeded limit
+   * @return Watch
+   */
+  public Watch watch(long maxWallTimeMillis, long maxCpuTimeMillis,
+      Consumer<String> onLimitExceeded) {
+    Watch watch = new Watch(maxWallTimeMillis, maxCpuTimeMillis, onLimitExceeded);
+    if (maxWallTimeMillis > 0 || watch.maxCpuTimeNanos > 0)
+      this.watches.add(watch);
+    return watch;
+  }
+
+  public int getWatchCount() {
+    return this.watches.size();
+  }
+
+  /**
+   * Stops the background thread
+   */
+  @Override
+  public void close() {
+    this.scheduler.shutdownNow();
+  }
+
+  /**
+   * Periodic task of the background thread
+   */
+  private void check() {
+    long now = System.nanoTime();
+    for (Watch watch : this.watches) {
+      String exceededLimit = watch.getExceededLimit(now);
+      if (exceededLimit != null && this.watches.remove(watch)) {
+        try {
+          watch.onLimitExceeded.accept(exceededLimit);
+        } catch (RuntimeException e) {
+          logger.warn("Failed to terminate the execution ({})", exceededLimit, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Limits of one execution, measured from the moment the watch was created
+   */
+  public class Watch implements AutoCloseable {
+
+    private final long threadId;
+    private final long startTime;
+    private final long startCpuTime;
+    private final long maxWallTimeMillis;
+    private final long maxCpuTimeMillis;
+    private final long maxWallTimeNanos;
+    private final long maxCpuTimeNanos;
+    private final Consumer<String> onLimitExceeded;
+
+    private Watch(long maxWallTimeMillis, long maxCpuTimeMillis, Consumer<String> onLimitExceeded) {
+      this.threadId = Thread.currentThread().getId();
+      this.startTime = System.nanoTime();
+      this.startCpuTime = cpuTime(this.threadId);
+      this.maxWallTimeMillis = maxWallTimeMillis;
+      this.maxCpuTimeMillis = maxCpuTimeMillis;
+      this.maxWallTimeNanos = TimeUnit.MILLISECONDS.toNanos(maxWallTimeMillis);
+      this.maxCpuTimeNanos =
+          this.startCpuTime >= 0 ? TimeUnit.MILLISECONDS.toNanos(maxCpuTimeMillis) : 0;
+      this.onLimitExceeded = onLimitExceeded;
+    }
+
+    /**
+     * Stops watching
+     */
+    @Override
+    public void close() {
+      ScriptWatchdog.this.watches.remove(this);
+    }
+
+    private String getExceededLimit(long now) {
+      if (this.maxWallTimeNanos > 0 && now - this.startTime > this.maxWallTimeNanos)
+        return String.format("wall time limit of %d ms exceeded", this.maxWallTimeMillis);
+      if (this.maxCpuTimeNanos > 0) {
+        long cpuTime = cpuTime(this.threadId);
+        if (cpuTime >= 0 && cpuTime - this.startCpuTime > this.maxCpuTimeNanos)
+          return String.format("CPU time limit of %d ms exceeded", this.maxCpuTimeMillis);
+      }
+      return null;
+    }
+
+    private long cpuTime(long threadId) {
+      return ScriptWatchdog.this.threadMXBean.isThreadCpuTimeSupported()
+          ? ScriptWatchdog.this.threadMXBean.getThreadCpuTime(threadId)
+          : -1;
+    }
+
+  }
+
+}
@@ -0,0 +1,164 @@
+package com.project.graalrestservice.domain.script.util;
+
+import com.project.graalrestservice.domain.script.exception.WrongScriptException;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the JS {@link Source sources} that have already been parsed by the shared
+ * {@link Engine}. Sources are keyed by the SHA-256 hash of their content and named after it, so the
+ * same script body submitted under different script names resolves to the same {@link Source}
+ * object, and the engine reuses its parsed (and, on GraalVM, compiled) code instead of parsing it
+ * again.
+ * <p>
+ * The cache can also contain sources that have not been parsed yet (see
+ * {@link #getSource(String)}), so each entry remembers whether its source has been validated.
+ */
+public class SourceCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(SourceCache.class);
+  private static final String LANGUAGE = "js";
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private final ContextPool contextPool;
+  /**
+   * LRU map (access order) with hash of the script code as key. If the capacity is exceeded, the
+   * least recently used source is removed
+   */
+  private final Map<String, CachedSource> cache;
+
+  /**
+   * Basic constructor
+   *
+   * @param contextPool pool of contexts built from the shared engine, in which sources are parsed
+   * @param capacity maximum number of sources stored in the cache
+   */
+  public SourceCache(ContextPool contextPool, int capacity) {
+    this.contextPool = contextPool;
+    this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedSource> eldest) {
+        return size() > capacity;
+      }
+    });
+  }
+
+  /**
+   * Returns the parsed {@link Source} for the script code. If the code has not been seen before (or
+   * has already been evicted, or has been cached without parsing), it is parsed in a
+   * {@link ContextPool pooled context} (parsing does not change the context, so it goes back to the
+   * pool) and added to the cache. Parsing happens outside the cache lock, so two threads may parse
+   * the same new code at the same time, but only one {@link Source} instance is kept.
+   *
+   * @param scriptCode JS body
+   * @return parsed and cached {@link Source}
+   * @throws WrongScriptException if the script failed to parse
+   */
+  public Source getValidatedSource(String scriptCode) {
+    String hash = hash(scriptCode);
+    CachedSource cachedSource = this.cache.get(hash);
+    if (cachedSource != null && cachedSource.validated) {
+      logger.trace("[{}] - Source cache hit", MDC.get("scriptName"));
+      return cachedSource.source;
+    }
+    Source source = cachedSource != null ? cachedSource.source : buildSource(hash, scriptCode);
+    PooledContext pooledContext = this.contextPool.borrow(null);
+    try {
+      pooledContext.parse(source);
+    } catch (PolyglotException e) {
+      logger.debug("[{}] - Failed to parse the script", MDC.get("scriptName"));
+      throw new WrongScriptException(e.getMessage());
+    } finally {
+      this.contextPool.release(pooledContext);
+    }
+    CachedSource stored =
+        this.cache.merge(hash, new CachedSource(source, true), (previous, current) -> {
+          previous.validated = true;
+          return previous;
+        });
+    logger.trace("[{}] - Source cache miss, the script was parsed", MDC.get("scriptName"));
+    return stored.source;
+  }
+
+  /**
+   * Returns the {@link Source} for the script code without parsing it. If the code has not been
+   * seen before, a new source is created and added to the cache, so the parsing that will happen
+   * when it is run is shared with the following scripts with the same code. Such a source may
+   * contain syntax errors.
+   *
+   * @param scriptCode JS body
+   * @return cached {@link Source}, which may not have been parsed yet
+   */
+  public Source getSource(String scriptCode) {
+    String hash = hash(scriptCode);
+    CachedSource cachedSource = this.cache.get(hash);
+    if (cachedSource != null)
+      return cachedSource.source;
+    Source source = buildSource(hash, scriptCode);
+    CachedSource previous = this.cache.putIfAbsent(hash, new CachedSource(source, false));
+    return previous == null ? source : previous.source;
+  }
+
+  public int size() {
+    return this.cache.size();
+  }
+
+  /**
+   * Creates a {@link Source} for the code. The name of the source depends only on the content, so
+   * equal code always produces equal sources
+   */
+  private static Source buildSource(String hash, String scriptCode) {
+    return Source.newBuilder(LANGUAGE, scriptCode, hash.substring(0, 16) + ".js").cached(true)
+        .buildLiteral();
+  }
+
+  /**
+   * Entry of the cache
+   */
+  private static class CachedSource {
+
+    private final Source source;
+    /**
+     * True if the source has been parsed successfully
+     */
+    private volatile boolean validated;
+
+    private CachedSource(Source source, boolean validated) {
+      this.source = source;
+      this.validated = validated;
+    }
+
+  }
+
+  /**
+   * Calculates SHA-256 hash of the script code
+   *
+   * @param scriptCode JS body
+   * @return hex string of the hash
+   */
+  public static String hash(String scriptCode) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(scriptCode.getBytes(StandardCharsets.UTF_8));
+      char[] hex = new char[digest.length * 2];
+      for (int i = 0; i < digest.length; i++) {
+        hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+        hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+      }
+      return new String(hex);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.project.graalrestservice.domain.script.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Substring index of names. Each value is stored under every trigram (three consecutive characters)
+ * of its name, so a name that contains a pattern of three or more characters is in the set of every
+ * trigram of the pattern. The smallest of these sets is a short list of candidates, which the
+ * caller checks with {@link String#contains(CharSequence)} instead of checking every name.
+ * <p>
+ * A set of a trigram is only changed within {@link ConcurrentHashMap#compute} of its entry, so an
+ * empty set can be removed without losing a value added at the same time. Values are compared by
+ * equality, so the same name of a removed value and a new one does not remove the new value.
+ *
+ * @param <T> type of the indexed values
+ */
+public class TrigramIndex<T> {
+
+  private static final int GRAM_LENGTH = 3;
+  private final ConcurrentHashMap<String, Set<T>> postings = new ConcurrentHashMap<>();
+
+  /**
+   * @param name name of the value
+   * @param value value to add
+   */
+  public void add(String name, T value) {
+    for (String gram : grams(name))
+      this.postings.compute(gram, (g, values) -> {
+        Set<T> set = values != null ? values : ConcurrentHashMap.newKeySet();
+        set.add(value);
+        return set;
+      });
+  }
+
+  /**
+   * @param name name under which the value was {@link #add(String, Object) added}
+   * @param value value to remove
+   */
+  public void remove(String name, T value) {
+    for (String gram : grams(name))
+      this.postings.computeIfPresent(gram, (g, values) -> {
+        values.remove(value);
+        return values.isEmpty() ? null : values;
+      });
+  }
+
+  /**
+   * @param pattern substring that the names must contain
+   * @return unmodifiable view of the values whose names may contain the pattern (all of them
+   *         contain its rarest trigram), or null if the pattern is too short for the index and all
+   *         names have to be checked
+   */
+  public Set<T> candidates(String pattern) {
+    if (pattern.length() < GRAM_LENGTH)
+      return null; // NOSONAR
+    Set<T> smallest = null;
+    for (String gram : grams(pattern)) {
+      Set<T> values = this.postings.get(gram);
+      if (values == null)
+        return Collections.emptySet();
+      if (smallest == null || values.size() < smallest.size())
+        smallest = values;
+    }
+    return Collections.unmodifiableSet(smallest);
+  }
+
+  private static Set<String> grams(String name) {
+    Set<String> grams = new HashSet<>();
+    for (int i = 0; i + GRAM_LENGTH <= name.length(); i++)
+      grams.add(name.substring(i, i + GRAM_LENGTH));
+    return grams;
+  }
+
+}
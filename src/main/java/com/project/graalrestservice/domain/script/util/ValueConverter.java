@@ -0,0 +1,87 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.graalvm.polyglot.Value;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts polyglot {@link Value values} to plain Java objects, which can be serialized to JSON:
+ * null and undefined to null, booleans, numbers (long if the number is integral, double otherwise)
+ * and strings as they are, arrays to {@link List lists}, objects to {@link Map maps} of their
+ * members, dates to ISO-8601 strings. A reference to an object that is being converted (a cycle) is
+ * replaced with {@link #CIRCULAR}. Functions, host objects and values nested deeper than
+ * {@link #MAX_DEPTH} are converted to their string representation.
+ * <p>
+ * A value is valid only while its context is open, so it must be converted before the context is
+ * released.
+ */
+public final class ValueConverter {
+
+  private static final int MAX_DEPTH = 32;
+  private static final String CIRCULAR = "[Circular]";
+
+  private ValueConverter() {}
+
+  /**
+   * Converts the value to a Java object
+   *
+   * @param value polyglot value
+   * @return null, Boolean, Long, Double, String, List or Map
+   */
+  public static Object toJava(Value value) {
+    return convert(value, new ArrayDeque<>());
+  }
+
+  /**
+   * @param ancestors the arrays and objects that contain the value, from the nearest one
+   */
+  private static Object convert(Value value, Deque<Value> ancestors) {
+    if (value == null || value.isNull())
+      return null;
+    if (value.isBoolean())
+      return value.asBoolean();
+    if (value.isNumber())
+      return convertNumber(value);
+    if (value.isString())
+      return value.asString();
+    if (value.isInstant())
+      return value.asInstant().toString();
+    if (ancestors.size() >= MAX_DEPTH || value.canExecute() || value.isHostObject())
+      return value.toString();
+    if (!value.hasArrayElements() && !value.hasMembers())
+      return value.toString();
+    if (ancestors.contains(value))
+      return CIRCULAR;
+    ancestors.push(value);
+    try {
+      if (value.hasArrayElements()) {
+        List<Object> list = new ArrayList<>((int) Math.min(value.getArraySize(), 1024));
+        for (long i = 0; i < value.getArraySize(); i++)
+          list.add(convert(value.getArrayElement(i), ancestors));
+        return list;
+      }
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (String key : value.getMemberKeys())
+        map.put(key, convert(value.getMember(key), ancestors));
+      return map;
+    } finally {
+      ancestors.pop();
+    }
+  }
+
+  /**
+   * NaN and infinities cannot be represented in JSON, so they are converted to strings
+   */
+  private static Object convertNumber(Value value) {
+    if (value.fitsInLong())
+      return value.asLong();
+    double number = value.asDouble();
+    return Double.isFinite(number) ? number : Double.toString(number);
+  }
+
+}
@@ -0,0 +1,141 @@
+package com.project.graalrestservice.domain.script.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TaskExecutor} which runs each task on a new virtual thread. A script waiting for I/O does
+ * not hold an OS thread, so the number of started scripts is not limited by the size of a thread
+ * pool. CPU-bound work is still limited: a task waits for a permit of {@link #evaluationPermits}
+ * before it starts and releases it when it finishes. The number of tasks waiting for a permit is
+ * limited by the queue capacity, above which new tasks are rejected.
+ * <p>
+ * The project is compiled for Java 11, so the virtual thread API (JDK 21+) is accessed through
+ * reflection. On an older JDK the executor cannot be created.
+ */
+public class VirtualThreadTaskExecutor implements ScriptTaskExecutor, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadTaskExecutor.class);
+  private final ExecutorService executor;
+  private final Semaphore evaluationPermits;
+  private final int capacity;
+  private final AtomicInteger load = new AtomicInteger();
+  private final AtomicLong completedTaskCount = new AtomicLong();
+
+  /**
+   * Basic constructor
+   *
+   * @param executor executor that starts a thread for each task, usually
+   *        {@link #virtualThreadPerTaskExecutor(String)}. It is shut down with this executor
+   * @param maxConcurrentEvaluations maximum number of tasks running at the same time
+   * @param queueCapacity maximum number of tasks waiting for a permit
+   */
+  public VirtualThreadTaskExecutor(ExecutorService executor, int maxConcurrentEvaluations,
+      int queueCapacity) {
+    this.executor = executor;
+    this.evaluationPermits = new Semaphore(maxConcurrentEvaluations, true);
+    this.capacity = maxConcurrentEvaluations + queueCapacity;
+    logger.info("Virtual thread executor created (maxConcurrentEvaluations={}, queueCapacity={})",
+        maxConcurrentEvaluations, queueCapacity);
+  }
+
+  /**
+   * Starts the task on a new virtual thread. The thread waits for an evaluation permit before
+   * running the task
+   *
+   * @param task the task to run
+   * @throws TaskRejectedException if the capacity of the executor is exhausted
+   */
+  @Override
+  public void execute(Runnable task) {
+    if (this.load.incrementAndGet() > this.capacity) {
+      this.load.decrementAndGet();
+      throw new TaskRejectedException("Virtual thread executor capacity exhausted");
+    }
+    this.executor.execute(() -> {
+      this.evaluationPermits.acquireUninterruptibly();
+      try {
+        task.run();
+      } finally {
+        this.evaluationPermits.release();
+        this.load.decrementAndGet();
+        this.completedTaskCount.incrementAndGet();
+      }
+    });
+  }
+
+  /**
+   * Tasks waiting for an evaluation permit are not ordered, so there are no queue positions
+   *
+   * @return always 0
+   */
+  @Override
+  public int getQueuePosition(Runnable task) {
+    return 0;
+  }
+
+  @Override
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  @Override
+  public int getLoad() {
+    return this.load.get();
+  }
+
+  @Override
+  public long getCompletedTaskCount() {
+    return this.completedTaskCount.get();
+  }
+
+  public int getAvailablePermits() {
+    return this.evaluationPermits.availablePermits();
+  }
+
+  public int getQueueLength() {
+    return this.evaluationPermits.getQueueLength();
+  }
+
+  @Override
+  public void destroy() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each task
+   * ({@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())})
+   *
+   * @param threadNamePrefix prefix for the name of new threads
+   * @return ExecutorService
+   * @throws IllegalStateException if virtual threads are not supported by the JDK
+   */
+  public static ExecutorService virtualThreadPerTaskExecutor(String threadNamePrefix) {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder,
+          threadNamePrefix, 0L);
+      ThreadFactory threadFactory =
+          (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class
+          .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, threadFactory);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+        | InvocationTargetException e) {
+      throw new IllegalStateException("Virtual threads are not supported by this JDK ("
+          + System.getProperty("java.version") + "). JDK 21 or higher is required", e);
+    }
+  }
+
+}
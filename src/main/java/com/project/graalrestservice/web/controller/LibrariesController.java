@@ -0,0 +1,121 @@
+package com.project.graalrestservice.web.controller;
+
+import com.project.graalrestservice.domain.script.model.ScriptLibrary;
+import com.project.graalrestservice.domain.script.service.LibraryService;
+import com.project.graalrestservice.web.dto.LibraryInfo;
+import com.project.graalrestservice.web.mapping.LibraryMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** LibrariesController class responsible for "/libraries" */
+@RestController
+@RequestMapping("/libraries")
+public class LibrariesController {
+
+  private static final Logger logger = LoggerFactory.getLogger(LibrariesController.class);
+  private static final String LIBRARY_REQUEST_PROCESSED = "[{}] - Request successfully processed";
+  private static final String MDC_NAME_IDENTIFIER = "scriptName";
+  private final LibraryService libraryService;
+
+  /**
+   * Basic constructor
+   */
+  @Autowired
+  public LibrariesController(LibraryService libraryService) {
+    this.libraryService = libraryService;
+  }
+
+  /**
+   * Method for uploading a library: JS code shared by scripts, which they load by listing its name
+   * in the {@code libraries} parameter. The code is parsed once, here, and the parsed code is
+   * reused by every script that loads the library. A library with the same name is replaced
+   *
+   * @param code JS code of the library
+   * @param libraryName library name (identifier)
+   * @return LibraryInfo with information about the library
+   */
+  @PutMapping(value = "/{libraryName}")
+  public ResponseEntity<LibraryInfo> putLibrary(@RequestBody String code,
+      @PathVariable String libraryName) {
+    logger.debug("[{}] - Library upload request received", libraryName);
+    MDC.put(MDC_NAME_IDENTIFIER, libraryName);
+    LibraryInfo libraryInfo = toInfo(libraryService.putLibrary(libraryName, code));
+    logger.debug(LIBRARY_REQUEST_PROCESSED, libraryName);
+    return new ResponseEntity<>(libraryInfo, HttpStatus.CREATED);
+  }
+
+  /**
+   * A method for obtaining information about all the libraries, sorted by name
+   *
+   * @return List of LibraryInfo
+   */
+  @GetMapping
+  public ResponseEntity<List<LibraryInfo>> getLibraryList() {
+    logger.debug("Library list request received");
+    List<LibraryInfo> libraryInfoList =
+        libraryService.getLibraries().stream().sorted(Comparator.comparing(ScriptLibrary::getName))
+            .map(LibrariesController::toInfo).collect(Collectors.toList());
+    logger.debug("Library list request successfully processed");
+    return new ResponseEntity<>(libraryInfoList, HttpStatus.OK);
+  }
+
+  /**
+   * A method for obtaining information about the library
+   *
+   * @param libraryName library name (identifier)
+   * @return LibraryInfo JSON information about the library
+   */
+  @GetMapping(value = "/{libraryName}")
+  public ResponseEntity<LibraryInfo> getLibraryInfo(@PathVariable String libraryName) {
+    logger.debug("[{}] - Library info request received", libraryName);
+    MDC.put(MDC_NAME_IDENTIFIER, libraryName);
+    LibraryInfo libraryInfo = toInfo(libraryService.getLibrary(libraryName));
+    logger.debug(LIBRARY_REQUEST_PROCESSED, libraryName);
+    return new ResponseEntity<>(libraryInfo, HttpStatus.OK);
+  }
+
+  /**
+   * A method for viewing the code of the library
+   *
+   * @param libraryName library name (identifier)
+   * @return String with JS code
+   */
+  @GetMapping(value = "/{libraryName}/code")
+  public ResponseEntity<String> getLibraryCode(@PathVariable String libraryName) {
+    logger.debug("[{}] - Library code request received", libraryName);
+    MDC.put(MDC_NAME_IDENTIFIER, libraryName);
+    String code = libraryService.getLibrary(libraryName).getCode();
+    logger.debug(LIBRARY_REQUEST_PROCESSED, libraryName);
+    return new ResponseEntity<>(code, HttpStatus.OK);
+  }
+
+  /**
+   * This method is needed to remove the library. The scripts that have already been added keep
+   * using it, but new ones cannot load it
+   *
+   * @param libraryName library name (identifier)
+   */
+  @DeleteMapping(value = "/{libraryName}")
+  public void deleteLibrary(@PathVariable String libraryName) {
+    logger.debug("[{}] - Delete library request received", libraryName);
+    MDC.put(MDC_NAME_IDENTIFIER, libraryName);
+    libraryService.deleteLibrary(libraryName);
+    logger.debug(LIBRARY_REQUEST_PROCESSED, libraryName);
+  }
+
+  private static LibraryInfo toInfo(ScriptLibrary library) {
+    LibraryInfo libraryInfo = LibraryMapper.forLibrary.map(library);
+    libraryInfo.setLinks();
+    return libraryInfo;
+  }
+
+}
@@ -0,0 +1,142 @@
+package com.project.graalrestservice.web.controller;
+
+import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
+import com.project.graalrestservice.domain.script.model.Pipeline;
+import com.project.graalrestservice.domain.script.model.PipelineNodeSubmission;
+import com.project.graalrestservice.domain.script.service.PipelineService;
+import com.project.graalrestservice.web.dto.PipelineInfo;
+import com.project.graalrestservice.web.dto.PipelineNodeItem;
+import com.project.graalrestservice.web.dto.PipelineRequest;
+import com.project.graalrestservice.web.mapping.PipelineMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** PipelinesController class responsible for "/pipelines" */
+@RestController
+@RequestMapping("/pipelines")
+public class PipelinesController {
+
+  private static final Logger logger = LoggerFactory.getLogger(PipelinesController.class);
+  private static final String PIPELINE_REQUEST_PROCESSED = "[{}] - Request successfully processed";
+  private static final String MDC_NAME_IDENTIFIER = "scriptName";
+  private final PipelineService pipelineService;
+
+  /**
+   * Basic constructor
+   */
+  @Autowired
+  public PipelinesController(PipelineService pipelineService) {
+    this.pipelineService = pipelineService;
+  }
+
+  /**
+   * Method for starting a pipeline: a graph of scripts, in which each script is started as soon as
+   * the scripts it depends on have finished successfully, so independent branches run in parallel.
+   * A node gets the results and the output of the nodes it depends on as the {@code inputs}
+   * binding. If a node fails, the nodes that depend on it are skipped
+   *
+   * @param request name of the pipeline and its nodes
+   * @return PipelineInfo with information about the pipeline at the time it was started
+   */
+  @PostMapping
+  public ResponseEntity<PipelineInfo> startPipeline(@RequestBody PipelineRequest request) {
+    if (request.getName() == null)
+      throw new WrongArgumentException("The name of the pipeline is required");
+    logger.debug("[{}] - Pipeline start request received", request.getName());
+    MDC.put(MDC_NAME_IDENTIFIER, request.getName());
+    List<PipelineNodeSubmission> submissions = new ArrayList<>();
+    if (request.getNodes() != null)
+      for (PipelineNodeItem item : request.getNodes())
+        submissions.add(item.toSubmission());
+    PipelineInfo pipelineInfo =
+        toInfo(pipelineService.startPipeline(request.getName(), submissions));
+    logger.debug(PIPELINE_REQUEST_PROCESSED, request.getName());
+    return new ResponseEntity<>(pipelineInfo, HttpStatus.CREATED);
+  }
+
+  /**
+   * A method for obtaining information about all the pipelines, from the newest to the oldest
+   *
+   * @return List of PipelineInfo
+   */
+  @GetMapping
+  public ResponseEntity<List<PipelineInfo>> getPipelineList() {
+    logger.debug("Pipeline list request received");
+    List<PipelineInfo> pipelineInfoList = pipelineService.getPipelines().stream()
+        .sorted(Comparator.comparing(Pipeline::getCreateTime).reversed())
+        .map(PipelinesController::toInfo).collect(Collectors.toList());
+    logger.debug("Pipeline list request successfully processed");
+    return new ResponseEntity<>(pipelineInfoList, HttpStatus.OK);
+  }
+
+  /**
+   * A method for obtaining information about the pipeline and the state of each of its nodes,
+   * including the results of the finished ones
+   *
+   * @param pipelineName pipeline name (identifier)
+   * @return PipelineInfo JSON information about the pipeline
+   */
+  @GetMapping(value = "/{pipelineName}")
+  public ResponseEntity<PipelineInfo> getPipelineInfo(@PathVariable String pipelineName) {
+    logger.debug("[{}] - Pipeline info request received", pipelineName);
+    MDC.put(MDC_NAME_IDENTIFIER, pipelineName);
+    PipelineInfo pipelineInfo = toInfo(pipelineService.getPipeline(pipelineName));
+    logger.debug(PIPELINE_REQUEST_PROCESSED, pipelineName);
+    return new ResponseEntity<>(pipelineInfo, HttpStatus.OK);
+  }
+
+  /**
+   * A method for getting the output logs of a node of the pipeline. It works the same as
+   * {@link ScriptsController#getScriptLogs(String, Integer, Integer) getScriptLogs}
+   *
+   * @param pipelineName pipeline name (identifier)
+   * @param nodeId id of the node
+   * @param from the beginning index, inclusive.
+   * @param to the ending index, exclusive.
+   * @return full logs or logs from from-to range
+   * @throws WrongArgumentException if range is entered incorrectly
+   */
+  @GetMapping(value = "/{pipelineName}/nodes/{nodeId}/logs")
+  public ResponseEntity<String> getNodeLogs(@PathVariable String pipelineName,
+      @PathVariable String nodeId, @RequestParam(required = false, defaultValue = "0") Integer from,
+      @RequestParam(required = false) Integer to) {
+    logger.debug("[{}] - Node '{}' logs request received (from={}, to={})", pipelineName, nodeId,
+        from, to);
+    MDC.put(MDC_NAME_IDENTIFIER, pipelineName);
+    String logs = ScriptsController
+        .cutLogs(pipelineService.getPipelineNode(pipelineName, nodeId).getOutputLogs(), from, to);
+    logger.debug(PIPELINE_REQUEST_PROCESSED, pipelineName);
+    return new ResponseEntity<>(logs, HttpStatus.OK);
+  }
+
+  /**
+   * This method is needed to remove the pipeline. If it is still running, its nodes in the queue or
+   * running are cancelled, and the others are not started
+   *
+   * @param pipelineName pipeline name (identifier)
+   */
+  @DeleteMapping(value = "/{pipelineName}")
+  public void deletePipeline(@PathVariable String pipelineName) {
+    logger.debug("[{}] - Delete pipeline request received", pipelineName);
+    MDC.put(MDC_NAME_IDENTIFIER, pipelineName);
+    pipelineService.deletePipeline(pipelineName);
+    logger.debug(PIPELINE_REQUEST_PROCESSED, pipelineName);
+  }
+
+  private static PipelineInfo toInfo(Pipeline pipeline) {
+    PipelineInfo pipelineInfo = PipelineMapper.forPipeline.map(pipeline);
+    pipelineInfo.setLinks();
+    return pipelineInfo;
+  }
+
+}
@@ -1,8 +1,12 @@
 package com.project.graalrestservice.web.controller;
 
+import com.project.graalrestservice.domain.script.service.ScriptService;
+import com.project.graalrestservice.domain.script.util.ContextPool;
+import com.project.graalrestservice.web.dto.ContextPoolInfo;
 import com.project.graalrestservice.web.dto.RootInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 /** RootController class responsible for "/" */
@@ -10,16 +14,29 @@ import org.springframework.web.bind.annotation.*;
 public class RootController {
 
   private static final Logger logger = LoggerFactory.getLogger(RootController.class);
+  private final ContextPool contextPool;
+  private final ScriptService scriptService;
+
+  /**
+   * Basic constructor
+   */
+  @Autowired
+  public RootController(ContextPool contextPool, ScriptService scriptService) {
+    this.contextPool = contextPool;
+    this.scriptService = scriptService;
+  }
 
   /**
    * Method responsible for "/"
    * 
-   * @return JSON with application status, self link and link to script list
+   * @return JSON with application status, {@link ContextPool} counters, number of scripts with each
+   *         status, self link and link to script list
    */
   @GetMapping(value = "/")
   public RootInfo appStatus() {
     logger.debug("Root request successfully processed");
-    return new RootInfo("The application is running");
+    return new RootInfo("The application is running", new ContextPoolInfo(this.contextPool),
+        this.scriptService.getScriptCounts());
   }
 
 }
@@ -1,15 +1,41 @@
 package com.project.graalrestservice.web.controller;
 
+import com.project.graalrestservice.domain.script.enumeration.ScheduleOverlapPolicy;
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.exception.ExecutorSaturatedException;
+import com.project.graalrestservice.domain.script.exception.LibraryNotFoundException;
 import com.project.graalrestservice.domain.script.exception.PageDoesNotExistException;
+import com.project.graalrestservice.domain.script.exception.ScriptNotFoundException;
 import com.project.graalrestservice.domain.script.exception.WrongArgumentException;
+import com.project.graalrestservice.domain.script.exception.WrongNameException;
+import com.project.graalrestservice.domain.script.exception.WrongScriptException;
+import com.project.graalrestservice.domain.script.model.Evaluation;
 import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptExecution;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.domain.script.model.ScriptPage;
+import com.project.graalrestservice.domain.script.model.ScriptSchedule;
+import com.project.graalrestservice.domain.script.model.ScriptSubmissionResult;
+import com.project.graalrestservice.domain.script.service.RetentionService;
 import com.project.graalrestservice.domain.script.service.ScriptRepository;
 import com.project.graalrestservice.domain.script.service.ScriptService;
+import com.project.graalrestservice.web.dto.EvaluationInfo;
+import com.project.graalrestservice.web.dto.ExceptionInfo;
+import com.project.graalrestservice.web.dto.ExecutionInfo;
 import com.project.graalrestservice.web.dto.Page;
+import com.project.graalrestservice.web.dto.ScheduleInfo;
+import com.project.graalrestservice.web.dto.ScheduleParameters;
+import com.project.graalrestservice.web.dto.ScriptBatchItem;
+import com.project.graalrestservice.web.dto.ScriptBatchItemResult;
 import com.project.graalrestservice.web.dto.ScriptInfoForList;
 import com.project.graalrestservice.web.dto.ScriptInfoForSingle;
+import com.project.graalrestservice.web.dto.ScriptRunParameters;
+import com.project.graalrestservice.web.mapping.EvaluationMapper;
+import com.project.graalrestservice.web.mapping.ExecutionMapper;
 import com.project.graalrestservice.web.mapping.ListScriptMapper;
+import com.project.graalrestservice.web.mapping.ScheduleMapper;
 import com.project.graalrestservice.web.mapping.SingleScriptMapper;
 import com.project.graalrestservice.web.util.EmitterOutputStream;
 import org.slf4j.Logger;
@@ -24,6 +50,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /** RootController class responsible for "/scripts" */
 @RestController
@@ -36,26 +63,26 @@ public class ScriptsController {
       "Parameters: [page={}, pageSize={}, status={}, nameContains={}, orderByName={}, reverseOrder={}]";
   private static final String MDC_NAME_IDENTIFIER = "scriptName";
   private final ScriptService scriptService;
+  private final RetentionService retentionService;
 
   /**
    * Basic constructor
    */
   @Autowired
-  public ScriptsController(ScriptService scriptService) {
+  public ScriptsController(ScriptService scriptService, RetentionService retentionService) {
     this.scriptService = scriptService;
+    this.retentionService = retentionService;
   }
 
   /**
    * The method returns a sorted, filtered and paginated JSON {@link Page} with
-   * {@link ScriptInfoForList}. The primary List with {@link Script} is
-   * {@link ScriptRepository#getScriptList(ScriptStatus, String) filtered} at the
-   * {@link ScriptRepository} level. It is then
-   * {@link ScriptService#getScriptList(ScriptStatus, String, boolean, boolean) sorted} by
-   * {@link ScriptService}.
-   * {@link ScriptsController#convertListToPage(List, int, int, ScriptStatus, String, boolean, boolean)
-   * Pagination and conversion} to {@link Page} with {@link ScriptInfoForList} occurs at the
-   * controller (this) level. By default, no filters are applied and sorting is done by date of
-   * script creation.
+   * {@link ScriptInfoForList}. Only the requested page of the list of {@link Script} is
+   * {@link ScriptService#getScriptPage(ScriptStatus, String, boolean, boolean, ScriptCursor, int, int)
+   * read} from the sorted indexes of the {@link ScriptRepository}, together with the size of the
+   * list.
+   * {@link ScriptsController#convertListToPage(ScriptPage, int, int, ScriptStatus, String, boolean, boolean)
+   * Conversion} to {@link Page} with {@link ScriptInfoForList} occurs at the controller (this)
+   * level. By default, no filters are applied and sorting is done by date of script creation.
    * 
    * @param pageNumber the number of the page you are requesting. If not specified, the default
    *        value is '1'.
@@ -65,8 +92,8 @@ public class ScriptsController {
    *        you are interested in the output. If not specified, scripts with all statuses will be
    *        displayed.
    * @param nameContains this parameter is a filter. It allows you to specify an expression that
-   *        must contain the name of the script. If not specified, scripts with all names will be
-   *        displayed
+   *        must contain the name of the script. If the expression starts with '^', the name must
+   *        start with the rest of it. If not specified, scripts with all names will be displayed
    * @param orderByName sorting parameter. If true, it will be sorted by script name. By default,
    *        (false), sorting is set to the date the script was created.
    * @param reverseOrder parameter to reverse the sorting. The default is false.
@@ -83,43 +110,158 @@ public class ScriptsController {
     logger.debug("Script list request received. " + REQUEST_PARAMETERS, pageNumber, pageSize,
         status, nameContains, orderByName, reverseOrder);
     MDC.put(MDC_NAME_IDENTIFIER, "GetScriptsMethod");
-    List<Script> scriptList =
-        scriptService.getScriptList(status, nameContains, orderByName, reverseOrder);
-    Page<List<ScriptInfoForList>> scriptPage = convertListToPage(scriptList, pageNumber, pageSize,
+    if (pageNumber < 1)
+      throw new WrongArgumentException("The page number cannot be less than 1");
+    if (pageSize < 1)
+      throw new WrongArgumentException("The page size cannot be less than 1");
+    long offset = (long) (pageNumber - 1) * pageSize;
+    ScriptPage scripts = scriptService.getScriptPage(status, nameContains, orderByName,
+        reverseOrder, null, (int) Math.min(offset, Integer.MAX_VALUE), pageSize);
+    Page<List<ScriptInfoForList>> scriptPage = convertListToPage(scripts, pageNumber, pageSize,
         status, nameContains, orderByName, reverseOrder);
     logger.debug("Script list request successfully processed. " + REQUEST_PARAMETERS, pageNumber,
         pageSize, status, nameContains, orderByName, reverseOrder);
     return new ResponseEntity<>(scriptPage, HttpStatus.OK);
   }
 
+  /**
+   * The method returns the page of the sorted and filtered list of scripts that follows the
+   * specified cursor. Every page of the list has a "next" link with the cursor of its last script
+   * (unless it is the last page). Unlike pages by number, a page by cursor does not move when
+   * scripts are added to or removed from the list before it, and the repository seeks to the cursor
+   * instead of skipping the previous pages. The position of such a page in the list is not known,
+   * so its page number is 0. The filter and sorting parameters must be the same as for the previous
+   * page.
+   *
+   * @param cursor opaque cursor from the "next" link of the previous page
+   * @param pageSize maximum number of scripts per page. If not specified, the default value is
+   *        '10'.
+   * @param status status filter
+   * @param nameContains name pattern filter
+   * @param orderByName sorting parameter
+   * @param reverseOrder parameter to reverse the sorting
+   * @return {@link Page} with List of {@link ScriptInfoForList} that follow the cursor, which may
+   *         be empty
+   */
+  @GetMapping(params = "cursor")
+  public ResponseEntity<Page<List<ScriptInfoForList>>> getScriptListPageAfter(
+      @RequestParam String cursor, @RequestParam(defaultValue = "10") int pageSize,
+      @RequestParam(required = false) ScriptStatus status,
+      @RequestParam(required = false) String nameContains,
+      @RequestParam(defaultValue = "false") boolean orderByName,
+      @RequestParam(defaultValue = "false") boolean reverseOrder) {
+    logger.debug("Script list request by cursor received. " + REQUEST_PARAMETERS, 0, pageSize,
+        status, nameContains, orderByName, reverseOrder);
+    MDC.put(MDC_NAME_IDENTIFIER, "GetScriptsMethod");
+    if (pageSize < 1)
+      throw new WrongArgumentException("The page size cannot be less than 1");
+    ScriptPage scripts = scriptService.getScriptPage(status, nameContains, orderByName,
+        reverseOrder, ScriptCursor.decode(cursor), 0, pageSize);
+    Page<List<ScriptInfoForList>> scriptPage =
+        convertListToPage(scripts, 0, pageSize, status, nameContains, orderByName, reverseOrder);
+    logger.debug("Script list request by cursor successfully processed. " + REQUEST_PARAMETERS, 0,
+        pageSize, status, nameContains, orderByName, reverseOrder);
+    return new ResponseEntity<>(scriptPage, HttpStatus.OK);
+  }
+
   /**
    * Method for adding a new script to the run queue. Firstly, the new {@link Script} is added to
    * {@link ScriptRepository#putScript(String, Script) ScriptRepository} via
-   * {@link ScriptService#addScript(String, String) ScriptRepository} with the passage of some
-   * additional checks. If successful, the script is
+   * {@link ScriptService#addScript(String, String, int, ScriptLimits, ScriptBindings, List)
+   * ScriptRepository} with the passage of some additional checks. If successful, the script is
    * {@link ScriptService#startScriptAsynchronously(Script) added to the execution queue}
    * (asynchronously) and the user is returned JSON with information about the script at the time it
    * was created.
    * 
    * @param scriptCode JS body
    * @param scriptName a unique identifier of the script, by which it can be accessed in the future
+   * @param parameters optional run parameters (priority in the execution queue, execution limits,
+   *        bindings)
    * @return ScriptInfoForSingle with information about the script at the time it was created
    */
   @PutMapping(value = "/{scriptName}")
   public ResponseEntity<ScriptInfoForSingle> runScript(@RequestBody String scriptCode,
-      @PathVariable String scriptName) {
+      @PathVariable String scriptName, ScriptRunParameters parameters) {
     logger.debug("[{}] - A new script is requested to run", scriptName);
     MDC.put(MDC_NAME_IDENTIFIER, scriptName);
-    Script script = scriptService.addScript(scriptName, scriptCode);
+    Script script = scriptService.addScript(scriptName, scriptCode, parameters.getPriority(),
+        parameters.toLimits(), parameters.getBindings(), parameters.getLibraries());
     scriptService.startScriptAsynchronously(script);
-    ScriptInfoForSingle scriptInfoForSingle = SingleScriptMapper.forSingle.map(script);
+    ScriptInfoForSingle scriptInfoForSingle =
+        SingleScriptMapper.forSingle.map(script.getSnapshot());
+    scriptInfoForSingle.setQueuePosition(scriptService.getQueuePosition(script));
     scriptInfoForSingle.setLinks();
     logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
     return new ResponseEntity<>(scriptInfoForSingle, HttpStatus.CREATED);
   }
 
   /**
-   * A method for obtaining information about the script
+   * Method for adding many scripts to the run queue in one request. The scripts are
+   * {@link ScriptService#addScriptBatch(List) processed by the service} together, and each of them
+   * is added or rejected independently of the others. For each script, in the order of the request,
+   * the result contains either the same information as returned by
+   * {@link ScriptsController#runScript(String, String, ScriptRunParameters) runScript} or the error
+   * with the HTTP status which a single run request would have got.
+   *
+   * @param items scripts (name, code and optional run parameters)
+   * @return List of ScriptBatchItemResult
+   */
+  @PostMapping(value = "/batch")
+  public ResponseEntity<List<ScriptBatchItemResult>> runScriptBatch(
+      @RequestBody List<ScriptBatchItem> items) {
+    logger.debug("Batch of {} scripts is requested to run", items.size());
+    MDC.put(MDC_NAME_IDENTIFIER, "BatchMethod");
+    List<ScriptSubmissionResult> submissionResults = scriptService.addScriptBatch(
+        items.stream().map(ScriptBatchItem::toSubmission).collect(Collectors.toList()));
+    List<ScriptBatchItemResult> results = new ArrayList<>(submissionResults.size());
+    for (ScriptSubmissionResult submissionResult : submissionResults) {
+      if (submissionResult.isAccepted()) {
+        Script script = submissionResult.getScript();
+        ScriptInfoForSingle scriptInfoForSingle =
+            SingleScriptMapper.forSingle.map(script.getSnapshot());
+        scriptInfoForSingle.setQueuePosition(scriptService.getQueuePosition(script));
+        scriptInfoForSingle.setLinks();
+        results.add(new ScriptBatchItemResult(script.getName(), scriptInfoForSingle, null));
+      } else {
+        RuntimeException e = submissionResult.getError();
+        results.add(new ScriptBatchItemResult(submissionResult.getName(), null,
+            new ExceptionInfo(e.getMessage(), getErrorStatus(e))));
+      }
+    }
+    logger.debug("Batch request successfully processed");
+    return new ResponseEntity<>(results, HttpStatus.OK);
+  }
+
+  /**
+   * Method for running a short script and getting its result in the response. The script is
+   * {@link ScriptService#evaluate(String, Long, ScriptBindings) evaluated} immediately, on the
+   * request thread, and is not added to the {@link ScriptRepository}. The response contains the
+   * value of the last expression of the script converted to JSON, its output and, if the script
+   * failed or ran out of time, the error.
+   *
+   * @param scriptCode JS body
+   * @param timeoutMillis maximum time of the evaluation. If not specified, the maximum allowed time
+   *        is used
+   * @param bindings input parameters of the script, a JSON object whose members become global
+   *        variables
+   * @return EvaluationInfo with the result and the output of the script
+   */
+  @PostMapping(value = "/eval")
+  public ResponseEntity<EvaluationInfo> evaluateScript(@RequestBody String scriptCode,
+      @RequestParam(required = false) Long timeoutMillis,
+      @RequestParam(required = false) ScriptBindings bindings) {
+    logger.debug("Script evaluation request received");
+    MDC.put(MDC_NAME_IDENTIFIER, "EvalMethod");
+    Evaluation evaluation = scriptService.evaluate(scriptCode, timeoutMillis, bindings);
+    logger.debug("Script evaluation request successfully processed");
+    return new ResponseEntity<>(EvaluationMapper.forEvaluation.map(evaluation), HttpStatus.OK);
+  }
+
+  /**
+   * A method for obtaining information about the script. While the script is waiting in the
+   * execution queue, the information also contains its position in the queue. If there is no such
+   * script in the repository, but it has been evicted to the archive, the archived information is
+   * returned
    * 
    * @param scriptName script name (identifier)
    * @return ScriptInfoForSingle JSON information about script
@@ -128,9 +270,17 @@ public class ScriptsController {
   public ResponseEntity<ScriptInfoForSingle> getSingleScriptInfo(@PathVariable String scriptName) {
     logger.debug("[{}] - Single script info request received", scriptName);
     MDC.put(MDC_NAME_IDENTIFIER, scriptName);
-    ScriptInfoForSingle scriptInfoForSingle =
-        SingleScriptMapper.forSingle.map(scriptService.getScript(scriptName));
-    scriptInfoForSingle.setLinks();
+    ScriptInfoForSingle scriptInfoForSingle;
+    try {
+      Script script = scriptService.getScript(scriptName);
+      scriptInfoForSingle = SingleScriptMapper.forSingle.map(script.getSnapshot());
+      scriptInfoForSingle.setQueuePosition(scriptService.getQueuePosition(script));
+      scriptInfoForSingle.setLinks();
+    } catch (ScriptNotFoundException e) {
+      scriptInfoForSingle =
+          SingleScriptMapper.forSingle.map(retentionService.getArchivedScript(scriptName));
+      scriptInfoForSingle.setArchivedLinks();
+    }
     logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
     return new ResponseEntity<>(scriptInfoForSingle, HttpStatus.OK);
   }
@@ -138,7 +288,8 @@ public class ScriptsController {
   /**
    * A method for getting the output logs of a script. By default, it returns full logs, but you can
    * limit the boundaries from-to if necessary (either together or separately). Important: The
-   * numbering of the logs starts from 0.
+   * numbering of the logs starts from 0. The logs of an archived script are those of its latest
+   * execution.
    * 
    * @param scriptName script name (identifier)
    * @param from the beginning index, inclusive.
@@ -153,24 +304,171 @@ public class ScriptsController {
       @RequestParam(required = false) Integer to) {
     logger.debug("[{}] - Script logs request received (from={}, to={})", scriptName, from, to);
     MDC.put(MDC_NAME_IDENTIFIER, scriptName);
-    String logs = scriptService.getScript(scriptName).getOutputLogs();
-    if (to == null)
-      to = logs.length();
+    String fullLogs;
     try {
-      logs = logs.substring(from, to);
-    } catch (StringIndexOutOfBoundsException e) {
-      throw new WrongArgumentException(
-          String.format("The 'from-to' range is entered incorrectly: %d-%d (logsSize=%d). "
-              + "From must be less or equal to; from and to cannot be less than 0; "
-              + "to cannot be greater than the size of the logs.", from, to, logs.length()),
-          e);
+      fullLogs = scriptService.getScript(scriptName).getOutputLogs();
+    } catch (ScriptNotFoundException e) {
+      fullLogs = retentionService.getArchivedScript(scriptName).getOutputLogs();
     }
+    String logs = cutLogs(fullLogs, from, to);
+    logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
+    return new ResponseEntity<>(logs, HttpStatus.OK);
+  }
+
+  /**
+   * Method for running a script that is already in the repository once more. A new
+   * {@link ScriptExecution execution} of the stored code is
+   * {@link ScriptService#startScriptExecution(String, int, ScriptLimits, ScriptBindings, List)
+   * started}, with its own status, times, logs and bindings. The code is not sent and parsed again,
+   * so running it with different bindings is cheap. A new execution can be started only when the
+   * previous one has finished.
+   *
+   * @param scriptName script name (identifier)
+   * @param parameters optional run parameters (priority in the execution queue, execution limits)
+   * @return ExecutionInfo with information about the execution at the time it was created
+   */
+  @PostMapping(value = "/{scriptName}/executions")
+  public ResponseEntity<ExecutionInfo> runScriptExecution(@PathVariable String scriptName,
+      ScriptRunParameters parameters) {
+    logger.debug("[{}] - A new execution of the script is requested", scriptName);
+    MDC.put(MDC_NAME_IDENTIFIER, scriptName);
+    ScriptExecution execution =
+        scriptService.startScriptExecution(scriptName, parameters.getPriority(),
+            parameters.toLimits(), parameters.getBindings(), parameters.getLibraries());
+    ExecutionInfo executionInfo = ExecutionMapper.forExecution.map(execution.getSnapshot());
+    executionInfo.setQueuePosition(scriptService.getQueuePosition(execution));
+    executionInfo.setLinks();
+    logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
+    return new ResponseEntity<>(executionInfo, HttpStatus.CREATED);
+  }
+
+  /**
+   * A method for obtaining information about the retained executions of the script, from the oldest
+   * to the latest
+   *
+   * @param scriptName script name (identifier)
+   * @return List of ExecutionInfo
+   */
+  @GetMapping(value = "/{scriptName}/executions")
+  public ResponseEntity<List<ExecutionInfo>> getExecutionList(@PathVariable String scriptName) {
+    logger.debug("[{}] - Execution list request received", scriptName);
+    MDC.put(MDC_NAME_IDENTIFIER, scriptName);
+    List<ExecutionInfo> executionInfoList = new ArrayList<>();
+    for (ScriptExecution execution : scriptService.getScript(scriptName).getExecutions()) {
+      ExecutionInfo executionInfo = ExecutionMapper.forExecution.map(execution.getSnapshot());
+      executionInfo.setQueuePosition(scriptService.getQueuePosition(execution));
+      executionInfo.setLinks();
+      executionInfoList.add(executionInfo);
+    }
+    logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
+    return new ResponseEntity<>(executionInfoList, HttpStatus.OK);
+  }
+
+  /**
+   * A method for obtaining information about one execution of the script
+   *
+   * @param scriptName script name (identifier)
+   * @param executionId number of the execution
+   * @return ExecutionInfo JSON information about the execution
+   */
+  @GetMapping(value = "/{scriptName}/executions/{executionId}")
+  public ResponseEntity<ExecutionInfo> getExecutionInfo(@PathVariable String scriptName,
+      @PathVariable int executionId) {
+    logger.debug("[{}] - Execution {} info request received", scriptName, executionId);
+    MDC.put(MDC_NAME_IDENTIFIER, scriptName);
+    ScriptExecution execution = scriptService.getScriptExecution(scriptName, executionId);
+    ExecutionInfo executionInfo = ExecutionMapper.forExecution.map(execution.getSnapshot());
+    executionInfo.setQueuePosition(scriptService.getQueuePosition(execution));
+    executionInfo.setLinks();
+    logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
+    return new ResponseEntity<>(executionInfo, HttpStatus.OK);
+  }
+
+  /**
+   * A method for getting the output logs of one execution of the script. It works the same as
+   * {@link ScriptsController#getScriptLogs(String, Integer, Integer) getScriptLogs}, which returns
+   * the logs of the latest execution
+   *
+   * @param scriptName script name (identifier)
+   * @param executionId number of the execution
+   * @param from the beginning index, inclusive.
+   * @param to the ending index, exclusive.
+   * @return full logs or logs from from-to range
+   * @throws WrongArgumentException if range is entered incorrectly
+   */
+  @GetMapping(value = "/{scriptName}/executions/{executionId}/logs")
+  public ResponseEntity<String> getExecutionLogs(@PathVariable String scriptName,
+      @PathVariable int executionId,
+      @RequestParam(required = false, defaultValue = "0") Integer from,
+      @RequestParam(required = false) Integer to) {
+    logger.debug("[{}] - Execution {} logs request received (from={}, to={})", scriptName,
+        executionId, from, to);
+    MDC.put(MDC_NAME_IDENTIFIER, scriptName);
+    String logs = cutLogs(scriptService.getScriptExecution(scriptName, executionId).getOutputLogs(),
+        from, to);
     logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
     return new ResponseEntity<>(logs, HttpStatus.OK);
   }
 
   /**
-   * A method for viewing a script that has been sent to run
+   * Method for running a script from the repository on a recurring schedule, by a cron expression
+   * or at a fixed interval. Each run is a new execution of the stored code, started by the
+   * {@link ScriptService#scheduleScript(String, String, Long, ScheduleOverlapPolicy, int, ScriptLimits, ScriptBindings, List)
+   * scheduler of the service}. The previous schedule of the script is replaced.
+   *
+   * @param scriptName script name (identifier)
+   * @param parameters cron expression or interval, overlap policy and run parameters of the
+   *        executions
+   * @return ScheduleInfo with information about the schedule
+   */
+  @PutMapping(value = "/{scriptName}/schedule")
+  public ResponseEntity<ScheduleInfo> scheduleScript(@PathVariable String scriptName,
+      ScheduleParameters parameters) {
+    logger.debug("[{}] - Schedule request received", scriptName);
+    MDC.put(MDC_NAME_IDENTIFIER, scriptName);
+    ScriptSchedule schedule = scriptService.scheduleScript(scriptName, parameters.getCron(),
+        parameters.getIntervalMillis(), parameters.getOverlapPolicy(), parameters.getPriority(),
+        parameters.toLimits(), parameters.getBindings(), parameters.getLibraries());
+    ScheduleInfo scheduleInfo = ScheduleMapper.forSchedule.map(schedule);
+    scheduleInfo.setLinks();
+    logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
+    return new ResponseEntity<>(scheduleInfo, HttpStatus.CREATED);
+  }
+
+  /**
+   * A method for obtaining information about the schedule of the script, including the time of the
+   * next run and the statistics of the previous ones
+   *
+   * @param scriptName script name (identifier)
+   * @return ScheduleInfo JSON information about the schedule
+   */
+  @GetMapping(value = "/{scriptName}/schedule")
+  public ResponseEntity<ScheduleInfo> getSchedule(@PathVariable String scriptName) {
+    logger.debug("[{}] - Schedule info request received", scriptName);
+    MDC.put(MDC_NAME_IDENTIFIER, scriptName);
+    ScheduleInfo scheduleInfo =
+        ScheduleMapper.forSchedule.map(scriptService.getSchedule(scriptName));
+    scheduleInfo.setLinks();
+    logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
+    return new ResponseEntity<>(scheduleInfo, HttpStatus.OK);
+  }
+
+  /**
+   * This method is needed to remove the schedule of the script. The script and its executions stay
+   * in the repository
+   *
+   * @param scriptName script name (identifier)
+   */
+  @DeleteMapping(value = "/{scriptName}/schedule")
+  public void unscheduleScript(@PathVariable String scriptName) {
+    logger.debug("[{}] - Delete schedule request received", scriptName);
+    MDC.put(MDC_NAME_IDENTIFIER, scriptName);
+    scriptService.unscheduleScript(scriptName);
+    logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
+  }
+
+  /**
+   * A method for viewing a script that has been sent to run, including an archived one
    * 
    * @param scriptName script name (identifier)
    * @return String with JS body
@@ -179,29 +477,36 @@ public class ScriptsController {
   public ResponseEntity<String> getScriptCode(@PathVariable String scriptName) {
     logger.debug("[{}] - Script code request received", scriptName);
     MDC.put(MDC_NAME_IDENTIFIER, scriptName);
-    String scriptCode = scriptService.getScript(scriptName).getScriptCode();
+    String scriptCode;
+    try {
+      scriptCode = scriptService.getScript(scriptName).getScriptCode();
+    } catch (ScriptNotFoundException e) {
+      scriptCode = retentionService.getArchivedScript(scriptName).getScriptCode();
+    }
     logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
     return new ResponseEntity<>(scriptCode, HttpStatus.OK);
   }
 
   /**
    * Adds a new script to the execution queue with that ability to stream logs in real time. As with
-   * {@link ScriptsController#runScript(String, String) first variant}, the script is first added to
-   * the repository with some checks, then the StreamingResponseBody is returns. In
-   * StreamingResponseBody the script is added to the execution queue (asynchronously) and log
-   * streaming begins.
+   * {@link ScriptsController#runScript(String, String, ScriptRunParameters) first variant}, the
+   * script is first added to the repository with some checks, then the StreamingResponseBody is
+   * returns. In StreamingResponseBody the script is added to the execution queue (asynchronously)
+   * and log streaming begins.
    * 
    * @param scriptCode JS body
    * @param scriptName script name (identifier)
+   * @param parameters optional run parameters (priority in the execution queue, execution limits)
    * @return StreamingResponseBody which broadcasts logs in real time
    */
   @ResponseStatus(HttpStatus.ACCEPTED)
   @PutMapping(value = "/{scriptName}/logs")
   public ResponseBodyEmitter runScriptWithLogsStreaming(@RequestBody String scriptCode,
-      @PathVariable String scriptName) {
+      @PathVariable String scriptName, ScriptRunParameters parameters) {
     logger.debug("[{}] - Script run with logs streaming request received", scriptName);
     MDC.put(MDC_NAME_IDENTIFIER, scriptName);
-    Script script = scriptService.addScript(scriptName, scriptCode);
+    Script script = scriptService.addScript(scriptName, scriptCode, parameters.getPriority(),
+        parameters.toLimits(), parameters.getBindings(), parameters.getLibraries());
     ResponseBodyEmitter rbe = new ResponseBodyEmitter();
     EmitterOutputStream eos = new EmitterOutputStream(rbe);
     try {
@@ -248,14 +553,66 @@ public class ScriptsController {
     logger.debug(SCRIPT_REQUEST_PROCESSED, scriptName);
   }
 
+  /**
+   * A sub-method, which is necessary for
+   * {@link ScriptsController#getScriptLogs(String, Integer, Integer) getScriptLogs} and
+   * {@link ScriptsController#getExecutionLogs(String, int, Integer, Integer) getExecutionLogs}. It
+   * cuts the from-to range out of the logs.
+   *
+   * @param logs full logs
+   * @param from the beginning index, inclusive.
+   * @param to the ending index, exclusive. If null, the end of the logs
+   * @return logs from from-to range
+   * @throws WrongArgumentException if range is entered incorrectly
+   */
+  static String cutLogs(String logs, Integer from, Integer to) {
+    if (from == null)
+      from = 0;
+    if (to == null)
+      to = logs.length();
+    try {
+      return logs.substring(from, to);
+    } catch (StringIndexOutOfBoundsException e) {
+      throw new WrongArgumentException(
+          String.format("The 'from-to' range is entered incorrectly: %d-%d (logsSize=%d). "
+              + "From must be less or equal to; from and to cannot be less than 0; "
+              + "to cannot be greater than the size of the logs.", from, to, logs.length()),
+          e);
+    }
+  }
+
+  /**
+   * A sub-method, which is necessary for {@link ScriptsController#runScriptBatch(List)
+   * runScriptBatch}. It returns the HTTP status of a rejected script, the same as the exception
+   * handler would return for a single script.
+   *
+   * @param e the reason why the script was rejected
+   * @return HttpStatus
+   */
+  private static HttpStatus getErrorStatus(RuntimeException e) {
+    if (e instanceof WrongNameException)
+      return HttpStatus.CONFLICT;
+    if (e instanceof WrongScriptException)
+      return HttpStatus.UNPROCESSABLE_ENTITY;
+    if (e instanceof WrongArgumentException)
+      return HttpStatus.BAD_REQUEST;
+    if (e instanceof ExecutorSaturatedException)
+      return HttpStatus.TOO_MANY_REQUESTS;
+    if (e instanceof LibraryNotFoundException)
+      return HttpStatus.NOT_FOUND;
+    return HttpStatus.INTERNAL_SERVER_ERROR;
+  }
+
   /**
    * A sub-method, which is necessary for
    * {@link ScriptsController#getScriptListPage(int, int, ScriptStatus, String, boolean, boolean)
-   * getScriptListPage}. It paginates and converts List to {@link Page}. The following parameters
-   * (except scriptList) are needed to create links and fill in information about the page.
+   * getScriptListPage}. It converts the page of the script list to {@link Page}. The following
+   * parameters (except scriptPage) are needed to create links and fill in information about the
+   * page.
    * 
-   * @param scriptList script list to be converted
-   * @param pageNumber the number of the page you are requesting.
+   * @param scriptPage page of the script list to be converted
+   * @param pageNumber the number of the page you are requesting, 0 if the page is requested by
+   *        cursor.
    * @param pageSize maximum number of scripts per page.
    * @param status status filter.
    * @param nameContains name pattern filter.
@@ -263,29 +620,20 @@ public class ScriptsController {
    * @param reverseOrder parameter to reverse the sorting.
    * @return paginated {@link Page} with List of {@link ScriptInfoForList}.
    */
-  private Page<List<ScriptInfoForList>> convertListToPage(List<Script> scriptList, int pageNumber,
+  private Page<List<ScriptInfoForList>> convertListToPage(ScriptPage scriptPage, int pageNumber,
       int pageSize, ScriptStatus status, String nameContains, boolean orderByName,
       boolean reverseOrder) {
     logger.trace(
         "Starts converting List<Script> to Page<List<ScriptInfoForList>>. " + REQUEST_PARAMETERS,
         pageNumber, pageSize, status, nameContains, orderByName, reverseOrder);
 
-    if (pageNumber < 1)
-      throw new WrongArgumentException("The page number cannot be less than 1");
-    if (pageSize < 1)
-      throw new WrongArgumentException("The page size cannot be less than 1");
-
-    int listSize = scriptList.size();
-    int end = pageNumber * pageSize;
-    int start = end - pageSize;
-    if (start >= listSize)
+    if (scriptPage.getScripts().isEmpty() && pageNumber > 0)
       throw new PageDoesNotExistException(pageNumber);
-    if (listSize < end)
-      end = listSize;
+    int listSize = scriptPage.getTotalCount();
 
     List<ScriptInfoForList> pageList = new ArrayList<>();
-    for (; start < end; start++) {
-      ScriptInfoForList sifl = ListScriptMapper.forList.map(scriptList.get(start));
+    for (Script script : scriptPage.getScripts()) {
+      ScriptInfoForList sifl = ListScriptMapper.forList.map(script.getSnapshot());
       sifl.setLinks();
       pageList.add(sifl);
     }
@@ -293,7 +641,9 @@ public class ScriptsController {
     int numPages = (listSize % pageSize == 0) ? (listSize / pageSize) : (listSize / pageSize + 1);
     Page<List<ScriptInfoForList>> scriptsPage =
         new Page<>(pageList, pageNumber, numPages, listSize);
-    scriptsPage.setLinks(pageSize, status, nameContains, orderByName, reverseOrder);
+    ScriptCursor nextCursor = scriptPage.getNextCursor();
+    scriptsPage.setLinks(pageSize, status, nameContains, orderByName, reverseOrder,
+        nextCursor != null ? nextCursor.encode() : null);
 
     logger.trace(
         "Converting List<Script> to Page<List<ScriptInfoForList>> completed successfully. "
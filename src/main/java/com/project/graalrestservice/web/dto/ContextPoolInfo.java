@@ -0,0 +1,38 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.util.ContextPool;
+
+/**
+ * Helpful class for displaying the state of the {@link ContextPool}
+ */
+public class ContextPoolInfo {
+
+  private final long hits;
+  private final long misses;
+  private final long discarded;
+  private final int idle;
+
+  public ContextPoolInfo(ContextPool contextPool) {
+    this.hits = contextPool.getHits();
+    this.misses = contextPool.getMisses();
+    this.discarded = contextPool.getDiscarded();
+    this.idle = contextPool.getIdle();
+  }
+
+  public long getHits() {
+    return this.hits;
+  }
+
+  public long getMisses() {
+    return this.misses;
+  }
+
+  public long getDiscarded() {
+    return this.discarded;
+  }
+
+  public int getIdle() {
+    return this.idle;
+  }
+
+}
@@ -0,0 +1,56 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+
+/**
+ * Helpful class for displaying the result of a synchronous evaluation
+ */
+public class EvaluationInfo {
+
+  private ScriptStatus status;
+  private Object result;
+  private String output;
+  private String error;
+  private long durationMillis;
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public Object getResult() {
+    return this.result;
+  }
+
+  public String getOutput() {
+    return this.output;
+  }
+
+  public String getError() {
+    return this.error;
+  }
+
+  public long getDurationMillis() {
+    return this.durationMillis;
+  }
+
+  public void setStatus(ScriptStatus status) {
+    this.status = status;
+  }
+
+  public void setResult(Object result) {
+    this.result = result;
+  }
+
+  public void setOutput(String output) {
+    this.output = output;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+}
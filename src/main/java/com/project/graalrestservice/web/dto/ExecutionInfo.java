@@ -0,0 +1,160 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.web.controller.ScriptsController;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Helpful class for displaying information about one execution of a script
+ */
+public class ExecutionInfo extends RepresentationModel<ExecutionInfo> {
+
+  private String scriptName;
+  private int id;
+  private ScriptStatus status;
+  private Instant createTime;
+  private Instant startTime;
+  private Instant endTime;
+  private int logsSize;
+  private int priority;
+  private Integer queuePosition;
+  private ScriptLimits limits;
+  private ScriptBindings bindings;
+  private List<String> libraries;
+
+  /**
+   * Method for adding HATEOAS links.
+   */
+  public void setLinks() {
+    add(linkTo(
+        methodOn(ScriptsController.class).getExecutionLogs(this.scriptName, this.id, null, null))
+            .withRel("logs").expand());
+    add(linkTo(methodOn(ScriptsController.class).getExecutionInfo(this.scriptName, this.id))
+        .withSelfRel());
+    add(linkTo(methodOn(ScriptsController.class).getSingleScriptInfo(this.scriptName))
+        .withRel("scriptInfo"));
+  }
+
+  public String getScriptName() {
+    return this.scriptName;
+  }
+
+  public int getId() {
+    return this.id;
+  }
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public String getCreateTime() {
+    return this.createTime.toString();
+  }
+
+  public String getStartTime() {
+    return (this.startTime == null) ? null : this.startTime.toString();
+  }
+
+  public String getEndTime() {
+    return (this.endTime == null) ? null : this.endTime.toString();
+  }
+
+  public int getLogsSize() {
+    return this.logsSize;
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public Integer getQueuePosition() {
+    return this.queuePosition;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public List<String> getLibraries() {
+    return this.libraries;
+  }
+
+  public void setScriptName(String scriptName) {
+    this.scriptName = scriptName;
+  }
+
+  public void setId(int id) {
+    this.id = id;
+  }
+
+  public void setStatus(ScriptStatus status) {
+    this.status = status;
+  }
+
+  public void setCreateTime(Instant createTime) {
+    this.createTime = createTime;
+  }
+
+  public void setStartTime(Instant startTime) {
+    this.startTime = startTime;
+  }
+
+  public void setEndTime(Instant endTime) {
+    this.endTime = endTime;
+  }
+
+  public void setLogsSize(int logsSize) {
+    this.logsSize = logsSize;
+  }
+
+  public void setPriority(int priority) {
+    this.priority = priority;
+  }
+
+  public void setQueuePosition(Integer queuePosition) {
+    this.queuePosition = queuePosition;
+  }
+
+  public void setLimits(ScriptLimits limits) {
+    this.limits = limits;
+  }
+
+  public void setBindings(ScriptBindings bindings) {
+    this.bindings = bindings;
+  }
+
+  public void setLibraries(List<String> libraries) {
+    this.libraries = libraries;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    if (!super.equals(o))
+      return false;
+    ExecutionInfo that = (ExecutionInfo) o;
+    return this.id == that.id && Objects.equals(this.scriptName, that.scriptName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), this.scriptName, this.id);
+  }
+
+}
@@ -0,0 +1,70 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.web.controller.LibrariesController;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Helpful class for displaying information about a library
+ */
+public class LibraryInfo extends RepresentationModel<LibraryInfo> {
+
+  private String name;
+  private int size;
+  private Instant createTime;
+
+  /**
+   * Method for adding HATEOAS links.
+   */
+  public void setLinks() {
+    add(linkTo(methodOn(LibrariesController.class).getLibraryInfo(this.name)).withSelfRel());
+    add(linkTo(methodOn(LibrariesController.class).getLibraryCode(this.name)).withRel("code"));
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public int getSize() {
+    return this.size;
+  }
+
+  public String getCreateTime() {
+    return this.createTime.toString();
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  public void setCreateTime(Instant createTime) {
+    this.createTime = createTime;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    if (!super.equals(o))
+      return false;
+    LibraryInfo that = (LibraryInfo) o;
+    return Objects.equals(this.name, that.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), this.name);
+  }
+
+}
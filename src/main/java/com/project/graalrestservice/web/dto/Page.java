@@ -38,10 +38,17 @@ public class Page<T extends List<?>> extends RepresentationModel<Page<T>> {
   }
 
   /**
-   * Method for adding HATEOAS links. Parameters are needed to form a correct link
+   * Method for adding HATEOAS links. Parameters are needed to form a correct link. The links to the
+   * previous and next page by number are added only to a page requested by number, the "next" link
+   * by cursor is added to every page that is not the last one
    */
   public void setLinks(int pageSize, ScriptStatus status, String nameContains, boolean orderByName,
-      boolean reverseOrder) {
+      boolean reverseOrder, String nextCursor) {
+    if (nextCursor != null)
+      add(linkTo(methodOn(ScriptsController.class).getScriptListPageAfter(nextCursor, pageSize,
+          status, nameContains, orderByName, reverseOrder)).withRel("next").expand());
+    if (this.pageNumber < 1)
+      return;
     if (this.pageNumber > 1)
       add(linkTo(methodOn(ScriptsController.class).getScriptListPage(this.pageNumber - 1, pageSize,
           status, nameContains, orderByName, reverseOrder)).withRel("previousPage").expand());
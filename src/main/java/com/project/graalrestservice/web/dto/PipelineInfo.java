@@ -0,0 +1,91 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.web.controller.PipelinesController;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Helpful class for displaying information about a pipeline and its nodes
+ */
+public class PipelineInfo extends RepresentationModel<PipelineInfo> {
+
+  private String name;
+  private ScriptStatus status;
+  private Instant createTime;
+  private Instant endTime;
+  private List<PipelineNodeInfo> nodes;
+
+  /**
+   * Method for adding HATEOAS links, including the links of the nodes.
+   */
+  public void setLinks() {
+    add(linkTo(methodOn(PipelinesController.class).getPipelineInfo(this.name)).withSelfRel());
+    for (PipelineNodeInfo node : this.nodes)
+      node.setLinks(this.name);
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public String getCreateTime() {
+    return this.createTime.toString();
+  }
+
+  public String getEndTime() {
+    return (this.endTime == null) ? null : this.endTime.toString();
+  }
+
+  public List<PipelineNodeInfo> getNodes() {
+    return this.nodes;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public void setStatus(ScriptStatus status) {
+    this.status = status;
+  }
+
+  public void setCreateTime(Instant createTime) {
+    this.createTime = createTime;
+  }
+
+  public void setEndTime(Instant endTime) {
+    this.endTime = endTime;
+  }
+
+  public void setNodes(List<PipelineNodeInfo> nodes) {
+    this.nodes = nodes;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    if (!super.equals(o))
+      return false;
+    PipelineInfo that = (PipelineInfo) o;
+    return Objects.equals(this.name, that.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), this.name);
+  }
+
+}
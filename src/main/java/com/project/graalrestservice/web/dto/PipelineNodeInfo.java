@@ -0,0 +1,119 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.web.controller.PipelinesController;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Helpful class for displaying information about one node of a pipeline
+ */
+public class PipelineNodeInfo extends RepresentationModel<PipelineNodeInfo> {
+
+  private String id;
+  private List<String> dependsOn;
+  private ScriptStatus status;
+  private boolean skipped;
+  private Instant startTime;
+  private Instant endTime;
+  private int logsSize;
+  private Object result;
+
+  /**
+   * Method for adding HATEOAS links.
+   *
+   * @param pipelineName name of the pipeline of the node
+   */
+  public void setLinks(String pipelineName) {
+    add(linkTo(methodOn(PipelinesController.class).getNodeLogs(pipelineName, this.id, null, null))
+        .withRel("logs").expand());
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public List<String> getDependsOn() {
+    return this.dependsOn;
+  }
+
+  public ScriptStatus getStatus() {
+    return this.status;
+  }
+
+  public boolean isSkipped() {
+    return this.skipped;
+  }
+
+  public String getStartTime() {
+    return (this.startTime == null) ? null : this.startTime.toString();
+  }
+
+  public String getEndTime() {
+    return (this.endTime == null) ? null : this.endTime.toString();
+  }
+
+  public int getLogsSize() {
+    return this.logsSize;
+  }
+
+  public Object getResult() {
+    return this.result;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public void setDependsOn(List<String> dependsOn) {
+    this.dependsOn = dependsOn;
+  }
+
+  public void setStatus(ScriptStatus status) {
+    this.status = status;
+  }
+
+  public void setSkipped(boolean skipped) {
+    this.skipped = skipped;
+  }
+
+  public void setStartTime(Instant startTime) {
+    this.startTime = startTime;
+  }
+
+  public void setEndTime(Instant endTime) {
+    this.endTime = endTime;
+  }
+
+  public void setLogsSize(int logsSize) {
+    this.logsSize = logsSize;
+  }
+
+  public void setResult(Object result) {
+    this.result = result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    if (!super.equals(o))
+      return false;
+    PipelineNodeInfo that = (PipelineNodeInfo) o;
+    return Objects.equals(this.id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), this.id);
+  }
+
+}
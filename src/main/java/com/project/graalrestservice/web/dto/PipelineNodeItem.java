@@ -0,0 +1,52 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.model.PipelineNodeSubmission;
+
+import java.util.List;
+
+/**
+ * One node of a pipeline request. Besides the id, the code and the ids of the nodes it depends on,
+ * it can contain the same {@link ScriptRunParameters run parameters} as a request to run a single
+ * script
+ */
+public class PipelineNodeItem extends ScriptRunParameters {
+
+  private String id;
+  private String code;
+  private List<String> dependsOn;
+
+  /**
+   * Converts the item to a submission for the service
+   *
+   * @return PipelineNodeSubmission
+   */
+  public PipelineNodeSubmission toSubmission() {
+    return new PipelineNodeSubmission(this.id, this.code, getPriority(), toLimits(), getBindings(),
+        getLibraries(), this.dependsOn);
+  }
+
+  public String getId() {
+    return this.id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getCode() {
+    return this.code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public List<String> getDependsOn() {
+    return this.dependsOn;
+  }
+
+  public void setDependsOn(List<String> dependsOn) {
+    this.dependsOn = dependsOn;
+  }
+
+}
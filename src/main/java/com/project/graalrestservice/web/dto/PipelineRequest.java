@@ -0,0 +1,29 @@
+package com.project.graalrestservice.web.dto;
+
+import java.util.List;
+
+/**
+ * Body of a request to start a pipeline: its name and its nodes
+ */
+public class PipelineRequest {
+
+  private String name;
+  private List<PipelineNodeItem> nodes;
+
+  public String getName() {
+    return this.name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public List<PipelineNodeItem> getNodes() {
+    return this.nodes;
+  }
+
+  public void setNodes(List<PipelineNodeItem> nodes) {
+    this.nodes = nodes;
+  }
+
+}
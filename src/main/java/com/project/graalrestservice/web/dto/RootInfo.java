@@ -1,9 +1,13 @@
 package com.project.graalrestservice.web.dto;
 
+import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.web.controller.LibrariesController;
+import com.project.graalrestservice.web.controller.PipelinesController;
 import com.project.graalrestservice.web.controller.RootController;
 import com.project.graalrestservice.web.controller.ScriptsController;
 import org.springframework.hateoas.RepresentationModel;
 
+import java.util.Map;
 import java.util.Objects;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -14,17 +18,32 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 public class RootInfo extends RepresentationModel<RootInfo> {
 
   private final String info;
+  private final ContextPoolInfo contextPool;
+  private final Map<ScriptStatus, Integer> scriptCounts;
 
-  public RootInfo(String info) {
+  public RootInfo(String info, ContextPoolInfo contextPool,
+      Map<ScriptStatus, Integer> scriptCounts) {
     this.info = info;
+    this.contextPool = contextPool;
+    this.scriptCounts = scriptCounts;
     add(linkTo(RootController.class).withSelfRel());
     add(linkTo(ScriptsController.class).withRel("scriptList"));
+    add(linkTo(PipelinesController.class).withRel("pipelineList"));
+    add(linkTo(LibrariesController.class).withRel("libraryList"));
   }
 
   public String getInfo() {
     return this.info;
   }
 
+  public ContextPoolInfo getContextPool() {
+    return this.contextPool;
+  }
+
+  public Map<ScriptStatus, Integer> getScriptCounts() {
+    return this.scriptCounts;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
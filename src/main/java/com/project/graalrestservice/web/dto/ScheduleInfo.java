@@ -0,0 +1,194 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.enumeration.ScheduleOverlapPolicy;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.web.controller.ScriptsController;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Helpful class for displaying information about the schedule of a script
+ */
+public class ScheduleInfo extends RepresentationModel<ScheduleInfo> {
+
+  private String scriptName;
+  private String cron;
+  private Long intervalMillis;
+  private ScheduleOverlapPolicy overlapPolicy;
+  private int priority;
+  private ScriptLimits limits;
+  private ScriptBindings bindings;
+  private List<String> libraries;
+  private Instant createTime;
+  private Instant nextRunTime;
+  private Instant lastRunTime;
+  private Integer lastExecutionId;
+  private long runCount;
+  private long skipCount;
+  private boolean catchUpPending;
+  private String lastError;
+
+  /**
+   * Method for adding HATEOAS links.
+   */
+  public void setLinks() {
+    add(linkTo(methodOn(ScriptsController.class).getSchedule(this.scriptName)).withSelfRel());
+    add(linkTo(methodOn(ScriptsController.class).getExecutionList(this.scriptName))
+        .withRel("executions"));
+    add(linkTo(methodOn(ScriptsController.class).getSingleScriptInfo(this.scriptName))
+        .withRel("scriptInfo"));
+  }
+
+  public String getScriptName() {
+    return this.scriptName;
+  }
+
+  public String getCron() {
+    return this.cron;
+  }
+
+  public Long getIntervalMillis() {
+    return this.intervalMillis;
+  }
+
+  public ScheduleOverlapPolicy getOverlapPolicy() {
+    return this.overlapPolicy;
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public List<String> getLibraries() {
+    return this.libraries;
+  }
+
+  public String getCreateTime() {
+    return this.createTime.toString();
+  }
+
+  public String getNextRunTime() {
+    return (this.nextRunTime == null) ? null : this.nextRunTime.toString();
+  }
+
+  public String getLastRunTime() {
+    return (this.lastRunTime == null) ? null : this.lastRunTime.toString();
+  }
+
+  public Integer getLastExecutionId() {
+    return this.lastExecutionId;
+  }
+
+  public long getRunCount() {
+    return this.runCount;
+  }
+
+  public long getSkipCount() {
+    return this.skipCount;
+  }
+
+  public boolean isCatchUpPending() {
+    return this.catchUpPending;
+  }
+
+  public String getLastError() {
+    return this.lastError;
+  }
+
+  public void setScriptName(String scriptName) {
+    this.scriptName = scriptName;
+  }
+
+  public void setCron(String cron) {
+    this.cron = cron;
+  }
+
+  public void setIntervalMillis(Long intervalMillis) {
+    this.intervalMillis = intervalMillis;
+  }
+
+  public void setOverlapPolicy(ScheduleOverlapPolicy overlapPolicy) {
+    this.overlapPolicy = overlapPolicy;
+  }
+
+  public void setPriority(int priority) {
+    this.priority = priority;
+  }
+
+  public void setLimits(ScriptLimits limits) {
+    this.limits = limits;
+  }
+
+  public void setBindings(ScriptBindings bindings) {
+    this.bindings = bindings;
+  }
+
+  public void setLibraries(List<String> libraries) {
+    this.libraries = libraries;
+  }
+
+  public void setCreateTime(Instant createTime) {
+    this.createTime = createTime;
+  }
+
+  public void setNextRunTime(Instant nextRunTime) {
+    this.nextRunTime = nextRunTime;
+  }
+
+  public void setLastRunTime(Instant lastRunTime) {
+    this.lastRunTime = lastRunTime;
+  }
+
+  public void setLastExecutionId(Integer lastExecutionId) {
+    this.lastExecutionId = lastExecutionId;
+  }
+
+  public void setRunCount(long runCount) {
+    this.runCount = runCount;
+  }
+
+  public void setSkipCount(long skipCount) {
+    this.skipCount = skipCount;
+  }
+
+  public void setCatchUpPending(boolean catchUpPending) {
+    this.catchUpPending = catchUpPending;
+  }
+
+  public void setLastError(String lastError) {
+    this.lastError = lastError;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (o == null || getClass() != o.getClass())
+      return false;
+    if (!super.equals(o))
+      return false;
+    ScheduleInfo that = (ScheduleInfo) o;
+    return Objects.equals(this.scriptName, that.scriptName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), this.scriptName);
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.enumeration.ScheduleOverlapPolicy;
+
+/**
+ * Query parameters of a request to schedule a script. Besides the {@link ScriptRunParameters run
+ * parameters} of the scheduled executions, they contain either a cron expression or an interval
+ */
+public class ScheduleParameters extends ScriptRunParameters {
+
+  /**
+   * Cron expression with six fields (second, minute, hour, day of month, month, day of week)
+   */
+  private String cron;
+  private Long intervalMillis;
+  private ScheduleOverlapPolicy overlapPolicy = ScheduleOverlapPolicy.SKIP;
+
+  public String getCron() {
+    return this.cron;
+  }
+
+  public void setCron(String cron) {
+    this.cron = cron;
+  }
+
+  public Long getIntervalMillis() {
+    return this.intervalMillis;
+  }
+
+  public void setIntervalMillis(Long intervalMillis) {
+    this.intervalMillis = intervalMillis;
+  }
+
+  public ScheduleOverlapPolicy getOverlapPolicy() {
+    return this.overlapPolicy;
+  }
+
+  public void setOverlapPolicy(ScheduleOverlapPolicy overlapPolicy) {
+    this.overlapPolicy = overlapPolicy;
+  }
+
+}
@@ -0,0 +1,40 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.model.ScriptSubmission;
+
+/**
+ * One script of a batch submission. Besides the name and the code, it can contain the same
+ * {@link ScriptRunParameters run parameters} as a request to run a single script
+ */
+public class ScriptBatchItem extends ScriptRunParameters {
+
+  private String name;
+  private String code;
+
+  /**
+   * Converts the item to a submission for the service
+   *
+   * @return ScriptSubmission
+   */
+  public ScriptSubmission toSubmission() {
+    return new ScriptSubmission(this.name, this.code, getPriority(), toLimits(), getBindings(),
+        getLibraries());
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getCode() {
+    return this.code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+}
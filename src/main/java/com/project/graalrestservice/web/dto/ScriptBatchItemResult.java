@@ -0,0 +1,31 @@
+package com.project.graalrestservice.web.dto;
+
+/**
+ * Helpful class for displaying the result of one script of a batch submission. Contains either the
+ * information about the added script or the error, because of which it was not added
+ */
+public class ScriptBatchItemResult {
+
+  private final String name;
+  private final ScriptInfoForSingle script;
+  private final ExceptionInfo error;
+
+  public ScriptBatchItemResult(String name, ScriptInfoForSingle script, ExceptionInfo error) {
+    this.name = name;
+    this.script = script;
+    this.error = error;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public ScriptInfoForSingle getScript() {
+    return this.script;
+  }
+
+  public ExceptionInfo getError() {
+    return this.error;
+  }
+
+}
@@ -2,9 +2,12 @@ package com.project.graalrestservice.web.dto;
 
 import com.project.graalrestservice.web.controller.ScriptsController;
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
 import org.springframework.hateoas.RepresentationModel;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -21,11 +24,35 @@ public class ScriptInfoForSingle extends RepresentationModel<ScriptInfoForSingle
   private Instant startTime;
   private Instant endTime;
   private int logsSize;
+  private int priority;
+  private Integer queuePosition;
+  private ScriptLimits limits;
+  private ScriptBindings bindings;
+  private List<String> libraries;
+  private int executionCount;
+  /**
+   * True if the script has been evicted from the repository and is read from the archive
+   */
+  private boolean archived;
 
   /**
    * Method for adding HATEOAS links.
    */
   public void setLinks() {
+    add(linkTo(methodOn(ScriptsController.class).getScriptLogs(this.name, null, null))
+        .withRel("logs").expand());
+    add(linkTo(methodOn(ScriptsController.class).getScriptCode(this.name)).withRel("script"));
+    add(linkTo(methodOn(ScriptsController.class).getExecutionList(this.name))
+        .withRel("executions"));
+    add(linkTo(methodOn(ScriptsController.class).getSingleScriptInfo(this.name)).withSelfRel());
+    add(linkTo(ScriptsController.class).withRel("scriptList"));
+  }
+
+  /**
+   * Method for adding HATEOAS links to an archived script, which has only the logs and the code of
+   * its latest execution.
+   */
+  public void setArchivedLinks() {
     add(linkTo(methodOn(ScriptsController.class).getScriptLogs(this.name, null, null))
         .withRel("logs").expand());
     add(linkTo(methodOn(ScriptsController.class).getScriptCode(this.name)).withRel("script"));
@@ -57,6 +84,34 @@ public class ScriptInfoForSingle extends RepresentationModel<ScriptInfoForSingle
     return this.logsSize;
   }
 
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public Integer getQueuePosition() {
+    return this.queuePosition;
+  }
+
+  public ScriptLimits getLimits() {
+    return this.limits;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public List<String> getLibraries() {
+    return this.libraries;
+  }
+
+  public int getExecutionCount() {
+    return this.executionCount;
+  }
+
+  public boolean isArchived() {
+    return this.archived;
+  }
+
   public void setName(String name) {
     this.name = name;
   }
@@ -81,6 +136,34 @@ public class ScriptInfoForSingle extends RepresentationModel<ScriptInfoForSingle
     this.logsSize = logsSize;
   }
 
+  public void setPriority(int priority) {
+    this.priority = priority;
+  }
+
+  public void setQueuePosition(Integer queuePosition) {
+    this.queuePosition = queuePosition;
+  }
+
+  public void setLimits(ScriptLimits limits) {
+    this.limits = limits;
+  }
+
+  public void setBindings(ScriptBindings bindings) {
+    this.bindings = bindings;
+  }
+
+  public void setLibraries(List<String> libraries) {
+    this.libraries = libraries;
+  }
+
+  public void setExecutionCount(int executionCount) {
+    this.executionCount = executionCount;
+  }
+
+  public void setArchived(boolean archived) {
+    this.archived = archived;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o)
@@ -0,0 +1,95 @@
+package com.project.graalrestservice.web.dto;
+
+import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+
+import java.util.List;
+
+/**
+ * Optional query parameters of a request to run a script. Spring binds them from the request
+ * parameters with the same names
+ */
+public class ScriptRunParameters {
+
+  /**
+   * Priority of the script in the execution queue, from {@link Script#MIN_PRIORITY} to
+   * {@link Script#MAX_PRIORITY}
+   */
+  private int priority = Script.DEFAULT_PRIORITY;
+  /**
+   * Execution limits of the script. If a limit is not specified, the default one is used, 0 means
+   * unlimited
+   */
+  private Long maxWallTimeMillis;
+  private Long maxCpuTimeMillis;
+  private Long maxStatements;
+  /**
+   * Input parameters of the script, a JSON object whose members become global variables of the
+   * script. In a query it is passed as JSON text, for example {@code bindings={"name":"World"}}
+   */
+  private ScriptBindings bindings = ScriptBindings.empty();
+  /**
+   * Names of the uploaded libraries that are loaded before the code of the script, in this order.
+   * In a query they are separated by commas, for example {@code libraries=lodash,dates}
+   */
+  private List<String> libraries = List.of();
+
+  /**
+   * Collects the limits specified in the request
+   *
+   * @return ScriptLimits, in which the limits that are not specified are not set
+   */
+  public ScriptLimits toLimits() {
+    return new ScriptLimits(this.maxWallTimeMillis, this.maxCpuTimeMillis, this.maxStatements);
+  }
+
+  public int getPriority() {
+    return this.priority;
+  }
+
+  public void setPriority(int priority) {
+    this.priority = priority;
+  }
+
+  public Long getMaxWallTimeMillis() {
+    return this.maxWallTimeMillis;
+  }
+
+  public void setMaxWallTimeMillis(Long maxWallTimeMillis) {
+    this.maxWallTimeMillis = maxWallTimeMillis;
+  }
+
+  public Long getMaxCpuTimeMillis() {
+    return this.maxCpuTimeMillis;
+  }
+
+  public void setMaxCpuTimeMillis(Long maxCpuTimeMillis) {
+    this.maxCpuTimeMillis = maxCpuTimeMillis;
+  }
+
+  public Long getMaxStatements() {
+    return this.maxStatements;
+  }
+
+  public void setMaxStatements(Long maxStatements) {
+    this.maxStatements = maxStatements;
+  }
+
+  public ScriptBindings getBindings() {
+    return this.bindings;
+  }
+
+  public void setBindings(ScriptBindings bindings) {
+    this.bindings = bindings;
+  }
+
+  public List<String> getLibraries() {
+    return this.libraries;
+  }
+
+  public void setLibraries(List<String> libraries) {
+    this.libraries = libraries;
+  }
+
+}
@@ -1,6 +1,7 @@
 package com.project.graalrestservice.web.exception_mapper;
 
 import com.project.graalrestservice.domain.script.exception.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -26,12 +27,38 @@ public class ZalandoExceptionHandler implements ProblemHandling {
         .withType(type).with("message: ", throwable.getMessage());
   }
 
+  @ExceptionHandler
+  public ResponseEntity<Problem> handleExecutorSaturatedException(ExecutorSaturatedException e,
+      NativeWebRequest request) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+    return create(TOO_MANY_REQUESTS, e, request, headers);
+  }
+
+  @ExceptionHandler
+  public ResponseEntity<Problem> handleLibraryNotFoundException(LibraryNotFoundException e,
+      NativeWebRequest request) {
+    return create(NOT_FOUND, e, request);
+  }
+
   @ExceptionHandler
   public ResponseEntity<Problem> handlePageDoesNotExistException(PageDoesNotExistException e,
       NativeWebRequest request) {
     return create(NOT_FOUND, e, request);
   }
 
+  @ExceptionHandler
+  public ResponseEntity<Problem> handlePipelineNotFoundException(PipelineNotFoundException e,
+      NativeWebRequest request) {
+    return create(NOT_FOUND, e, request);
+  }
+
+  @ExceptionHandler
+  public ResponseEntity<Problem> handleScheduleNotFoundException(ScheduleNotFoundException e,
+      NativeWebRequest request) {
+    return create(NOT_FOUND, e, request);
+  }
+
   @ExceptionHandler
   public ResponseEntity<Problem> handleScriptNotFoundException(ScriptNotFoundException e,
       NativeWebRequest request) {
@@ -0,0 +1,17 @@
+package com.project.graalrestservice.web.mapping;
+
+import com.project.graalrestservice.domain.script.model.Evaluation;
+import com.project.graalrestservice.web.dto.EvaluationInfo;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * Necessary to simplify the conversion of {@link Evaluation} to {@link EvaluationInfo}
+ */
+@Mapper
+public interface EvaluationMapper {
+  EvaluationMapper forEvaluation = Mappers.getMapper(EvaluationMapper.class);
+
+  EvaluationInfo map(Evaluation evaluation);
+
+}
@@ -0,0 +1,22 @@
+package com.project.graalrestservice.web.mapping;
+
+import com.project.graalrestservice.domain.script.model.ExecutionSnapshot;
+import com.project.graalrestservice.domain.script.model.ScriptExecution;
+import com.project.graalrestservice.web.dto.ExecutionInfo;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * Necessary to simplify the conversion of {@link ScriptExecution} to {@link ExecutionInfo}. The
+ * {@link ScriptExecution#getSnapshot() snapshot} of the execution is mapped
+ */
+@Mapper
+public interface ExecutionMapper {
+  ExecutionMapper forExecution = Mappers.getMapper(ExecutionMapper.class);
+
+  @Mapping(target = "queuePosition", ignore = true)
+  @Mapping(target = "libraries", source = "libraryNames")
+  ExecutionInfo map(ExecutionSnapshot snapshot);
+
+}
@@ -0,0 +1,17 @@
+package com.project.graalrestservice.web.mapping;
+
+import com.project.graalrestservice.domain.script.model.ScriptLibrary;
+import com.project.graalrestservice.web.dto.LibraryInfo;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * Necessary to simplify the conversion of {@link ScriptLibrary} to {@link LibraryInfo}
+ */
+@Mapper
+public interface LibraryMapper {
+  LibraryMapper forLibrary = Mappers.getMapper(LibraryMapper.class);
+
+  LibraryInfo map(ScriptLibrary library);
+
+}
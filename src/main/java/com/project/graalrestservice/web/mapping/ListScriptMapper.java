@@ -1,5 +1,6 @@
 package com.project.graalrestservice.web.mapping;
 
+import com.project.graalrestservice.domain.script.model.ExecutionSnapshot;
 import com.project.graalrestservice.domain.script.model.Script;
 import com.project.graalrestservice.web.dto.ScriptInfoForList;
 import org.mapstruct.Mapper;
@@ -7,13 +8,16 @@ import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 /**
- * Necessary to simplify the conversion of {@link Script} to {@link ScriptInfoForList}
+ * Necessary to simplify the conversion of {@link Script} to {@link ScriptInfoForList}. The
+ * {@link Script#getSnapshot() snapshot} of the script is mapped, so the item shows the script at
+ * one moment
  */
 @Mapper
 public interface ListScriptMapper {
   ListScriptMapper forList = Mappers.getMapper(ListScriptMapper.class);
 
-  @Mapping(target = "status")
-  ScriptInfoForList map(Script script);
+  @Mapping(target = "name", source = "scriptName")
+  @Mapping(target = "createTime", source = "scriptCreateTime")
+  ScriptInfoForList map(ExecutionSnapshot snapshot);
 
 }
@@ -0,0 +1,24 @@
+package com.project.graalrestservice.web.mapping;
+
+import com.project.graalrestservice.domain.script.model.Pipeline;
+import com.project.graalrestservice.domain.script.model.PipelineNode;
+import com.project.graalrestservice.web.dto.PipelineInfo;
+import com.project.graalrestservice.web.dto.PipelineNodeInfo;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * Necessary to simplify the conversion of {@link Pipeline} to {@link PipelineInfo}
+ */
+@Mapper
+public interface PipelineMapper {
+  PipelineMapper forPipeline = Mappers.getMapper(PipelineMapper.class);
+
+  @Mapping(target = "links", ignore = true)
+  PipelineInfo map(Pipeline pipeline);
+
+  @Mapping(target = "links", ignore = true)
+  PipelineNodeInfo map(PipelineNode node);
+
+}
@@ -0,0 +1,17 @@
+package com.project.graalrestservice.web.mapping;
+
+import com.project.graalrestservice.domain.script.model.ScriptSchedule;
+import com.project.graalrestservice.web.dto.ScheduleInfo;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * Necessary to simplify the conversion of {@link ScriptSchedule} to {@link ScheduleInfo}
+ */
+@Mapper
+public interface ScheduleMapper {
+  ScheduleMapper forSchedule = Mappers.getMapper(ScheduleMapper.class);
+
+  ScheduleInfo map(ScriptSchedule schedule);
+
+}
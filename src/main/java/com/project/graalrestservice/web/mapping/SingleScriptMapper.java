@@ -1,5 +1,7 @@
 package com.project.graalrestservice.web.mapping;
 
+import com.project.graalrestservice.domain.script.model.ArchivedScript;
+import com.project.graalrestservice.domain.script.model.ExecutionSnapshot;
 import com.project.graalrestservice.domain.script.model.Script;
 import com.project.graalrestservice.web.dto.ScriptInfoForSingle;
 import org.mapstruct.Mapper;
@@ -7,13 +9,27 @@ import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 /**
- * Necessary to simplify the conversion of {@link Script} to {@link ScriptInfoForSingle}
+ * Necessary to simplify the conversion of {@link Script} to {@link ScriptInfoForSingle}. The
+ * {@link Script#getSnapshot() snapshot} of the script is mapped, so all the fields belong to one
+ * moment. An {@link ArchivedScript} is mapped in the same way, without the fields that are not
+ * archived
  */
 @Mapper
 public interface SingleScriptMapper {
   SingleScriptMapper forSingle = Mappers.getMapper(SingleScriptMapper.class);
 
-  @Mapping(target = "status")
-  ScriptInfoForSingle map(Script script);
+  @Mapping(target = "name", source = "scriptName")
+  @Mapping(target = "createTime", source = "scriptCreateTime")
+  @Mapping(target = "executionCount", source = "id")
+  @Mapping(target = "queuePosition", ignore = true)
+  @Mapping(target = "libraries", source = "libraryNames")
+  @Mapping(target = "archived", ignore = true)
+  ScriptInfoForSingle map(ExecutionSnapshot snapshot);
+
+  @Mapping(target = "queuePosition", ignore = true)
+  @Mapping(target = "bindings", ignore = true)
+  @Mapping(target = "libraries", source = "libraryNames")
+  @Mapping(target = "archived", constant = "true")
+  ScriptInfoForSingle map(ArchivedScript archivedScript);
 
 }
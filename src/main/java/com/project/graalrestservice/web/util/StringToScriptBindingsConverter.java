@@ -0,0 +1,13 @@
+package com.project.graalrestservice.web.util;
+
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import org.springframework.core.convert.converter.Converter;
+
+public class StringToScriptBindingsConverter implements Converter<String, ScriptBindings> {
+
+  @Override
+  public ScriptBindings convert(String source) {
+    return ScriptBindings.parse(source);
+  }
+
+}
@@ -1,31 +1,103 @@
 package com.project.graalrestservice.web.controller;
 
 import com.project.graalrestservice.domain.script.enumeration.ScriptStatus;
+import com.project.graalrestservice.domain.script.enumeration.ScriptValidationMode;
 import com.project.graalrestservice.domain.script.exception.*;
+import com.project.graalrestservice.domain.script.model.ArchivedScript;
+import com.project.graalrestservice.domain.script.model.Evaluation;
+import com.project.graalrestservice.domain.script.model.ExecutionSnapshot;
+import com.project.graalrestservice.domain.script.model.RetentionPolicy;
 import com.project.graalrestservice.domain.script.model.Script;
+import com.project.graalrestservice.domain.script.model.ScriptBindings;
+import com.project.graalrestservice.domain.script.model.ScriptCursor;
+import com.project.graalrestservice.domain.script.model.ScriptExecution;
+import com.project.graalrestservice.domain.script.model.ScriptLimits;
+import com.project.graalrestservice.domain.script.model.ScriptMetadata;
+import com.project.graalrestservice.domain.script.model.ScriptPage;
+import com.project.graalrestservice.domain.script.service.ScriptService;
+import com.project.graalrestservice.domain.script.service.service_implementation.JournaledScriptRepository;
+import com.project.graalrestservice.domain.script.service.service_implementation.RetentionServiceImpl;
 import com.project.graalrestservice.domain.script.service.service_implementation.ScriptRepositoryImpl;
+import com.project.graalrestservice.domain.script.service.service_implementation.TieredScriptRepository;
+import com.project.graalrestservice.domain.script.util.ContextPool;
+import com.project.graalrestservice.domain.script.util.PooledContext;
+import com.project.graalrestservice.domain.script.util.Prioritized;
+import com.project.graalrestservice.domain.script.util.ScriptArchive;
+import com.project.graalrestservice.domain.script.util.ScriptMetadataStore;
+import com.project.graalrestservice.domain.script.util.ScriptPriorityQueue;
+import com.project.graalrestservice.domain.script.util.ScriptTaskExecutor;
+import com.project.graalrestservice.domain.script.util.ScriptWatchdog;
+import com.project.graalrestservice.domain.script.util.SourceCache;
+import com.project.graalrestservice.domain.script.util.VirtualThreadTaskExecutor;
+import com.project.graalrestservice.web.dto.EvaluationInfo;
+import com.project.graalrestservice.web.dto.ExecutionInfo;
 import com.project.graalrestservice.web.dto.Page;
+import com.project.graalrestservice.web.dto.PipelineInfo;
+import com.project.graalrestservice.web.dto.PipelineNodeInfo;
+import com.project.graalrestservice.web.dto.PipelineNodeItem;
+import com.project.graalrestservice.web.dto.PipelineRequest;
+import com.project.graalrestservice.web.dto.ScheduleParameters;
+import com.project.graalrestservice.web.dto.ScriptBatchItem;
+import com.project.graalrestservice.web.dto.ScriptBatchItemResult;
 import com.project.graalrestservice.web.dto.ScriptInfoForList;
 import com.project.graalrestservice.web.dto.ScriptInfoForSingle;
+import com.project.graalrestservice.web.dto.ScriptRunParameters;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.util.UriComponentsBuilder;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.project.graalrestservice.domain.script.enumeration.ScriptStatus.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.awaitility.Awaitility.*;
 import static java.util.concurrent.TimeUnit.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 class ScriptsControllerTest {
@@ -34,6 +106,18 @@ class ScriptsControllerTest {
   private ScriptsController scriptsController;
   @Autowired
   private ScriptRepositoryImpl scriptRepositoryImpl;
+  @Autowired
+  private PipelinesController pipelinesController;
+  @Autowired
+  private LibrariesController librariesController;
+  @Autowired
+  private SourceCache sourceCache;
+  @Autowired
+  private ContextPool contextPool;
+  @Autowired
+  private ScriptWatchdog scriptWatchdog;
+  @Autowired
+  private ScriptTaskExecutor scriptTaskExecutor;
   private Map<String, Script> scriptMap;
 
   @BeforeEach
@@ -44,40 +128,49 @@ class ScriptsControllerTest {
       mapField.setAccessible(true);
       scriptMap = (Map<String, Script>) mapField.get(scriptRepositoryImpl);
     }
-    Constructor<Script> scriptConstructor =
-        Script.class.getDeclaredConstructor(String.class, String.class, int.class);
+    Constructor<Script> scriptConstructor = Script.class.getDeclaredConstructor(String.class,
+        Source.class, ContextPool.class, int.class, int.class, ScriptLimits.class,
+        ScriptBindings.class, List.class, ScriptWatchdog.class, int.class);
     scriptConstructor.setAccessible(true);
-    Field statusField = Script.class.getDeclaredField("status");
-    statusField.setAccessible(true);
+    Method transition = ScriptExecution.class.getDeclaredMethod("transition", ScriptStatus.class,
+        ScriptStatus.class);
+    transition.setAccessible(true);
 
     int bufCapacity = 65536;
+    Source source = Source.create("js", "let a = 0;");
 
-    Script s0 = scriptConstructor.newInstance("q_script", "let a = 0;", bufCapacity);
-    statusField.set(s0, IN_QUEUE);
+    Script s0 = scriptConstructor.newInstance("q_script", source, null, bufCapacity,
+        Script.DEFAULT_PRIORITY, null, null, null, null, 10);
 
-    Script s1 = scriptConstructor.newInstance("r_script", "let a = 0;", bufCapacity);
-    statusField.set(s1, RUNNING);
+    Script s1 = scriptConstructor.newInstance("r_script", source, null, bufCapacity,
+        Script.DEFAULT_PRIORITY, null, null, null, null, 10);
+    transition.invoke(s1.getLatestExecution(), IN_QUEUE, RUNNING);
 
-    Script s2 = scriptConstructor.newInstance("c_script", "let a = 0;", bufCapacity);
-    statusField.set(s2, EXECUTION_CANCELED);
+    Script s2 = scriptConstructor.newInstance("c_script", source, null, bufCapacity,
+        Script.DEFAULT_PRIORITY, null, null, null, null, 10);
+    transition.invoke(s2.getLatestExecution(), IN_QUEUE, EXECUTION_CANCELED);
 
-    Script s3 = scriptConstructor.newInstance("f_script", "let a = 0;", bufCapacity);
-    statusField.set(s3, EXECUTION_FAILED);
+    Script s3 = scriptConstructor.newInstance("f_script", source, null, bufCapacity,
+        Script.DEFAULT_PRIORITY, null, null, null, null, 10);
+    transition.invoke(s3.getLatestExecution(), IN_QUEUE, RUNNING);
+    transition.invoke(s3.getLatestExecution(), RUNNING, EXECUTION_FAILED);
 
-    Script s4 = scriptConstructor.newInstance("s_script", "let a = 0;", bufCapacity);
-    statusField.set(s4, EXECUTION_SUCCESSFUL);
+    Script s4 = scriptConstructor.newInstance("s_script", source, null, bufCapacity,
+        Script.DEFAULT_PRIORITY, null, null, null, null, 10);
+    transition.invoke(s4.getLatestExecution(), IN_QUEUE, RUNNING);
+    transition.invoke(s4.getLatestExecution(), RUNNING, EXECUTION_SUCCESSFUL);
 
-    scriptMap.put("q_script", s0);
-    scriptMap.put("r_script", s1);
-    scriptMap.put("c_script", s2);
-    scriptMap.put("f_script", s3);
-    scriptMap.put("s_script", s4);
+    scriptRepositoryImpl.putScript("q_script", s0);
+    scriptRepositoryImpl.putScript("r_script", s1);
+    scriptRepositoryImpl.putScript("c_script", s2);
+    scriptRepositoryImpl.putScript("f_script", s3);
+    scriptRepositoryImpl.putScript("s_script", s4);
 
   }
 
   @AfterEach
   void tearDown() {
-    scriptMap.clear();
+    List.copyOf(scriptMap.keySet()).forEach(scriptRepositoryImpl::deleteScript);
   }
 
   @Test
@@ -139,6 +232,84 @@ class ScriptsControllerTest {
     assertEquals("c_script", list.get(0).getName());
   }
 
+  @Test
+  void testGetScriptPageByOffset() {
+    List<String> byName = List.of("c_script", "f_script", "q_script", "r_script", "s_script");
+    List<String> byCreateTime = List.of("q_script", "r_script", "c_script", "f_script", "s_script");
+    for (String nameContains : new String[] {null, "_script"}) {
+      assertPagedByOffset(nameContains, true, false, byName);
+      assertPagedByOffset(nameContains, true, true, reversed(byName));
+      assertPagedByOffset(nameContains, false, true, byCreateTime);
+      assertPagedByOffset(nameContains, false, false, reversed(byCreateTime));
+    }
+  }
+
+  /**
+   * Reads the whole list of scripts from the repository in pages of 2 by offset and checks that the
+   * pages together give the expected order, each script once
+   */
+  private void assertPagedByOffset(String nameContains, boolean orderByName, boolean reverseOrder,
+      List<String> expected) {
+    List<String> names = new ArrayList<>();
+    for (int offset = 0; offset < expected.size(); offset += 2) {
+      ScriptPage page = scriptRepositoryImpl.getScriptPage(null, nameContains, orderByName,
+          reverseOrder, null, offset, 2);
+      assertEquals(expected.size(), page.getTotalCount());
+      assertEquals(offset + 2 < expected.size(), page.hasNext());
+      page.getScripts().forEach(script -> names.add(script.getName()));
+    }
+    assertEquals(expected, names, "nameContains=" + nameContains + ", orderByName=" + orderByName
+        + ", reverseOrder=" + reverseOrder);
+    assertTrue(scriptRepositoryImpl
+        .getScriptPage(null, nameContains, orderByName, reverseOrder, null, expected.size(), 2)
+        .getScripts().isEmpty());
+  }
+
+  private static List<String> reversed(List<String> list) {
+    List<String> reversed = new ArrayList<>(list);
+    Collections.reverse(reversed);
+    return reversed;
+  }
+
+  @Test
+  void testGetScriptListPageByCursor() {
+    Page<List<ScriptInfoForList>> page =
+        scriptsController.getScriptListPage(1, 2, null, null, false, false).getBody();
+    assertEquals(List.of("s_script", "f_script"),
+        page.getList().stream().map(ScriptInfoForList::getName).collect(Collectors.toList()));
+    String cursor = UriComponentsBuilder.fromUriString(page.getRequiredLink("next").getHref())
+        .build().getQueryParams().getFirst("cursor");
+    assertEquals(ScriptCursor.of(scriptMap.get("f_script")).encode(), cursor);
+
+    scriptsController.runScript("let a = 0;", "newest_script", new ScriptRunParameters());
+    page = scriptsController.getScriptListPageAfter(cursor, 2, null, null, false, false).getBody();
+    assertEquals(0, page.getPageNumber());
+    assertEquals(6, page.getTotalScripts());
+    assertEquals(List.of("c_script", "r_script"),
+        page.getList().stream().map(ScriptInfoForList::getName).collect(Collectors.toList()));
+
+    cursor = ScriptCursor.of(scriptMap.get("r_script")).encode();
+    page = scriptsController.getScriptListPageAfter(cursor, 2, null, null, false, false).getBody();
+    assertEquals(List.of("q_script"),
+        page.getList().stream().map(ScriptInfoForList::getName).collect(Collectors.toList()));
+    assertTrue(page.getLink("next").isEmpty());
+    cursor = ScriptCursor.of(scriptMap.get("q_script")).encode();
+    assertEquals(0, scriptsController.getScriptListPageAfter(cursor, 2, null, null, false, false)
+        .getBody().getScriptsOnPage());
+
+    cursor = ScriptCursor.of(scriptMap.get("f_script")).encode();
+    page =
+        scriptsController.getScriptListPageAfter(cursor, 10, null, "script", true, false).getBody();
+    assertEquals(List.of("newest_script", "q_script", "r_script", "s_script"),
+        page.getList().stream().map(ScriptInfoForList::getName).collect(Collectors.toList()));
+
+    assertThrows(WrongArgumentException.class, () -> scriptsController
+        .getScriptListPageAfter("not a cursor", 2, null, null, false, false));
+    String lastCursor = cursor;
+    assertThrows(WrongArgumentException.class,
+        () -> scriptsController.getScriptListPageAfter(lastCursor, 0, null, null, false, false));
+  }
+
   @Test
   void testGetScriptListPageFiltration() { // NOSONAR
     Page<List<ScriptInfoForList>> page =
@@ -194,6 +365,33 @@ class ScriptsControllerTest {
     assertEquals("f_script", list.get(0).getName());
   }
 
+  @Test
+  void testGetScriptListByNameIndex() {
+    assertEquals(List.of("r_script"), names(scriptRepositoryImpl.getScriptList(null, "^r_")));
+    assertEquals(List.of("s_script"), names(scriptRepositoryImpl.getScriptList(null, "^s")));
+    assertEquals(List.of(), scriptRepositoryImpl.getScriptList(null, "^script"));
+    assertEquals(5, scriptRepositoryImpl.getScriptList(null, "^").size());
+    assertEquals(5, scriptRepositoryImpl.getScriptList(null, "cript").size());
+    assertEquals(List.of("f_script"), names(scriptRepositoryImpl.getScriptList(null, "f_scr")));
+    assertEquals(List.of(), scriptRepositoryImpl.getScriptList(null, "scriptx"));
+    assertEquals(List.of("c_script"),
+        names(scriptRepositoryImpl.getScriptList(EXECUTION_CANCELED, "_script")));
+
+    scriptsController.deleteScript("f_script");
+    assertEquals(List.of(), scriptRepositoryImpl.getScriptList(null, "f_scr"));
+    assertEquals(List.of(), scriptRepositoryImpl.getScriptList(null, "^f"));
+    assertEquals(4, scriptRepositoryImpl.getScriptList(null, "cript").size());
+
+    Page<List<ScriptInfoForList>> page =
+        scriptsController.getScriptListPage(1, 10, null, "^c", true, false).getBody();
+    assertEquals(1, page.getTotalScripts());
+    assertEquals("c_script", page.getList().get(0).getName());
+  }
+
+  private static List<String> names(List<Script> scripts) {
+    return scripts.stream().map(Script::getName).sorted().collect(Collectors.toList());
+  }
+
   @Test
   void testGetScriptListPageSorting() { // NOSONAR
     Page<List<ScriptInfoForList>> page =
@@ -358,42 +556,120 @@ class ScriptsControllerTest {
 
   @Test
   void testRunScriptExceptionsThrowing() {
-    assertThrows(WrongNameException.class, () -> scriptsController.runScript("let a = 0;", "!@#"));
-    assertThrows(WrongNameException.class, () -> scriptsController.runScript("let a = 0;", "$%^"));
-    assertThrows(WrongNameException.class, () -> scriptsController.runScript("let a = 0;", "&*("));
     assertThrows(WrongNameException.class,
-        () -> scriptsController.runScript("let a = 0;", "asd(as)"));
+        () -> scriptsController.runScript("let a = 0;", "!@#", new ScriptRunParameters()));
+    assertThrows(WrongNameException.class,
+        () -> scriptsController.runScript("let a = 0;", "$%^", new ScriptRunParameters()));
+    assertThrows(WrongNameException.class,
+        () -> scriptsController.runScript("let a = 0;", "&*(", new ScriptRunParameters()));
+    assertThrows(WrongNameException.class,
+        () -> scriptsController.runScript("let a = 0;", "asd(as)", new ScriptRunParameters()));
     assertThrows(WrongNameException.class,
         () -> scriptsController.runScript("let a = 0;",
             "aaaaaaaaaaAAAAAAAAAAaaaaaaaaaaAAAAAAAAAAaaaaaaaaaa"
-                + "aaaaaaaaaaAAAAAAAAAAaaaaaaaaaaAAAAAAAAAAaaaaaaaaaaT"));
+                + "aaaaaaaaaaAAAAAAAAAAaaaaaaaaaaAAAAAAAAAAaaaaaaaaaaT",
+            new ScriptRunParameters()));
     assertThrows(WrongNameException.class,
-        () -> scriptsController.runScript("let a = 0;", "q_script"));
+        () -> scriptsController.runScript("let a = 0;", "q_script", new ScriptRunParameters()));
     assertThrows(WrongNameException.class,
-        () -> scriptsController.runScript("let a = 0;", "f_script"));
+        () -> scriptsController.runScript("let a = 0;", "f_script", new ScriptRunParameters()));
     assertThrows(WrongScriptException.class,
-        () -> scriptsController.runScript("leta a = 0;", "new1"));
+        () -> scriptsController.runScript("leta a = 0;", "new1", new ScriptRunParameters()));
+
+    assertDoesNotThrow(
+        () -> scriptsController.runScript("let a = 0;", "new2", new ScriptRunParameters()));
+    assertDoesNotThrow(
+        () -> scriptsController
+            .runScript("let a = 0;",
+                "aaaaaaaaaaAAAAAAAAAAaaaaaaaaaaAAAAAAAAAAaaaaaaaaaa"
+                    + "aaaaaaaaaaAAAAAAAAAAaaaaaaaaaaAAAAAAAAAAaaaaaaaaaa",
+                new ScriptRunParameters()));
+
+    assertThrows(WrongNameException.class,
+        () -> scriptsController.runScript("let a = 0;", "new2", new ScriptRunParameters()));
+  }
+
+  @Test
+  void testSameCodeSharesSource() {
+    String code = "const shared = 'testSameCodeSharesSource';";
+    scriptsController.runScript(code, "shared_a", new ScriptRunParameters());
+    scriptsController.runScript(code, "shared_b", new ScriptRunParameters());
+    assertSame(scriptMap.get("shared_a").getSource(), scriptMap.get("shared_b").getSource());
+
+    try (ContextPool pool =
+        new ContextPool(contextPool.getEngine(), 1, 0, 60_000, false, null, false)) {
+      SourceCache cache = new SourceCache(pool, 10);
+      Script first = Script.create("shared_c", code, 65536, cache, pool, ScriptValidationMode.EAGER,
+          Script.DEFAULT_PRIORITY, new ScriptLimits(0L, 0L, 0L), ScriptBindings.empty(), List.of(),
+          scriptWatchdog, 10);
+      Script second = Script.create("shared_d", code, 65536, cache, pool,
+          ScriptValidationMode.EAGER, Script.DEFAULT_PRIORITY, new ScriptLimits(0L, 0L, 0L),
+          ScriptBindings.empty(), List.of(), scriptWatchdog, 10);
+      assertSame(first.getSource(), second.getSource());
+      // one entry, parsed once
+      assertEquals(1, cache.size());
+      assertEquals(1, pool.getHits() + pool.getMisses());
+    }
+  }
 
-    assertDoesNotThrow(() -> scriptsController.runScript("let a = 0;", "new2"));
-    assertDoesNotThrow(() -> scriptsController.runScript("let a = 0;",
-        "aaaaaaaaaaAAAAAAAAAAaaaaaaaaaaAAAAAAAAAAaaaaaaaaaa"
-            + "aaaaaaaaaaAAAAAAAAAAaaaaaaaaaaAAAAAAAAAAaaaaaaaaaa"));
+  @Test
+  void testSourceCacheEvictsLeastRecentlyUsed() {
+    try (ContextPool pool =
+        new ContextPool(contextPool.getEngine(), 1, 0, 60_000, false, null, false)) {
+      // each parse borrows a context, so the borrows count the cache misses
+      LongSupplier parses = () -> pool.getHits() + pool.getMisses();
+      SourceCache cache = new SourceCache(pool, 2);
+      cache.getValidatedSource("'a'");
+      cache.getValidatedSource("'b'");
+      cache.getValidatedSource("'a'");
+      assertEquals(2, parses.getAsLong());
+      cache.getValidatedSource("'c'");
+      assertEquals(3, parses.getAsLong());
+      assertEquals(2, cache.size());
+      cache.getValidatedSource("'a'");
+      assertEquals(3, parses.getAsLong());
+      // 'b' was the least recently used, so it was evicted and is parsed again
+      cache.getValidatedSource("'b'");
+      assertEquals(4, parses.getAsLong());
+      assertEquals(2, cache.size());
+    }
+  }
+
+  @Nested
+  @SpringBootTest(properties = "scripts.engine.validationMode=DEFERRED")
+  @AutoConfigureMockMvc
+  class DeferredValidationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ScriptService scriptService;
+
+    @Test
+    void testRunScriptWithSyntaxError() throws Exception {
+      mockMvc.perform(put("/scripts/deferred_scr").content("leta a = 0;"))
+          .andExpect(status().is2xxSuccessful());
+      Script script = scriptService.getScript("deferred_scr");
+      await().atMost(10, SECONDS).until(script::getStatus, equalTo(EXECUTION_FAILED));
+      assertNotNull(script.getEndTime());
+      assertFalse(script.getOutputLogs().isEmpty());
+      scriptService.deleteScript("deferred_scr");
+    }
 
-    assertThrows(WrongNameException.class, () -> scriptsController.runScript("let a = 0;", "new2"));
   }
 
   @Test
   void testRunAndStopScript() {
-    scriptsController.runScript("let a = 0;", "s_scr");
-    scriptsController.runScript("console.lottt(1)", "f_scr");
+    scriptsController.runScript("let a = 0;", "s_scr", new ScriptRunParameters());
+    scriptsController.runScript("console.lottt(1)", "f_scr", new ScriptRunParameters());
     for (int i = 0; i < 10; i++) {
-      scriptsController.runScript("while(true){}", "r_scr_" + i);
+      scriptsController.runScript("while(true){}", "r_scr_" + i, new ScriptRunParameters());
     }
-    scriptsController.runScript("let a = 0;", "q_scr");
+    scriptsController.runScript("let a = 0;", "q_scr", new ScriptRunParameters());
 
-    await().until(fieldIn(scriptMap.get("s_scr")).ofType(ScriptStatus.class).andWithName("status"),
+    await().until(scriptMap.get("s_scr").getLatestExecution()::getStatus,
         equalTo(EXECUTION_SUCCESSFUL));
-    await().until(fieldIn(scriptMap.get("f_scr")).ofType(ScriptStatus.class).andWithName("status"),
+    await().until(scriptMap.get("f_scr").getLatestExecution()::getStatus,
         equalTo(EXECUTION_FAILED));
 
     assertEquals(EXECUTION_SUCCESSFUL, scriptMap.get("s_scr").getStatus());
@@ -404,13 +680,12 @@ class ScriptsControllerTest {
       final String scrName = "r_scr_" + i;
       assertEquals(RUNNING, scriptMap.get(scrName).getStatus());
       scriptsController.stopScript(scrName);
-      await().until(
-          fieldIn(scriptMap.get(scrName)).ofType(ScriptStatus.class).andWithName("status"),
+      await().until(scriptMap.get(scrName).getLatestExecution()::getStatus,
           equalTo(EXECUTION_CANCELED));
       assertThrows(WrongScriptStatusException.class, () -> scriptsController.stopScript(scrName));
     }
 
-    await().until(fieldIn(scriptMap.get("q_scr")).ofType(ScriptStatus.class).andWithName("status"),
+    await().until(scriptMap.get("q_scr").getLatestExecution()::getStatus,
         equalTo(EXECUTION_SUCCESSFUL));
 
     assertThrows(WrongScriptStatusException.class, () -> scriptsController.stopScript("s_scr"));
@@ -418,6 +693,137 @@ class ScriptsControllerTest {
     assertThrows(WrongScriptStatusException.class, () -> scriptsController.stopScript("q_scr"));
   }
 
+  @Test
+  void testRunScriptWithWallTimeLimit() {
+    ScriptRunParameters parameters = new ScriptRunParameters();
+    parameters.setMaxWallTimeMillis(300L);
+    assertTerminatedOnLimit("wall_scr", parameters, "wall time");
+  }
+
+  @Test
+  void testRunScriptWithCpuTimeLimit() {
+    ScriptRunParameters parameters = new ScriptRunParameters();
+    parameters.setMaxCpuTimeMillis(300L);
+    assertTerminatedOnLimit("cpu_scr", parameters, "CPU time");
+  }
+
+  @Test
+  void testRunScriptWithStatementLimit() {
+    ScriptRunParameters parameters = new ScriptRunParameters();
+    parameters.setMaxStatements(1000L);
+    assertTerminatedOnLimit("statements_scr", parameters, "Execution terminated");
+  }
+
+  /**
+   * Runs an endless script with the limit and checks that it is terminated on the limit, not
+   * cancelled, and that its executor thread is free again
+   */
+  private void assertTerminatedOnLimit(String name, ScriptRunParameters parameters,
+      String expectedLog) {
+    int load = scriptTaskExecutor.getLoad();
+    scriptsController.runScript("while(true){}", name, parameters);
+    Script script = scriptMap.get(name);
+    await().atMost(10, SECONDS).until(script::getStatus, equalTo(EXECUTION_LIMIT_EXCEEDED));
+    assertNotEquals(EXECUTION_CANCELED, script.getStatus());
+    assertNotNull(script.getEndTime());
+    assertTrue(script.getOutputLogs().contains(expectedLog));
+    await().atMost(5, SECONDS).until(scriptTaskExecutor::getLoad, equalTo(load));
+    assertThrows(WrongScriptStatusException.class, () -> scriptsController.stopScript(name));
+  }
+
+  @Test
+  void testRunScriptCreatingThread() {
+    assertFalse(contextPool.isAllowCreateThread());
+    scriptsController.runScript(
+        "const thread = new (Java.type('java.lang.Thread'))(() => {}); thread.start();",
+        "thread_scr", new ScriptRunParameters());
+    Script script = scriptMap.get("thread_scr");
+    await().atMost(10, SECONDS).until(script::getStatus, equalTo(EXECUTION_FAILED));
+    assertNotNull(script.getEndTime());
+  }
+
+  @Test
+  void testExecutionAlwaysEndsWithFinalStatus() throws Exception {
+    Script script =
+        createScript("result_scr", "({ get x() { console.log('converting'); while (true) {} } })");
+    script.setResultCaptured(true);
+    ScriptExecution execution = script.getLatestExecution();
+    Thread runner = new Thread(execution);
+    runner.start();
+    await().until(() -> execution.getOutputLogs().contains("converting"));
+    assertEquals(RUNNING, execution.getStatus());
+    execution.stopExecution();
+    assertEquals(EXECUTION_CANCELED,
+        execution.getCompletion().toCompletableFuture().get(10, SECONDS));
+    assertEquals(EXECUTION_CANCELED, execution.getStatus());
+    assertNotNull(execution.getEndTime());
+    assertThrows(WrongScriptStatusException.class, execution::stopExecution);
+    runner.join(10_000);
+    assertFalse(runner.isAlive());
+
+    Engine closedEngine = Engine.create();
+    closedEngine.close();
+    try (ContextPool brokenPool = new ContextPool(closedEngine, 1, 0, 60_000, false, null, false)) {
+      ScriptExecution failed = Script.create("broken_scr", "1", 65536, sourceCache, brokenPool,
+          ScriptValidationMode.DEFERRED, Script.DEFAULT_PRIORITY, new ScriptLimits(0L, 0L, 0L),
+          ScriptBindings.empty(), List.of(), scriptWatchdog, 10).getLatestExecution();
+      failed.run(); // the context cannot be built
+      assertEquals(EXECUTION_FAILED, failed.getCompletion().toCompletableFuture().get(10, SECONDS));
+      assertNotNull(failed.getEndTime());
+      assertTrue(failed.getOutputLogs().contains("IllegalStateException"));
+    }
+  }
+
+  @Test
+  void testContextPoolDiscardPolicy() {
+    Engine engine = contextPool.getEngine();
+    try (ContextPool pool = new ContextPool(engine, 1, 0, 60_000, false, null, false)) {
+      PooledContext first = pool.borrow(null);
+      first.eval(Source.create("js", "x = 1"));
+      pool.release(first);
+      // the dirty context is discarded, so the next script does not see the global of the first
+      assertEquals(1, pool.getDiscarded());
+      assertEquals(0, pool.getIdle());
+      PooledContext second = pool.borrow(null);
+      assertNotSame(first, second);
+      assertEquals("undefined", second.eval(Source.create("js", "typeof x")).asString());
+      pool.release(second);
+
+      PooledContext clean = pool.borrow(null);
+      clean.parse(Source.create("js", "let y = 1;"));
+      pool.release(clean);
+      assertEquals(1, pool.getIdle());
+      assertSame(clean, pool.borrow(null));
+      assertEquals(1, pool.getHits());
+      clean.cancel();
+      pool.release(clean);
+      assertEquals(0, pool.getIdle());
+      assertEquals(3, pool.getDiscarded());
+
+      PooledContext dedicated = pool.borrow(null, 1000);
+      pool.release(dedicated);
+      assertEquals(0, pool.getIdle());
+      assertEquals(4, pool.getDiscarded());
+    }
+    try (ContextPool pool = new ContextPool(engine, 1, 0, 0, false, null, false)) {
+      // a context older than maxAge is discarded even if nothing was evaluated in it
+      pool.release(pool.borrow(null));
+      assertEquals(0, pool.getIdle());
+      assertEquals(1, pool.getDiscarded());
+    }
+    try (ContextPool pool = new ContextPool(engine, 1, 0, 60_000, true, null, false)) {
+      // with the reuse policy the dirty context is returned, along with its globals
+      PooledContext first = pool.borrow(null);
+      first.eval(Source.create("js", "x = 1"));
+      pool.release(first);
+      PooledContext second = pool.borrow(null);
+      assertSame(first, second);
+      assertEquals("number", second.eval(Source.create("js", "typeof x")).asString());
+      pool.release(second);
+      assertEquals(0, pool.getDiscarded());
+    }
+  }
+
   @Test
   void testDeleteScriptExceptionsThrowing() {
     assertThrows(ScriptNotFoundException.class, () -> scriptsController.deleteScript("ABC"));
@@ -440,13 +846,12 @@ class ScriptsControllerTest {
     assertThrows(ScriptNotFoundException.class,
         () -> scriptsController.getScriptLogs("test", null, null));
 
-    scriptsController.runScript("console.log('0123456789')", "numbers");
-    scriptsController.runScript("let a = 0;", "empty");
+    scriptsController.runScript("console.log('0123456789')", "numbers", new ScriptRunParameters());
+    scriptsController.runScript("let a = 0;", "empty", new ScriptRunParameters());
 
-    await().until(
-        fieldIn(scriptMap.get("numbers")).ofType(ScriptStatus.class).andWithName("status"),
+    await().until(scriptMap.get("numbers").getLatestExecution()::getStatus,
         equalTo(EXECUTION_SUCCESSFUL));
-    await().until(fieldIn(scriptMap.get("empty")).ofType(ScriptStatus.class).andWithName("status"),
+    await().until(scriptMap.get("empty").getLatestExecution()::getStatus,
         equalTo(EXECUTION_SUCCESSFUL));
 
     assertEquals(EXECUTION_SUCCESSFUL, scriptMap.get("numbers").getStatus());
@@ -486,11 +891,11 @@ class ScriptsControllerTest {
     assertThrows(ScriptNotFoundException.class, () -> scriptsController.getScriptCode("test"));
 
     String scriptCode = "for(let a = 0; a < 10; a++){console.log(a)}";
-    scriptsController.runScript(scriptCode, "numbers");
+    scriptsController.runScript(scriptCode, "numbers", new ScriptRunParameters());
     assertEquals(scriptCode, scriptsController.getScriptCode("numbers").getBody());
 
     scriptCode = "console.loggg(10)";
-    scriptsController.runScript(scriptCode, "wrongScript");
+    scriptsController.runScript(scriptCode, "wrongScript", new ScriptRunParameters());
     assertEquals(scriptCode, scriptsController.getScriptCode("wrongScript").getBody());
   }
 
@@ -524,9 +929,9 @@ class ScriptsControllerTest {
     assertEquals(EXECUTION_SUCCESSFUL, script.getStatus());
     assertNotNull(script.getCreateTime());
 
-    scriptsController.runScript("console.log('Hello, World!')", "hello");
+    scriptsController.runScript("console.log('Hello, World!')", "hello", new ScriptRunParameters());
 
-    await().until(fieldIn(scriptMap.get("hello")).ofType(ScriptStatus.class).andWithName("status"),
+    await().until(scriptMap.get("hello").getLatestExecution()::getStatus,
         equalTo(EXECUTION_SUCCESSFUL));
 
     script = scriptsController.getSingleScriptInfo("hello").getBody();
@@ -540,15 +945,950 @@ class ScriptsControllerTest {
 
   @Test
   void testRunScriptWithLogsStreamingAndStopScript() throws IOException {
-    ResponseBodyEmitter rbe =
-        scriptsController.runScriptWithLogsStreaming("while(true) {console.log('A')}", "r_scr");
+    ResponseBodyEmitter rbe = scriptsController.runScriptWithLogsStreaming(
+        "while(true) {console.log('A')}", "r_scr", new ScriptRunParameters());
     Script script = scriptMap.get("r_scr");
-    await().until(fieldIn(script).ofType(ScriptStatus.class).andWithName("status"),
-        equalTo(RUNNING));
+    await().until(script.getLatestExecution()::getStatus, equalTo(RUNNING));
     await().atLeast(3, SECONDS);
     scriptsController.stopScript("r_scr");
-    await().until(fieldIn(script).ofType(ScriptStatus.class).andWithName("status"),
-        equalTo(EXECUTION_CANCELED));
+    await().until(script.getLatestExecution()::getStatus, equalTo(EXECUTION_CANCELED));
+  }
+
+  @Test
+  void testRunScriptBatch() {
+    List<ScriptBatchItemResult> results = scriptsController
+        .runScriptBatch(List.of(batchItem("b_first", "console.log(1)"),
+            batchItem("s_script", "console.log(2)"), batchItem("b_wrong", "let = ;"),
+            batchItem("b_first", "console.log(3)"), batchItem("b_second", "console.log(4)")))
+        .getBody();
+    assertEquals(5, results.size());
+
+    assertEquals("b_first", results.get(0).getName());
+    assertNotNull(results.get(0).getScript());
+    assertNull(results.get(0).getError());
+    assertEquals(409, results.get(1).getError().getStatus());
+    assertEquals(422, results.get(2).getError().getStatus());
+    assertEquals(409, results.get(3).getError().getStatus());
+    assertNotNull(results.get(4).getScript());
+
+    await().until(scriptMap.get("b_first").getLatestExecution()::getStatus,
+        equalTo(EXECUTION_SUCCESSFUL));
+    await().until(scriptMap.get("b_second").getLatestExecution()::getStatus,
+        equalTo(EXECUTION_SUCCESSFUL));
+    assertEquals("1\n", scriptMap.get("b_first").getOutputLogs());
+    assertFalse(scriptMap.containsKey("b_wrong"));
+    assertEquals(7, scriptMap.size());
+  }
+
+  @Test
+  void testEvaluateScript() {
+    EvaluationInfo evaluation = scriptsController
+        .evaluateScript("console.log('A'); ({a: 1, b: [true, 'x', 1.5], c: null})", null, null)
+        .getBody();
+    assertEquals(EXECUTION_SUCCESSFUL, evaluation.getStatus());
+    assertEquals("A\n", evaluation.getOutput());
+    assertEquals(Map.of("a", 1L, "b", List.of(true, "x", 1.5)),
+        Map.of("a", ((Map<?, ?>) evaluation.getResult()).get("a"), "b",
+            ((Map<?, ?>) evaluation.getResult()).get("b")));
+    assertNull(evaluation.getError());
+
+    evaluation = scriptsController.evaluateScript("null.x", null, null).getBody();
+    assertEquals(EXECUTION_FAILED, evaluation.getStatus());
+    assertNotNull(evaluation.getError());
+
+    evaluation = scriptsController.evaluateScript("while(true){}", 300L, null).getBody();
+    assertEquals(EXECUTION_LIMIT_EXCEEDED, evaluation.getStatus());
+
+    assertThrows(WrongScriptException.class,
+        () -> scriptsController.evaluateScript("let = ;", null, null));
+    assertThrows(WrongArgumentException.class,
+        () -> scriptsController.evaluateScript("1", 0L, null));
+    assertEquals(5, scriptMap.size());
+  }
+
+  @Test
+  void testRunScriptExecution() {
+    scriptsController.runScript("console.log('run')", "rerun", new ScriptRunParameters());
+    Script script = scriptMap.get("rerun");
+    await().until(script.getLatestExecution()::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+
+    ExecutionInfo execution =
+        scriptsController.runScriptExecution("rerun", new ScriptRunParameters()).getBody();
+    assertEquals("rerun", execution.getScriptName());
+    assertEquals(2, execution.getId());
+    await().until(script.getLatestExecution()::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+
+    assertEquals(2, scriptsController.getExecutionList("rerun").getBody().size());
+    assertEquals(EXECUTION_SUCCESSFUL,
+        scriptsController.getExecutionInfo("rerun", 1).getBody().getStatus());
+    assertEquals("run\n", scriptsController.getExecutionLogs("rerun", 1, null, null).getBody());
+    assertEquals("run\n", scriptsController.getScriptLogs("rerun", 0, null).getBody());
+    assertEquals(2, scriptsController.getSingleScriptInfo("rerun").getBody().getExecutionCount());
+    ExecutionSnapshot snapshot = script.getSnapshot();
+    assertEquals(2, snapshot.getId());
+    assertEquals("rerun", snapshot.getScriptName());
+    assertEquals(EXECUTION_SUCCESSFUL, snapshot.getStatus());
+    assertEquals(4, snapshot.getLogsSize());
+    assertFalse(snapshot.getEndTime().isBefore(snapshot.getStartTime()));
+    assertEquals(EXECUTION_SUCCESSFUL, script.getExecution(1).getSnapshot().getStatus());
+
+    assertThrows(ScriptNotFoundException.class,
+        () -> scriptsController.getExecutionInfo("rerun", 3));
+    assertThrows(WrongScriptStatusException.class,
+        () -> scriptsController.runScriptExecution("r_script", new ScriptRunParameters()));
+    assertThrows(ScriptNotFoundException.class,
+        () -> scriptsController.runScriptExecution("nothing", new ScriptRunParameters()));
+  }
+
+  @Test
+  void testRunScriptWithBindings() {
+    String code = "console.log(greeting + ', ' + user.name + ' ' + user.tags.length)";
+    ScriptRunParameters parameters = new ScriptRunParameters();
+    parameters.setBindings(
+        ScriptBindings.parse("{\"greeting\":\"Hello\",\"user\":{\"name\":\"A\",\"tags\":[1]}}"));
+    scriptsController.runScript(code, "bound", parameters);
+    Script script = scriptMap.get("bound");
+    await().until(script.getLatestExecution()::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+    assertEquals("Hello, A 1\n", script.getOutputLogs());
+
+    parameters.setBindings(
+        ScriptBindings.parse("{\"greeting\":\"Hi\",\"user\":{\"name\":\"B\",\"tags\":[1,2]}}"));
+    scriptsController.runScriptExecution("bound", parameters);
+    await().until(script.getLatestExecution()::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+    assertEquals("Hi, B 2\n", script.getOutputLogs());
+
+    EvaluationInfo evaluation = scriptsController
+        .evaluateScript("x * 2", null, ScriptBindings.parse("{\"x\": 21}")).getBody();
+    assertEquals(42L, evaluation.getResult());
+    assertThrows(WrongArgumentException.class, () -> ScriptBindings.parse("[1, 2]"));
+  }
+
+  @Test
+  void testScheduleScript() {
+    scriptsController.runScript("console.log('tick')", "sched", new ScriptRunParameters());
+    ScheduleParameters parameters = new ScheduleParameters();
+    parameters.setIntervalMillis(1000L);
+    assertEquals(1000L,
+        scriptsController.scheduleScript("sched", parameters).getBody().getIntervalMillis());
+    Script script = scriptMap.get("sched");
+    await().atMost(10, SECONDS).until(() -> script.getSchedule().getRunCount() >= 2);
+    assertTrue(script.getExecutionCount() >= 3);
+    assertNotNull(scriptsController.getSchedule("sched").getBody().getNextRunTime());
+    scriptsController.unscheduleScript("sched");
+    assertThrows(ScheduleNotFoundException.class, () -> scriptsController.getSchedule("sched"));
+
+    ScheduleParameters busy = new ScheduleParameters();
+    busy.setCron("* * * * * *");
+    scriptsController.scheduleScript("r_script", busy);
+    await().atMost(10, SECONDS)
+        .until(() -> scriptMap.get("r_script").getSchedule().getSkipCount() >= 1);
+    assertEquals(0, scriptMap.get("r_script").getSchedule().getRunCount());
+    scriptsController.unscheduleScript("r_script");
+
+    ScheduleParameters wrong = new ScheduleParameters();
+    assertThrows(WrongArgumentException.class,
+        () -> scriptsController.scheduleScript("s_script", wrong));
+    wrong.setCron("not a cron");
+    assertThrows(WrongArgumentException.class,
+        () -> scriptsController.scheduleScript("s_script", wrong));
+    wrong.setCron(null);
+    wrong.setIntervalMillis(10L);
+    assertThrows(WrongArgumentException.class,
+        () -> scriptsController.scheduleScript("s_script", wrong));
+  }
+
+  @Test
+  void testScheduleEvictedScript() throws InterruptedException {
+    Script script = createScript("sched_evicted", "1");
+    scriptRepositoryImpl.putScript("sched_evicted", script);
+    ScheduleParameters parameters = new ScheduleParameters();
+    parameters.setIntervalMillis(1000L);
+    AtomicReference<RuntimeException> error = new AtomicReference<>();
+    Thread scheduling = new Thread(() -> {
+      try {
+        scriptsController.scheduleScript("sched_evicted", parameters);
+      } catch (RuntimeException e) {
+        error.set(e);
+      }
+    });
+    synchronized (script) {
+      scheduling.start();
+      await().until(scheduling::getState, equalTo(Thread.State.BLOCKED));
+      // evicted the way the retention service does it, under the lock of the script
+      scriptRepositoryImpl.deleteScript(script);
+    }
+    scheduling.join(10_000);
+    assertTrue(error.get() instanceof ScriptNotFoundException);
+    assertNull(script.getSchedule());
+    scriptRepositoryImpl.putScript("sched_evicted", createScript("sched_evicted", "1"));
+    assertThrows(ScheduleNotFoundException.class,
+        () -> scriptsController.getSchedule("sched_evicted"));
+  }
+
+  @Test
+  void testRunPipeline() {
+    PipelineRequest request = new PipelineRequest();
+    request.setName("diamond");
+    request
+        .setNodes(List.of(pipelineNode("a", "console.log('a'); 1"),
+            pipelineNode("b", "console.log(inputs.a.output.trim()); inputs.a.result + 10", "a"),
+            pipelineNode("c", "inputs.a.result + 20", "a"), pipelineNode("d",
+                "inputs.b.result + inputs.c.result + inputs.b.output.length", "b", "c"),
+            pipelineNode("e", "throw new Error('e')", "a"), pipelineNode("f", "0", "e")));
+    assertEquals(HttpStatus.CREATED, pipelinesController.startPipeline(request).getStatusCode());
+    await().atMost(10, SECONDS).until(
+        () -> pipelinesController.getPipelineInfo("diamond").getBody().getStatus() != RUNNING);
+    PipelineInfo pipelineInfo = pipelinesController.getPipelineInfo("diamond").getBody();
+    assertEquals(EXECUTION_FAILED, pipelineInfo.getStatus());
+    Map<String, PipelineNodeInfo> nodes = pipelineInfo.getNodes().stream()
+        .collect(Collectors.toMap(PipelineNodeInfo::getId, node -> node));
+    assertEquals(EXECUTION_SUCCESSFUL, nodes.get("d").getStatus());
+    assertEquals(34L, nodes.get("d").getResult());
+    assertEquals(EXECUTION_FAILED, nodes.get("e").getStatus());
+    assertTrue(nodes.get("f").isSkipped());
+    assertEquals("a\n", pipelinesController.getNodeLogs("diamond", "a", 0, null).getBody());
+
+    assertThrows(WrongNameException.class, () -> pipelinesController.startPipeline(request));
+    pipelinesController.deletePipeline("diamond");
+    assertThrows(PipelineNotFoundException.class,
+        () -> pipelinesController.getPipelineInfo("diamond"));
+    request.setNodes(List.of(pipelineNode("x", "1", "y"), pipelineNode("y", "2", "x")));
+    assertThrows(WrongArgumentException.class, () -> pipelinesController.startPipeline(request));
+    request.setNodes(List.of(pipelineNode("x", "1", "z")));
+    assertThrows(WrongArgumentException.class, () -> pipelinesController.startPipeline(request));
+  }
+
+  @Nested
+  @SpringBootTest(properties = "scripts.engine.intrinsics=true")
+  class IntrinsicsTest {
+
+    @Autowired
+    private ScriptsController scriptsController;
+
+    @Test
+    void testEvaluateScriptWithIntrinsics() {
+      assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+          scriptsController.evaluateScript("Intrinsics.sha256('hello')", null, null).getBody()
+              .getResult());
+      assertEquals("5d41402abc4b2a76b9719d911017c592", scriptsController
+          .evaluateScript("Intrinsics.hash('md5', 'hello')", null, null).getBody().getResult());
+      assertEquals("aGVsbG8=", scriptsController
+          .evaluateScript("Intrinsics.base64Encode('hello')", null, null).getBody().getResult());
+      assertEquals(true,
+          scriptsController.evaluateScript(
+              "const text = 'abc'.repeat(1000); Intrinsics.gunzip(Intrinsics.gzip(text)) === text",
+              null, null).getBody().getResult());
+      assertEquals(EXECUTION_FAILED, scriptsController
+          .evaluateScript("Intrinsics.hash('crc', 'x')", null, null).getBody().getStatus());
+      assertEquals(EXECUTION_FAILED, scriptsController
+          .evaluateScript("Intrinsics.getClass()", null, null).getBody().getStatus());
+    }
+
+  }
+
+  @Test
+  void testRunScriptWithLibraries() {
+    librariesController.putLibrary("function twice(x) { return 2 * x; }", "math");
+    librariesController.putLibrary("function greet(name) { return 'Hello, ' + name; }", "text");
+    ScriptRunParameters parameters = new ScriptRunParameters();
+    parameters.setLibraries(List.of("math", "text"));
+    scriptsController.runScript("console.log(greet(twice(21)))", "with_libs", parameters);
+    Script script = scriptMap.get("with_libs");
+    await().until(script.getLatestExecution()::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+    assertEquals("Hello, 42\n", script.getOutputLogs());
+    assertEquals(List.of("math", "text"),
+        scriptsController.getSingleScriptInfo("with_libs").getBody().getLibraries());
+
+    librariesController.putLibrary("function twice(x) { return x + x + 1; }", "math");
+    scriptsController.runScriptExecution("with_libs", parameters);
+    await().until(script.getLatestExecution()::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+    assertEquals("Hello, 43\n", script.getOutputLogs());
+
+    librariesController.deleteLibrary("text");
+    assertThrows(LibraryNotFoundException.class,
+        () -> scriptsController.runScript("1", "no_libs", parameters));
+    assertNull(scriptMap.get("no_libs"));
+    assertThrows(WrongScriptException.class,
+        () -> librariesController.putLibrary("function (", "broken"));
+    assertThrows(LibraryNotFoundException.class, () -> librariesController.getLibraryInfo("text"));
+    librariesController.deleteLibrary("math");
+  }
+
+  @Test
+  void testScriptCountsFollowStatusChanges() {
+    assertEquals(
+        Map.of(IN_QUEUE, 1, RUNNING, 1, EXECUTION_CANCELED, 1, EXECUTION_FAILED, 1,
+            EXECUTION_SUCCESSFUL, 1, EXECUTION_LIMIT_EXCEEDED, 0, EXECUTION_INTERRUPTED, 0),
+        scriptRepositoryImpl.getScriptCounts());
+
+    scriptsController.runScript("console.log(1)", "counted", new ScriptRunParameters());
+    Script script = scriptMap.get("counted");
+    await().until(() -> scriptRepositoryImpl.getScriptCounts().get(EXECUTION_SUCCESSFUL),
+        equalTo(2));
+    assertEquals(EXECUTION_SUCCESSFUL, script.getStatus());
+    assertEquals(List.of(script),
+        scriptRepositoryImpl.getScriptList(EXECUTION_SUCCESSFUL, "count"));
+    assertEquals(1, scriptRepositoryImpl.getScriptCounts().get(IN_QUEUE));
+
+    scriptsController.deleteScript("counted");
+    assertEquals(1, scriptRepositoryImpl.getScriptCounts().get(EXECUTION_SUCCESSFUL));
+    assertEquals(List.of(), scriptRepositoryImpl.getScriptList(EXECUTION_SUCCESSFUL, "count"));
+    scriptsController.deleteScript("q_script");
+    assertEquals(0, scriptRepositoryImpl.getScriptCounts().get(IN_QUEUE));
+    assertEquals(List.of(), scriptRepositoryImpl.getScriptList(IN_QUEUE, null));
+  }
+
+  @Test
+  void testRetentionEvictsAndArchivesFinishedScripts() throws IOException {
+    Path archivePath = Files.createTempFile("scripts", ".archive");
+    RetentionPolicy policy =
+        new RetentionPolicy().withRule(EXECUTION_SUCCESSFUL, 0, 1).withRule(EXECUTION_FAILED, 1, 0);
+    try (RetentionServiceImpl retentionService =
+        new RetentionServiceImpl(scriptRepositoryImpl, policy, archivePath.toString(), 0)) {
+      scriptsController.runScript("console.log('kept')", "kept_script", new ScriptRunParameters());
+      await().until(() -> scriptMap.get("kept_script").getStatus(), equalTo(EXECUTION_SUCCESSFUL));
+
+      assertEquals(2, retentionService.sweep());
+      assertEquals(Set.of("q_script", "r_script", "c_script", "kept_script"), scriptMap.keySet());
+      assertEquals(List.of(), scriptRepositoryImpl.getScriptList(EXECUTION_FAILED, null));
+      assertEquals(0, retentionService.sweep());
+
+      ArchivedScript archived = retentionService.getArchivedScript("s_script");
+      assertEquals(EXECUTION_SUCCESSFUL, archived.getStatus());
+      assertEquals("let a = 0;", archived.getScriptCode());
+      assertNotNull(archived.getEndTime());
+      assertThrows(ScriptNotFoundException.class,
+          () -> retentionService.getArchivedScript("q_script"));
+    }
+    try (ScriptArchive archive = new ScriptArchive(archivePath)) {
+      assertEquals(2, archive.size());
+      assertEquals(EXECUTION_FAILED,
+          ArchivedScript.fromBytes(archive.read("f_script")).getStatus());
+    } finally {
+      Files.delete(archivePath);
+    }
+  }
+
+  @Test
+  void testJournaledRepositoryRecovery() throws Exception {
+    Path directory = Files.createTempDirectory("scripts-journal");
+    Function<ArchivedScript, Script> restorer =
+        state -> Script.restore(state, sourceCache, contextPool, scriptWatchdog, 65536, 10);
+    try {
+      try (JournaledScriptRepository repository =
+          new JournaledScriptRepository(directory, Long.MAX_VALUE, restorer)) {
+        Script finished = createScript("finished_script", "console.log('journaled')");
+        finished.getLatestExecution().run();
+        repository.putScript("finished_script", finished);
+        repository.putScript("queued_script", createScript("queued_script", "let a = 0;"));
+        Script running = createScript("running_script", "let a = 0;");
+        repository.putScript("running_script", running);
+        Method transition = ScriptExecution.class.getDeclaredMethod("transition",
+            ScriptStatus.class, ScriptStatus.class);
+        transition.setAccessible(true);
+        transition.invoke(running.getLatestExecution(), IN_QUEUE, RUNNING);
+        repository.putScript("deleted_script", createScript("deleted_script", "let a = 0;"));
+        repository.deleteScript("deleted_script");
+      }
+
+      try (JournaledScriptRepository repository =
+          new JournaledScriptRepository(directory, 1, restorer)) {
+        assertEquals(List.of("finished_script", "queued_script", "running_script"),
+            names(repository.getScriptList(null, null)));
+        Script finished = repository.getScript("finished_script");
+        assertEquals(EXECUTION_SUCCESSFUL, finished.getStatus());
+        assertEquals("journaled\n", finished.getOutputLogs());
+        assertEquals(EXECUTION_INTERRUPTED, repository.getScript("running_script").getStatus());
+        assertNotNull(repository.getScript("queued_script").getEndTime());
+        assertEquals(2, repository.getScriptCounts().get(EXECUTION_INTERRUPTED));
+        // with the threshold of one byte, this write compacts the journal into a snapshot
+        repository.putScript("new_script", createScript("new_script", "let a = 0;"));
+        repository.deleteScript("queued_script");
+      }
+      assertTrue(Files.exists(directory.resolve("scripts.snapshot")));
+
+      try (JournaledScriptRepository repository =
+          new JournaledScriptRepository(directory, Long.MAX_VALUE, restorer)) {
+        assertEquals(List.of("finished_script", "new_script", "running_script"),
+            names(repository.getScriptList(null, null)));
+        assertEquals("journaled\n", repository.getScript("finished_script").getOutputLogs());
+      }
+    } finally {
+      try (var files = Files.list(directory)) {
+        for (Path file : files.collect(Collectors.toList()))
+          Files.delete(file);
+      }
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  void testTieredRepositoryMovesFinishedScriptsOffHeap() throws Exception {
+    Path directory = Files.createTempDirectory("scripts-metadata");
+    try (TieredScriptRepository repository = new TieredScriptRepository(directory, 0, 0,
+        state -> Script.restore(state, sourceCache, contextPool, scriptWatchdog, 65536, 10))) {
+      for (String name : List.of("b_cold", "d_cold", "e_cold")) {
+        Script script = createScript(name, "console.log('cold')");
+        script.getLatestExecution().run();
+        repository.putScript(name, script);
+      }
+      int logsSize = repository.getScript("b_cold").getLogsSize();
+      await().until(repository::compact, equalTo(3));
+      Script warm = createScript("a_warm", "console.log('warm')");
+      warm.getLatestExecution().run();
+      repository.putScript("a_warm", warm);
+      repository.putScript("c_queued", createScript("c_queued", "let a = 0;"));
+
+      assertEquals(List.of("a_warm", "c_queued"), names(repository.getScriptList(null, null)));
+      assertEquals(4, repository.getScriptCounts().get(EXECUTION_SUCCESSFUL));
+      assertEquals(1, repository.getScriptCounts().get(IN_QUEUE));
+      List<String> pagedNames = new ArrayList<>();
+      ScriptCursor cursor = null;
+      do {
+        ScriptPage page = repository.getScriptPage(null, null, true, false, cursor, 0, 2);
+        assertEquals(5, page.getTotalCount());
+        pagedNames.addAll(names(page.getScripts()));
+        cursor = page.getNextCursor();
+      } while (cursor != null);
+      assertEquals(List.of("a_warm", "b_cold", "c_queued", "d_cold", "e_cold"), pagedNames);
+      assertEquals(List.of("d_cold", "b_cold"),
+          repository.getScriptPage(EXECUTION_SUCCESSFUL, "_cold", true, true, null, 1, 2)
+              .getScripts().stream().map(Script::getName).collect(Collectors.toList()));
+      assertEquals(3,
+          repository.getScriptPage(null, "_cold", true, false, null, 0, 10).getTotalCount());
+
+      assertThrows(WrongNameException.class,
+          () -> repository.putScript("b_cold", createScript("b_cold", "let a = 0;")));
+      Script restored = repository.getScript("b_cold");
+      assertEquals(EXECUTION_SUCCESSFUL, restored.getStatus());
+      assertEquals(logsSize, restored.getLogsSize());
+      assertEquals("console.log('cold')", restored.getScriptCode());
+      assertSame(restored, repository.getScript("b_cold"));
+      repository.deleteScript("d_cold");
+      assertThrows(ScriptNotFoundException.class, () -> repository.getScript("d_cold"));
+      assertEquals(3, repository.getScriptCounts().get(EXECUTION_SUCCESSFUL));
+    } finally {
+      try (var files = Files.list(directory)) {
+        for (Path file : files.collect(Collectors.toList()))
+          Files.delete(file);
+      }
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  void testTieredRepositoryDeleteRacesWithPromotion() throws Exception {
+    Path directory = Files.createTempDirectory("scripts-metadata");
+    int count = 1000;
+    ExecutorService racers = Executors.newFixedThreadPool(2);
+    try (TieredScriptRepository repository = new TieredScriptRepository(directory, 0, 0,
+        state -> Script.restore(state, sourceCache, contextPool, scriptWatchdog, 65536, 10))) {
+      for (int i = 0; i < count; i++) {
+        Script script = createScript("cold_" + i, "let a = " + i + ";");
+        script.getLatestExecution().run();
+        repository.putScript(script.getName(), script);
+      }
+      await().until(repository::compact, equalTo(count));
+      for (int i = 0; i < count; i++) {
+        String name = "cold_" + i;
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Future<?> promotion = racers.submit(() -> {
+          barrier.await();
+          try {
+            return repository.getScript(name);
+          } catch (ScriptNotFoundException e) {
+            return null; // deleted first
+          }
+        });
+        Future<?> deletion = racers.submit(() -> {
+          barrier.await();
+          repository.deleteScript(name);
+          return null;
+        });
+        promotion.get(10, SECONDS);
+        deletion.get(10, SECONDS);
+        assertThrows(ScriptNotFoundException.class, () -> repository.getScript(name));
+      }
+      assertEquals(List.of(), repository.getScriptList(null, null));
+      assertEquals(0,
+          repository.getScriptPage(null, null, true, false, null, 0, 10).getTotalCount());
+    } finally {
+      racers.shutdownNow();
+      try (var files = Files.list(directory)) {
+        for (Path file : files.collect(Collectors.toList()))
+          Files.delete(file);
+      }
+      Files.delete(directory);
+    }
+  }
+
+  @Test
+  void testMetadataStoreKeepsOrderAcrossBatches() throws IOException {
+    Path directory = Files.createTempDirectory("scripts-metadata");
+    int count = 100_000; // beyond the initial hash table and the first chunk of records
+    Instant now = Instant.now();
+    try (ScriptMetadataStore store = new ScriptMetadataStore(directory)) {
+      for (int batch = 0; batch < 4; batch++) {
+        List<Map.Entry<ScriptMetadata, String>> entries = new ArrayList<>();
+        for (int i = batch; i < count; i += 4) {
+          String code = "let a = " + i + ";";
+          entries.add(Map.entry(new ScriptMetadata(String.format("s%06d", i),
+              i % 10 == 0 ? EXECUTION_SUCCESSFUL : EXECUTION_FAILED, now.minusSeconds(i), now, now,
+              5, 1, 0, SourceCache.hash(code)), code));
+        }
+        store.putAll(entries);
+      }
+      assertTrue(store.remove("s000001", null));
+      assertEquals(count - 1, store.size());
+      assertEquals("let a = 99999;", store.getCode("s099999"));
+      List<String> firstByName = store.getPage(null, null, true, false, null, 3).stream()
+          .map(ScriptMetadata::getName).collect(Collectors.toList());
+      assertEquals(List.of("s000000", "s000002", "s000003"), firstByName);
+      List<String> oldest = store.getPage(EXECUTION_FAILED, null, false, false, null, 2).stream()
+          .map(ScriptMetadata::getName).collect(Collectors.toList());
+      assertEquals(List.of("s099999", "s099998"), oldest);
+      assertEquals(List.of("s000000"), store.getPage(null, null, false, true, null, 1).stream()
+          .map(ScriptMetadata::getName).collect(Collectors.toList()));
+
+      assertEquals(100, store.countByPrefix(null, "s0999"));
+      assertTrue(store.remove("s099950", null));
+      assertEquals(99, store.countByPrefix(null, "s0999"));
+      assertEquals(9, store.countByPrefix(EXECUTION_SUCCESSFUL, "s0999"));
+      assertEquals(90, store.countByPrefix(EXECUTION_FAILED, "s0999"));
+      assertEquals(0, store.countByPrefix(null, "t"));
+      String code = "let a = 1;";
+      store.putAll(List.of(Map.entry(new ScriptMetadata("s000001", EXECUTION_SUCCESSFUL, now, now,
+          now, 5, 1, 0, SourceCache.hash(code)), code)));
+      assertEquals(2, store.countByPrefix(EXECUTION_SUCCESSFUL, "s00000"));
+      assertEquals(8, store.countByPrefix(EXECUTION_FAILED, "s00000"));
+      assertEquals(count - 1, store.countByPrefix(null, ""));
+      long exact = IntStream.range(0, count).filter(i -> i != 99950)
+          .mapToObj(i -> String.format("s%06d", i)).filter(name -> name.contains("99")).count();
+      assertEquals(exact, store.count(null, name -> name.contains("99")), exact * 0.2);
+    }
+    assertEquals(0, Files.list(directory).count());
+    Files.delete(directory);
+  }
+
+  private Script createScript(String name, String code) {
+    return Script.create(name, code, 65536, sourceCache, contextPool, ScriptValidationMode.EAGER,
+        Script.DEFAULT_PRIORITY, new ScriptLimits(0L, 0L, 0L), ScriptBindings.empty(), List.of(),
+        scriptWatchdog, 10);
+  }
+
+  @Test
+  void testConcurrentStopAndDelete() throws InterruptedException {
+    int count = 20;
+    int racerCount = 6;
+    List<ScriptExecution> executions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      scriptsController.runScript("while(true){}", "race_" + i, new ScriptRunParameters());
+      executions.add(scriptMap.get("race_" + i).getLatestExecution());
+    }
+    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService racers = Executors.newFixedThreadPool(racerCount);
+    for (int r = 0; r < racerCount; r++) {
+      final int racer = r;
+      racers.execute(() -> {
+        try {
+          start.await();
+          while (!executions.stream()
+              .allMatch(e -> e.getCompletion().toCompletableFuture().isDone())) {
+            for (int i = 0; i < count; i++) {
+              String name = "race_" + ((i + racer) % count);
+              try {
+                if (racer % 3 == 0)
+                  scriptsController.stopScript(name);
+                else if (racer % 3 == 1)
+                  scriptsController.deleteScript(name);
+                else
+                  scriptsController.getScriptListPage(1, 5, RUNNING, "race_", false, false);
+              } catch (WrongScriptStatusException | ScriptNotFoundException
+                  | PageDoesNotExistException e) {
+                // the other racers got there first
+              }
+            }
+          }
+        } catch (Throwable e) { // NOSONAR
+          failures.add(e);
+        }
+      });
+    }
+    start.countDown();
+    racers.shutdown();
+    assertTrue(racers.awaitTermination(60, SECONDS));
+    assertEquals(List.of(), List.copyOf(failures));
+
+    for (ScriptExecution execution : executions) {
+      assertEquals(EXECUTION_CANCELED, execution.getStatus());
+      assertNotNull(execution.getEndTime());
+    }
+    for (int i = 0; i < count; i++)
+      if (scriptMap.containsKey("race_" + i))
+        scriptsController.deleteScript("race_" + i);
+    assertEquals(2L, scriptsController.evaluateScript("1 + 1", null, null).getBody().getResult());
+  }
+
+  @Test
+  void testConcurrentReadersSeeConsistentExecutionState() throws InterruptedException {
+    int count = 30;
+    int readerCount = 4;
+    List<ScriptExecution> executions = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String code = i % 3 == 0 ? "while(true){}" : "let i = 0; while (i < 100000) i++;";
+      scriptsController.runScript(code, "reader_" + i, new ScriptRunParameters());
+      executions.add(scriptMap.get("reader_" + i).getLatestExecution());
+    }
+    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService readers = Executors.newFixedThreadPool(readerCount + 1);
+    readers.execute(() -> {
+      try {
+        start.await();
+        for (int i = 0; i < count; i += 3) {
+          String name = "reader_" + i;
+          await().until(() -> scriptMap.get(name).getStatus(), equalTo(RUNNING));
+          scriptsController.stopScript(name);
+        }
+      } catch (Throwable e) { // NOSONAR
+        failures.add(e);
+      }
+    });
+    for (int r = 0; r < readerCount; r++) {
+      readers.execute(() -> {
+        try {
+          start.await();
+          while (!executions.stream()
+              .allMatch(e -> e.getCompletion().toCompletableFuture().isDone())) {
+            for (ScriptExecution execution : executions)
+              assertConsistentState(execution);
+          }
+        } catch (Throwable e) { // NOSONAR
+          failures.add(e);
+        }
+      });
+    }
+    start.countDown();
+    readers.shutdown();
+    assertTrue(readers.awaitTermination(60, SECONDS));
+    assertEquals(List.of(), List.copyOf(failures));
+    for (ScriptExecution execution : executions)
+      assertConsistentState(execution);
+  }
+
+  /**
+   * Checks that a snapshot of the execution is never a mix of two states, and that the separate
+   * getters never go back: a final status is never followed by a missing end time, and an end time
+   * is never followed by a non-final status
+   */
+  private static void assertConsistentState(ScriptExecution execution) {
+    ExecutionSnapshot snapshot = execution.getSnapshot();
+    ScriptStatus status = snapshot.getStatus();
+    if (status == IN_QUEUE) {
+      assertNull(snapshot.getStartTime());
+      assertNull(snapshot.getEndTime());
+    } else if (status == RUNNING) {
+      assertNotNull(snapshot.getStartTime());
+      assertNull(snapshot.getEndTime());
+    } else {
+      assertNotNull(snapshot.getEndTime());
+      if (snapshot.getStartTime() != null)
+        assertFalse(snapshot.getEndTime().isBefore(snapshot.getStartTime()));
+    }
+    ScriptStatus statusBefore = execution.getStatus();
+    Instant endTime = execution.getEndTime();
+    if (statusBefore != IN_QUEUE && statusBefore != RUNNING)
+      assertNotNull(endTime);
+    if (execution.getEndTime() != null) {
+      ScriptStatus statusAfter = execution.getStatus();
+      assertFalse(statusAfter == IN_QUEUE || statusAfter == RUNNING, statusAfter::toString);
+    }
+  }
+
+  private static PipelineNodeItem pipelineNode(String id, String code, String... dependsOn) {
+    PipelineNodeItem item = new PipelineNodeItem();
+    item.setId(id);
+    item.setCode(code);
+    item.setDependsOn(List.of(dependsOn));
+    return item;
+  }
+
+  private static ScriptBatchItem batchItem(String name, String code) {
+    ScriptBatchItem item = new ScriptBatchItem();
+    item.setName(name);
+    item.setCode(code);
+    return item;
+  }
+
+  @Test
+  void testDiscardRejectedExecution() {
+    Script script = Script.create("discard_scr", "1", 65536, sourceCache, contextPool,
+        ScriptValidationMode.EAGER, Script.DEFAULT_PRIORITY, new ScriptLimits(0L, 0L, 0L),
+        ScriptBindings.empty(), List.of(), scriptWatchdog, 1);
+    ScriptExecution first = script.getLatestExecution();
+    first.run();
+    ScriptExecution rejected =
+        script.newExecution(Script.DEFAULT_PRIORITY, new ScriptLimits(0L, 0L, 0L), null, null);
+    assertEquals(List.of(rejected), script.getExecutions());
+    assertTrue(script.discardExecution(rejected));
+    assertEquals(List.of(first), script.getExecutions());
+    assertSame(first, script.getLatestExecution());
+    assertEquals(EXECUTION_SUCCESSFUL, script.getStatus());
+    assertFalse(script.discardExecution(first));
+    assertEquals(2, script
+        .newExecution(Script.DEFAULT_PRIORITY, new ScriptLimits(0L, 0L, 0L), null, null).getId());
+  }
+
+  /**
+   * Admission control of an executor with one thread and one place in the queue
+   */
+  @Nested
+  @SpringBootTest(properties = {"scripts.executor.corePoolSize=1", "scripts.executor.maxPoolSize=1",
+      "scripts.executor.queueCapacity=1"})
+  @AutoConfigureMockMvc
+  class SaturatedExecutorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ScriptService scriptService;
+    @Autowired
+    private ScriptTaskExecutor executor;
+    @Value("${scripts.executor.admission.maxRetryAfterSeconds}")
+    private long maxRetryAfterSeconds;
+
+    @Test
+    void testRejectedScriptsGetRetryAfter() throws Exception {
+      mockMvc.perform(put("/scripts/sat_done").content("1")).andExpect(status().is2xxSuccessful());
+      await().until(() -> scriptService.getScript("sat_done").getStatus(),
+          equalTo(EXECUTION_SUCCESSFUL));
+      mockMvc.perform(put("/scripts/sat_running").content("while(true){}"))
+          .andExpect(status().is2xxSuccessful());
+      await().until(() -> scriptService.getScript("sat_running").getStatus(), equalTo(RUNNING));
+      mockMvc.perform(put("/scripts/sat_queued").content("while(true){}"))
+          .andExpect(status().is2xxSuccessful());
+
+      MockHttpServletResponse response =
+          mockMvc.perform(put("/scripts/sat_rejected").content("let a = 0;"))
+              .andExpect(status().isTooManyRequests()).andReturn().getResponse();
+      long retryAfter = Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER));
+      assertTrue(retryAfter >= 1 && retryAfter <= maxRetryAfterSeconds, "" + retryAfter);
+      assertThrows(ScriptNotFoundException.class, () -> scriptService.getScript("sat_rejected"));
+
+      mockMvc.perform(post("/scripts/sat_done/executions")).andExpect(status().isTooManyRequests())
+          .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+      Script done = scriptService.getScript("sat_done");
+      assertEquals(EXECUTION_SUCCESSFUL, done.getStatus());
+      assertEquals(1, done.getExecutions().size());
+
+      mockMvc.perform(delete("/scripts/sat_queued")).andExpect(status().is2xxSuccessful());
+      mockMvc.perform(post("/scripts/sat_running")).andExpect(status().is2xxSuccessful());
+      await().until(executor::getLoad, equalTo(0));
+      mockMvc.perform(delete("/scripts/sat_running")).andExpect(status().is2xxSuccessful());
+      // the rejected requests have released their reservations
+      mockMvc.perform(put("/scripts/sat_rejected").content("let a = 0;"))
+          .andExpect(status().is2xxSuccessful());
+      mockMvc.perform(post("/scripts/sat_done/executions")).andExpect(status().is2xxSuccessful());
+      await().until(executor::getLoad, equalTo(0));
+      mockMvc.perform(delete("/scripts/sat_rejected")).andExpect(status().is2xxSuccessful());
+      mockMvc.perform(delete("/scripts/sat_done")).andExpect(status().is2xxSuccessful());
+    }
+
+  }
+
+  @Test
+  void testVirtualThreadExecutorAccounting() {
+    List<Runnable> started = new ArrayList<>();
+    ExecutorService threads = new AbstractExecutorService() {
+      private boolean shutdown;
+
+      @Override
+      public void execute(Runnable command) {
+        started.add(command);
+      }
+
+      @Override
+      public void shutdown() {
+        shutdown = true;
+      }
+
+      @Override
+      public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return List.of();
+      }
+
+      @Override
+      public boolean isShutdown() {
+        return shutdown;
+      }
+
+      @Override
+      public boolean isTerminated() {
+        return shutdown;
+      }
+
+      @Override
+      public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return true;
+      }
+    };
+    VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor(threads, 1, 2);
+    assertEquals(3, executor.getCapacity());
+    List<String> runs = new ArrayList<>();
+    executor.execute(() -> runs.add("first"));
+    executor.execute(() -> {
+      throw new IllegalStateException("failed");
+    });
+    executor.execute(() -> runs.add("third"));
+    assertEquals(3, executor.getLoad());
+    assertThrows(TaskRejectedException.class, () -> executor.execute(() -> runs.add("fourth")));
+    assertEquals(3, executor.getLoad());
+    assertEquals(3, started.size());
+
+    started.get(0).run();
+    assertEquals(List.of("first"), runs);
+    assertEquals(2, executor.getLoad());
+    assertEquals(1, executor.getAvailablePermits());
+    assertThrows(IllegalStateException.class, () -> started.get(1).run());
+    // the permit and the slot are released when the task fails
+    assertEquals(1, executor.getAvailablePermits());
+    assertEquals(1, executor.getLoad());
+    assertEquals(2, executor.getCompletedTaskCount());
+    executor.execute(() -> runs.add("fourth"));
+    assertEquals(2, executor.getLoad());
+    started.get(2).run();
+    started.get(3).run();
+    assertEquals(List.of("first", "third", "fourth"), runs);
+    assertEquals(0, executor.getLoad());
+    assertEquals(0, executor.getQueuePosition(started.get(3)));
+    executor.destroy();
+    assertTrue(threads.isShutdown());
+  }
+
+  @Test
+  void testPriorityQueueAging() throws InterruptedException {
+    List<String> order = new ArrayList<>();
+    ScriptPriorityQueue queue = new ScriptPriorityQueue(10, 1);
+    Runnable low = prioritized(0, () -> order.add("low"));
+    queue.offer(low);
+    Thread.sleep(50);
+    Runnable high = prioritized(10, () -> order.add("high"));
+    queue.offer(high);
+    // the low-priority task has waited longer than 10 levels * 1 ms of aging
+    assertEquals(1, queue.getPosition(low));
+    assertEquals(2, queue.getPosition(high));
+    queue.poll().run();
+    queue.poll().run();
+    assertEquals(List.of("low", "high"), order);
+
+    order.clear();
+    queue = new ScriptPriorityQueue(10, 5000);
+    low = prioritized(0, () -> order.add("low"));
+    queue.offer(low);
+    Thread.sleep(50);
+    high = prioritized(10, () -> order.add("high"));
+    queue.offer(high);
+    assertEquals(2, queue.getPosition(low));
+    assertEquals(1, queue.getPosition(high));
+    queue.poll().run();
+    queue.poll().run();
+    assertEquals(List.of("high", "low"), order);
+    assertEquals(0, queue.getPosition(high));
+  }
+
+  private static Runnable prioritized(int priority, Runnable task) {
+    class PrioritizedTask implements Runnable, Prioritized {
+      @Override
+      public void run() {
+        task.run();
+      }
+
+      @Override
+      public int getPriority() {
+        return priority;
+      }
+    }
+    return new PrioritizedTask();
+  }
+
+  @Nested
+  @SpringBootTest(properties = {"scripts.executor.corePoolSize=1", "scripts.executor.maxPoolSize=1",
+      "scripts.executor.queueCapacity=5"})
+  class SingleThreadExecutorTest {
+
+    @Autowired
+    private ScriptService scriptService;
+
+    @Test
+    void testPriorityOrder() {
+      String busyCode = "const start = Date.now(); while (Date.now() - start < 100) {}";
+      run("prio_blocker", "while(true){}", Script.DEFAULT_PRIORITY);
+      await().until(() -> scriptService.getScript("prio_blocker").getStatus(), equalTo(RUNNING));
+      Script low = run("prio_low", busyCode, Script.MIN_PRIORITY);
+      Script high = run("prio_high", busyCode, Script.MAX_PRIORITY);
+      assertEquals(IN_QUEUE, low.getStatus());
+      assertEquals(IN_QUEUE, high.getStatus());
+      assertEquals(1, scriptService.getQueuePosition(high));
+      assertEquals(2, scriptService.getQueuePosition(low));
+
+      scriptService.stopScript("prio_blocker");
+      await().until(low::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+      await().until(high::getStatus, equalTo(EXECUTION_SUCCESSFUL));
+      assertNull(scriptService.getQueuePosition(low));
+      assertTrue(high.getLatestExecution().getEndTime()
+          .compareTo(low.getLatestExecution().getStartTime()) <= 0);
+      scriptService.deleteScript("prio_blocker");
+      scriptService.deleteScript("prio_low");
+      scriptService.deleteScript("prio_high");
+    }
+
+    private Script run(String name, String code, int priority) {
+      Script script = scriptService.addScript(name, code, priority, new ScriptLimits(0L, 0L, 0L),
+          ScriptBindings.empty(), List.of());
+      scriptService.startScriptAsynchronously(script);
+      return script;
+    }
+
+  }
+
+  @Nested
+  @SpringBootTest(properties = "scripts.eval.maxConcurrent=1")
+  @AutoConfigureMockMvc
+  class SingleEvaluationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ScriptService scriptService;
+    @Value("${scripts.eval.maxTimeoutMillis}")
+    private long maxEvalTimeoutMillis;
+
+    @Test
+    void testConcurrentEvaluationsAreRejected() throws Exception {
+      assertThrows(WrongScriptException.class,
+          () -> scriptService.evaluate("let a = ;", null, null));
+      // the permit is released after a failed evaluation
+      assertEquals(EXECUTION_SUCCESSFUL, scriptService.evaluate("1", null, null).getStatus());
+
+      ExecutorService runner = Executors.newSingleThreadExecutor();
+      try {
+        Future<Evaluation> running =
+            runner.submit(() -> scriptService.evaluate("while(true){}", 3000L, null));
+        await().untilAsserted(() -> assertThrows(ExecutorSaturatedException.class,
+            () -> scriptService.evaluate("1", null, null)));
+        MockHttpServletResponse response = mockMvc.perform(post("/scripts/eval").content("1"))
+            .andExpect(status().isTooManyRequests()).andReturn().getResponse();
+        assertEquals(maxEvalTimeoutMillis / 1000,
+            Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER)));
+        assertEquals(EXECUTION_LIMIT_EXCEEDED, running.get(10, SECONDS).getStatus());
+      } finally {
+        runner.shutdownNow();
+      }
+      mockMvc.perform(post("/scripts/eval").content("1")).andExpect(status().is2xxSuccessful());
+    }
+
   }
 
 }